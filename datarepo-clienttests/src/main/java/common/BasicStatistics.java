@@ -1,6 +1,8 @@
 package common;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.concurrent.TimeUnit;
+import org.HdrHistogram.Histogram;
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 
 @SuppressFBWarnings(
@@ -35,4 +37,31 @@ public class BasicStatistics {
 
     return stats;
   }
+
+  /**
+   * Utility method to calculate the standard statistics from a histogram of nanosecond values. The
+   * statistics are returned in milliseconds, to match the ones calculated from user journey
+   * results.
+   */
+  public static BasicStatistics calculateStandardStatistics(Histogram histogramNS) {
+    BasicStatistics stats = new BasicStatistics();
+    if (histogramNS.getTotalCount() == 0) {
+      return stats;
+    }
+
+    stats.max = nanosToMillis(histogramNS.getMaxValue());
+    stats.min = nanosToMillis(histogramNS.getMinValue());
+    stats.mean = nanosToMillis(histogramNS.getMean());
+    stats.standardDeviation = nanosToMillis(histogramNS.getStdDeviation());
+    stats.median = nanosToMillis(histogramNS.getValueAtPercentile(50));
+    stats.percentile95 = nanosToMillis(histogramNS.getValueAtPercentile(95));
+    stats.percentile99 = nanosToMillis(histogramNS.getValueAtPercentile(99));
+    stats.sum = stats.mean * histogramNS.getTotalCount();
+
+    return stats;
+  }
+
+  private static double nanosToMillis(double nanos) {
+    return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+  }
 }
@@ -0,0 +1,51 @@
+package runner;
+
+import common.BasicStatistics;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency of one API (or of the whole user journey) across all the user journeys of a test script.
+ * The full histogram is kept in compressed, base64-encoded form so that runs can be merged or
+ * compared later at any percentile.
+ */
+@SuppressFBWarnings(
+    value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD",
+    justification = "This POJO class is used for easy serialization to JSON using Jackson.")
+public class ApiLatencyResult {
+  public String apiName;
+
+  public long count; // number of calls
+  public long errorCount; // number of calls that threw an exception
+
+  public BasicStatistics latencyStatistics; // milliseconds
+  public double percentile90;
+  public double percentile999;
+
+  public String encodedHistogram; // HdrHistogram compressed encoding, base64, nanoseconds
+
+  public ApiLatencyResult() {} // default constructor so Jackson can deserialize
+
+  ApiLatencyResult(String apiName, Histogram histogramNS, long errorCount) {
+    this.apiName = apiName;
+    this.count = histogramNS.getTotalCount();
+    this.errorCount = errorCount;
+
+    latencyStatistics = BasicStatistics.calculateStandardStatistics(histogramNS);
+    percentile90 = nanosToMillis(histogramNS.getValueAtPercentile(90));
+    percentile999 = nanosToMillis(histogramNS.getValueAtPercentile(99.9));
+
+    ByteBuffer buffer = ByteBuffer.allocate(histogramNS.getNeededByteBufferCapacity());
+    int encodedLength = histogramNS.encodeIntoCompressedByteBuffer(buffer);
+    encodedHistogram =
+        Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), encodedLength));
+  }
+
+  private static double nanosToMillis(long nanos) {
+    return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+}
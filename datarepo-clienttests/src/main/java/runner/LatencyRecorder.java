@@ -0,0 +1,156 @@
+package runner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Records latencies of the API calls made by the user journeys of one test script into
+ * HdrHistograms. Each user journey thread records into its own histograms, so recording does not
+ * contend; the histograms of all the threads are merged when the test script finishes.
+ *
+ * <p>Test scripts time an API call by wrapping it in {@link #timeApiCall(String, Callable)}. The
+ * call is recorded against the recorder of the user journey running on the current thread; outside
+ * of a user journey (e.g. in setup) the call is not recorded.
+ *
+ * <p>Coordinated omission: when the runner starts journeys on a schedule, a journey that starts
+ * late because all the threads were busy is timed from when it should have started. The first API
+ * call of the journey, and the journey itself, include that wait. Later calls in the journey are
+ * timed from when they are made.
+ */
+public class LatencyRecorder {
+  /** Name the user journey latency is recorded under, next to the API calls. */
+  public static final String USER_JOURNEY = "userJourney";
+
+  // Latencies above this are recorded as this
+  private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.HOURS.toNanos(4);
+  private static final int SIGNIFICANT_DIGITS = 3;
+
+  private static final ThreadLocal<Journey> currentJourney = new ThreadLocal<>();
+
+  private final ConcurrentLinkedQueue<Map<String, ApiHistogram>> allThreadHistograms =
+      new ConcurrentLinkedQueue<>();
+  private final ThreadLocal<Map<String, ApiHistogram>> threadHistograms =
+      ThreadLocal.withInitial(
+          () -> {
+            Map<String, ApiHistogram> histograms = new HashMap<>();
+            allThreadHistograms.add(histograms);
+            return histograms;
+          });
+
+  /** A histogram for one API and its failure count. Only touched by the thread that owns it. */
+  static class ApiHistogram {
+    final Histogram histogram = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    long errorCount;
+
+    void add(ApiHistogram other) {
+      histogram.add(other.histogram);
+      errorCount += other.errorCount;
+    }
+  }
+
+  /** The user journey running on a thread. */
+  private static class Journey {
+    final LatencyRecorder recorder;
+    final long intendedStartNanos;
+    boolean firstCall = true;
+
+    Journey(LatencyRecorder recorder, long intendedStartNanos) {
+      this.recorder = recorder;
+      this.intendedStartNanos = intendedStartNanos;
+    }
+
+    long nextCallStartNanos() {
+      if (firstCall) {
+        firstCall = false;
+        return intendedStartNanos;
+      }
+      return System.nanoTime();
+    }
+  }
+
+  /**
+   * Start timing a user journey on this thread.
+   *
+   * @param intendedStartNanos System.nanoTime() at which the journey should have started
+   */
+  void startJourney(long intendedStartNanos) {
+    currentJourney.set(new Journey(this, intendedStartNanos));
+  }
+
+  /**
+   * Finish timing the user journey on this thread.
+   *
+   * @return the latency of the journey in nanoseconds, from its intended start
+   */
+  long endJourney(boolean failed) {
+    Journey journey = currentJourney.get();
+    currentJourney.remove();
+    long latency = System.nanoTime() - journey.intendedStartNanos;
+    record(USER_JOURNEY, latency, failed);
+    return latency;
+  }
+
+  /**
+   * Make an API call and record its latency against the user journey running on this thread.
+   *
+   * @param apiName name to record the latency under, e.g. the API operation id
+   * @param apiCall the call
+   * @return the result of the call
+   */
+  public static <T> T timeApiCall(String apiName, Callable<T> apiCall) throws Exception {
+    Journey journey = currentJourney.get();
+    if (journey == null) {
+      return apiCall.call();
+    }
+
+    long start = journey.nextCallStartNanos();
+    boolean failed = true;
+    try {
+      T result = apiCall.call();
+      failed = false;
+      return result;
+    } finally {
+      journey.recorder.record(apiName, System.nanoTime() - start, failed);
+    }
+  }
+
+  private void record(String apiName, long latencyNanos, boolean failed) {
+    ApiHistogram apiHistogram =
+        threadHistograms.get().computeIfAbsent(apiName, name -> new ApiHistogram());
+    apiHistogram.histogram.recordValue(
+        Math.min(Math.max(latencyNanos, 0), HIGHEST_TRACKABLE_NANOS));
+    if (failed) {
+      apiHistogram.errorCount++;
+    }
+  }
+
+  /**
+   * Merge the histograms of all the user journey threads. Call this only after the threads are
+   * done.
+   *
+   * @return one result per API, sorted by API name
+   */
+  List<ApiLatencyResult> mergeResults() {
+    Map<String, ApiHistogram> merged = new TreeMap<>();
+    for (Map<String, ApiHistogram> histograms : allThreadHistograms) {
+      for (Map.Entry<String, ApiHistogram> entry : histograms.entrySet()) {
+        merged.computeIfAbsent(entry.getKey(), name -> new ApiHistogram()).add(entry.getValue());
+      }
+    }
+
+    List<ApiLatencyResult> results = new ArrayList<>();
+    for (Map.Entry<String, ApiHistogram> entry : merged.entrySet()) {
+      results.add(
+          new ApiLatencyResult(
+              entry.getKey(), entry.getValue().histogram, entry.getValue().errorCount));
+    }
+    return results;
+  }
+}
@@ -0,0 +1,167 @@
+package runner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import runner.config.LoadProfileSpecification;
+import runner.config.TestScriptSpecification;
+import runner.config.TestUserSpecification;
+
+/**
+ * Runs the user journeys of one test script on the schedule of its load profile. A scheduler
+ * thread submits each user journey to the thread pool at its arrival time, whether or not the
+ * earlier ones have finished. Only counts and the first few failed user journeys are kept, so a
+ * long run does not hold on to every result.
+ */
+class LoadGenerator {
+  private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+  // Failed user journeys kept for the RAWDATA results file
+  private static final int MAX_RETAINED_FAILURES = 100;
+
+  private final TestScript testScript;
+  private final TestScriptSpecification testScriptSpecification;
+  private final LoadProfileSpecification loadProfile;
+  private final List<TestUserSpecification> testUsers;
+  private final ThreadPoolExecutor threadPool;
+  private final LatencyRecorder latencyRecorder = new LatencyRecorder();
+  private final Thread scheduler;
+
+  private final AtomicInteger numSubmitted = new AtomicInteger();
+  private final AtomicInteger numCompleted = new AtomicInteger();
+  private final AtomicInteger numExceptionsThrown = new AtomicInteger();
+  private final ConcurrentLinkedQueue<UserJourneyResult> retainedFailures =
+      new ConcurrentLinkedQueue<>();
+  private long scheduleStartNanos;
+  private long scheduleEndNanos;
+
+  LoadGenerator(
+      TestScript testScript,
+      TestScriptSpecification testScriptSpecification,
+      List<TestUserSpecification> testUsers) {
+    this.testScript = testScript;
+    this.testScriptSpecification = testScriptSpecification;
+    this.loadProfile = testScriptSpecification.loadProfile;
+    this.testUsers = testUsers;
+    this.threadPool =
+        (ThreadPoolExecutor)
+            Executors.newFixedThreadPool(testScriptSpecification.userJourneyThreadPoolSize);
+    this.scheduler =
+        new Thread(this::submitOnSchedule, "load-" + testScriptSpecification.description);
+  }
+
+  ThreadPoolExecutor getThreadPool() {
+    return threadPool;
+  }
+
+  /** Start submitting user journeys. Returns right away. */
+  void start() {
+    logger.info(
+        "Load profile: {} journeys over {} seconds, peak {}/s: {}",
+        loadProfile.totalArrivals(),
+        loadProfile.durationSeconds(),
+        loadProfile.arrivalsPerSecond,
+        testScriptSpecification.description);
+    scheduler.start();
+  }
+
+  /**
+   * Wait for the schedule to finish and for the user journeys to complete. User journeys still
+   * running after the expected time for each are interrupted.
+   *
+   * @return true if the thread pool terminated
+   */
+  boolean awaitTermination(long secondsToWaitForPoolShutdown) throws InterruptedException {
+    scheduler.join();
+    threadPool.shutdown();
+    boolean terminatedByItself =
+        threadPool.awaitTermination(
+            testScriptSpecification.expectedTimeForEach,
+            testScriptSpecification.expectedTimeForEachUnitObj);
+    if (!terminatedByItself) {
+      threadPool.shutdownNow();
+    }
+    return threadPool.awaitTermination(secondsToWaitForPoolShutdown, TimeUnit.SECONDS);
+  }
+
+  /** Stop submitting user journeys, e.g. after a failure elsewhere in the test run. */
+  void stop() {
+    scheduler.interrupt();
+    threadPool.shutdownNow();
+  }
+
+  /** Build the result for the test script. Call this only after awaitTermination. */
+  TestScriptResult getResult() {
+    double scheduleSeconds = (scheduleEndNanos - scheduleStartNanos) / 1e9;
+    double achievedArrivalsPerSecond =
+        (scheduleSeconds > 0) ? numSubmitted.get() / scheduleSeconds : 0;
+    return new TestScriptResult(
+        testScriptSpecification,
+        new ArrayList<>(retainedFailures),
+        numSubmitted.get(),
+        numCompleted.get(),
+        numExceptionsThrown.get(),
+        latencyRecorder.mergeResults(),
+        achievedArrivalsPerSecond);
+  }
+
+  private void submitOnSchedule() {
+    long totalArrivals = loadProfile.totalArrivals();
+    scheduleStartNanos = System.nanoTime();
+    try {
+      for (long arrival = 1; arrival <= totalArrivals; arrival++) {
+        long intendedStartNanos =
+            scheduleStartNanos + (long) (loadProfile.arrivalTimeSeconds(arrival) * 1e9);
+        long waitNanos = intendedStartNanos - System.nanoTime();
+        if (waitNanos > 0) {
+          TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+
+        TestUserSpecification testUser = testUsers.get((int) (arrival % testUsers.size()));
+        TestRunner.UserJourneyThread userJourney =
+            new TestRunner.UserJourneyThread(
+                testScript,
+                testScriptSpecification.description,
+                testUser,
+                latencyRecorder,
+                intendedStartNanos);
+        threadPool.execute(() -> runUserJourney(userJourney));
+        numSubmitted.incrementAndGet();
+      }
+    } catch (InterruptedException intEx) {
+      logger.info("Load profile stopped early: {}", testScriptSpecification.description);
+      Thread.currentThread().interrupt();
+    } catch (Exception ex) {
+      // e.g. the thread pool was shut down underneath the scheduler
+      logger.error("Load profile scheduler failed: {}", testScriptSpecification.description, ex);
+    } finally {
+      scheduleEndNanos = System.nanoTime();
+    }
+  }
+
+  private void runUserJourney(TestRunner.UserJourneyThread userJourney) {
+    UserJourneyResult result;
+    try {
+      result = userJourney.call();
+      result.completed = true;
+    } catch (Exception ex) {
+      result = new UserJourneyResult(testScriptSpecification.name, "");
+      result.exceptionThrown = ex;
+    }
+
+    if (result.completed) {
+      numCompleted.incrementAndGet();
+    }
+    if (result.exceptionThrown != null) {
+      if (numExceptionsThrown.incrementAndGet() <= MAX_RETAINED_FAILURES) {
+        retainedFailures.add(result);
+      }
+    }
+  }
+}
@@ -39,6 +39,8 @@ public class TestRunner {
   private List<ThreadPoolExecutor> threadPools;
   private ThreadPoolExecutor disruptionThreadPool;
   private List<List<Future<UserJourneyResult>>> userJourneyFutureLists;
+  private List<LatencyRecorder> latencyRecorders;
+  private List<LoadGenerator> loadGenerators;
 
   private List<TestScriptResult> testScriptResults;
   protected TestRunSummary summary;
@@ -95,6 +97,8 @@ public class TestRunner {
     this.threadPools = new ArrayList<>();
     this.disruptionThreadPool = null;
     this.userJourneyFutureLists = new ArrayList<>();
+    this.latencyRecorders = new ArrayList<>();
+    this.loadGenerators = new ArrayList<>();
     this.testScriptResults = new ArrayList<>();
 
     this.summary = new TestRunSummary(UUID.randomUUID().toString());
@@ -132,6 +136,13 @@ public class TestRunner {
             "Test Scripts: Exception during forced test script cleanups", testScriptCleanupEx);
       }
 
+      // stop any load profiles that are still submitting user journeys
+      for (LoadGenerator loadGenerator : loadGenerators) {
+        if (loadGenerator != null) {
+          loadGenerator.stop();
+        }
+      }
+
       throw originalEx;
     }
   }
@@ -232,11 +243,26 @@ public class TestRunner {
       TestScript testScript = scripts.get(tsCtr);
       TestScriptSpecification testScriptSpecification = config.testScripts.get(tsCtr);
 
+      // a load profile submits the user journeys on a schedule from its own thread
+      if (testScriptSpecification.loadProfile != null) {
+        LoadGenerator loadGenerator =
+            new LoadGenerator(testScript, testScriptSpecification, config.testUsers);
+        loadGenerators.add(loadGenerator);
+        threadPools.add(loadGenerator.getThreadPool());
+        userJourneyFutureLists.add(null);
+        latencyRecorders.add(null);
+        loadGenerator.start();
+        continue;
+      }
+      loadGenerators.add(null);
+
       // create a thread pool for running its user journeys
       ThreadPoolExecutor threadPool =
           (ThreadPoolExecutor)
               Executors.newFixedThreadPool(testScriptSpecification.userJourneyThreadPoolSize);
       threadPools.add(threadPool);
+      LatencyRecorder latencyRecorder = new LatencyRecorder();
+      latencyRecorders.add(latencyRecorder);
 
       // kick off the user journey(s), one per thread
       List<Future<UserJourneyResult>> userJourneyFutures = new ArrayList<>();
@@ -248,12 +274,13 @@ public class TestRunner {
         // parameters
         Future<UserJourneyResult> userJourneyFuture =
             threadPool.submit(
-                new UserJourneyThread(testScript, testScriptSpecification.description, testUser));
+                new UserJourneyThread(
+                    testScript, testScriptSpecification.description, testUser, latencyRecorder));
         userJourneyFutures.add(userJourneyFuture);
       }
 
-      // TODO: support different patterns of kicking off user journeys. here they're all queued at
-      // once
+      // all the user journeys are queued at once. see LoadGenerator for kicking them off on a
+      // schedule
       userJourneyFutureLists.add(userJourneyFutures);
     }
 
@@ -263,6 +290,16 @@ public class TestRunner {
       TestScriptSpecification testScriptSpecification = config.testScripts.get(ctr);
       ThreadPoolExecutor threadPool = threadPools.get(ctr);
 
+      LoadGenerator loadGenerator = loadGenerators.get(ctr);
+      if (loadGenerator != null) {
+        if (!loadGenerator.awaitTermination(secondsToWaitForPoolShutdown)) {
+          logger.error(
+              "Test Scripts: Thread pool for test script failed to terminate: {}",
+              testScriptSpecification.description);
+        }
+        continue;
+      }
+
       threadPool.shutdown();
       long totalTerminationTime =
           testScriptSpecification.expectedTimeForEach
@@ -300,6 +337,12 @@ public class TestRunner {
       List<Future<UserJourneyResult>> userJourneyFutureList = userJourneyFutureLists.get(ctr);
       TestScriptSpecification testScriptSpecification = config.testScripts.get(ctr);
 
+      LoadGenerator loadGenerator = loadGenerators.get(ctr);
+      if (loadGenerator != null) {
+        testScriptResults.add(loadGenerator.getResult());
+        continue;
+      }
+
       List<UserJourneyResult> userJourneyResults = new ArrayList<>();
       for (Future<UserJourneyResult> userJourneyFuture : userJourneyFutureList) {
         UserJourneyResult result = null;
@@ -322,7 +365,11 @@ public class TestRunner {
         }
         userJourneyResults.add(result);
       }
-      testScriptResults.add(new TestScriptResult(testScriptSpecification, userJourneyResults));
+      testScriptResults.add(
+          new TestScriptResult(
+              testScriptSpecification,
+              userJourneyResults,
+              latencyRecorders.get(ctr).mergeResults()));
     }
 
     // pull out the test script summary information into the summary object
@@ -390,29 +437,47 @@ public class TestRunner {
     return exceptionThrown;
   }
 
-  private static class UserJourneyThread implements Callable<UserJourneyResult> {
+  static class UserJourneyThread implements Callable<UserJourneyResult> {
     TestScript testScript;
     String userJourneyDescription;
     TestUserSpecification testUser;
+    LatencyRecorder latencyRecorder;
+    Long intendedStartNanos; // null to time the user journey from when it actually starts
+
+    public UserJourneyThread(
+        TestScript testScript,
+        String userJourneyDescription,
+        TestUserSpecification testUser,
+        LatencyRecorder latencyRecorder) {
+      this(testScript, userJourneyDescription, testUser, latencyRecorder, null);
+    }
 
     public UserJourneyThread(
-        TestScript testScript, String userJourneyDescription, TestUserSpecification testUser) {
+        TestScript testScript,
+        String userJourneyDescription,
+        TestUserSpecification testUser,
+        LatencyRecorder latencyRecorder,
+        Long intendedStartNanos) {
       this.testScript = testScript;
       this.userJourneyDescription = userJourneyDescription;
       this.testUser = testUser;
+      this.latencyRecorder = latencyRecorder;
+      this.intendedStartNanos = intendedStartNanos;
     }
 
     public UserJourneyResult call() {
       UserJourneyResult result =
           new UserJourneyResult(userJourneyDescription, Thread.currentThread().getName());
 
-      long startTime = System.nanoTime();
+      // a scheduled user journey that starts late is timed from when it should have started
+      latencyRecorder.startJourney(
+          (intendedStartNanos != null) ? intendedStartNanos : System.nanoTime());
       try {
         testScript.userJourney(testUser);
       } catch (Exception ex) {
         result.exceptionThrown = ex;
       }
-      result.elapsedTimeNS = System.nanoTime() - startTime;
+      result.elapsedTimeNS = latencyRecorder.endJourney(result.exceptionThrown != null);
 
       return result;
     }
@@ -29,6 +29,13 @@ public class TestScriptResult {
 
     public boolean isFailure; // numCompleted < totalRun
 
+    // latency of each API the user journeys timed, and of the user journey itself
+    public List<ApiLatencyResult> apiLatencies;
+
+    // only set when running a load profile
+    public double targetArrivalsPerSecond;
+    public double achievedArrivalsPerSecond; // user journeys started per second during the profile
+
     public TestScriptResultSummary() {} // default constructor so Jackson can deserialize
 
     private TestScriptResultSummary(String testScriptDescription) {
@@ -37,13 +44,51 @@ public class TestScriptResult {
   }
 
   public TestScriptResult(
-      TestScriptSpecification testScriptSpecification, List<UserJourneyResult> userJourneyResults) {
+      TestScriptSpecification testScriptSpecification,
+      List<UserJourneyResult> userJourneyResults,
+      List<ApiLatencyResult> apiLatencies) {
     this.userJourneyResults = userJourneyResults;
 
     summary = new TestScriptResultSummary(testScriptSpecification.description);
+    summary.apiLatencies = apiLatencies;
     calculateStatistics();
   }
 
+  /**
+   * Result of running a load profile. Only some of the UserJourneyResults are kept, so the counts
+   * are passed in and the elapsed time statistics come from the user journey latency histogram.
+   *
+   * @param retainedUserJourneyResults the user journeys kept for reporting, e.g. the first failures
+   */
+  public TestScriptResult(
+      TestScriptSpecification testScriptSpecification,
+      List<UserJourneyResult> retainedUserJourneyResults,
+      int totalRun,
+      int numCompleted,
+      int numExceptionsThrown,
+      List<ApiLatencyResult> apiLatencies,
+      double achievedArrivalsPerSecond) {
+    this.userJourneyResults = retainedUserJourneyResults;
+
+    summary = new TestScriptResultSummary(testScriptSpecification.description);
+    summary.apiLatencies = apiLatencies;
+    summary.totalRun = totalRun;
+    summary.numCompleted = numCompleted;
+    summary.numExceptionsThrown = numExceptionsThrown;
+    summary.targetArrivalsPerSecond = testScriptSpecification.loadProfile.arrivalsPerSecond;
+    summary.achievedArrivalsPerSecond = achievedArrivalsPerSecond;
+
+    summary.elapsedTimeStatistics = new BasicStatistics();
+    for (ApiLatencyResult apiLatency : apiLatencies) {
+      if (apiLatency.apiName.equals(LatencyRecorder.USER_JOURNEY)) {
+        summary.elapsedTimeStatistics = apiLatency.latencyStatistics;
+      }
+    }
+
+    summary.isFailure =
+        (summary.numCompleted < summary.totalRun) || (summary.numExceptionsThrown > 0);
+  }
+
   public TestScriptResultSummary getSummary() {
     return summary;
   }
@@ -0,0 +1,70 @@
+package runner.config;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Sustained-load settings for a test script. When a test script specification has a load profile,
+ * the runner starts user journeys on a schedule (an open model) instead of queueing a fixed number
+ * of them at once. The arrival rate ramps linearly from zero up to the target rate, holds there,
+ * and then ramps back down to zero. Journeys that cannot start on time because the thread pool is
+ * busy wait in the queue, and that wait counts toward their latency.
+ */
+@SuppressFBWarnings(
+    value = "UWF_UNWRITTEN_PUBLIC_OR_PROTECTED_FIELD",
+    justification = "This POJO class is used for easy serialization to JSON using Jackson.")
+public class LoadProfileSpecification implements SpecificationInterface {
+  public double arrivalsPerSecond;
+  public long rampUpSeconds = 0;
+  public long holdSeconds;
+  public long rampDownSeconds = 0;
+
+  LoadProfileSpecification() {}
+
+  /** Validate the load profile specification read in from the JSON file. */
+  public void validate() {
+    if (arrivalsPerSecond <= 0) {
+      throw new IllegalArgumentException("Arrivals per second must be > 0.");
+    }
+    if (rampUpSeconds < 0 || holdSeconds < 0 || rampDownSeconds < 0) {
+      throw new IllegalArgumentException("Ramp up, hold and ramp down seconds must be >= 0.");
+    }
+    if (totalArrivals() < 1) {
+      throw new IllegalArgumentException("Load profile must start at least one user journey.");
+    }
+  }
+
+  /** Total number of user journeys the profile starts. */
+  public long totalArrivals() {
+    return (long)
+        Math.floor(arrivalsPerSecond * (rampUpSeconds / 2.0 + holdSeconds + rampDownSeconds / 2.0));
+  }
+
+  /** Length of the profile, from the first arrival to the end of the ramp down. */
+  public long durationSeconds() {
+    return rampUpSeconds + holdSeconds + rampDownSeconds;
+  }
+
+  /**
+   * Time of an arrival, found by inverting the cumulative number of arrivals of the rate curve.
+   *
+   * @param arrival number of the arrival, starting at 1
+   * @return seconds from the start of the profile to the arrival
+   */
+  public double arrivalTimeSeconds(long arrival) {
+    double rate = arrivalsPerSecond;
+    double rampUpArrivals = rate * rampUpSeconds / 2.0;
+    double holdArrivals = rate * holdSeconds;
+
+    if (arrival <= rampUpArrivals) {
+      // arrivals(t) = rate * t^2 / (2 * rampUp)
+      return Math.sqrt(2.0 * rampUpSeconds * arrival / rate);
+    }
+    if (arrival <= rampUpArrivals + holdArrivals) {
+      return rampUpSeconds + (arrival - rampUpArrivals) / rate;
+    }
+    // arrivals(s) = rate * (s - s^2 / (2 * rampDown)), s = seconds into the ramp down
+    double rampDownArrivals = arrival - rampUpArrivals - holdArrivals;
+    double fraction = Math.max(0.0, 1.0 - 2.0 * rampDownArrivals / (rate * rampDownSeconds));
+    return rampUpSeconds + holdSeconds + rampDownSeconds * (1.0 - Math.sqrt(fraction));
+  }
+}
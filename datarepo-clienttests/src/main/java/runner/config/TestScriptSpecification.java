@@ -15,6 +15,7 @@ public class TestScriptSpecification implements SpecificationInterface {
   public long expectedTimeForEach;
   public String expectedTimeForEachUnit;
   public List<String> parameters;
+  public LoadProfileSpecification loadProfile;
 
   private TestScript scriptClassInstance;
   public TimeUnit expectedTimeForEachUnitObj;
@@ -45,6 +46,12 @@ public class TestScriptSpecification implements SpecificationInterface {
 
     expectedTimeForEachUnitObj = TimeUnit.valueOf(expectedTimeForEachUnit);
 
+    // a load profile decides how many user journeys to run, instead of
+    // numberOfUserJourneyThreadsToRun
+    if (loadProfile != null) {
+      loadProfile.validate();
+    }
+
     try {
       Class<?> scriptClassGeneric = Class.forName(scriptsPackage + "." + name);
       Class<? extends TestScript> scriptClass = (Class<? extends TestScript>) scriptClassGeneric;
@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import runner.LatencyRecorder;
 import runner.config.TestUserSpecification;
 import scripts.testscripts.baseclasses.SimpleDataset;
 import scripts.utils.DataRepoUtils;
@@ -156,7 +157,9 @@ public class DRSLookup extends SimpleDataset {
   public void userJourney(TestUserSpecification testUser) throws Exception {
     ApiClient apiClient = DataRepoUtils.getClientForTestUser(testUser, server);
     DataRepositoryServiceApi dataRepositoryServiceApi = new DataRepositoryServiceApi(apiClient);
-    DRSObject object = dataRepositoryServiceApi.getObject(dirObjectId, false);
+    DRSObject object =
+        LatencyRecorder.timeApiCall(
+            "getObject", () -> dataRepositoryServiceApi.getObject(dirObjectId, false));
     logger.debug(
         "Successfully retrieved drs object: {}, with id: {} and data project: {}",
         object.getName(),
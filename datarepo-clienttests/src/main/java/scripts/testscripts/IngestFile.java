@@ -13,6 +13,7 @@ import java.net.URISyntaxException;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import runner.LatencyRecorder;
 import runner.config.TestUserSpecification;
 import scripts.testscripts.baseclasses.SimpleDataset;
 import scripts.utils.DataRepoUtils;
@@ -62,7 +63,9 @@ public class IngestFile extends SimpleDataset {
     fileLoadModelArray.addLoadArrayItem(fileLoadModel);
 
     JobModel ingestFileJobResponse =
-        repositoryApi.bulkFileLoadArray(datasetSummaryModel.getId(), fileLoadModelArray);
+        LatencyRecorder.timeApiCall(
+            "bulkFileLoadArray",
+            () -> repositoryApi.bulkFileLoadArray(datasetSummaryModel.getId(), fileLoadModelArray));
 
     ingestFileJobResponse = DataRepoUtils.waitForJobToFinish(repositoryApi, ingestFileJobResponse);
 
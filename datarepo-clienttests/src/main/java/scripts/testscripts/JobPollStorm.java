@@ -0,0 +1,47 @@
+package scripts.testscripts;
+
+import bio.terra.datarepo.api.RepositoryApi;
+import bio.terra.datarepo.client.ApiClient;
+import bio.terra.datarepo.model.JobModel;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import runner.LatencyRecorder;
+import runner.config.TestUserSpecification;
+import scripts.testscripts.baseclasses.SimpleDataset;
+import scripts.utils.DataRepoUtils;
+
+/**
+ * Polls the job endpoints the way the UI and clients waiting on a job do: list the user's recent
+ * jobs, then look up the most recent one. The setup creates a dataset, so the dataset creator has
+ * at least one job; other test users poll whatever jobs they already have.
+ */
+public class JobPollStorm extends SimpleDataset {
+  private static final Logger logger = LoggerFactory.getLogger(JobPollStorm.class);
+
+  // Number of jobs to list on each poll
+  private static final int JOBS_PER_PAGE = 10;
+
+  /** Public constructor so that this class can be instantiated via reflection. */
+  public JobPollStorm() {
+    super();
+  }
+
+  public void userJourney(TestUserSpecification testUser) throws Exception {
+    ApiClient apiClient = DataRepoUtils.getClientForTestUser(testUser, server);
+    RepositoryApi repositoryApi = new RepositoryApi(apiClient);
+
+    List<JobModel> jobs =
+        LatencyRecorder.timeApiCall(
+            "enumerateJobs", () -> repositoryApi.enumerateJobs(0, JOBS_PER_PAGE));
+    if (jobs.isEmpty()) {
+      logger.debug("No jobs to poll for test user: {}", testUser.name);
+      return;
+    }
+
+    String jobId = jobs.get(0).getId();
+    JobModel job =
+        LatencyRecorder.timeApiCall("retrieveJob", () -> repositoryApi.retrieveJob(jobId));
+    logger.debug("Successfully polled job: id = {}, status = {}", jobId, job.getJobStatus());
+  }
+}
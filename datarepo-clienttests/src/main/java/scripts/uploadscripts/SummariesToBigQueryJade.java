@@ -17,6 +17,7 @@ import java.util.Map;
 import java.util.TimeZone;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import runner.ApiLatencyResult;
 import runner.TestRunner;
 import runner.TestScriptResult;
 import runner.config.ServiceAccountSpecification;
@@ -55,6 +56,7 @@ public class SummariesToBigQueryJade extends UploadScript {
   private static String testRunTableName = "testRun";
   private static String testScriptResultsTableName = "testScriptResults";
   private static String measurementCollectionTableName = "measurementCollection";
+  private static String apiLatencyTableName = "apiLatency";
 
   /**
    * Upload the test results saved to the given directory. Results may include Test Runner
@@ -100,6 +102,26 @@ public class SummariesToBigQueryJade extends UploadScript {
     }
     BigQueryUtils.insertAllIntoBigQuery(bigQueryClient, insertRequestBuilder.build());
 
+    // insert into apiLatency, one row per API timed by each test script
+    tableId = TableId.of(datasetName, apiLatencyTableName);
+    insertRequestBuilder = InsertAllRequest.newBuilder(tableId);
+    boolean foundApiLatencies = false;
+    for (TestScriptResult.TestScriptResultSummary testScriptResult :
+        testRunSummary.testScriptResultSummaries) {
+      if (testScriptResult.apiLatencies == null) {
+        continue;
+      }
+      for (ApiLatencyResult apiLatency : testScriptResult.apiLatencies) {
+        insertRequestBuilder.addRow(buildApiLatencyRow(testScriptResult, apiLatency));
+        foundApiLatencies = true;
+      }
+    }
+    if (foundApiLatencies) {
+      BigQueryUtils.insertAllIntoBigQuery(bigQueryClient, insertRequestBuilder.build());
+    } else {
+      logger.info("No API latencies found.");
+    }
+
     // insert into measurementCollection
     if (measurementCollectionSummaries == null) {
       logger.info("No measurement summaries found.");
@@ -139,6 +161,35 @@ public class SummariesToBigQueryJade extends UploadScript {
     return rowContent;
   }
 
+  /** Build a single row for each API timed by a test script. */
+  private Map<String, Object> buildApiLatencyRow(
+      TestScriptResult.TestScriptResultSummary testScriptResult, ApiLatencyResult apiLatency) {
+    Map<String, Object> rowContent = new HashMap<>();
+
+    rowContent.put("testRun_id", testRunSummary.id);
+
+    rowContent.put("testScriptDescription", testScriptResult.testScriptDescription);
+    rowContent.put("apiName", apiLatency.apiName);
+    rowContent.put("count", apiLatency.count);
+    rowContent.put("errorCount", apiLatency.errorCount);
+
+    rowContent.put("latency_min", apiLatency.latencyStatistics.min);
+    rowContent.put("latency_max", apiLatency.latencyStatistics.max);
+    rowContent.put("latency_mean", apiLatency.latencyStatistics.mean);
+    rowContent.put("latency_standardDeviation", apiLatency.latencyStatistics.standardDeviation);
+    rowContent.put("latency_median", apiLatency.latencyStatistics.median);
+    rowContent.put("latency_percentile90", apiLatency.percentile90);
+    rowContent.put("latency_percentile95", apiLatency.latencyStatistics.percentile95);
+    rowContent.put("latency_percentile99", apiLatency.latencyStatistics.percentile99);
+    rowContent.put("latency_percentile999", apiLatency.percentile999);
+
+    rowContent.put("targetArrivalsPerSecond", testScriptResult.targetArrivalsPerSecond);
+    rowContent.put("achievedArrivalsPerSecond", testScriptResult.achievedArrivalsPerSecond);
+    rowContent.put("encodedHistogram", apiLatency.encodedHistogram);
+
+    return rowContent;
+  }
+
   /** Build a single row for each test script result. */
   private Map<String, Object> buildTestScriptResultsRow(
       TestScriptSpecification testScriptSpecification,
@@ -30,6 +30,7 @@ import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import runner.LatencyRecorder;
 import runner.config.ServerSpecification;
 import runner.config.TestUserSpecification;
 
@@ -118,13 +119,14 @@ public final class DataRepoUtils {
   public static JobModel pollForRunningJob(RepositoryApi repositoryApi, JobModel job, int pollTime)
       throws Exception {
     int pollCtr = Math.floorDiv(pollTime, secondsIntervalToPollJob);
-    job = repositoryApi.retrieveJob(job.getId());
+    String jobId = job.getId();
+    job = LatencyRecorder.timeApiCall("retrieveJob", () -> repositoryApi.retrieveJob(jobId));
     int tryCount = 1;
 
     while (job.getJobStatus().equals(JobModel.JobStatusEnum.RUNNING) && pollCtr >= 0) {
       logger.debug("Sleeping. try #" + tryCount + " For Job: " + job.getDescription());
       TimeUnit.SECONDS.sleep(secondsIntervalToPollJob);
-      job = repositoryApi.retrieveJob(job.getId());
+      job = LatencyRecorder.timeApiCall("retrieveJob", () -> repositoryApi.retrieveJob(jobId));
       tryCount++;
       pollCtr--;
     }
@@ -145,7 +147,9 @@ public final class DataRepoUtils {
   public static <T> T getJobResult(RepositoryApi repositoryApi, JobModel job, Class<T> resultClass)
       throws Exception {
     logger.debug("Fetching Data Repo job result");
-    Object jobResult = repositoryApi.retrieveJobResult(job.getId());
+    Object jobResult =
+        LatencyRecorder.timeApiCall(
+            "retrieveJobResult", () -> repositoryApi.retrieveJobResult(job.getId()));
 
     ObjectMapper objectMapper = new ObjectMapper();
     return objectMapper.convertValue(jobResult, resultClass);
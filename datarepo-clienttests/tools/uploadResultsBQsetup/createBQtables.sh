@@ -15,6 +15,7 @@ bq --location=US mk -d --description "TestRunner results" $project_id:$dataset
 bq mk --table $project_id:$dataset.testRun ./tableSchema_testRun.json
 bq mk --table $project_id:$dataset.testScriptResults ./tableSchema_testScriptResults.json
 bq mk --table $project_id:$dataset.measurementCollection ./tableSchema_measurementCollection.json
+bq mk --table $project_id:$dataset.apiLatency ./tableSchema_apiLatency.json
 
 # list tables in the BQ dataset
 bq ls $project_id:$dataset
@@ -13,6 +13,8 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -43,6 +45,25 @@ public class ApplicationConfiguration {
      * Number of file loads to run concurrently in a bulk file load
      */
     private int loadConcurrentFiles;
+    /**
+     * Fewest and most file loads per pod that the bulk load driver may adapt to. The driver starts at
+     * loadConcurrentFiles and adjusts within these bounds based on load throughput, failures and queueing.
+     * The most should be above loadConcurrentFiles, or the driver can only back off. Going past what the
+     * Stairway threads can run shows up as queueing, which makes the driver back off again.
+     */
+    private int loadConcurrentFilesMin;
+    private int loadConcurrentFilesMax;
+    /**
+     * When true, bulk loads from a control file look up source object sizes while populating the load,
+     * so the driver can start the largest files first.
+     */
+    private boolean loadScheduleBySize;
+    /**
+     * Files at least this many megabytes are scheduled as large files; at most loadConcurrentLargeFiles
+     * of them per pod run at once.
+     */
+    private int loadLargeFileSizeMb;
+    private int loadConcurrentLargeFiles;
     /**
      * Number of file loads to run concurrently.
      * NOTE: the maximum number of threads used for load is one for the driver flight and N for
@@ -117,6 +138,11 @@ public class ApplicationConfiguration {
      */
     private int firestoreQueryBatchSize;
 
+    /**
+     * Maximum number of files and directories returned by one directory tree expansion
+     */
+    private int firestoreExpandNodeBudget;
+
     /**
      * Size of users in auth cache
      */
@@ -127,6 +153,27 @@ public class ApplicationConfiguration {
      */
     private int authCacheTimeoutSeconds;
 
+    /**
+     * Time in seconds to cache the instance-wide job admin checks (list or delete any job). These change rarely
+     * and are checked on every job poll, so they can be cached longer than other checks.
+     */
+    private int authCacheAdminTimeoutSeconds;
+
+    /**
+     * Number of fully loaded datasets and of snapshots to keep in the metadata caches
+     */
+    private int metadataCacheSize;
+
+    /**
+     * Percent of successful requests to the sampled paths that get an access log line
+     */
+    private int accessLogSamplePercent;
+
+    /**
+     * Path prefixes of high volume endpoints whose access logging is sampled
+     */
+    private List<String> accessLogSampledPaths = new ArrayList<>();
+
     /**
      * Certain operations can be spread to run asynchronously to gain a performance boost.  Instead of having
      * each such task create its own threadpool, this property is used to create a globally accessible pool that should
@@ -206,6 +253,46 @@ public class ApplicationConfiguration {
         this.loadConcurrentFiles = loadConcurrentFiles;
     }
 
+    public int getLoadConcurrentFilesMin() {
+        return loadConcurrentFilesMin;
+    }
+
+    public void setLoadConcurrentFilesMin(int loadConcurrentFilesMin) {
+        this.loadConcurrentFilesMin = loadConcurrentFilesMin;
+    }
+
+    public int getLoadConcurrentFilesMax() {
+        return loadConcurrentFilesMax;
+    }
+
+    public void setLoadConcurrentFilesMax(int loadConcurrentFilesMax) {
+        this.loadConcurrentFilesMax = loadConcurrentFilesMax;
+    }
+
+    public boolean isLoadScheduleBySize() {
+        return loadScheduleBySize;
+    }
+
+    public void setLoadScheduleBySize(boolean loadScheduleBySize) {
+        this.loadScheduleBySize = loadScheduleBySize;
+    }
+
+    public int getLoadLargeFileSizeMb() {
+        return loadLargeFileSizeMb;
+    }
+
+    public void setLoadLargeFileSizeMb(int loadLargeFileSizeMb) {
+        this.loadLargeFileSizeMb = loadLargeFileSizeMb;
+    }
+
+    public int getLoadConcurrentLargeFiles() {
+        return loadConcurrentLargeFiles;
+    }
+
+    public void setLoadConcurrentLargeFiles(int loadConcurrentLargeFiles) {
+        this.loadConcurrentLargeFiles = loadConcurrentLargeFiles;
+    }
+
     public int getLoadConcurrentIngests() {
         return loadConcurrentIngests;
     }
@@ -310,6 +397,14 @@ public class ApplicationConfiguration {
         this.firestoreQueryBatchSize = firestoreQueryBatchSize;
     }
 
+    public int getFirestoreExpandNodeBudget() {
+        return firestoreExpandNodeBudget;
+    }
+
+    public void setFirestoreExpandNodeBudget(int firestoreExpandNodeBudget) {
+        this.firestoreExpandNodeBudget = firestoreExpandNodeBudget;
+    }
+
     public int getAuthCacheSize() {
         return authCacheSize;
     }
@@ -326,6 +421,38 @@ public class ApplicationConfiguration {
         this.authCacheTimeoutSeconds = authCacheTimeoutSeconds;
     }
 
+    public int getAuthCacheAdminTimeoutSeconds() {
+        return authCacheAdminTimeoutSeconds;
+    }
+
+    public void setAuthCacheAdminTimeoutSeconds(int authCacheAdminTimeoutSeconds) {
+        this.authCacheAdminTimeoutSeconds = authCacheAdminTimeoutSeconds;
+    }
+
+    public int getMetadataCacheSize() {
+        return metadataCacheSize;
+    }
+
+    public void setMetadataCacheSize(int metadataCacheSize) {
+        this.metadataCacheSize = metadataCacheSize;
+    }
+
+    public int getAccessLogSamplePercent() {
+        return accessLogSamplePercent;
+    }
+
+    public void setAccessLogSamplePercent(int accessLogSamplePercent) {
+        this.accessLogSamplePercent = accessLogSamplePercent;
+    }
+
+    public List<String> getAccessLogSampledPaths() {
+        return accessLogSampledPaths;
+    }
+
+    public void setAccessLogSampledPaths(List<String> accessLogSampledPaths) {
+        this.accessLogSampledPaths = accessLogSampledPaths;
+    }
+
     public int getNumPerformanceThreads() {
         return numPerformanceThreads;
     }
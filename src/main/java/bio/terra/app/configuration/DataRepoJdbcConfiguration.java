@@ -14,6 +14,11 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 @ConfigurationProperties(prefix = "db.datarepo")
 public class DataRepoJdbcConfiguration extends JdbcConfiguration {
 
+    @Override
+    protected String getPoolName() {
+        return "datarepo";
+    }
+
     @Bean("dataRepoTransactionManager")
     public PlatformTransactionManager getTransactionManager() {
         return new DataSourceTransactionManager(getDataSource());
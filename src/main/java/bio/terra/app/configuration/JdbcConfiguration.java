@@ -1,5 +1,9 @@
 package bio.terra.app.configuration;
 
+import bio.terra.app.jdbc.InstrumentedDataSource;
+import bio.terra.model.RepositoryStatusModelSystems;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.apache.commons.dbcp2.ConnectionFactory;
 import org.apache.commons.dbcp2.DriverManagerConnectionFactory;
 import org.apache.commons.dbcp2.PoolableConnection;
@@ -7,16 +11,18 @@ import org.apache.commons.dbcp2.PoolableConnectionFactory;
 import org.apache.commons.dbcp2.PoolingDataSource;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
-import org.apache.commons.pool2.ObjectPool;
 import org.apache.commons.pool2.impl.GenericObjectPool;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 
+import javax.sql.DataSource;
+import java.time.Duration;
 import java.util.Properties;
 
 /**
- * Base class for accessing JDBC configuration properties.
+ * Base class for accessing JDBC configuration properties. As a meter binder, it hands the application's
+ * meter registry to its data source.
  */
-public class JdbcConfiguration {
+public class JdbcConfiguration implements MeterBinder {
     private String uri;
     private String username;
     private String password;
@@ -32,9 +38,18 @@ public class JdbcConfiguration {
      */
     private int poolMaxIdle;
 
+    /**
+     * Statements that run longer than this are logged with their SQL
+     */
+    private int slowQueryMillis;
+
+    /**
+     * A wait for a connection longer than this marks the pool as exhausted in the status
+     */
+    private int poolWaitAlertMillis;
 
     // Not a property
-    private PoolingDataSource<PoolableConnection> dataSource;
+    private InstrumentedDataSource dataSource;
 
     public String getUri() {
         return uri;
@@ -60,6 +75,14 @@ public class JdbcConfiguration {
         return poolMaxIdle;
     }
 
+    public int getSlowQueryMillis() {
+        return slowQueryMillis;
+    }
+
+    public int getPoolWaitAlertMillis() {
+        return poolWaitAlertMillis;
+    }
+
     // NOTE: even though the setters appear unused, the Spring infrastructure uses them to populate the properties.
     public void setUri(String uri) {
         this.uri = uri;
@@ -85,8 +108,23 @@ public class JdbcConfiguration {
         this.poolMaxIdle = poolMaxIdle;
     }
 
+    public void setSlowQueryMillis(int slowQueryMillis) {
+        this.slowQueryMillis = slowQueryMillis;
+    }
+
+    public void setPoolWaitAlertMillis(int poolWaitAlertMillis) {
+        this.poolWaitAlertMillis = poolWaitAlertMillis;
+    }
+
+    /**
+     * Name of the pool in metrics and status
+     */
+    protected String getPoolName() {
+        return "default";
+    }
+
     // Main use of the configuration is this pooling data source object.
-    public PoolingDataSource<PoolableConnection> getDataSource() {
+    public DataSource getDataSource() {
         // Lazy allocation of the data source
         if (dataSource == null) {
             configureDataSource();
@@ -107,12 +145,29 @@ public class JdbcConfiguration {
         final GenericObjectPoolConfig<PoolableConnection> config = new GenericObjectPoolConfig<>();
         config.setMaxTotal(poolMaxTotal);
         config.setMaxIdle(poolMaxIdle);
-        final ObjectPool<PoolableConnection> connectionPool =
+        final GenericObjectPool<PoolableConnection> connectionPool =
                 new GenericObjectPool<>(poolableConnectionFactory, config);
 
         poolableConnectionFactory.setPool(connectionPool);
 
-        dataSource = new PoolingDataSource<>(connectionPool);
+        dataSource = new InstrumentedDataSource(
+            getPoolName(),
+            new PoolingDataSource<>(connectionPool),
+            connectionPool,
+            Duration.ofMillis(slowQueryMillis),
+            Duration.ofMillis(poolWaitAlertMillis));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        ((InstrumentedDataSource) getDataSource()).bindTo(registry);
+    }
+
+    /**
+     * @return the state of the connection pool, for the status endpoint
+     */
+    public RepositoryStatusModelSystems getPoolStatus() {
+        return ((InstrumentedDataSource) getDataSource()).getPoolStatus();
     }
 
     @Override
@@ -0,0 +1,62 @@
+package bio.terra.app.configuration;
+
+import bio.terra.service.filedata.google.firestore.FireStoreProject;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Settings for the local-perf profile, which runs the data repo on one machine for performance tests.
+ * The profile is used together with the google profile: Firestore and GCS go to emulators, Sam is
+ * replaced by StubIam and BigQuery by RecordingBigQueryPdao. Postgres is the local one.
+ */
+@Configuration
+@Profile("local-perf")
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "datarepo.localperf")
+public class LocalPerfConfiguration {
+    /**
+     * host:port of the Firestore emulator
+     */
+    private String firestoreEmulatorHost;
+    /**
+     * Delay added to each IAM call, standing in for the Sam round trip
+     */
+    private long iamLatencyMillis;
+    /**
+     * Delay added to each BigQuery call, standing in for the BigQuery job
+     */
+    private long bigQueryLatencyMillis;
+
+    @PostConstruct
+    public void useEmulators() {
+        FireStoreProject.useEmulator(firestoreEmulatorHost);
+    }
+
+    public String getFirestoreEmulatorHost() {
+        return firestoreEmulatorHost;
+    }
+
+    public void setFirestoreEmulatorHost(String firestoreEmulatorHost) {
+        this.firestoreEmulatorHost = firestoreEmulatorHost;
+    }
+
+    public long getIamLatencyMillis() {
+        return iamLatencyMillis;
+    }
+
+    public void setIamLatencyMillis(long iamLatencyMillis) {
+        this.iamLatencyMillis = iamLatencyMillis;
+    }
+
+    public long getBigQueryLatencyMillis() {
+        return bigQueryLatencyMillis;
+    }
+
+    public void setBigQueryLatencyMillis(long bigQueryLatencyMillis) {
+        this.bigQueryLatencyMillis = bigQueryLatencyMillis;
+    }
+}
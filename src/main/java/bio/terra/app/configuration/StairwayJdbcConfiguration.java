@@ -8,4 +8,9 @@ import org.springframework.context.annotation.Configuration;
 @EnableConfigurationProperties
 @ConfigurationProperties(prefix = "db.stairway")
 public class StairwayJdbcConfiguration extends JdbcConfiguration {
+
+    @Override
+    protected String getPoolName() {
+        return "stairway";
+    }
 }
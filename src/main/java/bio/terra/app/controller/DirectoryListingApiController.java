@@ -0,0 +1,133 @@
+package bio.terra.app.controller;
+
+import bio.terra.app.controller.exception.ValidationException;
+import bio.terra.common.ValidationUtils;
+import bio.terra.model.DirectoryListingEntryModel;
+import bio.terra.model.FileModel;
+import bio.terra.service.filedata.DirectoryPageLister;
+import bio.terra.service.filedata.FileService;
+import bio.terra.service.iam.AuthenticatedUserRequestFactory;
+import bio.terra.service.iam.IamAction;
+import bio.terra.service.iam.IamResourceType;
+import bio.terra.service.iam.IamService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Streaming directory listings. The listing endpoints are described in the OpenAPI document under the
+ * filesystem tag, but the generated FilesystemApi interface is not implemented here: generated methods
+ * return a fully built response entity, and these endpoints write their NDJSON body while the directory
+ * is still being read.
+ *
+ * <p>Authorization, the directory lookup and the page token check happen before the response starts, so
+ * those errors are reported with the usual status codes and error model.
+ */
+@Controller
+public class DirectoryListingApiController {
+
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    static final int MAX_LIST_LIMIT = 10000;
+
+    private final ObjectMapper objectMapper;
+    private final HttpServletRequest request;
+    private final FileService fileService;
+    private final IamService iamService;
+    private final AuthenticatedUserRequestFactory authenticatedUserRequestFactory;
+
+    @Autowired
+    public DirectoryListingApiController(
+        ObjectMapper objectMapper,
+        HttpServletRequest request,
+        FileService fileService,
+        IamService iamService,
+        AuthenticatedUserRequestFactory authenticatedUserRequestFactory
+    ) {
+        this.objectMapper = objectMapper;
+        this.request = request;
+        this.fileService = fileService;
+        this.iamService = iamService;
+        this.authenticatedUserRequestFactory = authenticatedUserRequestFactory;
+    }
+
+    @GetMapping(value = "/api/repository/v1/datasets/{id}/filesystem/list", produces = NDJSON_MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> listDatasetDirectory(
+        @PathVariable("id") String id,
+        @RequestParam(value = "path", required = true) String path,
+        @RequestParam(value = "pageToken", required = false) String pageToken,
+        @RequestParam(value = "limit", required = false, defaultValue = "1000") Integer limit) {
+
+        iamService.verifyAuthorization(
+            authenticatedUserRequestFactory.from(request), IamResourceType.DATASET, id, IamAction.READ_DATA);
+        validateListParams(path, limit);
+        DirectoryPageLister lister = fileService.listDirectory(id, path, pageToken, limit);
+
+        StreamingResponseBody body = out -> writeListing(out, lister);
+        return new ResponseEntity<>(body, HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/api/repository/v1/snapshots/{id}/filesystem/list", produces = NDJSON_MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> listSnapshotDirectory(
+        @PathVariable("id") String id,
+        @RequestParam(value = "path", required = true) String path,
+        @RequestParam(value = "pageToken", required = false) String pageToken,
+        @RequestParam(value = "limit", required = false, defaultValue = "1000") Integer limit) {
+
+        iamService.verifyAuthorization(
+            authenticatedUserRequestFactory.from(request), IamResourceType.DATASNAPSHOT, id, IamAction.READ_DATA);
+        validateListParams(path, limit);
+        DirectoryPageLister lister = fileService.listSnapshotDirectory(id, path, pageToken, limit);
+
+        StreamingResponseBody body = out -> writeListing(out, lister);
+        return new ResponseEntity<>(body, HttpStatus.OK);
+    }
+
+    private static void validateListParams(String path, Integer limit) {
+        if (!ValidationUtils.isValidPath(path)) {
+            throw new ValidationException("InvalidPath");
+        }
+        if (limit < 1 || limit > MAX_LIST_LIMIT) {
+            throw new ValidationException("limit must be between 1 and " + MAX_LIST_LIMIT);
+        }
+    }
+
+    // Write one line per entry, flushing after each batch so clients see entries as soon as they are read.
+    // When more entries follow, the last line carries the token for the next page.
+    private void writeListing(OutputStream out, DirectoryPageLister lister) throws IOException {
+        String nextPageToken;
+        try {
+            nextPageToken = lister.list(fileModels -> {
+                try {
+                    for (FileModel fileModel : fileModels) {
+                        writeLine(out, new DirectoryListingEntryModel().file(fileModel));
+                    }
+                    out.flush();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        if (nextPageToken != null) {
+            writeLine(out, new DirectoryListingEntryModel().nextPageToken(nextPageToken));
+        }
+        out.flush();
+    }
+
+    private void writeLine(OutputStream out, DirectoryListingEntryModel entry) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(entry));
+        out.write('\n');
+    }
+}
@@ -0,0 +1,119 @@
+package bio.terra.app.controller;
+
+import bio.terra.app.controller.exception.ValidationException;
+import bio.terra.model.JobModel;
+import bio.terra.service.iam.AuthenticatedUserRequestFactory;
+import bio.terra.service.job.JobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static bio.terra.app.utils.ControllerUtils.jobToResponse;
+
+/**
+ * Job endpoints that hold the response open while the job runs: server-sent job events, and the long-poll
+ * form of the job status request. Both are described in the OpenAPI document, but the generated interfaces
+ * are not implemented here: generated methods return a fully built response entity.
+ *
+ * <p>No request thread is held while the job runs. The first check is made on the request thread, and
+ * later ones on pool threads, woken by the job end event or by a periodic recheck of the job state. If a
+ * recheck fails, the response is ended with the error.
+ */
+@Controller
+public class JobEventsApiController {
+    private static final Logger logger = LoggerFactory.getLogger(JobEventsApiController.class);
+
+    private static final String JOB_EVENT_NAME = "job";
+    private static final long EMITTER_TIMEOUT_MILLISECONDS = TimeUnit.MINUTES.toMillis(10);
+
+    private final HttpServletRequest request;
+    private final JobService jobService;
+    private final AuthenticatedUserRequestFactory authenticatedUserRequestFactory;
+
+    @Autowired
+    public JobEventsApiController(
+        HttpServletRequest request,
+        JobService jobService,
+        AuthenticatedUserRequestFactory authenticatedUserRequestFactory
+    ) {
+        this.request = request;
+        this.jobService = jobService;
+        this.authenticatedUserRequestFactory = authenticatedUserRequestFactory;
+    }
+
+    @GetMapping(value = "/api/repository/v1/jobs/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamJobEvents(@PathVariable("id") String id) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLISECONDS);
+        Runnable stopWatching = jobService.watchJob(
+            id,
+            authenticatedUserRequestFactory.from(request),
+            job -> sendJob(emitter, job),
+            emitter::completeWithError);
+        emitter.onTimeout(stopWatching);
+        emitter.onCompletion(stopWatching);
+        return emitter;
+    }
+
+    /**
+     * Job status with waitSeconds. Mapped here rather than in the generated retrieveJob, which still answers
+     * requests without the parameter, so that waiting pollers do not each hold a request thread. The
+     * response is the completed job, or the last state seen when the wait runs out.
+     */
+    @GetMapping(value = "/api/repository/v1/jobs/{id}", params = "waitSeconds",
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    public DeferredResult<ResponseEntity<JobModel>> retrieveJobWhenDone(
+        @PathVariable("id") String id,
+        @RequestParam("waitSeconds") int waitSeconds) {
+        if (waitSeconds < 0 || waitSeconds > JobService.MAX_JOB_WAIT_SECONDS) {
+            throw new ValidationException("waitSeconds must be between 0 and " + JobService.MAX_JOB_WAIT_SECONDS);
+        }
+        DeferredResult<ResponseEntity<JobModel>> result =
+            new DeferredResult<>(TimeUnit.SECONDS.toMillis(waitSeconds));
+        // The first watch call always brings the job state, so there is a state to answer with on timeout
+        AtomicReference<JobModel> lastSeen = new AtomicReference<>();
+        Runnable stopWatching = jobService.watchJob(
+            id,
+            authenticatedUserRequestFactory.from(request),
+            job -> {
+                lastSeen.set(job);
+                if (job.getCompleted() != null) {
+                    result.setResult(jobToResponse(job));
+                }
+            },
+            result::setErrorResult);
+        result.onTimeout(() -> result.setResult(jobToResponse(lastSeen.get())));
+        result.onCompletion(stopWatching);
+        if (waitSeconds == 0) {
+            // A zero timeout means no timeout to the servlet container; answer now
+            stopWatching.run();
+            result.setResult(jobToResponse(lastSeen.get()));
+        }
+        return result;
+    }
+
+    private void sendJob(SseEmitter emitter, JobModel job) {
+        try {
+            emitter.send(SseEmitter.event().name(JOB_EVENT_NAME).data(job, MediaType.APPLICATION_JSON));
+            if (job.getCompleted() != null) {
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException ex) {
+            // The client went away or the emitter already timed out; there is no one left to tell
+            logger.debug("Could not send job event for job " + job.getId(), ex);
+            emitter.completeWithError(ex);
+        }
+    }
+}
@@ -3,9 +3,12 @@ package bio.terra.app.controller;
 import bio.terra.app.configuration.ApplicationConfiguration;
 import bio.terra.app.controller.exception.ValidationException;
 import bio.terra.app.utils.ControllerUtils;
+import bio.terra.common.EnumeratePageToken;
 import bio.terra.common.ValidationUtils;
+import bio.terra.common.exception.NotImplementedException;
 import bio.terra.controller.RepositoryApi;
 import bio.terra.model.AssetModel;
+import bio.terra.model.BigQueryUsageModel;
 import bio.terra.model.BulkLoadArrayRequestModel;
 import bio.terra.model.BulkLoadRequestModel;
 import bio.terra.model.ConfigEnableModel;
@@ -21,9 +24,13 @@ import bio.terra.model.FileLoadModel;
 import bio.terra.model.FileModel;
 import bio.terra.model.IngestRequestModel;
 import bio.terra.model.JobModel;
+import bio.terra.model.MultiTableIngestRequestModel;
 import bio.terra.model.PolicyMemberRequest;
 import bio.terra.model.PolicyModel;
 import bio.terra.model.PolicyResponse;
+import bio.terra.model.RecordingListModel;
+import bio.terra.model.RecordingModel;
+import bio.terra.model.RecordingRequestModel;
 import bio.terra.model.SnapshotModel;
 import bio.terra.model.SnapshotRequestModel;
 import bio.terra.model.UpgradeModel;
@@ -42,12 +49,14 @@ import bio.terra.service.iam.IamService;
 import bio.terra.service.iam.PolicyMemberValidator;
 import bio.terra.service.iam.exception.IamUnauthorizedException;
 import bio.terra.service.job.JobService;
+import bio.terra.service.profiling.ProfilingService;
 import bio.terra.service.snapshot.SnapshotRequestValidator;
 import bio.terra.service.snapshot.SnapshotService;
 import bio.terra.service.upgrade.UpgradeService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -88,6 +97,7 @@ public class RepositoryApiController implements RepositoryApi {
     private final ConfigurationService configurationService;
     private final AssetModelValidator assetModelValidator;
     private final UpgradeService upgradeService;
+    private final ObjectProvider<ProfilingService> profilingService;
 
     // needed for local testing w/o proxy
     private final ApplicationConfiguration appConfig;
@@ -109,7 +119,8 @@ public class RepositoryApiController implements RepositoryApi {
             AuthenticatedUserRequestFactory authenticatedUserRequestFactory,
             ConfigurationService configurationService,
             AssetModelValidator assetModelValidator,
-            UpgradeService upgradeService
+            UpgradeService upgradeService,
+            ObjectProvider<ProfilingService> profilingService
     ) {
         this.objectMapper = objectMapper;
         this.request = request;
@@ -127,6 +138,7 @@ public class RepositoryApiController implements RepositoryApi {
         this.configurationService = configurationService;
         this.assetModelValidator = assetModelValidator;
         this.upgradeService = upgradeService;
+        this.profilingService = profilingService;
     }
 
     @InitBinder
@@ -181,10 +193,15 @@ public class RepositoryApiController implements RepositoryApi {
             @Valid @RequestParam(value = "limit", required = false, defaultValue = "10") Integer limit,
             @Valid @RequestParam(value = "sort", required = false, defaultValue = "created_date") String sort,
             @Valid @RequestParam(value = "direction", required = false, defaultValue = "asc") String direction,
-            @Valid @RequestParam(value = "filter", required = false) String filter) {
-        ControllerUtils.validateEnumerateParams(offset, limit, sort, direction);
+            @Valid @RequestParam(value = "filter", required = false) String filter,
+            @Valid @RequestParam(value = "pageToken", required = false) String pageToken,
+            @Valid @RequestParam(value = "estimateTotal", required = false, defaultValue = "false")
+                Boolean estimateTotal) {
+        ControllerUtils.validateEnumerateParams(offset, limit, sort, direction, pageToken);
+        EnumeratePageToken token = EnumeratePageToken.decode(pageToken, sort, direction);
         List<UUID> resources = iamService.listAuthorizedResources(getAuthenticatedInfo(), IamResourceType.DATASET);
-        EnumerateDatasetModel esm = datasetService.enumerate(offset, limit, sort, direction, filter, resources);
+        EnumerateDatasetModel esm = datasetService.enumerate(offset, limit, sort, direction, filter, resources,
+            token, estimateTotal);
         return new ResponseEntity<>(esm, HttpStatus.OK);
     }
 
@@ -197,6 +214,15 @@ public class RepositoryApiController implements RepositoryApi {
         return jobToResponse(jobService.retrieveJob(jobId, userReq));
     }
 
+    @Override
+    public ResponseEntity<JobModel> ingestDatasetTables(@PathVariable("id") String id,
+                                                        @Valid @RequestBody MultiTableIngestRequestModel ingest) {
+        AuthenticatedUserRequest userReq = getAuthenticatedInfo();
+        iamService.verifyAuthorization(userReq, IamResourceType.DATASET, id, IamAction.INGEST_DATA);
+        String jobId = datasetService.ingestDatasetTables(id, ingest, userReq);
+        return jobToResponse(jobService.retrieveJob(jobId, userReq));
+    }
+
     @Override
     public ResponseEntity<JobModel> addDatasetAssetSpecifications(@PathVariable("id") String id,
                                                   @Valid @RequestBody AssetModel asset) {
@@ -256,9 +282,10 @@ public class RepositoryApiController implements RepositoryApi {
     public ResponseEntity<FileModel> lookupFileById(
         @PathVariable("id") String id,
         @PathVariable("fileid") String fileid,
-        @RequestParam(value = "depth", required = false, defaultValue = "0") Integer depth) {
+        @RequestParam(value = "depth", required = false, defaultValue = "0") Integer depth,
+        @RequestParam(value = "continuationToken", required = false) String continuationToken) {
         iamService.verifyAuthorization(getAuthenticatedInfo(), IamResourceType.DATASET, id, IamAction.READ_DATA);
-        FileModel fileModel = fileService.lookupFile(id, fileid, depth);
+        FileModel fileModel = fileService.lookupFile(id, fileid, depth, continuationToken);
         return new ResponseEntity<>(fileModel, HttpStatus.OK);
     }
 
@@ -302,6 +329,12 @@ public class RepositoryApiController implements RepositoryApi {
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    @Override
+    public ResponseEntity<BigQueryUsageModel> retrieveDatasetUsage(@PathVariable("id") String id) {
+        iamService.verifyAuthorization(getAuthenticatedInfo(), IamResourceType.DATASET, id, IamAction.READ_DATASET);
+        return new ResponseEntity<>(datasetService.retrieveBigQueryUsage(UUID.fromString(id)), HttpStatus.OK);
+    }
+
     @Override
     public ResponseEntity<PolicyResponse> deleteDatasetPolicyMember(
         @PathVariable("id") String id,
@@ -364,12 +397,16 @@ public class RepositoryApiController implements RepositoryApi {
         @Valid @RequestParam(value = "limit", required = false, defaultValue = "10") Integer limit,
         @Valid @RequestParam(value = "sort", required = false, defaultValue = "created_date") String sort,
         @Valid @RequestParam(value = "direction", required = false, defaultValue = "asc") String direction,
-        @Valid @RequestParam(value = "filter", required = false) String filter) {
-        ControllerUtils.validateEnumerateParams(offset, limit, sort, direction);
+        @Valid @RequestParam(value = "filter", required = false) String filter,
+        @Valid @RequestParam(value = "pageToken", required = false) String pageToken,
+        @Valid @RequestParam(value = "estimateTotal", required = false, defaultValue = "false")
+            Boolean estimateTotal) {
+        ControllerUtils.validateEnumerateParams(offset, limit, sort, direction, pageToken);
+        EnumeratePageToken token = EnumeratePageToken.decode(pageToken, sort, direction);
         List<UUID> resources = iamService.listAuthorizedResources(
             getAuthenticatedInfo(), IamResourceType.DATASNAPSHOT);
         EnumerateSnapshotModel edm = snapshotService.enumerateSnapshots(offset, limit, sort,
-            direction, filter, resources);
+            direction, filter, resources, token, estimateTotal);
         return new ResponseEntity<>(edm, HttpStatus.OK);
     }
 
@@ -384,10 +421,11 @@ public class RepositoryApiController implements RepositoryApi {
     public ResponseEntity<FileModel> lookupSnapshotFileById(
         @PathVariable("id") String id,
         @PathVariable("fileid") String fileid,
-        @RequestParam(value = "depth", required = false, defaultValue = "0") Integer depth) {
+        @RequestParam(value = "depth", required = false, defaultValue = "0") Integer depth,
+        @RequestParam(value = "continuationToken", required = false) String continuationToken) {
 
         iamService.verifyAuthorization(getAuthenticatedInfo(), IamResourceType.DATASNAPSHOT, id, IamAction.READ_DATA);
-        FileModel fileModel = fileService.lookupSnapshotFile(id, fileid, depth);
+        FileModel fileModel = fileService.lookupSnapshotFile(id, fileid, depth, continuationToken);
         return new ResponseEntity<>(fileModel, HttpStatus.OK);
     }
 
@@ -475,7 +513,10 @@ public class RepositoryApiController implements RepositoryApi {
     }
 
     @Override
-    public ResponseEntity<JobModel> retrieveJob(@PathVariable("id") String id) {
+    public ResponseEntity<JobModel> retrieveJob(
+        @PathVariable("id") String id,
+        @RequestParam(value = "waitSeconds", required = false, defaultValue = "0") Integer waitSeconds) {
+        // Requests that give waitSeconds are answered asynchronously by JobEventsApiController
         JobModel job = jobService.retrieveJob(id, getAuthenticatedInfo());
         return jobToResponse(job);
     }
@@ -524,6 +565,33 @@ public class RepositoryApiController implements RepositoryApi {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    @Override
+    public ResponseEntity<RecordingListModel> enumerateRecordings() {
+        RecordingListModel recordings = getProfilingService().enumerateRecordings(getAuthenticatedInfo());
+        return new ResponseEntity<>(recordings, HttpStatus.OK);
+    }
+
+    @Override
+    public ResponseEntity<RecordingModel> startRecording(@Valid @RequestBody RecordingRequestModel recordingRequest) {
+        RecordingModel recording = getProfilingService().startRecording(recordingRequest, getAuthenticatedInfo());
+        return new ResponseEntity<>(recording, HttpStatus.OK);
+    }
+
+    @Override
+    public ResponseEntity<RecordingModel> stopRecording(@PathVariable("id") Long id) {
+        RecordingModel recording = getProfilingService().stopRecording(id, getAuthenticatedInfo());
+        return new ResponseEntity<>(recording, HttpStatus.OK);
+    }
+
+    // The profiling service is only created when the JVM has Java Flight Recorder
+    private ProfilingService getProfilingService() {
+        ProfilingService service = profilingService.getIfAvailable();
+        if (service == null) {
+            throw new NotImplementedException("Java Flight Recorder is not available in this JVM");
+        }
+        return service;
+    }
+
     @Override
     public ResponseEntity<JobModel> upgrade(@Valid @RequestBody UpgradeModel request) {
         AuthenticatedUserRequest userReq = getAuthenticatedInfo();
@@ -0,0 +1,257 @@
+package bio.terra.app.jdbc;
+
+import bio.terra.model.RepositoryStatusModelSystems;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * A pooling data source with metrics. It records how long each connection borrow waits, exports the size of
+ * the pool, and times every statement run on its connections by the DAO method that ran it.
+ * <ul>
+ *     <li>datarepo.db.pool.borrow - time to get a connection from the pool</li>
+ *     <li>datarepo.db.pool.active, .idle, .waiters and .max - state of the pool</li>
+ *     <li>datarepo.db.statement - statement execution time, by DAO method</li>
+ * </ul>
+ * All are tagged with the pool name. Statements that take longer than the slow statement threshold are
+ * logged with their SQL. A borrow that waits longer than the borrow alert threshold marks the pool as
+ * exhausted in the status for a while.
+ *
+ * <p>The data source is built before the application's meter registry exists, so the meters are kept in a
+ * composite registry of its own. {@link #bindTo} adds the application registry to it; what is recorded before
+ * then is dropped.
+ */
+public class InstrumentedDataSource implements DataSource, MeterBinder {
+    static final String BORROW_METRIC = "datarepo.db.pool.borrow";
+    static final String ACTIVE_METRIC = "datarepo.db.pool.active";
+    static final String IDLE_METRIC = "datarepo.db.pool.idle";
+    static final String WAITERS_METRIC = "datarepo.db.pool.waiters";
+    static final String MAX_METRIC = "datarepo.db.pool.max";
+    static final String STATEMENT_METRIC = "datarepo.db.statement";
+
+    static final String POOL_TAG = "pool";
+    static final String DAO_TAG = "dao";
+
+    // Bounds the SQL to DAO method cache; statements with SQL that varies without end are looked up every time
+    static final int MAX_CACHED_DAO_METHODS = 2000;
+    // Every this many uses of a cached SQL text, the stack is searched again to check the cached DAO method
+    static final int DAO_METHOD_CHECK_INTERVAL = 64;
+    // Cache value for SQL prepared by more than one DAO method; such SQL is looked up every time
+    private static final CachedDaoMethod SHARED_SQL = new CachedDaoMethod(null);
+
+    // How long a slow borrow keeps the pool marked as exhausted in the status
+    private static final Duration EXHAUSTED_STATUS_PERIOD = Duration.ofMinutes(5);
+
+    private final String poolName;
+    private final DataSource delegate;
+    private final GenericObjectPool<?> pool;
+    private final Duration slowStatement;
+    private final Duration borrowAlert;
+    private final CompositeMeterRegistry meterRegistry = new CompositeMeterRegistry();
+    private final Timer borrowTimer;
+    private final AtomicReference<Instant> lastSlowBorrow = new AtomicReference<>();
+    private final Map<String, Timer> statementTimers = new ConcurrentHashMap<>();
+    private final Map<String, CachedDaoMethod> daoMethods = new ConcurrentHashMap<>();
+
+    private static final class CachedDaoMethod {
+        private final String daoMethod;
+        private final AtomicInteger uses = new AtomicInteger();
+
+        private CachedDaoMethod(String daoMethod) {
+            this.daoMethod = daoMethod;
+        }
+    }
+
+    public InstrumentedDataSource(String poolName,
+                                  DataSource delegate,
+                                  GenericObjectPool<?> pool,
+                                  Duration slowStatement,
+                                  Duration borrowAlert) {
+        this.poolName = poolName;
+        this.delegate = delegate;
+        this.pool = pool;
+        this.slowStatement = slowStatement;
+        this.borrowAlert = borrowAlert;
+
+        this.borrowTimer = Timer.builder(BORROW_METRIC)
+            .tag(POOL_TAG, poolName)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        Gauge.builder(ACTIVE_METRIC, pool, GenericObjectPool::getNumActive)
+            .tag(POOL_TAG, poolName)
+            .register(meterRegistry);
+        Gauge.builder(IDLE_METRIC, pool, GenericObjectPool::getNumIdle)
+            .tag(POOL_TAG, poolName)
+            .register(meterRegistry);
+        Gauge.builder(WAITERS_METRIC, pool, GenericObjectPool::getNumWaiters)
+            .tag(POOL_TAG, poolName)
+            .register(meterRegistry);
+        Gauge.builder(MAX_METRIC, pool, GenericObjectPool::getMaxTotal)
+            .tag(POOL_TAG, poolName)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        meterRegistry.add(registry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = delegate.getConnection();
+        recordBorrow(System.nanoTime() - start);
+        return wrap(connection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = delegate.getConnection(username, password);
+        recordBorrow(System.nanoTime() - start);
+        return wrap(connection);
+    }
+
+    /**
+     * @return the pool as a non-critical status system: not ok if requests are waiting for a connection
+     * now, or if a borrow waited longer than the alert threshold recently
+     */
+    public RepositoryStatusModelSystems getPoolStatus() {
+        int waiters = pool.getNumWaiters();
+        Instant slowBorrow = lastSlowBorrow.get();
+        boolean recentSlowBorrow = slowBorrow != null &&
+            slowBorrow.isAfter(Instant.now().minus(EXHAUSTED_STATUS_PERIOD));
+
+        String message = String.format("active=%d idle=%d max=%d waiters=%d",
+            pool.getNumActive(), pool.getNumIdle(), pool.getMaxTotal(), waiters);
+        if (recentSlowBorrow) {
+            message += String.format("; a connection request waited more than %d ms at %s",
+                borrowAlert.toMillis(), slowBorrow);
+        }
+        return new RepositoryStatusModelSystems()
+            .ok(waiters == 0 && !recentSlowBorrow)
+            .critical(false)
+            .message(message);
+    }
+
+    String getPoolName() {
+        return poolName;
+    }
+
+    Duration getSlowStatement() {
+        return slowStatement;
+    }
+
+    /**
+     * A DAO method prepares the same SQL each time it runs, so the DAO method found for a statement's SQL is
+     * remembered, and the stack is mostly searched only the first time that SQL is seen. Some DAO methods share
+     * their SQL, so every so often the stack is searched again. SQL found to come from more than one DAO method
+     * is no longer cached, and each of its statements is timed under the DAO method that prepared it.
+     *
+     * @param sql text of the statement
+     * @param finder searches the stack for the DAO method
+     * @return DAO method that prepared the SQL
+     */
+    String daoMethod(String sql, Supplier<String> finder) {
+        CachedDaoMethod cached = daoMethods.get(sql);
+        if (cached == null) {
+            String daoMethod = finder.get();
+            if (daoMethods.size() < MAX_CACHED_DAO_METHODS) {
+                daoMethods.putIfAbsent(sql, new CachedDaoMethod(daoMethod));
+            }
+            return daoMethod;
+        }
+        if (cached == SHARED_SQL) {
+            return finder.get();
+        }
+        if (cached.uses.incrementAndGet() % DAO_METHOD_CHECK_INTERVAL == 0) {
+            String daoMethod = finder.get();
+            if (!daoMethod.equals(cached.daoMethod)) {
+                daoMethods.put(sql, SHARED_SQL);
+            }
+            return daoMethod;
+        }
+        return cached.daoMethod;
+    }
+
+    Timer statementTimer(String daoMethod) {
+        return statementTimers.computeIfAbsent(daoMethod, key -> Timer.builder(STATEMENT_METRIC)
+            .tag(POOL_TAG, poolName)
+            .tag(DAO_TAG, key)
+            .publishPercentileHistogram()
+            .register(meterRegistry));
+    }
+
+    void recordBorrow(long nanos) {
+        borrowTimer.record(nanos, TimeUnit.NANOSECONDS);
+        if (nanos > borrowAlert.toNanos()) {
+            lastSlowBorrow.set(Instant.now());
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+            InstrumentedDataSource.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            new TimedConnectionHandler(this, connection));
+    }
+
+    // -- plain delegation --
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return delegate.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        delegate.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        delegate.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return delegate.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || delegate.isWrapperFor(iface);
+    }
+}
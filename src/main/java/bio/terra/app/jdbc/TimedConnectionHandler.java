@@ -0,0 +1,104 @@
+package bio.terra.app.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Proxy handler for a pooled connection. It passes everything through, and wraps the statements it creates in
+ * TimedStatementHandler proxies. The DAO method that creates a statement is found by looking down the stack for
+ * the first class whose name ends in Dao. Stairway's own DAOs are found the same way. Statements made outside a
+ * DAO, such as by Liquibase, are timed as "other". Capturing the stack is costly, so the data source caches the
+ * answer by SQL text and only rechecks it now and then; statements created without SQL, and SQL shared by more
+ * than one DAO method, capture it each time.
+ */
+class TimedConnectionHandler implements InvocationHandler {
+    static final String OTHER_DAO_METHOD = "other";
+
+    private final InstrumentedDataSource dataSource;
+    private final Connection connection;
+
+    TimedConnectionHandler(InstrumentedDataSource dataSource, Connection connection) {
+        this.dataSource = dataSource;
+        this.connection = connection;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            // Spring compares connections to find the one bound to a transaction; compare the proxies
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                break;
+        }
+
+        Object result;
+        try {
+            result = method.invoke(connection, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+
+        if (result instanceof Statement) {
+            String sql = (args != null && args.length > 0 && args[0] instanceof String) ? (String) args[0] : null;
+            return wrap((Statement) result, sql);
+        }
+        return result;
+    }
+
+    private Statement wrap(Statement statement, String sql) {
+        Class<?> statementInterface = Statement.class;
+        if (statement instanceof CallableStatement) {
+            statementInterface = CallableStatement.class;
+        } else if (statement instanceof PreparedStatement) {
+            statementInterface = PreparedStatement.class;
+        }
+        return (Statement) Proxy.newProxyInstance(
+            TimedConnectionHandler.class.getClassLoader(),
+            new Class<?>[] {statementInterface},
+            new TimedStatementHandler(dataSource, statement, sql, daoMethod(sql)));
+    }
+
+    private String daoMethod(String sql) {
+        if (sql == null) {
+            return daoMethod(new Throwable().getStackTrace());
+        }
+        return dataSource.daoMethod(sql, () -> daoMethod(new Throwable().getStackTrace()));
+    }
+
+    /**
+     * @return SimpleClassName.method of the first DAO frame on the stack; "other" if there is none
+     */
+    static String daoMethod(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            if (!className.startsWith("bio.terra.") || className.startsWith("bio.terra.app.jdbc.")) {
+                continue;
+            }
+            int inner = className.indexOf('$');
+            String outerClassName = (inner < 0) ? className : className.substring(0, inner);
+            if (outerClassName.endsWith("Dao")) {
+                return outerClassName.substring(outerClassName.lastIndexOf('.') + 1) + "." +
+                    methodName(frame.getMethodName());
+            }
+        }
+        return OTHER_DAO_METHOD;
+    }
+
+    // Lambdas are named lambda$enclosingMethod$n
+    private static String methodName(String name) {
+        if (name.startsWith("lambda$")) {
+            int end = name.indexOf('$', "lambda$".length());
+            return name.substring("lambda$".length(), (end < 0) ? name.length() : end);
+        }
+        return name;
+    }
+}
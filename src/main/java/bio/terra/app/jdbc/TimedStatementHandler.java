@@ -0,0 +1,82 @@
+package bio.terra.app.jdbc;
+
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Proxy handler for a statement. Each execute call is timed against the DAO method that created the
+ * statement, and logged if it is slow.
+ */
+class TimedStatementHandler implements InvocationHandler {
+    private static final Logger logger = LoggerFactory.getLogger(TimedStatementHandler.class);
+
+    // Longest SQL text put in a slow statement log line
+    private static final int MAX_LOGGED_SQL = 2000;
+
+    private final InstrumentedDataSource dataSource;
+    private final Statement statement;
+    private final String preparedSql;
+    private final String daoMethod;
+    private final Timer timer;
+
+    TimedStatementHandler(InstrumentedDataSource dataSource,
+                          Statement statement,
+                          String preparedSql,
+                          String daoMethod) {
+        this.dataSource = dataSource;
+        this.statement = statement;
+        this.preparedSql = preparedSql;
+        this.daoMethod = daoMethod;
+        this.timer = dataSource.statementTimer(daoMethod);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                break;
+        }
+
+        if (!method.getName().startsWith("execute")) {
+            return call(method, args);
+        }
+
+        long start = System.nanoTime();
+        try {
+            return call(method, args);
+        } finally {
+            long nanos = System.nanoTime() - start;
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+            if (nanos > dataSource.getSlowStatement().toNanos()) {
+                // A plain statement gets its SQL with the execute call
+                String sql = (args != null && args.length > 0 && args[0] instanceof String)
+                    ? (String) args[0] : preparedSql;
+                logger.warn("Slow statement: pool={} dao={} ms={} sql={}",
+                    dataSource.getPoolName(),
+                    daoMethod,
+                    TimeUnit.NANOSECONDS.toMillis(nanos),
+                    StringUtils.abbreviate(StringUtils.normalizeSpace(sql), MAX_LOGGED_SQL));
+            }
+        }
+    }
+
+    private Object call(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(statement, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package bio.terra.app.logging;
+
+import brave.handler.FinishedSpanHandler;
+import brave.handler.MutableSpan;
+import brave.propagation.TraceContext;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes each finished span as a line of JSON to a local file, for looking at traces when testing without a
+ * collector. It is only created when datarepo.traceFile is set to the path of the file. In deployments, spans are
+ * sent to a collector instead by setting spring.zipkin.enabled and spring.zipkin.baseUrl; an OpenTelemetry
+ * collector accepts them on its zipkin receiver.
+ */
+@Component
+@ConditionalOnProperty(name = "datarepo.traceFile")
+public class FileSpanHandler extends FinishedSpanHandler {
+    private static final Logger logger = LoggerFactory.getLogger(FileSpanHandler.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BufferedWriter writer;
+
+    public FileSpanHandler(@Value("${datarepo.traceFile}") String traceFile) throws IOException {
+        this.writer = Files.newBufferedWriter(Paths.get(traceFile), StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        logger.info("Writing trace spans to " + traceFile);
+    }
+
+    @Override
+    public boolean handle(TraceContext context, MutableSpan span) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("traceId", context.traceIdString());
+        line.put("id", context.spanIdString());
+        line.put("parentId", context.parentIdString());
+        line.put("name", span.name());
+        line.put("timestamp", span.startTimestamp());
+        line.put("duration", span.finishTimestamp() - span.startTimestamp());
+        Map<String, String> tags = new TreeMap<>();
+        span.forEachTag(Map::put, tags);
+        line.put("tags", tags);
+        if (span.error() != null) {
+            line.put("error", span.error().toString());
+        }
+
+        try {
+            String json = objectMapper.writeValueAsString(line);
+            synchronized (writer) {
+                writer.write(json);
+                writer.newLine();
+                writer.flush();
+            }
+        } catch (JsonProcessingException ex) {
+            logger.warn("Unable to serialize span " + span.name(), ex);
+        } catch (IOException ex) {
+            logger.warn("Unable to write span " + span.name(), ex);
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        synchronized (writer) {
+            writer.close();
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package bio.terra.app.logging;
 
+import bio.terra.app.configuration.ApplicationConfiguration;
+import bio.terra.service.configuration.ConfigEnum;
+import bio.terra.service.configuration.ConfigurationService;
 import bio.terra.service.iam.AuthenticatedUserRequest;
 import bio.terra.service.iam.AuthenticatedUserRequestFactory;
 import com.google.gson.Gson;
@@ -11,18 +14,45 @@ import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Writes one access log line per request. The line is written through the async appender configured for this
+ * logger in logback.groovy, so request threads do not wait on log output.
+ *
+ * Requests to the paths in datarepo.accessLogSampledPaths (high volume endpoints like DRS) are logged only
+ * ACCESS_LOG_SAMPLE_PERCENT percent of the time. Failed requests are always logged.
+ */
 @Component
 public class LoggerInterceptor extends HandlerInterceptorAdapter {
     private static Logger logger = LoggerFactory.getLogger(LoggerInterceptor.class);
+    private static final String START_TIME_ATTRIBUTE = LoggerInterceptor.class.getName() + ".startTime";
+    // Gson is thread safe; share one instead of making one per request
+    private static final Gson GSON = new Gson();
+    private static final String EMPTY_PARAMS = "{}";
+
     private final AuthenticatedUserRequestFactory authenticatedUserRequestFactory;
+    private final ConfigurationService configurationService;
+    private final List<String> sampledPaths;
 
     @Autowired
     public LoggerInterceptor(
-        AuthenticatedUserRequestFactory authenticatedUserRequestFactory
+        AuthenticatedUserRequestFactory authenticatedUserRequestFactory,
+        ConfigurationService configurationService,
+        ApplicationConfiguration appConfig
     ) {
         this.authenticatedUserRequestFactory = authenticatedUserRequestFactory;
+        this.configurationService = configurationService;
+        this.sampledPaths = appConfig.getAccessLogSampledPaths();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(START_TIME_ATTRIBUTE, System.nanoTime());
+        return true;
     }
 
     @Override
@@ -32,25 +62,42 @@ public class LoggerInterceptor extends HandlerInterceptorAdapter {
         Object handler,
         Exception ex
     ) throws Exception {
-        AuthenticatedUserRequest userReq = authenticatedUserRequestFactory.from(request);
-        String userId = userReq.getSubjectId();
-        String userEmail = userReq.getEmail();
-        String institute = userEmail != null ? userEmail.substring(userEmail.indexOf("@") + 1) : null;
-        String url = request.getRequestURL().toString();
-        String method = request.getMethod();
-        Map<String, String[]> paramMap = request.getParameterMap();
-        Gson gson = new Gson();
-        String paramString = gson.toJson(paramMap);
-        String responseStatus = Integer.toString(response.getStatus());
-
+        String path = request.getRequestURI();
         // skip logging the status endpoint
-        if (!url.endsWith("/status")) {
-            logger.info("userId: {}, email: {}, institute: {}, url: {}, method: {}, params: {}, status: {}",
-                userId, userEmail, institute, url, method, paramString, responseStatus);
+        if (!path.endsWith("/status") && shouldLog(path, response, ex)) {
+            // The controller usually parsed the user already; the factory returns that parse from the request
+            AuthenticatedUserRequest userReq = authenticatedUserRequestFactory.from(request);
+            String userId = userReq.getSubjectId();
+            String userEmail = userReq.getEmail();
+            String institute = userEmail != null ? userEmail.substring(userEmail.indexOf("@") + 1) : null;
+            Map<String, String[]> paramMap = request.getParameterMap();
+            String paramString = paramMap.isEmpty() ? EMPTY_PARAMS : GSON.toJson(paramMap);
+
+            Object startTime = request.getAttribute(START_TIME_ATTRIBUTE);
+            long durationMs = (startTime instanceof Long)
+                ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - (Long) startTime) : -1;
+
+            logger.info("userId: {}, email: {}, institute: {}, url: {}, method: {}, params: {}, status: {}, " +
+                    "durationMs: {}",
+                userId, userEmail, institute, request.getRequestURL(), request.getMethod(), paramString,
+                response.getStatus(), durationMs);
         }
 
         if (ex != null) {
             logger.error("An error occurred processing this request: ", ex);
         }
     }
+
+    private boolean shouldLog(String path, HttpServletResponse response, Exception ex) {
+        if (ex != null || response.getStatus() >= 400) {
+            return true;
+        }
+        for (String sampledPath : sampledPaths) {
+            if (path.startsWith(sampledPath)) {
+                int samplePercent = configurationService.getParameterValue(ConfigEnum.ACCESS_LOG_SAMPLE_PERCENT);
+                return ThreadLocalRandom.current().nextInt(100) < samplePercent;
+            }
+        }
+        return true;
+    }
 }
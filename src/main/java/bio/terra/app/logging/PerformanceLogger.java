@@ -22,6 +22,7 @@ public interface PerformanceLogger {
 
     /**
      * Log a timestamp, elapsed time and integer count for an event.
+     * The integer count should be a quantity (e.g. rows, files) because it may be summed across events.
      */
     default void log(String jobId, String className, String operationName,
                     Duration elapsedTime, long integerCount) {
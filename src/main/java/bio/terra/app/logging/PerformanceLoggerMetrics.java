@@ -0,0 +1,145 @@
+package bio.terra.app.logging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class implements METRICS performance logging. It is used when datarepo.performanceMetricsEnabled is true,
+ * which is the default, and is cheap enough to leave on in production.
+ *
+ * Each (class, operation) pair gets a Micrometer timer with a percentile histogram and SLO buckets, and a counter
+ * that accumulates the integer counts. The job id and additional information are not recorded: they would make
+ * the number of time series unbounded. The meters are published on the actuator prometheus endpoint.
+ *
+ * When the "perftest" profile is active, every event is also passed on to {@link PerformanceLoggerON}, so the
+ * existing log lines keep flowing to BigQuery for the performance test analysis.
+ */
+@Component("performanceLogger")
+@ConditionalOnProperty(name = "datarepo.performanceMetricsEnabled", havingValue = "true", matchIfMissing = true)
+@Primary
+public class PerformanceLoggerMetrics implements PerformanceLogger {
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceLoggerMetrics.class);
+
+    static final String TIMER_NAME = "datarepo.performance";
+    static final String COUNT_NAME = "datarepo.performance.count";
+    static final String CLASS_TAG = "class";
+    static final String OPERATION_TAG = "operation";
+
+    private static final Duration[] SERVICE_LEVEL_OBJECTIVES = {
+        Duration.ofMillis(100),
+        Duration.ofSeconds(1),
+        Duration.ofSeconds(10),
+        Duration.ofMinutes(1),
+        Duration.ofMinutes(10)
+    };
+
+    // Same choice as PerformanceLoggerON: timers are tracked per thread, so no locking is needed
+    private static final ThreadLocal<Map<String, Long>> startTimeMap = ThreadLocal.withInitial(HashMap::new);
+    private static final ThreadLocal<Long> timerCounter = ThreadLocal.withInitial(() -> 0L);
+
+    private final MeterRegistry meterRegistry;
+    // Building a meter means a registry lookup; keep the ones we have made
+    private final Map<String, Meters> metersByOperation = new ConcurrentHashMap<>();
+    // Existing log format; null unless perftest is active
+    private final PerformanceLogger logDelegate;
+
+    private static final class Meters {
+        private final Timer timer;
+        private final Counter counter;
+
+        private Meters(Timer timer, Counter counter) {
+            this.timer = timer;
+            this.counter = counter;
+        }
+    }
+
+    @Autowired
+    public PerformanceLoggerMetrics(MeterRegistry meterRegistry, Environment environment) {
+        this(meterRegistry, environment.acceptsProfiles(Profiles.of("perftest")) ? new PerformanceLoggerON() : null);
+    }
+
+    PerformanceLoggerMetrics(MeterRegistry meterRegistry, PerformanceLogger logDelegate) {
+        this.meterRegistry = meterRegistry;
+        this.logDelegate = logDelegate;
+    }
+
+    public boolean isEnabled() {
+        return true;
+    }
+
+    public void log(String jobId, String className, String operationName,
+                    Duration elapsedTime, long integerCount, Object additionalInfo) {
+        Meters meters = getMeters(className, operationName);
+        // A zero elapsed time marks a point event; it is counted but not timed
+        if (!elapsedTime.isZero()) {
+            meters.timer.record(elapsedTime);
+        }
+        if (integerCount > 0) {
+            meters.counter.increment(integerCount);
+        }
+
+        if (logDelegate != null) {
+            logDelegate.log(jobId, className, operationName, elapsedTime, integerCount, additionalInfo);
+        }
+    }
+
+    public String timerStart() {
+        long counterVal = timerCounter.get();
+        String timerId = Thread.currentThread().getId() + "-" + counterVal;
+        timerCounter.set(counterVal == Long.MAX_VALUE ? 0 : counterVal + 1);
+
+        timerStart(timerId);
+        return timerId;
+    }
+
+    public void timerStart(String timerId) {
+        startTimeMap.get().put(timerId, System.nanoTime());
+    }
+
+    public void timerEndAndLog(String timerId, String jobId, String className, String operationName,
+                               long integerCount, Object additionalInfo) {
+        long endTime = System.nanoTime();
+        Long startTime = startTimeMap.get().remove(timerId);
+        if (startTime == null) {
+            logger.info("Lookup of performance timer entry failed. " + timerId);
+            log(jobId, className, operationName, Duration.ZERO, integerCount, additionalInfo);
+            return;
+        }
+        log(jobId, className, operationName, Duration.ofNanos(endTime - startTime), integerCount, additionalInfo);
+    }
+
+    private Meters getMeters(String className, String operationName) {
+        return metersByOperation.computeIfAbsent(className + '#' + operationName, key -> {
+            // Class names are fully qualified; the simple name is enough to tell them apart in a dashboard
+            String classTag = className.substring(className.lastIndexOf('.') + 1);
+            Timer timer = Timer.builder(TIMER_NAME)
+                .description("Elapsed time of operations reported to the performance logger")
+                .tag(CLASS_TAG, classTag)
+                .tag(OPERATION_TAG, operationName)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(SERVICE_LEVEL_OBJECTIVES)
+                .register(meterRegistry);
+            Counter counter = Counter.builder(COUNT_NAME)
+                .description("Integer counts reported to the performance logger")
+                .tag(CLASS_TAG, classTag)
+                .tag(OPERATION_TAG, operationName)
+                .register(meterRegistry);
+            return new Meters(timer, counter);
+        });
+    }
+}
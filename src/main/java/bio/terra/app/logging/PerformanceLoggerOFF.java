@@ -1,12 +1,14 @@
 package bio.terra.app.logging;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
 
 /**
- * This class implements DISABLED performance logging. It is used when the "perftest" profile is NOT active.
+ * This class implements DISABLED performance logging. It is used when the "perftest" profile is NOT active
+ * and datarepo.performanceMetricsEnabled is false.
  *
  * It provides no-op method stubs for the interface methods. There is still some overhead to calling these
  * methods in a production environment, but it is low because there is no actual work being done here. It's just
@@ -14,6 +16,7 @@ import java.time.Duration;
  */
 @Component("performanceLogger")
 @Profile("!perftest")
+@ConditionalOnProperty(name = "datarepo.performanceMetricsEnabled", havingValue = "false")
 public class PerformanceLoggerOFF implements PerformanceLogger {
 
     public PerformanceLoggerOFF() { }
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
@@ -16,7 +17,9 @@ import java.util.HashMap;
 import java.util.Map;
 
 /**
- * This class implements ENABLED performance logging. It is used when the "perftest" profile is active.
+ * This class implements ENABLED performance logging. It is used when the "perftest" profile is active
+ * and datarepo.performanceMetricsEnabled is false. When metrics are enabled, {@link PerformanceLoggerMetrics}
+ * passes each event on to an instance of this class instead.
  *
  * It generates logs using the same slf4j logger used throughout the API code, but with a specific
  * format intended to be propagated from StackDriver to BigQuery and then parsed with SQL for further analysis.
@@ -31,6 +34,7 @@ import java.util.Map;
  */
 @Component("performanceLogger")
 @Profile("perftest")
+@ConditionalOnProperty(name = "datarepo.performanceMetricsEnabled", havingValue = "false")
 @Primary
 public class PerformanceLoggerON implements PerformanceLogger {
 
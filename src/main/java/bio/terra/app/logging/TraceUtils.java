@@ -0,0 +1,75 @@
+package bio.terra.app.logging;
+
+import brave.ScopedSpan;
+import brave.Span;
+import brave.Tracer;
+import brave.Tracing;
+import brave.propagation.B3SingleFormat;
+import brave.propagation.TraceContextOrSamplingFlags;
+
+/**
+ * Helpers for tracing with the Brave tracer that Spring Cloud Sleuth sets up. Sleuth traces the servlet layer
+ * and outgoing HTTP calls; these helpers add spans around Google client calls and carry the trace context
+ * through Stairway flight input maps, including flights submitted to the work queue and run on other pods.
+ *
+ * The helpers go through {@link Tracing#currentTracer()} so that classes that are not Spring beans can use them.
+ * When there is no tracer, as in unit tests, they do nothing.
+ */
+public final class TraceUtils {
+
+    private TraceUtils() {
+    }
+
+    /**
+     * A call to run inside a span, declaring the checked exception it throws.
+     */
+    @FunctionalInterface
+    public interface TracedCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * Run a call in a new child span of the current span. Exceptions are recorded on the span and rethrown.
+     *
+     * @param spanName name of the span, e.g. "bigquery.query"
+     * @param call     the call to run
+     * @return the result of the call
+     */
+    public static <T, E extends Exception> T inSpan(String spanName, TracedCall<T, E> call) throws E {
+        Tracer tracer = Tracing.currentTracer();
+        if (tracer == null) {
+            return call.call();
+        }
+        ScopedSpan span = tracer.startScopedSpan(spanName);
+        try {
+            return call.call();
+        } catch (Exception | Error ex) {
+            span.error(ex);
+            throw ex;
+        } finally {
+            span.finish();
+        }
+    }
+
+    /**
+     * @return the current trace context in B3 single header format, for storing in a flight input map;
+     * null if there is no current span
+     */
+    public static String currentContext() {
+        Tracer tracer = Tracing.currentTracer();
+        Span span = (tracer == null) ? null : tracer.currentSpan();
+        return (span == null) ? null : B3SingleFormat.writeB3SingleFormat(span.context());
+    }
+
+    /**
+     * Make a new span that continues a trace context saved by {@link #currentContext()}. The span is not started.
+     *
+     * @param tracer  tracer to use
+     * @param context saved trace context; null starts a new trace
+     * @return the new span
+     */
+    public static Span nextSpan(Tracer tracer, String context) {
+        TraceContextOrSamplingFlags extracted = (context == null) ? null : B3SingleFormat.parseB3SingleFormat(context);
+        return (extracted == null) ? tracer.nextSpan() : tracer.nextSpan(extracted);
+    }
+}
@@ -20,7 +20,15 @@ public final class ControllerUtils {
     }
 
     public static void validateEnumerateParams(Integer offset, Integer limit, String sort, String direction) {
+        validateEnumerateParams(offset, limit, sort, direction, null);
+    }
+
+    public static void validateEnumerateParams(
+        Integer offset, Integer limit, String sort, String direction, String pageToken) {
         List<String> errors = new ArrayList<>();
+        if (!StringUtils.isEmpty(pageToken) && offset > 0) {
+            errors.add("offset cannot be combined with pageToken.");
+        }
         if (offset < 0) {
             errors.add("offset must be greater than or equal to 0.");
         }
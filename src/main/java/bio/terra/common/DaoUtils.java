@@ -1,22 +1,37 @@
 package bio.terra.common;
 
+import bio.terra.common.exception.InvalidPageTokenException;
+import bio.terra.service.snapshot.exception.CorruptMetadataException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.TransientDataAccessException;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.dao.RecoverableDataAccessException;
 
 import java.sql.Array;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public final class DaoUtils {
 
+    // ordering used for keyset pagination when the caller does not ask for one
+    public static final String DEFAULT_SORT = "created_date";
+    public static final String DEFAULT_DIRECTION = "asc";
+
+    // The first "Plan Rows" in a JSON plan belongs to the top node, which is the estimate for the whole query
+    private static final Pattern PLAN_ROWS_PATTERN = Pattern.compile("\"Plan Rows\":\\s*(\\d+)");
+
     private DaoUtils() {
     }
 
@@ -37,9 +52,76 @@ public final class DaoUtils {
         }
     }
 
+    /**
+     * Build an ORDER BY for keyset pagination. Rows are ordered by the sort column with the id as a
+     * tie breaker, so every row has a unique position that a page token can seek past.
+     */
+    public static String keysetOrderByClause(String sort, String direction) {
+        return new StringBuilder(" ORDER BY ")
+            .append(keysetSortExpression(sort)).append(" ").append(direction).append(", ")
+            .append("id ").append(direction).append(" ")
+            .toString();
+    }
+
+    /**
+     * Restrict the query to rows after the position recorded in the page token. The row value
+     * comparison lets Postgres use a single index range scan rather than walking past skipped rows.
+     */
+    public static void addKeysetClause(EnumeratePageToken pageToken,
+                                       MapSqlParameterSource params,
+                                       List<String> clauses) {
+        if (pageToken == null) {
+            return;
+        }
+        Object lastValue = pageToken.getLastValue();
+        if (StringUtils.equals(pageToken.getSort(), "created_date")) {
+            try {
+                lastValue = Timestamp.from(Instant.parse(pageToken.getLastValue()));
+            } catch (DateTimeParseException ex) {
+                throw new InvalidPageTokenException("Invalid page token", ex);
+            }
+        }
+        String comparison = StringUtils.equalsIgnoreCase(pageToken.getDirection(), "desc") ? "<" : ">";
+        params.addValue("keysetvalue", lastValue).addValue("keysetid", pageToken.getLastId());
+        clauses.add(" (" + keysetSortExpression(pageToken.getSort()) + ", id) " + comparison +
+            " (:keysetvalue, :keysetid) ");
+    }
+
+    // Nullable columns are coalesced so the row value comparison in addKeysetClause is never unknown
+    private static String keysetSortExpression(String sort) {
+        if (StringUtils.equals(sort, "description")) {
+            return "COALESCE(description, '')";
+        }
+        return sort;
+    }
+
     public static void addAuthzIdsClause(List<UUID> authzIds, MapSqlParameterSource params, List<String> clauses) {
-        params.addValue("idlist", authzIds);
-        clauses.add(" id in (:idlist) ");
+        // Bind the ids as a single array parameter instead of expanding an IN list. The statement text
+        // stays the same however many resources the caller can see, and the driver sends one value.
+        String[] idArray = authzIds.stream().map(UUID::toString).toArray(String[]::new);
+        params.addValue("idlist", idArray);
+        clauses.add(" id = ANY(CAST(:idlist AS uuid[])) ");
+    }
+
+    /**
+     * Ask the planner how many rows a query would return instead of counting them. This is cheap at any
+     * table size and is good enough for showing an approximate total alongside a page of results.
+     *
+     * @param jdbcTemplate template to run the EXPLAIN with
+     * @param fromWhereSql the FROM and WHERE portion of the query to estimate
+     * @param params parameters referenced by the WHERE clause
+     * @return the estimated number of rows
+     */
+    public static int estimateCount(NamedParameterJdbcTemplate jdbcTemplate,
+                                    String fromWhereSql,
+                                    MapSqlParameterSource params) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) SELECT id " + fromWhereSql,
+            params, String.class);
+        Matcher matcher = PLAN_ROWS_PATTERN.matcher(StringUtils.defaultString(plan));
+        if (!matcher.find()) {
+            throw new CorruptMetadataException("Unable to read row estimate from query plan");
+        }
+        return (int) Math.min(Long.parseLong(matcher.group(1)), Integer.MAX_VALUE);
     }
 
     public static String escapeFilter(String filter) {
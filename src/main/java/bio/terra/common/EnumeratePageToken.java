@@ -0,0 +1,92 @@
+package bio.terra.common;
+
+import bio.terra.common.exception.InvalidPageTokenException;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Cursor for keyset pagination of dataset and snapshot enumerations. A token remembers the sort
+ * column and direction it was issued for, plus the sort value and id of the last row on the page.
+ * The next page is found by seeking past that (value, id) pair instead of scanning an OFFSET, so
+ * the cost of a page does not grow with its depth.
+ *
+ * Tokens are opaque to callers: they are url-safe base64 of the fields separated by newlines.
+ * The sort value goes last because it is the only field that may itself contain a newline.
+ */
+public final class EnumeratePageToken {
+    private static final String SEPARATOR = "\n";
+
+    private final String sort;
+    private final String direction;
+    private final UUID lastId;
+    private final String lastValue;
+
+    public EnumeratePageToken(String sort, String direction, UUID lastId, String lastValue) {
+        this.sort = sort;
+        this.direction = direction;
+        this.lastId = lastId;
+        this.lastValue = lastValue;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public String getDirection() {
+        return direction;
+    }
+
+    public UUID getLastId() {
+        return lastId;
+    }
+
+    public String getLastValue() {
+        return lastValue;
+    }
+
+    public String encode() {
+        String raw = String.join(SEPARATOR, sort, direction, lastId.toString(), lastValue);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a page token supplied by a caller and make sure it was issued for the same ordering
+     * as the current request. A token from a different ordering would seek to a meaningless position.
+     *
+     * @param token the encoded token; null or empty means "start from the first page"
+     * @param sort the sort column of the current request
+     * @param direction the sort direction of the current request
+     * @return the decoded token or null if no token was supplied
+     */
+    public static EnumeratePageToken decode(String token, String sort, String direction) {
+        if (StringUtils.isEmpty(token)) {
+            return null;
+        }
+
+        String[] parts;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            parts = raw.split(SEPARATOR, 4);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidPageTokenException("Invalid page token", ex);
+        }
+        if (parts.length != 4) {
+            throw new InvalidPageTokenException("Invalid page token");
+        }
+
+        UUID lastId;
+        try {
+            lastId = UUID.fromString(parts[2]);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidPageTokenException("Invalid page token", ex);
+        }
+
+        if (!StringUtils.equals(parts[0], sort) || !StringUtils.equals(parts[1], direction)) {
+            throw new InvalidPageTokenException("Page token was issued for a different sort or direction");
+        }
+        return new EnumeratePageToken(parts[0], parts[1], lastId, parts[3]);
+    }
+}
@@ -0,0 +1,75 @@
+package bio.terra.common;
+
+import org.apache.commons.collections4.map.LRUMap;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cache of fully loaded metadata objects (datasets and snapshots) keyed by id.
+ *
+ * Each entry is tagged with the metadata versions of the rows it was loaded from: the object's own row and,
+ * for objects that embed others, the rows of the embedded objects. Writers that change the object graph
+ * bump the version of the row they change, so a reader that has just read the current versions from the
+ * database can tell whether the cached copy is still good.
+ *
+ * Objects go in and come out through the copier, so callers never share an instance with the cache or with
+ * each other. The copier decides how deep the copy goes; anything it shares must not be changed by callers.
+ *
+ * @param <T> the type of metadata object being cached
+ */
+public class MetadataCache<T> {
+
+    private static class CacheEntry<T> {
+        private final long[] versions;
+        private final T value;
+
+        CacheEntry(long[] versions, T value) {
+            this.versions = versions;
+            this.value = value;
+        }
+    }
+
+    private final Map<UUID, CacheEntry<T>> entries;
+    private final UnaryOperator<T> copier;
+
+    public MetadataCache(int cacheSize, UnaryOperator<T> copier) {
+        // wrap the cache map with a synchronized map to safely share the cache across threads
+        this.entries = Collections.synchronizedMap(new LRUMap<>(Math.max(cacheSize, 1)));
+        this.copier = copier;
+    }
+
+    /**
+     * @param id the object id
+     * @param versions the metadata versions just read from the database
+     * @return a copy of the cached object if it was loaded at exactly these versions; null otherwise
+     */
+    public T get(UUID id, long... versions) {
+        CacheEntry<T> entry = entries.get(id);
+        if (entry == null || !Arrays.equals(entry.versions, versions)) {
+            return null;
+        }
+        return copier.apply(entry.value);
+    }
+
+    /**
+     * Remember a copy of an object loaded at the given versions. Objects loaded inside a read-write
+     * transaction are not cached: the transaction may have bumped a version itself and could still roll
+     * back, leaving an entry for a version number that will be reused with different contents.
+     */
+    public void put(UUID id, T value, long... versions) {
+        if (TransactionSynchronizationManager.isActualTransactionActive() &&
+            !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return;
+        }
+        entries.put(id, new CacheEntry<>(versions.clone(), copier.apply(value)));
+    }
+
+    public void invalidate(UUID id) {
+        entries.remove(id);
+    }
+}
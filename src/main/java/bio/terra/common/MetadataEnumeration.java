@@ -5,6 +5,7 @@ import java.util.List;
 public class MetadataEnumeration<T> {
     private int total;
     private List<T> items;
+    private String nextPageToken;
 
     public int getTotal() {
         return total;
@@ -24,4 +25,13 @@ public class MetadataEnumeration<T> {
         return this;
     }
 
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    public MetadataEnumeration<T> nextPageToken(String nextPageToken) {
+        this.nextPageToken = nextPageToken;
+        return this;
+    }
+
 }
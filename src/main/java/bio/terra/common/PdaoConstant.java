@@ -11,7 +11,7 @@ public final class PdaoConstant {
     public static final String PDAO_TEMP_TABLE = PDAO_PREFIX + "temp";
     public static final String PDAO_TABLE_ID_COLUMN = PDAO_PREFIX + "table_id";
     public static final String PDAO_INGEST_DATE_COLUMN_ALIAS = PDAO_PREFIX + "ingest_date";
-    public static final String PDAO_EXTERNAL_TABLE_PREFIX = PDAO_PREFIX + "ext_";
+    public static final String PDAO_SOFT_DELETE_STAGING_TABLE_PREFIX = PDAO_PREFIX + "sd_staging_";
     public static final String PDAO_LOAD_HISTORY_TABLE = PDAO_PREFIX + "load_history";
     public static final String PDAO_LOAD_HISTORY_STAGING_TABLE_PREFIX = PDAO_LOAD_HISTORY_TABLE + "_staging_";
 }
@@ -0,0 +1,11 @@
+package bio.terra.common.exception;
+
+public class InvalidPageTokenException extends BadRequestException {
+    public InvalidPageTokenException(String message) {
+        super(message);
+    }
+
+    public InvalidPageTokenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
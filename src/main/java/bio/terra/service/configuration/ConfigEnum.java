@@ -16,6 +16,11 @@ public enum ConfigEnum {
     LOAD_BULK_ARRAY_FILES_MAX,
     LOAD_BULK_FILES_MAX,
     LOAD_CONCURRENT_FILES,
+    LOAD_CONCURRENT_FILES_MIN,
+    LOAD_CONCURRENT_FILES_MAX,
+    LOAD_SCHEDULE_BY_SIZE,
+    LOAD_LARGE_FILE_SIZE_MB,
+    LOAD_CONCURRENT_LARGE_FILES,
     LOAD_CONCURRENT_INGESTS,
     LOAD_DRIVER_WAIT_SECONDS,
     LOAD_HISTORY_COPY_CHUNK_SIZE,
@@ -24,8 +29,12 @@ public enum ConfigEnum {
     FIRESTORE_SNAPSHOT_CACHE_SIZE,
     FIRESTORE_VALIDATE_BATCH_SIZE,
     FIRESTORE_QUERY_BATCH_SIZE,
+    FIRESTORE_EXPAND_NODE_BUDGET,
     AUTH_CACHE_TIMEOUT_SECONDS,
     AUTH_CACHE_SIZE,
+    AUTH_CACHE_ADMIN_TIMEOUT_SECONDS,
+    METADATA_CACHE_SIZE,
+    ACCESS_LOG_SAMPLE_PERCENT,
     ALLOW_REUSE_EXISTING_BUCKETS,
 
     // -- faults --
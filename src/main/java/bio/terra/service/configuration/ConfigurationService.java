@@ -21,7 +21,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
+import static bio.terra.service.configuration.ConfigEnum.ACCESS_LOG_SAMPLE_PERCENT;
 import static bio.terra.service.configuration.ConfigEnum.ALLOW_REUSE_EXISTING_BUCKETS;
+import static bio.terra.service.configuration.ConfigEnum.AUTH_CACHE_ADMIN_TIMEOUT_SECONDS;
 import static bio.terra.service.configuration.ConfigEnum.AUTH_CACHE_SIZE;
 import static bio.terra.service.configuration.ConfigEnum.AUTH_CACHE_TIMEOUT_SECONDS;
 import static bio.terra.service.configuration.ConfigEnum.BUCKET_LOCK_CONFLICT_CONTINUE_FAULT;
@@ -38,6 +40,7 @@ import static bio.terra.service.configuration.ConfigEnum.FILE_INGEST_LOCK_FATAL_
 import static bio.terra.service.configuration.ConfigEnum.FILE_INGEST_LOCK_RETRY_FAULT;
 import static bio.terra.service.configuration.ConfigEnum.FILE_INGEST_UNLOCK_FATAL_FAULT;
 import static bio.terra.service.configuration.ConfigEnum.FILE_INGEST_UNLOCK_RETRY_FAULT;
+import static bio.terra.service.configuration.ConfigEnum.FIRESTORE_EXPAND_NODE_BUDGET;
 import static bio.terra.service.configuration.ConfigEnum.FIRESTORE_QUERY_BATCH_SIZE;
 import static bio.terra.service.configuration.ConfigEnum.FIRESTORE_RETRIEVE_FAULT;
 import static bio.terra.service.configuration.ConfigEnum.FIRESTORE_SNAPSHOT_BATCH_SIZE;
@@ -48,11 +51,17 @@ import static bio.terra.service.configuration.ConfigEnum.CRITICAL_SYSTEM_FAULT;
 import static bio.terra.service.configuration.ConfigEnum.LOAD_BULK_ARRAY_FILES_MAX;
 import static bio.terra.service.configuration.ConfigEnum.LOAD_BULK_FILES_MAX;
 import static bio.terra.service.configuration.ConfigEnum.LOAD_CONCURRENT_FILES;
+import static bio.terra.service.configuration.ConfigEnum.LOAD_CONCURRENT_FILES_MAX;
+import static bio.terra.service.configuration.ConfigEnum.LOAD_CONCURRENT_FILES_MIN;
 import static bio.terra.service.configuration.ConfigEnum.LOAD_CONCURRENT_INGESTS;
+import static bio.terra.service.configuration.ConfigEnum.LOAD_CONCURRENT_LARGE_FILES;
 import static bio.terra.service.configuration.ConfigEnum.LOAD_DRIVER_WAIT_SECONDS;
 import static bio.terra.service.configuration.ConfigEnum.LOAD_HISTORY_COPY_CHUNK_SIZE;
 import static bio.terra.service.configuration.ConfigEnum.LOAD_HISTORY_WAIT_SECONDS;
+import static bio.terra.service.configuration.ConfigEnum.LOAD_LARGE_FILE_SIZE_MB;
+import static bio.terra.service.configuration.ConfigEnum.LOAD_SCHEDULE_BY_SIZE;
 import static bio.terra.service.configuration.ConfigEnum.LOAD_SKIP_FILE_LOAD;
+import static bio.terra.service.configuration.ConfigEnum.METADATA_CACHE_SIZE;
 import static bio.terra.service.configuration.ConfigEnum.SAM_OPERATION_TIMEOUT_SECONDS;
 import static bio.terra.service.configuration.ConfigEnum.SAM_RETRY_INITIAL_WAIT_SECONDS;
 import static bio.terra.service.configuration.ConfigEnum.SAM_RETRY_MAXIMUM_WAIT_SECONDS;
@@ -218,6 +227,11 @@ public class ConfigurationService {
         addParameter(LOAD_BULK_ARRAY_FILES_MAX, appConfiguration.getMaxBulkFileLoadArray());
         addParameter(LOAD_BULK_FILES_MAX, appConfiguration.getMaxBulkFileLoad());
         addParameter(LOAD_CONCURRENT_FILES, appConfiguration.getLoadConcurrentFiles());
+        addParameter(LOAD_CONCURRENT_FILES_MIN, appConfiguration.getLoadConcurrentFilesMin());
+        addParameter(LOAD_CONCURRENT_FILES_MAX, appConfiguration.getLoadConcurrentFilesMax());
+        addParameter(LOAD_SCHEDULE_BY_SIZE, appConfiguration.isLoadScheduleBySize());
+        addParameter(LOAD_LARGE_FILE_SIZE_MB, appConfiguration.getLoadLargeFileSizeMb());
+        addParameter(LOAD_CONCURRENT_LARGE_FILES, appConfiguration.getLoadConcurrentLargeFiles());
         addParameter(LOAD_CONCURRENT_INGESTS, appConfiguration.getLoadConcurrentIngests());
         addParameter(LOAD_DRIVER_WAIT_SECONDS, appConfiguration.getLoadDriverWaitSeconds());
         addParameter(LOAD_HISTORY_COPY_CHUNK_SIZE, appConfiguration.getLoadHistoryCopyChunkSize());
@@ -226,8 +240,12 @@ public class ConfigurationService {
         addParameter(FIRESTORE_SNAPSHOT_CACHE_SIZE, appConfiguration.getFirestoreSnapshotCacheSize());
         addParameter(FIRESTORE_VALIDATE_BATCH_SIZE, appConfiguration.getFirestoreValidateBatchSize());
         addParameter(FIRESTORE_QUERY_BATCH_SIZE, appConfiguration.getFirestoreQueryBatchSize());
+        addParameter(FIRESTORE_EXPAND_NODE_BUDGET, appConfiguration.getFirestoreExpandNodeBudget());
         addParameter(AUTH_CACHE_SIZE, appConfiguration.getAuthCacheSize());
         addParameter(AUTH_CACHE_TIMEOUT_SECONDS, appConfiguration.getAuthCacheTimeoutSeconds());
+        addParameter(AUTH_CACHE_ADMIN_TIMEOUT_SECONDS, appConfiguration.getAuthCacheAdminTimeoutSeconds());
+        addParameter(METADATA_CACHE_SIZE, appConfiguration.getMetadataCacheSize());
+        addParameter(ACCESS_LOG_SAMPLE_PERCENT, appConfiguration.getAccessLogSamplePercent());
         addParameter(ALLOW_REUSE_EXISTING_BUCKETS, googleResourceConfiguration.getAllowReuseExistingBuckets());
 
         // -- Faults --
@@ -1,5 +1,7 @@
 package bio.terra.service.configuration;
 
+import bio.terra.app.configuration.DataRepoJdbcConfiguration;
+import bio.terra.app.configuration.StairwayJdbcConfiguration;
 import bio.terra.model.RepositoryStatusModel;
 import bio.terra.model.RepositoryStatusModelSystems;
 import bio.terra.service.dataset.DatasetDao;
@@ -17,15 +19,21 @@ public class StatusService {
     private final ConfigurationService configurationService;
     private final DatasetDao datasetDao;
     private final IamProviderInterface iamProviderInterface;
+    private final DataRepoJdbcConfiguration dataRepoJdbcConfiguration;
+    private final StairwayJdbcConfiguration stairwayJdbcConfiguration;
 
     @Autowired
     public StatusService(
         ConfigurationService configurationService,
         DatasetDao datasetDao,
-        IamProviderInterface iamProviderInterface) {
+        IamProviderInterface iamProviderInterface,
+        DataRepoJdbcConfiguration dataRepoJdbcConfiguration,
+        StairwayJdbcConfiguration stairwayJdbcConfiguration) {
         this.configurationService = configurationService;
         this.datasetDao = datasetDao;
         this.iamProviderInterface = iamProviderInterface;
+        this.dataRepoJdbcConfiguration = dataRepoJdbcConfiguration;
+        this.stairwayJdbcConfiguration = stairwayJdbcConfiguration;
     }
 
     public RepositoryStatusModel getStatus() {
@@ -40,6 +48,9 @@ public class StatusService {
 
         statusModel.putSystemsItem("Postgres", postgresStatus(true));
         statusModel.putSystemsItem("Sam", iamProviderInterface.samStatus().critical(true));
+        // Not critical: an exhausted pool makes requests slow, not broken, and restarting does not help
+        statusModel.putSystemsItem("DataRepoConnectionPool", dataRepoJdbcConfiguration.getPoolStatus());
+        statusModel.putSystemsItem("StairwayConnectionPool", stairwayJdbcConfiguration.getPoolStatus());
 
         // if all critical systems are ok, then isOk = true
         // if any one critical system is down, then isOk = false
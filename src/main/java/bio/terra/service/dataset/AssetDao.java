@@ -15,11 +15,12 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Repository
@@ -67,9 +68,16 @@ public class AssetDao {
 
         createAssetColumns(assetSpecification);
         createAssetRelationships(assetSpecification);
+        bumpMetadataVersion("id = :dataset_id", params);
         return assetSpecId;
     }
 
+    // Assets are part of the cached dataset graph, so changing them must invalidate cached copies
+    private void bumpMetadataVersion(String datasetMatch, MapSqlParameterSource params) {
+        jdbcTemplate.update("UPDATE dataset SET metadata_version = metadata_version + 1 WHERE " + datasetMatch,
+            params);
+    }
+
     private void createAssetColumns(AssetSpecification assetSpec) {
         assetSpec.getAssetTables().forEach(assetTable -> {
             assetTable.getColumns().forEach(assetCol -> {
@@ -104,7 +112,8 @@ public class AssetDao {
         dataset.assetSpecifications(retrieveAssetSpecifications(dataset));
     }
 
-    // also retrieves dependent objects
+    // also retrieves dependent objects. The asset columns and relationships of all of the dataset's assets
+    // are each fetched with one query, rather than two queries per asset.
     public List<AssetSpecification> retrieveAssetSpecifications(Dataset dataset) {
         Map<UUID, DatasetTable> allTables = dataset.getTablesById();
         Map<UUID, Column> allColumns = dataset.getAllColumnsById();
@@ -114,75 +123,97 @@ public class AssetDao {
                 ":datasetId";
         MapSqlParameterSource params = new MapSqlParameterSource().addValue("datasetId", dataset.getId());
 
-        return jdbcTemplate.query(sql, params, (rs, rowNum) -> {
+        Map<UUID, UUID> rootTableIds = new HashMap<>();
+        Map<UUID, UUID> rootColumnIds = new HashMap<>();
+        List<AssetSpecification> specs = jdbcTemplate.query(sql, params, (rs, rowNum) -> {
             UUID specId = rs.getObject("id", UUID.class);
-            AssetSpecification spec = new AssetSpecification()
+            rootTableIds.put(specId, rs.getObject("root_table_id", UUID.class));
+            rootColumnIds.put(specId, rs.getObject("root_column_id", UUID.class));
+            return new AssetSpecification()
                     .id(specId)
                     .name(rs.getString("name"));
-            spec.assetTables(new ArrayList(
-                    retrieveAssetTablesAndColumns(
-                            spec,
-                            rs.getObject("root_table_id", UUID.class),
-                            rs.getObject("root_column_id", UUID.class),
-                            allTables,
-                            allColumns)));
-            spec.assetRelationships(retrieveAssetRelationships(spec.getId(), allRelationships));
-
-            return spec;
         });
+
+        Map<UUID, Map<UUID, AssetTable>> assetTables = retrieveAssetTablesAndColumns(
+            dataset.getId(), specs, rootTableIds, rootColumnIds, allTables, allColumns);
+        Map<UUID, List<AssetRelationship>> assetRelationships =
+            retrieveAssetRelationships(dataset.getId(), allRelationships);
+
+        for (AssetSpecification spec : specs) {
+            spec.assetTables(new ArrayList<>(
+                assetTables.getOrDefault(spec.getId(), Collections.emptyMap()).values()));
+            spec.assetRelationships(assetRelationships.getOrDefault(spec.getId(), new ArrayList<>()));
+        }
+        return specs;
     }
 
-    // also retrieves columns
-    private Collection<AssetTable> retrieveAssetTablesAndColumns(AssetSpecification spec,
-                                                                 UUID rootTableId,
-                                                                 UUID rootColumnId,
-                                                                 Map<UUID, DatasetTable> allTables,
-                                                                 Map<UUID, Column> allColumns) {
-        Map<UUID, AssetTable> tables = new HashMap<>();
-        String sql = "SELECT asset_column.id, asset_column.dataset_column_id, dataset_column.table_id " +
+    // also retrieves columns; returns the asset tables of each asset keyed by asset id, then dataset table id
+    private Map<UUID, Map<UUID, AssetTable>> retrieveAssetTablesAndColumns(UUID datasetId,
+                                                                     List<AssetSpecification> specs,
+                                                                     Map<UUID, UUID> rootTableIds,
+                                                                     Map<UUID, UUID> rootColumnIds,
+                                                                     Map<UUID, DatasetTable> allTables,
+                                                                     Map<UUID, Column> allColumns) {
+        Map<UUID, AssetSpecification> specsById = specs.stream()
+            .collect(Collectors.toMap(AssetSpecification::getId, Function.identity()));
+        Map<UUID, Map<UUID, AssetTable>> tables = new HashMap<>();
+        String sql = "SELECT asset_column.id, asset_column.asset_id, asset_column.dataset_column_id, " +
+                "dataset_column.table_id " +
                 "FROM asset_column " +
                 "INNER JOIN dataset_column ON asset_column.dataset_column_id = dataset_column.id " +
-                "WHERE asset_id = :assetId";
-        MapSqlParameterSource params = new MapSqlParameterSource().addValue("assetId", spec.getId());
+                "INNER JOIN asset_specification ON asset_column.asset_id = asset_specification.id " +
+                "WHERE asset_specification.dataset_id = :datasetId";
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("datasetId", datasetId);
         List<Map<String, Object>> results = jdbcTemplate.queryForList(sql, params);
         results.forEach(rs -> {
+            UUID assetId = (UUID) rs.get("asset_id");
             UUID tableId = (UUID) rs.get("table_id");
             UUID columnId = (UUID) rs.get("dataset_column_id");
-            if (!tables.containsKey(tableId)) {
-                tables.put(tableId, new AssetTable().datasetTable(allTables.get(tableId)));
+            Map<UUID, AssetTable> specTables = tables.computeIfAbsent(assetId, k -> new HashMap<>());
+            if (!specTables.containsKey(tableId)) {
+                specTables.put(tableId, new AssetTable().datasetTable(allTables.get(tableId)));
             }
-            AssetTable assetTable = tables.get(tableId);
+            AssetTable assetTable = specTables.get(tableId);
             AssetColumn newColumn = new AssetColumn()
                     .id((UUID) rs.get("id"))
                     .datasetColumn(allColumns.get(columnId));
             // check to see if this table and column are the root values
-            if (rootTableId.equals(tableId) && rootColumnId.equals(columnId)) {
+            if (rootTableIds.get(assetId).equals(tableId) && rootColumnIds.get(assetId).equals(columnId)) {
+                AssetSpecification spec = specsById.get(assetId);
                 spec.rootTable(assetTable);
                 spec.rootColumn(newColumn);
             }
             // add the new column to the asset table object
             assetTable.getColumns().add(newColumn);
         });
-        return tables.values();
+        return tables;
     }
 
 
-    private List<AssetRelationship> retrieveAssetRelationships(
-            UUID specId,
+    private Map<UUID, List<AssetRelationship>> retrieveAssetRelationships(
+            UUID datasetId,
             Map<UUID, Relationship> allRelationships) {
-        String sql = "SELECT id, relationship_id FROM asset_relationship WHERE asset_id = :assetId";
-        MapSqlParameterSource params = new MapSqlParameterSource().addValue("assetId", specId);
-        return jdbcTemplate.query(sql, params, (rs, rowNum) ->
-                new AssetRelationship()
-                        .id(rs.getObject("id", UUID.class))
-                        .datasetRelationship(allRelationships.get(
-                                rs.getObject("relationship_id", UUID.class))));
+        String sql = "SELECT asset_relationship.id, asset_relationship.asset_id, asset_relationship.relationship_id " +
+            "FROM asset_relationship " +
+            "INNER JOIN asset_specification ON asset_relationship.asset_id = asset_specification.id " +
+            "WHERE asset_specification.dataset_id = :datasetId";
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("datasetId", datasetId);
+        Map<UUID, List<AssetRelationship>> relationships = new HashMap<>();
+        jdbcTemplate.query(sql, params, rs -> {
+            AssetRelationship assetRelationship = new AssetRelationship()
+                .id(rs.getObject("id", UUID.class))
+                .datasetRelationship(allRelationships.get(rs.getObject("relationship_id", UUID.class)));
+            relationships.computeIfAbsent(rs.getObject("asset_id", UUID.class), k -> new ArrayList<>())
+                .add(assetRelationship);
+        });
+        return relationships;
     }
 
     @Transactional
     public boolean delete(UUID id) {
-        int rowsAffected = jdbcTemplate.update("DELETE FROM asset_specification WHERE id = :id ",
-            new MapSqlParameterSource().addValue("id", id));
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("id", id);
+        bumpMetadataVersion("id = (SELECT dataset_id FROM asset_specification WHERE id = :id)", params);
+        int rowsAffected = jdbcTemplate.update("DELETE FROM asset_specification WHERE id = :id ", params);
         return rowsAffected > 0;
     }
 }
@@ -1,6 +1,7 @@
 package bio.terra.service.dataset;
 
 import bio.terra.model.DataDeletionGcsFileModel;
+import bio.terra.model.DataDeletionJsonArrayModel;
 import bio.terra.model.DataDeletionRequest;
 import bio.terra.model.DataDeletionTableModel;
 import bio.terra.service.dataset.exception.InvalidUriException;
@@ -20,12 +21,22 @@ public class DataDeletionRequestValidator implements Validator {
         return true;
     }
 
-    private void validateFileSpec(DataDeletionTableModel fileSpec, Errors errors) {
+    private void validateFileSpec(DataDeletionRequest.SpecTypeEnum specType,
+                                  DataDeletionTableModel fileSpec,
+                                  Errors errors) {
         String tableName = fileSpec.getTableName();
         if (StringUtils.isEmpty(tableName)) {
             errors.rejectValue("tables.tableName", "TableNameMissing", "Requires a table name");
         }
 
+        if (specType == DataDeletionRequest.SpecTypeEnum.JSONARRAY) {
+            DataDeletionJsonArrayModel jsonArraySpec = fileSpec.getJsonArraySpec();
+            if (jsonArraySpec == null || jsonArraySpec.getRowIds() == null || jsonArraySpec.getRowIds().isEmpty()) {
+                errors.rejectValue("tables.jsonArraySpec", "RowIdsMissing", "Requires a list of row ids");
+            }
+            return;
+        }
+
         DataDeletionGcsFileModel gcsFileSpec = fileSpec.getGcsFileSpec();
         if (gcsFileSpec == null) {
             errors.rejectValue("tables.gcsFileSpec", "FileSpecMissing", "Requires a file spec");
@@ -42,7 +53,8 @@ public class DataDeletionRequestValidator implements Validator {
     public void validate(@NotNull Object target, Errors errors) {
         if (target instanceof DataDeletionRequest) {
             DataDeletionRequest dataDeletionRequest = (DataDeletionRequest) target;
-            dataDeletionRequest.getTables().forEach(table -> validateFileSpec(table, errors));
+            dataDeletionRequest.getTables()
+                .forEach(table -> validateFileSpec(dataDeletionRequest.getSpecType(), table, errors));
 
         }
     }
@@ -3,6 +3,8 @@ package bio.terra.service.dataset;
 import bio.terra.model.RepositoryStatusModelSystems;
 import bio.terra.common.DaoKeyHolder;
 import bio.terra.common.DaoUtils;
+import bio.terra.common.EnumeratePageToken;
+import bio.terra.common.MetadataCache;
 import bio.terra.common.MetadataEnumeration;
 import bio.terra.common.exception.RetryQueryException;
 import bio.terra.service.configuration.ConfigEnum;
@@ -11,6 +13,7 @@ import bio.terra.service.dataset.exception.DatasetLockException;
 import bio.terra.service.dataset.exception.DatasetNotFoundException;
 import bio.terra.service.dataset.exception.InvalidDatasetException;
 import bio.terra.service.resourcemanagement.ResourceService;
+import bio.terra.service.resourcemanagement.google.GoogleProjectResource;
 import bio.terra.service.snapshot.exception.CorruptMetadataException;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -38,6 +41,7 @@ import java.util.List;
 import java.util.UUID;
 
 import static bio.terra.common.DaoUtils.retryQuery;
+import static bio.terra.service.configuration.ConfigEnum.METADATA_CACHE_SIZE;
 
 @Repository
 public class DatasetDao {
@@ -48,11 +52,12 @@ public class DatasetDao {
     private final AssetDao assetDao;
     private final ConfigurationService configurationService;
     private final ResourceService resourceService;
+    private final MetadataCache<Dataset> datasetCache;
 
     private static final Logger logger = LoggerFactory.getLogger(DatasetDao.class);
 
     private static final String summaryQueryColumns =
-        " id, name, description, default_profile_id, project_resource_id, created_date ";
+        " id, name, description, default_profile_id, project_resource_id, created_date, metadata_version ";
 
     @Autowired
     public DatasetDao(NamedParameterJdbcTemplate jdbcTemplate,
@@ -67,6 +72,8 @@ public class DatasetDao {
         this.assetDao = assetDao;
         this.configurationService = configurationService;
         this.resourceService = resourceService;
+        this.datasetCache = new MetadataCache<>(
+            configurationService.getParameterValue(METADATA_CACHE_SIZE), DatasetDao::copyDataset);
     }
 
     /**
@@ -402,10 +409,19 @@ public class DatasetDao {
         return retrieveWorker(summary);
     }
 
+    /**
+     * Build the full dataset object for a summary. The summary query has already read the dataset's
+     * metadata version, so a cached copy at that version can be returned without any further round trips.
+     * Otherwise the dataset graph is loaded with a fixed number of set-based queries and cached.
+     */
     private Dataset retrieveWorker(DatasetSummary summary) {
         Dataset dataset = null;
         try {
             if (summary != null) {
+                dataset = datasetCache.get(summary.getId(), summary.getMetadataVersion());
+                if (dataset != null) {
+                    return dataset;
+                }
                 dataset = new Dataset(summary);
                 dataset.tables(tableDao.retrieveTables(dataset.getId()));
                 relationshipDao.retrieve(dataset);
@@ -414,6 +430,7 @@ public class DatasetDao {
                 // This is a bit sketchy filling in the object via a dao in another package.
                 // It seemed like the cleanest thing to me at the time.
                 dataset.projectResource(resourceService.getProjectResource(dataset.getProjectResourceId()));
+                datasetCache.put(summary.getId(), dataset, summary.getMetadataVersion());
             }
             return dataset;
         } catch (EmptyResultDataAccessException ex) {
@@ -421,6 +438,28 @@ public class DatasetDao {
         }
     }
 
+    /**
+     * Copy a dataset for the metadata cache. The dataset, its summary and its project resource are copied;
+     * the table, relationship and asset lists are unmodifiable and their contents are shared, since nothing
+     * changes a table, relationship or asset after it has been loaded.
+     */
+    static Dataset copyDataset(Dataset dataset) {
+        DatasetSummary summary = dataset.getDatasetSummary();
+        GoogleProjectResource projectResource = dataset.getProjectResource();
+        return new Dataset(new DatasetSummary()
+                .id(summary.getId())
+                .name(summary.getName())
+                .description(summary.getDescription())
+                .defaultProfileId(summary.getDefaultProfileId())
+                .projectResourceId(summary.getProjectResourceId())
+                .createdDate(summary.getCreatedDate())
+                .metadataVersion(summary.getMetadataVersion()))
+            .tables(dataset.getTables())
+            .relationships(dataset.getRelationships())
+            .assetSpecifications(dataset.getAssetSpecifications())
+            .projectResource((projectResource == null) ? null : new GoogleProjectResource(projectResource));
+    }
+
     /**
      * This is a convenience wrapper that returns a dataset, regardless of whether it is exclusively locked.
      * Most places in the API code that are retrieving a dataset will call this method.
@@ -466,6 +505,18 @@ public class DatasetDao {
         }
     }
 
+    /**
+     * Fetch the ids of all datasets, whether or not they are locked. This is for maintenance work that has to
+     * visit every dataset, not for user-facing listings.
+     *
+     * @return dataset ids in creation order
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.SERIALIZABLE, readOnly = true)
+    public List<UUID> retrieveAllIds() {
+        String sql = "SELECT id FROM dataset ORDER BY created_date";
+        return jdbcTemplate.query(sql, new MapSqlParameterSource(), (rs, rowNum) -> rs.getObject("id", UUID.class));
+    }
+
     /**
      * Fetch a list of all the available datasets.
      * This method returns summary objects, which do not include sub-objects associated with datasets (e.g. tables).
@@ -488,35 +539,83 @@ public class DatasetDao {
         String filter,
         List<UUID> accessibleDatasetIds
     ) {
+        return enumerate(offset, limit, sort, direction, filter, accessibleDatasetIds, null, false);
+    }
+
+    /**
+     * Enumerate a page of the datasets the caller can access. When a page token is supplied the page
+     * starts right after the row the token was issued for and the offset is ignored.
+     *
+     * @param estimateTotal if true, report the planner's estimate of the total instead of counting rows
+     * @return the page of summaries, the total, and a token for the following page if there is one
+     */
+    public MetadataEnumeration<DatasetSummary> enumerate(
+        int offset,
+        int limit,
+        String sort,
+        String direction,
+        String filter,
+        List<UUID> accessibleDatasetIds,
+        EnumeratePageToken pageToken,
+        boolean estimateTotal
+    ) {
+        String keysetSort = StringUtils.defaultIfEmpty(sort, DaoUtils.DEFAULT_SORT);
+        String keysetDirection = StringUtils.defaultIfEmpty(direction, DaoUtils.DEFAULT_DIRECTION);
         MapSqlParameterSource params = new MapSqlParameterSource();
         List<String> whereClauses = new ArrayList<>();
         DaoUtils.addAuthzIdsClause(accessibleDatasetIds, params, whereClauses);
         whereClauses.add(" flightid IS NULL"); // exclude datasets that are exclusively locked
 
         // get total count of objects
-        String countSql = "SELECT count(id) AS total FROM dataset WHERE " +
-            StringUtils.join(whereClauses, " AND ");
-        Integer total = jdbcTemplate.queryForObject(countSql, params, Integer.class);
+        String countFromWhere = " FROM dataset WHERE " + StringUtils.join(whereClauses, " AND ");
+        Integer total;
+        if (estimateTotal) {
+            total = DaoUtils.estimateCount(jdbcTemplate, countFromWhere, params);
+        } else {
+            total = jdbcTemplate.queryForObject("SELECT count(id) AS total" + countFromWhere, params, Integer.class);
+        }
         if (total == null) {
             throw new CorruptMetadataException("Impossible null value from count");
         }
 
         // add the filter to the clause to get the actual items
         DaoUtils.addFilterClause(filter, params, whereClauses);
+        DaoUtils.addKeysetClause(pageToken, params, whereClauses);
         String whereSql = "";
         if (!whereClauses.isEmpty()) {
             whereSql = " WHERE " + StringUtils.join(whereClauses, " AND ");
         }
+        // fetch one extra row to find out whether there is a next page
         String sql = "SELECT " +
-            "id, name, description, default_profile_id, project_resource_id, created_date " +
+            summaryQueryColumns +
             "FROM dataset " + whereSql +
-            DaoUtils.orderByClause(sort, direction) + " OFFSET :offset LIMIT :limit";
-        params.addValue("offset", offset).addValue("limit", limit);
+            DaoUtils.keysetOrderByClause(keysetSort, keysetDirection) + " OFFSET :offset LIMIT :limit";
+        params.addValue("offset", (pageToken == null) ? offset : 0).addValue("limit", limit + 1);
         List<DatasetSummary> summaries = jdbcTemplate.query(sql, params, new DatasetSummaryMapper());
 
+        String nextPageToken = null;
+        if (summaries.size() > limit) {
+            summaries = summaries.subList(0, limit);
+            DatasetSummary last = summaries.get(limit - 1);
+            nextPageToken = new EnumeratePageToken(keysetSort, keysetDirection, last.getId(),
+                sortValue(last, keysetSort)).encode();
+        }
+
         return new MetadataEnumeration<DatasetSummary>()
             .items(summaries)
-            .total(total);
+            .total(total)
+            .nextPageToken(nextPageToken);
+    }
+
+    private static String sortValue(DatasetSummary summary, String sort) {
+        switch (sort) {
+            case "name":
+                return summary.getName();
+            case "description":
+                return StringUtils.defaultString(summary.getDescription());
+            default:
+                return summary.getCreatedDate().toString();
+        }
     }
 
     private static class DatasetSummaryMapper implements RowMapper<DatasetSummary> {
@@ -527,8 +626,8 @@ public class DatasetDao {
                 .description(rs.getString("description"))
                 .defaultProfileId(rs.getObject("default_profile_id", UUID.class))
                 .projectResourceId(rs.getObject("project_resource_id", UUID.class))
-                .createdDate(rs.getTimestamp("created_date").toInstant());
-
+                .createdDate(rs.getTimestamp("created_date").toInstant())
+                .metadataVersion(rs.getLong("metadata_version"));
         }
     }
 
@@ -1,25 +1,30 @@
 package bio.terra.service.dataset;
 
+import bio.terra.common.EnumeratePageToken;
 import bio.terra.common.MetadataEnumeration;
 import bio.terra.model.AssetModel;
+import bio.terra.model.BigQueryUsageModel;
 import bio.terra.model.DataDeletionRequest;
 import bio.terra.model.DatasetModel;
 import bio.terra.model.DatasetRequestModel;
 import bio.terra.model.DatasetSummaryModel;
 import bio.terra.model.EnumerateDatasetModel;
 import bio.terra.model.IngestRequestModel;
+import bio.terra.model.MultiTableIngestRequestModel;
 import bio.terra.service.dataset.flight.create.AddAssetSpecFlight;
 import bio.terra.service.dataset.flight.create.DatasetCreateFlight;
 import bio.terra.service.dataset.flight.datadelete.DatasetDataDeleteFlight;
 import bio.terra.service.dataset.flight.delete.DatasetDeleteFlight;
 import bio.terra.service.dataset.flight.delete.RemoveAssetSpecFlight;
 import bio.terra.service.dataset.flight.ingest.DatasetIngestFlight;
+import bio.terra.service.dataset.flight.ingest.DatasetMultiTableIngestFlight;
 import bio.terra.service.iam.AuthenticatedUserRequest;
 import bio.terra.service.job.JobMapKeys;
 import bio.terra.service.job.JobService;
 import bio.terra.service.load.LoadService;
 import bio.terra.service.resourcemanagement.ResourceService;
 import bio.terra.service.snapshot.exception.AssetNotFoundException;
+import bio.terra.service.tabulardata.google.BigQueryUsageDao;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -33,16 +38,19 @@ public class DatasetService {
     private final JobService jobService; // for handling flight response
     private final ResourceService resourceService;
     private final LoadService loadService;
+    private final BigQueryUsageDao bigQueryUsageDao;
 
     @Autowired
     public DatasetService(DatasetDao datasetDao,
                           JobService jobService,
                           ResourceService resourceService,
-                          LoadService loadService) {
+                          LoadService loadService,
+                          BigQueryUsageDao bigQueryUsageDao) {
         this.datasetDao = datasetDao;
         this.jobService = jobService;
         this.resourceService = resourceService;
         this.loadService = loadService;
+        this.bigQueryUsageDao = bigQueryUsageDao;
     }
 
     public String createDataset(DatasetRequestModel datasetRequest, AuthenticatedUserRequest userReq) {
@@ -101,18 +109,43 @@ public class DatasetService {
         return DatasetJsonConversion.populateDatasetModelFromDataset(dataset);
     }
 
+    /** Total BigQuery usage of the jobs that worked on the dataset, including snapshots created from it.
+     * @param id in UUID format
+     * @return usage totals; zero if no jobs have run BigQuery jobs for the dataset
+     */
+    public BigQueryUsageModel retrieveBigQueryUsage(UUID id) {
+        // Throws not found if the dataset does not exist
+        datasetDao.retrieveSummaryById(id);
+        return bigQueryUsageDao.retrieveDatasetUsage(id).toModel();
+    }
+
     public EnumerateDatasetModel enumerate(
         int offset, int limit, String sort, String direction, String filter, List<UUID> resources) {
+        return enumerate(offset, limit, sort, direction, filter, resources, null, false);
+    }
+
+    public EnumerateDatasetModel enumerate(
+        int offset,
+        int limit,
+        String sort,
+        String direction,
+        String filter,
+        List<UUID> resources,
+        EnumeratePageToken pageToken,
+        boolean estimateTotal) {
         if (resources.isEmpty()) {
             return new EnumerateDatasetModel().total(0);
         }
         MetadataEnumeration<DatasetSummary> datasetEnum = datasetDao.enumerate(
-            offset, limit, sort, direction, filter, resources);
+            offset, limit, sort, direction, filter, resources, pageToken, estimateTotal);
         List<DatasetSummaryModel> summaries = datasetEnum.getItems()
             .stream()
             .map(DatasetJsonConversion::datasetSummaryModelFromDatasetSummary)
             .collect(Collectors.toList());
-        return new EnumerateDatasetModel().items(summaries).total(datasetEnum.getTotal());
+        return new EnumerateDatasetModel()
+            .items(summaries)
+            .total(datasetEnum.getTotal())
+            .nextPageToken(datasetEnum.getNextPageToken());
     }
 
     public String delete(String id, AuthenticatedUserRequest userReq) {
@@ -137,6 +170,24 @@ public class DatasetService {
             .submit();
     }
 
+    public String ingestDatasetTables(String id,
+                                      MultiTableIngestRequestModel multiTableIngestRequest,
+                                      AuthenticatedUserRequest userReq) {
+        // One load tag covers all of the tables; push it down into each table request.
+        String loadTag = loadService.computeLoadTag(multiTableIngestRequest.getLoadTag());
+        multiTableIngestRequest.setLoadTag(loadTag);
+        multiTableIngestRequest.getTables().forEach(ingestRequest -> ingestRequest.setLoadTag(loadTag));
+        String tableNames = multiTableIngestRequest.getTables()
+            .stream()
+            .map(IngestRequestModel::getTable)
+            .collect(Collectors.joining(", "));
+        String description = "Ingest to tables " + tableNames + " in dataset id " + id;
+        return jobService
+            .newJob(description, DatasetMultiTableIngestFlight.class, multiTableIngestRequest, userReq)
+            .addParameter(JobMapKeys.DATASET_ID.getKeyName(), id)
+            .submit();
+    }
+
     public String addDatasetAssetSpecifications(
         String datasetId, AssetModel assetModel, AuthenticatedUserRequest userReq
     ) {
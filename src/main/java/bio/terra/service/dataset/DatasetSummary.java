@@ -10,6 +10,7 @@ public class DatasetSummary {
     private UUID defaultProfileId;
     private UUID projectResourceId;
     private Instant createdDate;
+    private long metadataVersion;
 
     public UUID getId() {
         return id;
@@ -64,4 +65,13 @@ public class DatasetSummary {
         this.createdDate = createdDate;
         return this;
     }
+
+    public long getMetadataVersion() {
+        return metadataVersion;
+    }
+
+    public DatasetSummary metadataVersion(long metadataVersion) {
+        this.metadataVersion = metadataVersion;
+        return this;
+    }
 }
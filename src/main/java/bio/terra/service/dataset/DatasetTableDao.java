@@ -4,7 +4,6 @@ import bio.terra.app.configuration.DataRepoJdbcConfiguration;
 import bio.terra.common.DaoKeyHolder;
 import bio.terra.common.DaoUtils;
 import bio.terra.common.Column;
-import bio.terra.common.Table;
 import bio.terra.service.snapshot.exception.CorruptMetadataException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
@@ -18,7 +17,9 @@ import javax.sql.DataSource;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -40,8 +41,11 @@ public class DatasetTableDao {
         "SELECT id, name, raw_table_name, soft_delete_table_name, primary_key, bigquery_partition_config::text, " +
         "(bigquery_partition_config->>'version')::bigint AS bigquery_partition_config_version " +
         "FROM dataset_table WHERE dataset_id = :dataset_id";
-    private static final String sqlSelectColumn = "SELECT id, name, type, array_of FROM dataset_column " +
-        "WHERE table_id = :table_id";
+    private static final String sqlSelectColumns =
+        "SELECT dataset_column.id, dataset_column.table_id, dataset_column.name, dataset_column.type, " +
+        "dataset_column.array_of FROM dataset_column " +
+        "JOIN dataset_table ON dataset_column.table_id = dataset_table.id " +
+        "WHERE dataset_table.dataset_id = :dataset_id";
 
     private final DataSource jdbcDataSource;
     private final NamedParameterJdbcTemplate jdbcTemplate;
@@ -101,27 +105,22 @@ public class DatasetTableDao {
         }
     }
 
+    /**
+     * Retrieve all of the tables of a dataset along with their columns. The columns of every table are
+     * fetched with one query and distributed to their tables here, so the number of round trips does not
+     * depend on how many tables the dataset has.
+     */
     public List<DatasetTable> retrieveTables(UUID parentId) {
         MapSqlParameterSource params = new MapSqlParameterSource().addValue("dataset_id", parentId);
-        return jdbcTemplate.query(sqlSelectTable, params, (rs, rowNum) -> {
+        Map<UUID, List<String>> primaryKeys = new HashMap<>();
+        List<DatasetTable> tables = jdbcTemplate.query(sqlSelectTable, params, (rs, rowNum) -> {
             DatasetTable table = new DatasetTable()
                 .id(rs.getObject("id", UUID.class))
                 .name(rs.getString("name"))
                 .rawTableName(rs.getString("raw_table_name"))
                 .softDeleteTableName(rs.getString("soft_delete_table_name"));
 
-            List<Column> columns = retrieveColumns(table);
-            table.columns(columns);
-
-            Map<String, Column> columnMap = columns
-                .stream()
-                .collect(Collectors.toMap(Column::getName, Function.identity()));
-
-            List<String> primaryKey = DaoUtils.getStringList(rs, "primary_key");
-            List<Column> naturalKeyColumns = primaryKey.stream()
-                .map(columnMap::get)
-                .collect(Collectors.toList());
-            table.primaryKey(naturalKeyColumns);
+            primaryKeys.put(table.getId(), DaoUtils.getStringList(rs, "primary_key"));
 
             long bqPartitionVersion = rs.getLong("bigquery_partition_config_version");
             String bqPartitionConfig = rs.getString("bigquery_partition_config");
@@ -138,17 +137,41 @@ public class DatasetTableDao {
 
             return table;
         });
+
+        Map<UUID, DatasetTable> tablesById = tables.stream()
+            .collect(Collectors.toMap(DatasetTable::getId, Function.identity()));
+        Map<UUID, List<Column>> columnsByTable = retrieveColumns(parentId, tablesById);
+
+        for (DatasetTable table : tables) {
+            List<Column> columns = columnsByTable.getOrDefault(table.getId(), new ArrayList<>());
+            table.columns(columns);
+
+            Map<String, Column> columnMap = columns
+                .stream()
+                .collect(Collectors.toMap(Column::getName, Function.identity()));
+
+            List<Column> naturalKeyColumns = primaryKeys.get(table.getId()).stream()
+                .map(columnMap::get)
+                .collect(Collectors.toList());
+            table.primaryKey(naturalKeyColumns);
+        }
+        return tables;
     }
 
-    private List<Column> retrieveColumns(Table table) {
-        return jdbcTemplate.query(
-            sqlSelectColumn,
-            new MapSqlParameterSource().addValue("table_id", table.getId()), (rs, rowNum) ->
-                new Column()
+    private Map<UUID, List<Column>> retrieveColumns(UUID parentId, Map<UUID, DatasetTable> tablesById) {
+        Map<UUID, List<Column>> columnsByTable = new HashMap<>();
+        jdbcTemplate.query(
+            sqlSelectColumns,
+            new MapSqlParameterSource().addValue("dataset_id", parentId), rs -> {
+                UUID tableId = rs.getObject("table_id", UUID.class);
+                Column column = new Column()
                     .id(rs.getObject("id", UUID.class))
-                    .table(table)
+                    .table(tablesById.get(tableId))
                     .name(rs.getString("name"))
                     .type(rs.getString("type"))
-                    .arrayOf(rs.getBoolean("array_of")));
+                    .arrayOf(rs.getBoolean("array_of"));
+                columnsByTable.computeIfAbsent(tableId, k -> new ArrayList<>()).add(column);
+            });
+        return columnsByTable;
     }
 }
@@ -2,12 +2,16 @@ package bio.terra.service.dataset;
 
 import bio.terra.model.FileLoadModel;
 import bio.terra.model.IngestRequestModel;
+import bio.terra.model.MultiTableIngestRequestModel;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
 
 import javax.validation.constraints.NotNull;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 @Component
 public class IngestRequestValidator implements Validator {
@@ -24,6 +28,26 @@ public class IngestRequestValidator implements Validator {
         }
     }
 
+    private void validateMultiTableIngest(MultiTableIngestRequestModel multiTableRequest, Errors errors) {
+        List<IngestRequestModel> tableRequests = multiTableRequest.getTables();
+        if (tableRequests == null || tableRequests.isEmpty()) {
+            errors.rejectValue("tables", "TablesMissing",
+                "Multi-table ingest requires at least one table");
+            return;
+        }
+        Set<String> tableNames = new HashSet<>();
+        for (IngestRequestModel tableRequest : tableRequests) {
+            String tableName = tableRequest.getTable();
+            if (tableName == null) {
+                errors.rejectValue("tables", "TableNameMissing",
+                    "Ingest requires a table name");
+            } else if (!tableNames.add(tableName)) {
+                errors.rejectValue("tables", "DuplicateTableNames",
+                    "Table " + tableName + " appears more than once in the multi-table ingest");
+            }
+        }
+    }
+
     @Override
     @SuppressFBWarnings(
         value = "UC_USELESS_VOID_METHOD",
@@ -32,6 +56,8 @@ public class IngestRequestValidator implements Validator {
         if (target instanceof IngestRequestModel) {
             IngestRequestModel ingestRequest = (IngestRequestModel) target;
             validateTableName(ingestRequest.getTable(), errors);
+        } else if (target instanceof MultiTableIngestRequestModel) {
+            validateMultiTableIngest((MultiTableIngestRequestModel) target, errors);
         } else if (target instanceof FileLoadModel) {
             FileLoadModel fileLoadModel = (FileLoadModel) target;
             if (fileLoadModel.getProfileId() == null) {
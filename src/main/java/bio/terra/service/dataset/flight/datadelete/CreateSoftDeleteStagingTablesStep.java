@@ -20,14 +20,14 @@ import static bio.terra.service.dataset.flight.datadelete.DataDeletionUtils.getR
 import static bio.terra.service.dataset.flight.datadelete.DataDeletionUtils.getSuffix;
 
 
-public class CreateExternalTablesStep implements Step {
+public class CreateSoftDeleteStagingTablesStep implements Step {
 
     private final BigQueryPdao bigQueryPdao;
     private final DatasetService datasetService;
 
-    private static Logger logger = LoggerFactory.getLogger(CreateExternalTablesStep.class);
+    private static Logger logger = LoggerFactory.getLogger(CreateSoftDeleteStagingTablesStep.class);
 
-    public CreateExternalTablesStep(BigQueryPdao bigQueryPdao, DatasetService datasetService) {
+    public CreateSoftDeleteStagingTablesStep(BigQueryPdao bigQueryPdao, DatasetService datasetService) {
         this.bigQueryPdao = bigQueryPdao;
         this.datasetService = datasetService;
     }
@@ -53,11 +53,8 @@ public class CreateExternalTablesStep implements Step {
 
         validateTablesExistInDataset(dataDeletionRequest, dataset);
 
-        for (DataDeletionTableModel table : dataDeletionRequest.getTables()) {
-            String path = table.getGcsFileSpec().getPath();
-            // let any exception here trigger an undo, no use trying to continue
-            bigQueryPdao.createSoftDeleteExternalTable(dataset, path, table.getTableName(), suffix);
-        }
+        // let any exception here trigger an undo, no use trying to continue
+        bigQueryPdao.loadSoftDeleteStagingTables(dataset, dataDeletionRequest.getTables(), suffix);
 
         return StepResult.getStepResultSuccess();
     }
@@ -69,10 +66,10 @@ public class CreateExternalTablesStep implements Step {
 
         for (DataDeletionTableModel table : getRequest(context).getTables()) {
             try {
-                bigQueryPdao.deleteSoftDeleteExternalTable(dataset, table.getTableName(), suffix);
+                bigQueryPdao.deleteSoftDeleteStagingTable(dataset, table.getTableName(), suffix);
             } catch (Exception ex) {
                 // catch any exception and get it into the log, make a
-                String msg = String.format("Couldn't clean up external table for %s from dataset %s w/ suffix %s",
+                String msg = String.format("Couldn't clean up staging table for %s from dataset %s w/ suffix %s",
                     table.getTableName(), dataset.getName(), suffix);
                 logger.warn(msg, ex);
             }
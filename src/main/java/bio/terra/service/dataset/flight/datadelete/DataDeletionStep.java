@@ -3,6 +3,7 @@ package bio.terra.service.dataset.flight.datadelete;
 import bio.terra.common.FlightUtils;
 import bio.terra.model.DataDeletionRequest;
 import bio.terra.model.DataDeletionTableModel;
+import bio.terra.model.DataDeletionTableResultModel;
 import bio.terra.model.DeleteResponseModel;
 import bio.terra.service.configuration.ConfigEnum;
 import bio.terra.service.configuration.ConfigurationService;
@@ -50,7 +51,8 @@ public class DataDeletionStep implements Step {
             .map(DataDeletionTableModel::getTableName)
             .collect(Collectors.toList());
 
-        bigQueryPdao.validateDeleteRequest(dataset, dataDeletionRequest.getTables(), suffix);
+        List<DataDeletionTableResultModel> tableResults =
+            bigQueryPdao.validateDeleteRequest(dataset, dataDeletionRequest.getTables(), suffix);
 
         if (configService.testInsertFault(ConfigEnum.SOFT_DELETE_LOCK_CONFLICT_STOP_FAULT)) {
             logger.info("SOFT_DELETE_LOCK_CONFLICT_STOP_FAULT");
@@ -63,9 +65,9 @@ public class DataDeletionStep implements Step {
 
         bigQueryPdao.applySoftDeletes(dataset, tableNames, suffix);
 
-        // TODO: this can be more informative, something like # rows deleted per table, or mismatched row ids
-        DeleteResponseModel deleteResponseModel =
-            new DeleteResponseModel().objectState(DeleteResponseModel.ObjectStateEnum.DELETED);
+        DeleteResponseModel deleteResponseModel = new DeleteResponseModel()
+            .objectState(DeleteResponseModel.ObjectStateEnum.DELETED)
+            .tables(tableResults);
         FlightUtils.setResponse(context, deleteResponseModel, HttpStatus.OK);
 
         return StepResult.getStepResultSuccess();
@@ -51,8 +51,8 @@ public class DatasetDataDeleteFlight extends Flight {
         addStep(new LockDatasetStep(datasetDao, UUID.fromString(datasetId), true),
             lockDatasetRetry);
 
-        // validate tables exist, check access to files, and create external temp tables
-        addStep(new CreateExternalTablesStep(bigQueryPdao, datasetService));
+        // validate tables exist and load the row ids into native staging tables
+        addStep(new CreateSoftDeleteStagingTablesStep(bigQueryPdao, datasetService));
 
         // insert into soft delete table
         addStep(new DataDeletionStep(bigQueryPdao, datasetService, configService));
@@ -62,7 +62,7 @@ public class DatasetDataDeleteFlight extends Flight {
             lockDatasetRetry);
 
         // cleanup
-        addStep(new DropExternalTablesStep(bigQueryPdao, datasetService));
+        addStep(new DropSoftDeleteStagingTablesStep(bigQueryPdao, datasetService));
     }
 
 }
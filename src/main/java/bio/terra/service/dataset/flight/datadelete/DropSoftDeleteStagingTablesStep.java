@@ -15,14 +15,14 @@ import static bio.terra.service.dataset.flight.datadelete.DataDeletionUtils.getD
 import static bio.terra.service.dataset.flight.datadelete.DataDeletionUtils.getRequest;
 import static bio.terra.service.dataset.flight.datadelete.DataDeletionUtils.getSuffix;
 
-public class DropExternalTablesStep implements Step {
+public class DropSoftDeleteStagingTablesStep implements Step {
 
     private final BigQueryPdao bigQueryPdao;
     private final DatasetService datasetService;
 
-    private static Logger logger = LoggerFactory.getLogger(DropExternalTablesStep.class);
+    private static Logger logger = LoggerFactory.getLogger(DropSoftDeleteStagingTablesStep.class);
 
-    public DropExternalTablesStep(BigQueryPdao bigQueryPdao, DatasetService datasetService) {
+    public DropSoftDeleteStagingTablesStep(BigQueryPdao bigQueryPdao, DatasetService datasetService) {
         this.bigQueryPdao = bigQueryPdao;
         this.datasetService = datasetService;
     }
@@ -34,7 +34,7 @@ public class DropExternalTablesStep implements Step {
         DataDeletionRequest dataDeletionRequest = getRequest(context);
 
         for (DataDeletionTableModel table : dataDeletionRequest.getTables()) {
-            bigQueryPdao.deleteSoftDeleteExternalTable(dataset, table.getTableName(), suffix);
+            bigQueryPdao.deleteSoftDeleteStagingTable(dataset, table.getTableName(), suffix);
         }
 
         return StepResult.getStepResultSuccess();
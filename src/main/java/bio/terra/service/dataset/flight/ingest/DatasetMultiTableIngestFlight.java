@@ -0,0 +1,53 @@
+package bio.terra.service.dataset.flight.ingest;
+
+import bio.terra.app.configuration.ApplicationConfiguration;
+import bio.terra.service.dataset.DatasetDao;
+import bio.terra.service.dataset.DatasetService;
+import bio.terra.service.dataset.flight.LockDatasetStep;
+import bio.terra.service.dataset.flight.UnlockDatasetStep;
+import bio.terra.service.filedata.google.firestore.FireStoreDao;
+import bio.terra.service.job.JobMapKeys;
+import bio.terra.service.tabulardata.google.BigQueryPdao;
+import bio.terra.stairway.Flight;
+import bio.terra.stairway.FlightMap;
+import bio.terra.stairway.RetryRule;
+import org.springframework.context.ApplicationContext;
+
+import java.util.UUID;
+
+import static bio.terra.common.FlightUtils.getDefaultRandomBackoffRetryRule;
+
+/**
+ * Ingest into several tables of a dataset under one exclusive lock. The staging loads,
+ * row id assignment and file ref validation are done for all tables together, and the
+ * final inserts are committed in one BigQuery transaction.
+ */
+public class DatasetMultiTableIngestFlight extends Flight {
+
+    public DatasetMultiTableIngestFlight(FlightMap inputParameters, Object applicationContext) {
+        super(inputParameters, applicationContext);
+
+        // get the required daos to pass into the steps
+        ApplicationContext appContext = (ApplicationContext) applicationContext;
+        DatasetDao datasetDao = (DatasetDao) appContext.getBean("datasetDao");
+        DatasetService datasetService = (DatasetService) appContext.getBean("datasetService");
+        BigQueryPdao bigQueryPdao = (BigQueryPdao)appContext.getBean("bigQueryPdao");
+        FireStoreDao fileDao  = (FireStoreDao)appContext.getBean("fireStoreDao");
+        ApplicationConfiguration appConfig =
+            (ApplicationConfiguration)appContext.getBean("applicationConfiguration");
+
+        // get data from inputs that steps need
+        UUID datasetId = UUID.fromString(inputParameters.get(JobMapKeys.DATASET_ID.getKeyName(), String.class));
+
+        RetryRule lockDatasetRetry = getDefaultRandomBackoffRetryRule(appConfig.getMaxStairwayThreads());
+
+        addStep(new LockDatasetStep(datasetDao, datasetId, true), lockDatasetRetry);
+        addStep(new IngestMultiTableSetupStep(datasetService));
+        addStep(new IngestMultiTableLoadStep(datasetService, bigQueryPdao));
+        addStep(new IngestMultiTableRowIdsStep(datasetService, bigQueryPdao));
+        addStep(new IngestMultiTableValidateRefsStep(datasetService, bigQueryPdao, fileDao));
+        addStep(new IngestMultiTableInsertStep(datasetService, bigQueryPdao));
+        addStep(new IngestMultiTableCleanupStep(datasetService, bigQueryPdao));
+        addStep(new UnlockDatasetStep(datasetDao, datasetId, true), lockDatasetRetry);
+    }
+}
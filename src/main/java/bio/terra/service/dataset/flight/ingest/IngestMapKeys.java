@@ -6,5 +6,7 @@ public final class IngestMapKeys {
     }
     public static final String INGEST_STATISTICS = "ingestStatistics";
     public static final String STAGING_TABLE_NAME = "stagingTableName";
+    public static final String STAGING_TABLE_NAMES = "stagingTableNames";
+    public static final String INGEST_STATISTICS_PREFIX = "ingestStatistics_";
 
 }
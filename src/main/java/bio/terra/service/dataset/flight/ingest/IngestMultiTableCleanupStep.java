@@ -0,0 +1,43 @@
+package bio.terra.service.dataset.flight.ingest;
+
+import bio.terra.service.dataset.Dataset;
+import bio.terra.service.dataset.DatasetService;
+import bio.terra.service.tabulardata.google.BigQueryPdao;
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.Step;
+import bio.terra.stairway.StepResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class IngestMultiTableCleanupStep implements Step {
+    private static final Logger logger = LoggerFactory.getLogger(IngestMultiTableCleanupStep.class);
+
+    private final DatasetService datasetService;
+    private final BigQueryPdao bigQueryPdao;
+
+    public IngestMultiTableCleanupStep(DatasetService datasetService, BigQueryPdao bigQueryPdao) {
+        this.datasetService = datasetService;
+        this.bigQueryPdao = bigQueryPdao;
+    }
+
+    @Override
+    public StepResult doStep(FlightContext context) throws InterruptedException {
+        // We do not want to fail the insert because we fail to cleanup a staging table.
+        // We log each failure and move on.
+        Dataset dataset = IngestUtils.getDataset(context, datasetService);
+        for (String stagingTableName : IngestUtils.getStagingTableNames(context).values()) {
+            try {
+                bigQueryPdao.deleteDatasetTable(dataset, stagingTableName);
+            } catch (Exception ex) {
+                logger.error("Failure deleting ingest staging table: " + stagingTableName, ex);
+            }
+        }
+
+        return StepResult.getStepResultSuccess();
+    }
+
+    @Override
+    public StepResult undoStep(FlightContext context) {
+        return StepResult.getStepResultSuccess();
+    }
+}
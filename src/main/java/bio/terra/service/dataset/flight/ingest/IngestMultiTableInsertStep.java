@@ -0,0 +1,58 @@
+package bio.terra.service.dataset.flight.ingest;
+
+import bio.terra.common.PdaoLoadStatistics;
+import bio.terra.model.IngestRequestModel;
+import bio.terra.model.IngestResponseModel;
+import bio.terra.model.MultiTableIngestRequestModel;
+import bio.terra.model.MultiTableIngestResponseModel;
+import bio.terra.service.dataset.Dataset;
+import bio.terra.service.dataset.DatasetService;
+import bio.terra.service.job.JobMapKeys;
+import bio.terra.service.tabulardata.google.BigQueryPdao;
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.Step;
+import bio.terra.stairway.StepResult;
+
+public class IngestMultiTableInsertStep implements Step {
+    private final DatasetService datasetService;
+    private final BigQueryPdao bigQueryPdao;
+
+    public IngestMultiTableInsertStep(DatasetService datasetService, BigQueryPdao bigQueryPdao) {
+        this.datasetService = datasetService;
+        this.bigQueryPdao = bigQueryPdao;
+    }
+
+    @Override
+    public StepResult doStep(FlightContext context) throws InterruptedException {
+        Dataset dataset = IngestUtils.getDataset(context, datasetService);
+        MultiTableIngestRequestModel multiTableRequest = IngestUtils.getMultiTableIngestRequestModel(context);
+
+        MultiTableIngestResponseModel ingestResponse = new MultiTableIngestResponseModel()
+            .dataset(dataset.getName())
+            .datasetId(dataset.getId().toString())
+            .loadTag(multiTableRequest.getLoadTag());
+
+        for (IngestRequestModel ingestRequest : multiTableRequest.getTables()) {
+            PdaoLoadStatistics loadStatistics = IngestUtils.getIngestStatistics(context, ingestRequest.getTable());
+            ingestResponse.addTablesItem(new IngestResponseModel()
+                .dataset(dataset.getName())
+                .datasetId(dataset.getId().toString())
+                .table(ingestRequest.getTable())
+                .path(ingestRequest.getPath())
+                .loadTag(ingestRequest.getLoadTag())
+                .badRowCount(loadStatistics.getBadRecords())
+                .rowCount(loadStatistics.getRowCount()));
+        }
+        context.getWorkingMap().put(JobMapKeys.RESPONSE.getKeyName(), ingestResponse);
+
+        bigQueryPdao.insertIntoDatasetTables(dataset, IngestUtils.getStagingTableNames(context));
+
+        return StepResult.getStepResultSuccess();
+    }
+
+    @Override
+    public StepResult undoStep(FlightContext context) {
+        // The inserts run in one BigQuery transaction: either all tables get their rows or none of them do.
+        return StepResult.getStepResultSuccess();
+    }
+}
@@ -0,0 +1,50 @@
+package bio.terra.service.dataset.flight.ingest;
+
+import bio.terra.common.PdaoLoadStatistics;
+import bio.terra.model.MultiTableIngestRequestModel;
+import bio.terra.service.dataset.Dataset;
+import bio.terra.service.dataset.DatasetService;
+import bio.terra.service.tabulardata.google.BigQueryPdao;
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.Step;
+import bio.terra.stairway.StepResult;
+
+import java.util.Map;
+
+public class IngestMultiTableLoadStep implements Step {
+    private final DatasetService datasetService;
+    private final BigQueryPdao bigQueryPdao;
+
+    public IngestMultiTableLoadStep(DatasetService datasetService, BigQueryPdao bigQueryPdao) {
+        this.datasetService = datasetService;
+        this.bigQueryPdao = bigQueryPdao;
+    }
+
+    @Override
+    public StepResult doStep(FlightContext context) throws InterruptedException {
+        Dataset dataset = IngestUtils.getDataset(context, datasetService);
+        Map<String, String> stagingTableNames = IngestUtils.getStagingTableNames(context);
+        MultiTableIngestRequestModel multiTableRequest = IngestUtils.getMultiTableIngestRequestModel(context);
+
+        // All of the staging loads are submitted together and run concurrently in BigQuery
+        Map<String, PdaoLoadStatistics> loadStatistics = bigQueryPdao.loadToStagingTables(
+            dataset,
+            stagingTableNames,
+            multiTableRequest.getTables());
+
+        for (Map.Entry<String, PdaoLoadStatistics> entry : loadStatistics.entrySet()) {
+            IngestUtils.putIngestStatistics(context, entry.getKey(), entry.getValue());
+        }
+
+        return StepResult.getStepResultSuccess();
+    }
+
+    @Override
+    public StepResult undoStep(FlightContext context) throws InterruptedException {
+        Dataset dataset = IngestUtils.getDataset(context, datasetService);
+        for (String stagingTableName : IngestUtils.getStagingTableNames(context).values()) {
+            bigQueryPdao.deleteDatasetTable(dataset, stagingTableName);
+        }
+        return StepResult.getStepResultSuccess();
+    }
+}
@@ -0,0 +1,31 @@
+package bio.terra.service.dataset.flight.ingest;
+
+import bio.terra.service.dataset.Dataset;
+import bio.terra.service.dataset.DatasetService;
+import bio.terra.service.tabulardata.google.BigQueryPdao;
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.Step;
+import bio.terra.stairway.StepResult;
+
+public class IngestMultiTableRowIdsStep implements Step {
+    private final DatasetService datasetService;
+    private final BigQueryPdao bigQueryPdao;
+
+    public IngestMultiTableRowIdsStep(DatasetService datasetService, BigQueryPdao bigQueryPdao) {
+        this.datasetService = datasetService;
+        this.bigQueryPdao = bigQueryPdao;
+    }
+
+    @Override
+    public StepResult doStep(FlightContext context) throws InterruptedException {
+        Dataset dataset = IngestUtils.getDataset(context, datasetService);
+        bigQueryPdao.addRowIdsToStagingTables(dataset, IngestUtils.getStagingTableNames(context).values());
+        return StepResult.getStepResultSuccess();
+    }
+
+    @Override
+    public StepResult undoStep(FlightContext context) {
+        // The updates only touch row ids that are null, so they can be restarted on failure.
+        return StepResult.getStepResultSuccess();
+    }
+}
@@ -0,0 +1,51 @@
+package bio.terra.service.dataset.flight.ingest;
+
+import bio.terra.model.IngestRequestModel;
+import bio.terra.model.MultiTableIngestRequestModel;
+import bio.terra.service.dataset.Dataset;
+import bio.terra.service.dataset.DatasetService;
+import bio.terra.service.dataset.DatasetTable;
+import bio.terra.service.dataset.DatasetUtils;
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.Step;
+import bio.terra.stairway.StepResult;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The setup step for a multi-table ingest. Like {@link IngestSetupStep}, it exists so that
+ * the generated staging table names are written to the database at a step boundary before
+ * any BigQuery objects are created. Here we generate one staging table name per target table.
+ */
+public class IngestMultiTableSetupStep implements Step {
+    private final DatasetService datasetService;
+
+    public IngestMultiTableSetupStep(DatasetService datasetService) {
+        this.datasetService = datasetService;
+    }
+
+    @Override
+    public StepResult doStep(FlightContext context) {
+        MultiTableIngestRequestModel multiTableRequest = IngestUtils.getMultiTableIngestRequestModel(context);
+        Dataset dataset = IngestUtils.getDataset(context, datasetService);
+        IngestUtils.putDatasetName(context, dataset.getName());
+
+        Map<String, String> stagingTableNames = new HashMap<>();
+        for (IngestRequestModel ingestRequest : multiTableRequest.getTables()) {
+            // Parse for validation only; BQ takes the raw "gs://" string as input.
+            IngestUtils.parseBlobUri(ingestRequest.getPath());
+            DatasetTable targetTable = IngestUtils.getDatasetTable(dataset, ingestRequest.getTable());
+            stagingTableNames.put(targetTable.getName(), DatasetUtils.generateAuxTableName(targetTable, "st"));
+        }
+        IngestUtils.putStagingTableNames(context, stagingTableNames);
+
+        return StepResult.getStepResultSuccess();
+    }
+
+    @Override
+    public StepResult undoStep(FlightContext context) {
+        // Nothing to undo
+        return StepResult.getStepResultSuccess();
+    }
+}
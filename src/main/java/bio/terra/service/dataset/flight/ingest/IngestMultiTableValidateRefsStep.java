@@ -0,0 +1,73 @@
+package bio.terra.service.dataset.flight.ingest;
+
+import bio.terra.common.Column;
+import bio.terra.service.dataset.Dataset;
+import bio.terra.service.dataset.DatasetService;
+import bio.terra.service.dataset.DatasetTable;
+import bio.terra.service.filedata.google.firestore.FireStoreDao;
+import bio.terra.service.tabulardata.google.BigQueryPdao;
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.Step;
+import bio.terra.stairway.StepResult;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class IngestMultiTableValidateRefsStep implements Step {
+    private static final int MAX_ERROR_REF_IDS = 20;
+
+    private final DatasetService datasetService;
+    private final BigQueryPdao bigQueryPdao;
+    private final FireStoreDao fileDao;
+
+    public IngestMultiTableValidateRefsStep(DatasetService datasetService,
+                                            BigQueryPdao bigQueryPdao,
+                                            FireStoreDao fileDao) {
+        this.datasetService = datasetService;
+        this.bigQueryPdao = bigQueryPdao;
+        this.fileDao = fileDao;
+    }
+
+    @Override
+    public StepResult doStep(FlightContext context) throws InterruptedException {
+        Dataset dataset = IngestUtils.getDataset(context, datasetService);
+        Map<String, String> stagingTableNames = IngestUtils.getStagingTableNames(context);
+
+        // Gather the fileref columns of every staging table. We read all of their ids with one
+        // query and probe the file system with one batch, rather than a query and probe per column.
+        Map<String, List<Column>> refColumns = new HashMap<>();
+        for (Map.Entry<String, String> entry : stagingTableNames.entrySet()) {
+            DatasetTable table = IngestUtils.getDatasetTable(dataset, entry.getKey());
+            List<Column> fileRefColumns = table.getColumns()
+                .stream()
+                .filter(column -> StringUtils.equalsIgnoreCase(column.getType(), "FILEREF"))
+                .collect(Collectors.toList());
+            if (!fileRefColumns.isEmpty()) {
+                refColumns.put(entry.getValue(), fileRefColumns);
+            }
+        }
+
+        List<String> invalidRefIds = new ArrayList<>();
+        if (!refColumns.isEmpty()) {
+            List<String> refIdArray = bigQueryPdao.getRefIds(dataset, refColumns);
+            List<String> badRefIds = fileDao.validateRefIds(dataset, refIdArray);
+            if (badRefIds != null) {
+                invalidRefIds.addAll(badRefIds);
+            }
+        }
+
+        IngestUtils.checkForInvalidRefIds(invalidRefIds, MAX_ERROR_REF_IDS);
+
+        return StepResult.getStepResultSuccess();
+    }
+
+    @Override
+    public StepResult undoStep(FlightContext context) {
+        // Validation only reads, so there is nothing to undo.
+        return StepResult.getStepResultSuccess();
+    }
+}
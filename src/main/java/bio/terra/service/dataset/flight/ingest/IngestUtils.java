@@ -1,11 +1,13 @@
 package bio.terra.service.dataset.flight.ingest;
 
 import bio.terra.service.dataset.flight.DatasetWorkingMapKeys;
+import bio.terra.service.dataset.exception.InvalidFileRefException;
 import bio.terra.service.dataset.exception.InvalidUriException;
 import bio.terra.service.dataset.exception.TableNotFoundException;
 import bio.terra.service.dataset.Dataset;
 import bio.terra.service.dataset.DatasetTable;
 import bio.terra.model.IngestRequestModel;
+import bio.terra.model.MultiTableIngestRequestModel;
 import bio.terra.common.PdaoLoadStatistics;
 import bio.terra.service.job.JobMapKeys;
 import bio.terra.service.dataset.DatasetService;
@@ -13,6 +15,9 @@ import bio.terra.stairway.FlightContext;
 import bio.terra.stairway.FlightMap;
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -66,11 +71,20 @@ public final class IngestUtils {
         return inputParameters.get(JobMapKeys.REQUEST.getKeyName(), IngestRequestModel.class);
     }
 
+    public static MultiTableIngestRequestModel getMultiTableIngestRequestModel(FlightContext context) {
+        FlightMap inputParameters = context.getInputParameters();
+        return inputParameters.get(JobMapKeys.REQUEST.getKeyName(), MultiTableIngestRequestModel.class);
+    }
+
     public static DatasetTable getDatasetTable(FlightContext context, Dataset dataset) {
         IngestRequestModel ingestRequest = getIngestRequestModel(context);
-        Optional<DatasetTable> optTable = dataset.getTableByName(ingestRequest.getTable());
+        return getDatasetTable(dataset, ingestRequest.getTable());
+    }
+
+    public static DatasetTable getDatasetTable(Dataset dataset, String tableName) {
+        Optional<DatasetTable> optTable = dataset.getTableByName(tableName);
         if (!optTable.isPresent()) {
-            throw new TableNotFoundException("Table not found: " + ingestRequest.getTable());
+            throw new TableNotFoundException("Table not found: " + tableName);
         }
         return optTable.get();
     }
@@ -134,4 +148,52 @@ public final class IngestUtils {
         return workingMap.get(IngestMapKeys.INGEST_STATISTICS, PdaoLoadStatistics.class);
     }
 
+    // For multi-table ingest we keep a map of target table name to staging table name
+    public static void putStagingTableNames(FlightContext context, Map<String, String> names) {
+        FlightMap workingMap = context.getWorkingMap();
+        workingMap.put(IngestMapKeys.STAGING_TABLE_NAMES, names);
+    }
+
+    public static Map<String, String> getStagingTableNames(FlightContext context) {
+        FlightMap workingMap = context.getWorkingMap();
+        return workingMap.get(IngestMapKeys.STAGING_TABLE_NAMES, Map.class);
+    }
+
+    // Statistics are stored under a key per table, so that they round-trip through the working map
+    // as PdaoLoadStatistics objects rather than as untyped maps.
+    public static void putIngestStatistics(FlightContext context, String tableName, PdaoLoadStatistics statistics) {
+        FlightMap workingMap = context.getWorkingMap();
+        workingMap.put(IngestMapKeys.INGEST_STATISTICS_PREFIX + tableName, statistics);
+    }
+
+    public static PdaoLoadStatistics getIngestStatistics(FlightContext context, String tableName) {
+        FlightMap workingMap = context.getWorkingMap();
+        return workingMap.get(IngestMapKeys.INGEST_STATISTICS_PREFIX + tableName, PdaoLoadStatistics.class);
+    }
+
+    /**
+     * Build and throw the error for a set of invalid file ref ids, if there are any.
+     * Shared by the single and multi-table ref validation steps.
+     */
+    public static void checkForInvalidRefIds(List<String> invalidRefIds, int maxErrorRefIds) {
+        int invalidIdCount = invalidRefIds.size();
+        if (invalidIdCount != 0) {
+            // Made a string buffer to appease findbugs; it saw + in the loop and said "bad!"
+            StringBuffer errorMessage = new StringBuffer("Invalid file ids found during ingest (");
+
+            List<String> errorDetails = new ArrayList<>();
+            int count = 0;
+            for (String badId : invalidRefIds) {
+                errorDetails.add(badId);
+                count++;
+                if (count > maxErrorRefIds) {
+                    errorMessage.append(maxErrorRefIds + "out of ");
+                    break;
+                }
+            }
+            errorMessage.append(invalidIdCount + " returned in details)");
+            throw new InvalidFileRefException(errorMessage.toString(), errorDetails);
+        }
+    }
+
 }
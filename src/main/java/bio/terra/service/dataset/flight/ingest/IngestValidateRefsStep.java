@@ -1,7 +1,6 @@
 package bio.terra.service.dataset.flight.ingest;
 
 import bio.terra.service.filedata.google.firestore.FireStoreDao;
-import bio.terra.service.dataset.exception.InvalidFileRefException;
 import bio.terra.common.Column;
 import bio.terra.service.dataset.Dataset;
 import bio.terra.common.Table;
@@ -51,24 +50,7 @@ public class IngestValidateRefsStep implements Step {
             }
         }
 
-        int invalidIdCount = invalidRefIds.size();
-        if (invalidIdCount != 0) {
-            // Made a string buffer to appease findbugs; it saw + in the loop and said "bad!"
-            StringBuffer errorMessage = new StringBuffer("Invalid file ids found during ingest (");
-
-            List<String> errorDetails = new ArrayList<>();
-            int count = 0;
-            for (String badId : invalidRefIds) {
-                errorDetails.add(badId);
-                count++;
-                if (count > MAX_ERROR_REF_IDS) {
-                    errorMessage.append(MAX_ERROR_REF_IDS + "out of ");
-                    break;
-                }
-            }
-            errorMessage.append(invalidIdCount + " returned in details)");
-            throw new InvalidFileRefException(errorMessage.toString(), errorDetails);
-        }
+        IngestUtils.checkForInvalidRefIds(invalidRefIds, MAX_ERROR_REF_IDS);
 
         return StepResult.getStepResultSuccess();
     }
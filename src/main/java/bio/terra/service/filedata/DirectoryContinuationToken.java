@@ -0,0 +1,63 @@
+package bio.terra.service.filedata;
+
+import bio.terra.common.exception.InvalidPageTokenException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque token handed back for a directory whose expansion stopped at the node budget. It records the
+ * directory, how many more levels the original request wanted and, when only part of the directory's own
+ * listing was returned, the name of the last entry returned. A lookup with the token expands the directory
+ * again, starting its listing after that entry.
+ */
+public final class DirectoryContinuationToken {
+    private static final String SEPARATOR = ":";
+
+    private final UUID fileId;
+    private final int depth;
+    private final String lastName;
+
+    public DirectoryContinuationToken(UUID fileId, int depth, String lastName) {
+        this.fileId = fileId;
+        this.depth = depth;
+        this.lastName = lastName;
+    }
+
+    public UUID getFileId() {
+        return fileId;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    // Null when the listing of the directory starts from the beginning
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String encode() {
+        String raw = fileId.toString() + SEPARATOR + depth;
+        if (lastName != null) {
+            raw = raw + SEPARATOR + lastName;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static DirectoryContinuationToken decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // The last name can itself contain the separator, so split into at most three parts
+            String[] parts = raw.split(SEPARATOR, 3);
+            if (parts.length < 2 || (parts.length == 3 && parts[2].isEmpty())) {
+                throw new InvalidPageTokenException("Invalid continuation token");
+            }
+            String lastName = (parts.length == 3) ? parts[2] : null;
+            return new DirectoryContinuationToken(UUID.fromString(parts[0]), Integer.parseInt(parts[1]), lastName);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidPageTokenException("Invalid continuation token", ex);
+        }
+    }
+}
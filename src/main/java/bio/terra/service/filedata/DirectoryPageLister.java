@@ -0,0 +1,21 @@
+package bio.terra.service.filedata;
+
+import bio.terra.model.FileModel;
+import bio.terra.service.filedata.google.firestore.InterruptibleConsumer;
+
+import java.util.List;
+
+/**
+ * Reads one page of a directory listing that has already been checked: the container, the directory and
+ * the page token are all resolved before a lister is handed out, so reading the page only fails on errors
+ * from the file system itself.
+ */
+@FunctionalInterface
+public interface DirectoryPageLister {
+    /**
+     * Hand the entries of the page to the consumer a batch at a time, as they are read.
+     *
+     * @return the page token for the next page, or null if this page reached the end of the directory
+     */
+    String list(InterruptibleConsumer<List<FileModel>> consumer);
+}
@@ -0,0 +1,64 @@
+package bio.terra.service.filedata;
+
+import bio.terra.common.exception.InvalidPageTokenException;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque token for the next page of a directory listing. It records the directory being listed and the
+ * name of the last entry returned; the next page starts after that entry. Entry names cannot contain a
+ * slash, so a slash separates the two parts.
+ */
+public final class DirectoryPageToken {
+    private static final String SEPARATOR = "/";
+
+    private final String dirPath;
+    private final String lastName;
+
+    public DirectoryPageToken(String dirPath, String lastName) {
+        this.dirPath = dirPath;
+        this.lastName = lastName;
+    }
+
+    public String getDirPath() {
+        return dirPath;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String encode() {
+        String raw = lastName + SEPARATOR + dirPath;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a page token and check that it was issued for the directory being listed.
+     *
+     * @return the decoded token, or null if no token was supplied
+     */
+    public static DirectoryPageToken decode(String token, String dirPath) {
+        if (StringUtils.isEmpty(token)) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidPageTokenException("Invalid page token", ex);
+        }
+        int separator = raw.indexOf(SEPARATOR);
+        if (separator <= 0) {
+            throw new InvalidPageTokenException("Invalid page token");
+        }
+        DirectoryPageToken decoded =
+            new DirectoryPageToken(raw.substring(separator + 1), raw.substring(0, separator));
+        if (!StringUtils.equals(decoded.getDirPath(), dirPath)) {
+            throw new InvalidPageTokenException("Page token was issued for a different directory");
+        }
+        return decoded;
+    }
+}
@@ -190,7 +190,12 @@ public class DrsService {
             .checksums(fileService.makeChecksums(fsObject));
     }
 
+    // A directory cut short by the expansion node budget lists the entries that were expanded; directories
+    // below it that were not expanded have no contents.
     private List<DRSContentsObject> makeContentsList(FSDir fsDir, String snapshotId) {
+        if (!fsDir.isEnumerated()) {
+            return null;
+        }
         List<DRSContentsObject> contentsList = new ArrayList<>();
 
         for (FSItem fsObject : fsDir.getContents()) {
@@ -212,10 +217,7 @@ public class DrsService {
             .drsUri(drsUris);
 
         if (fsObject instanceof FSDir) {
-            FSDir fsDir = (FSDir) fsObject;
-            if (fsDir.isEnumerated()) {
-                contentsObject.contents(makeContentsList(fsDir, snapshotId));
-            }
+            contentsObject.contents(makeContentsList((FSDir) fsObject, snapshotId));
         }
 
         return contentsObject;
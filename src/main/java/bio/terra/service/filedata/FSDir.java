@@ -10,6 +10,7 @@ import java.util.List;
 public class FSDir extends FSItem {
     private List<FSItem> contents;
     private boolean enumerated;
+    private String continuationToken;
 
     public FSDir() {
     }
@@ -29,6 +30,16 @@ public class FSDir extends FSItem {
         return this;
     }
 
+    // Set when expansion of this directory was cut short; passing it back to a lookup continues from here
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    public FSDir continuationToken(String continuationToken) {
+        this.continuationToken = continuationToken;
+        return this;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
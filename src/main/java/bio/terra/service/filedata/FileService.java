@@ -1,5 +1,7 @@
 package bio.terra.service.filedata;
 
+import bio.terra.app.controller.exception.ValidationException;
+import bio.terra.common.exception.InvalidPageTokenException;
 import bio.terra.model.BulkLoadArrayRequestModel;
 import bio.terra.model.BulkLoadRequestModel;
 import bio.terra.model.DRSChecksum;
@@ -27,6 +29,7 @@ import bio.terra.service.load.flight.LoadMapKeys;
 import bio.terra.service.snapshot.Snapshot;
 import bio.terra.service.snapshot.SnapshotProject;
 import bio.terra.service.snapshot.SnapshotService;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,6 +38,7 @@ import org.springframework.stereotype.Component;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Component
 public class FileService {
@@ -137,8 +141,18 @@ public class FileService {
     // depth == 0 means no expansion - just this node
     // depth >= 1 means expand N levels
     public FileModel lookupFile(String datasetId, String fileId, int depth) {
+        return lookupFile(datasetId, fileId, depth, null);
+    }
+
+    // A continuation token from a directory whose expansion was cut short replaces the requested depth
+    public FileModel lookupFile(String datasetId, String fileId, int depth, String continuationToken) {
         try {
-            return fileModelFromFSItem(lookupFSItem(datasetId, fileId, depth));
+            DirectoryContinuationToken token = decodeContinuationToken(fileId, continuationToken);
+            Dataset dataset = datasetService.retrieveAvailable(UUID.fromString(datasetId));
+            FSItem fsItem = (token == null) ?
+                fileDao.retrieveById(dataset, fileId, depth, true) :
+                fileDao.retrieveById(dataset, fileId, token.getDepth(), true, token.getLastName());
+            return fileModelFromFSItem(fsItem);
         } catch (InterruptedException ex) {
             throw new FileSystemExecutionException("Unexpected interruption during file system processing", ex);
         }
@@ -176,10 +190,18 @@ public class FileService {
 
     // -- snapshot lookups --
     public FileModel lookupSnapshotFile(String snapshotId, String fileId, int depth) {
+        return lookupSnapshotFile(snapshotId, fileId, depth, null);
+    }
+
+    public FileModel lookupSnapshotFile(String snapshotId, String fileId, int depth, String continuationToken) {
         try {
+            DirectoryContinuationToken token = decodeContinuationToken(fileId, continuationToken);
             // note: this method only returns snapshots that are NOT exclusively locked
             SnapshotProject snapshot = snapshotService.retrieveAvailableSnapshotProject(UUID.fromString(snapshotId));
-            return fileModelFromFSItem(lookupSnapshotFSItem(snapshot, fileId, depth));
+            FSItem fsItem = (token == null) ?
+                lookupSnapshotFSItem(snapshot, fileId, depth) :
+                fileDao.retrieveBySnapshotAndId(snapshot, fileId, token.getDepth(), true, token.getLastName());
+            return fileModelFromFSItem(fsItem);
         } catch (InterruptedException ex) {
             throw new FileSystemExecutionException("Unexpected interruption during file system processing", ex);
         }
@@ -205,6 +227,67 @@ public class FileService {
         return fileDao.retrieveByPath(snapshot, path, depth, true);
     }
 
+    // -- directory listing --
+
+    /**
+     * Prepare to list one page of a dataset directory. The dataset, the directory and the page token are
+     * checked here, so that errors can be reported before a response is started.
+     *
+     * @return a lister that reads the page
+     */
+    public DirectoryPageLister listDirectory(String datasetId, String path, String pageToken, int limit) {
+        // note: this method only returns datasets that are NOT exclusively locked
+        Dataset dataset = datasetService.retrieveAvailable(UUID.fromString(datasetId));
+        return directoryPageLister(dataset, path, pageToken, limit);
+    }
+
+    public DirectoryPageLister listSnapshotDirectory(String snapshotId, String path, String pageToken, int limit) {
+        // note: this method only returns snapshots that are NOT exclusively locked
+        Snapshot snapshot = snapshotService.retrieveAvailable(UUID.fromString(snapshotId));
+        return directoryPageLister(snapshot, path, pageToken, limit);
+    }
+
+    private DirectoryPageLister directoryPageLister(FSContainerInterface container,
+                                                    String path,
+                                                    String pageToken,
+                                                    int limit) {
+        FSItem fsItem;
+        try {
+            fsItem = fileDao.retrieveByPath(container, path, 0, true);
+        } catch (InterruptedException ex) {
+            throw new FileSystemExecutionException("Unexpected interruption during file system processing", ex);
+        }
+        if (!(fsItem instanceof FSDir)) {
+            throw new ValidationException("NotADirectory");
+        }
+        String dirPath = fsItem.getPath();
+        DirectoryPageToken token = DirectoryPageToken.decode(pageToken, dirPath);
+        String startAfterName = (token == null) ? null : token.getLastName();
+
+        return consumer -> {
+            try {
+                String lastName = fileDao.listDirectoryPage(container, dirPath, startAfterName, limit,
+                    items -> consumer.accept(
+                        items.stream().map(this::fileModelFromFSItem).collect(Collectors.toList())));
+                return (lastName == null) ? null : new DirectoryPageToken(dirPath, lastName).encode();
+            } catch (InterruptedException ex) {
+                throw new FileSystemExecutionException("Unexpected interruption during file system processing", ex);
+            }
+        };
+    }
+
+    // A continuation token replaces the requested depth; null when there is no token
+    private DirectoryContinuationToken decodeContinuationToken(String fileId, String continuationToken) {
+        if (StringUtils.isEmpty(continuationToken)) {
+            return null;
+        }
+        DirectoryContinuationToken token = DirectoryContinuationToken.decode(continuationToken);
+        if (!StringUtils.equals(token.getFileId().toString(), fileId)) {
+            throw new InvalidPageTokenException("Continuation token was issued for a different directory");
+        }
+        return token;
+    }
+
     public FileModel fileModelFromFSItem(FSItem fsItem) {
         FileModel fileModel = new FileModel()
             .fileId(fsItem.getFileId().toString())
@@ -227,7 +310,9 @@ public class FileService {
         } else if (fsItem instanceof FSDir) {
             fileModel.fileType(FileModelType.DIRECTORY);
             FSDir fsDir = (FSDir)fsItem;
-            DirectoryDetailModel directoryDetail = new DirectoryDetailModel().enumerated(fsDir.isEnumerated());
+            DirectoryDetailModel directoryDetail = new DirectoryDetailModel()
+                .enumerated(fsDir.isEnumerated())
+                .continuationToken(fsDir.getContinuationToken());
             if (fsDir.isEnumerated()) {
                 directoryDetail.contents(new ArrayList<>());
                 for (FSItem fsContentsItem : fsDir.getContents()) {
@@ -0,0 +1,30 @@
+package bio.terra.service.filedata.flight.index;
+
+import bio.terra.common.FlightUtils;
+import bio.terra.model.UpgradeModel;
+import bio.terra.model.UpgradeResponseModel;
+import bio.terra.service.job.JobMapKeys;
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.Step;
+import bio.terra.stairway.StepResult;
+import org.springframework.http.HttpStatus;
+
+import java.time.Instant;
+
+public class BackfillFileIdIndexResponseStep implements Step {
+
+    @Override
+    public StepResult doStep(FlightContext context) {
+        UpgradeModel request = context.getInputParameters().get(JobMapKeys.REQUEST.getKeyName(), UpgradeModel.class);
+        UpgradeResponseModel response = new UpgradeResponseModel()
+            .upgradeName(request.getUpgradeName())
+            .endTime(Instant.now().toString());
+        FlightUtils.setResponse(context, response, HttpStatus.OK);
+        return StepResult.getStepResultSuccess();
+    }
+
+    @Override
+    public StepResult undoStep(FlightContext context) {
+        return StepResult.getStepResultSuccess();
+    }
+}
@@ -0,0 +1,64 @@
+package bio.terra.service.filedata.flight.index;
+
+import bio.terra.common.exception.NotFoundException;
+import bio.terra.service.filedata.FSContainerInterface;
+import bio.terra.service.filedata.exception.FileSystemAbortTransactionException;
+import bio.terra.service.filedata.google.firestore.FireStoreDao;
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.Step;
+import bio.terra.stairway.StepResult;
+import bio.terra.stairway.StepStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class BackfillFileIdIndexStep implements Step {
+    private static final Logger logger = LoggerFactory.getLogger(BackfillFileIdIndexStep.class);
+
+    private final FireStoreDao fileDao;
+    private final Supplier<List<UUID>> idSupplier;
+    private final Function<UUID, ? extends FSContainerInterface> containerLookup;
+    private final String containerType;
+
+    public BackfillFileIdIndexStep(FireStoreDao fileDao,
+                                   Supplier<List<UUID>> idSupplier,
+                                   Function<UUID, ? extends FSContainerInterface> containerLookup,
+                                   String containerType) {
+        this.fileDao = fileDao;
+        this.idSupplier = idSupplier;
+        this.containerLookup = containerLookup;
+        this.containerType = containerType;
+    }
+
+    @Override
+    public StepResult doStep(FlightContext context) throws InterruptedException {
+        List<UUID> ids = idSupplier.get();
+        logger.info("Backfilling file id index for {} {}s", ids.size(), containerType);
+        try {
+            for (UUID id : ids) {
+                FSContainerInterface container;
+                try {
+                    container = containerLookup.apply(id);
+                } catch (NotFoundException ex) {
+                    // Deleted since we listed the ids; nothing left to index
+                    continue;
+                }
+                int count = fileDao.backfillFileIdIndex(container);
+                logger.info("Indexed {} directory entries for {} {}", count, containerType, id);
+            }
+        } catch (FileSystemAbortTransactionException rex) {
+            return new StepResult(StepStatus.STEP_RESULT_FAILURE_RETRY, rex);
+        }
+        return StepResult.getStepResultSuccess();
+    }
+
+    @Override
+    public StepResult undoStep(FlightContext context) {
+        // The index entries we wrote are correct whether or not the flight completes, so there is nothing to undo
+        return StepResult.getStepResultSuccess();
+    }
+}
@@ -0,0 +1,45 @@
+package bio.terra.service.filedata.flight.index;
+
+import bio.terra.app.configuration.ApplicationConfiguration;
+import bio.terra.service.dataset.DatasetDao;
+import bio.terra.service.filedata.google.firestore.FireStoreDao;
+import bio.terra.service.snapshot.SnapshotDao;
+import bio.terra.stairway.Flight;
+import bio.terra.stairway.FlightMap;
+import bio.terra.stairway.RetryRule;
+import org.springframework.context.ApplicationContext;
+
+import static bio.terra.common.FlightUtils.getDefaultRandomBackoffRetryRule;
+
+/**
+ * Custom upgrade flight that fills in the Firestore file id index for datasets and snapshots created
+ * before the index existed. It is launched through the upgrade endpoint with the custom name
+ * FILE_ID_INDEX_BACKFILL.
+ */
+public class FileIdIndexBackfillFlight extends Flight {
+
+    public FileIdIndexBackfillFlight(FlightMap inputParameters, Object applicationContext) {
+        super(inputParameters, applicationContext);
+
+        ApplicationContext appContext = (ApplicationContext) applicationContext;
+        FireStoreDao fileDao = (FireStoreDao) appContext.getBean("fireStoreDao");
+        DatasetDao datasetDao = (DatasetDao) appContext.getBean("datasetDao");
+        SnapshotDao snapshotDao = (SnapshotDao) appContext.getBean("snapshotDao");
+        ApplicationConfiguration appConfig =
+            (ApplicationConfiguration) appContext.getBean("applicationConfiguration");
+
+        RetryRule fileSystemRetry = getDefaultRandomBackoffRetryRule(appConfig.getMaxStairwayThreads());
+
+        // The flight plan:
+        // 1. Index the directory entries of every dataset
+        // 2. Index the directory entries of every snapshot
+        // Index writes overwrite, so a step that is retried simply redoes its work. Datasets and snapshots
+        // created while the flight runs are indexed as they are written, so they need no backfill.
+        addStep(new BackfillFileIdIndexStep(fileDao, datasetDao::retrieveAllIds, datasetDao::retrieve, "dataset"),
+            fileSystemRetry);
+        addStep(new BackfillFileIdIndexStep(
+            fileDao, snapshotDao::retrieveAllIds, snapshotDao::retrieveSnapshot, "snapshot"),
+            fileSystemRetry);
+        addStep(new BackfillFileIdIndexResponseStep());
+    }
+}
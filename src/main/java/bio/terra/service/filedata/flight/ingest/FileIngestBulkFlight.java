@@ -1,8 +1,10 @@
 package bio.terra.service.filedata.flight.ingest;
 
 import bio.terra.app.configuration.ApplicationConfiguration;
+import bio.terra.app.logging.PerformanceLogger;
 import bio.terra.model.BulkLoadArrayRequestModel;
 import bio.terra.model.BulkLoadRequestModel;
+import bio.terra.service.configuration.ConfigEnum;
 import bio.terra.service.configuration.ConfigurationService;
 import bio.terra.service.dataset.Dataset;
 import bio.terra.service.dataset.DatasetBucketDao;
@@ -10,6 +12,7 @@ import bio.terra.service.dataset.DatasetDao;
 import bio.terra.service.dataset.DatasetService;
 import bio.terra.service.dataset.flight.LockDatasetStep;
 import bio.terra.service.dataset.flight.UnlockDatasetStep;
+import bio.terra.service.filedata.google.firestore.FireStoreDao;
 import bio.terra.service.filedata.google.gcs.GcsPdao;
 import bio.terra.service.iam.AuthenticatedUserRequest;
 import bio.terra.service.job.JobMapKeys;
@@ -26,6 +29,7 @@ import bio.terra.stairway.Flight;
 import bio.terra.stairway.FlightMap;
 import bio.terra.stairway.RetryRule;
 import bio.terra.stairway.RetryRuleExponentialBackoff;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.ApplicationContext;
 
 import java.util.UUID;
@@ -62,6 +66,9 @@ public class FileIngestBulkFlight extends Flight {
         ProfileService profileService = (ProfileService) appContext.getBean("profileService");
         DatasetBucketDao datasetBucketDao = (DatasetBucketDao) appContext.getBean("datasetBucketDao");
         DatasetDao datasetDao = (DatasetDao) appContext.getBean("datasetDao");
+        PerformanceLogger performanceLogger = (PerformanceLogger) appContext.getBean("performanceLogger");
+        FireStoreDao fileDao = (FireStoreDao) appContext.getBean("fireStoreDao");
+        MeterRegistry meterRegistry = appContext.getBean(MeterRegistry.class);
 
         // Common input parameters
         String datasetId = inputParameters.get(JobMapKeys.DATASET_ID.getKeyName(), String.class);
@@ -83,17 +90,23 @@ public class FileIngestBulkFlight extends Flight {
         // Parameters dependent on which request we get
         int maxFailedFileLoads;
         String profileId;
+        boolean skipExisting;
+        boolean verifyChecksums;
 
         if (isArray) {
             BulkLoadArrayRequestModel loadRequest =
                 inputParameters.get(JobMapKeys.REQUEST.getKeyName(), BulkLoadArrayRequestModel.class);
             maxFailedFileLoads = loadRequest.getMaxFailedFileLoads();
             profileId = loadRequest.getProfileId();
+            skipExisting = Boolean.TRUE.equals(loadRequest.isSkipExisting());
+            verifyChecksums = Boolean.TRUE.equals(loadRequest.isVerifyChecksums());
         } else {
             BulkLoadRequestModel loadRequest =
                 inputParameters.get(JobMapKeys.REQUEST.getKeyName(), BulkLoadRequestModel.class);
             maxFailedFileLoads = loadRequest.getMaxFailedFileLoads();
             profileId = loadRequest.getProfileId();
+            skipExisting = Boolean.TRUE.equals(loadRequest.isSkipExisting());
+            verifyChecksums = Boolean.TRUE.equals(loadRequest.isVerifyChecksums());
         }
 
         RetryRule randomBackoffRetry = getDefaultRandomBackoffRetryRule(appConfig.getMaxStairwayThreads());
@@ -113,28 +126,42 @@ public class FileIngestBulkFlight extends Flight {
         // 4. Depends on the request type:
         //    a. isArray - put the array into the load_file table for processing
         //    b. !isArray - read the file into the load_file table for processing
-        // 5. Main loading loop - shared with bulk ingest from a file in a bucket
-        // 6. Depends on request type:
+        // 5. If skipExisting is set, mark the files that are already in the dataset as succeeded. With
+        //    verifyChecksums, files whose existing content differs from the source are marked as failed.
+        // 6. Main loading loop - shared with bulk ingest from a file in a bucket
+        // 7. Depends on request type:
         //    a. isArray - generate the bulk array response: summary and array of results
         //    b. !isArray - generate the bulk file response - just the summary information
-        // 7. TODO: Copy results into the database BigQuery (DR-694)
-        // 8. Clean load_file table
-        // 9. TODO: release the bulk load slot (DR-754) - may not need a step if we use the count of locked tags
-        // 10. Unlock the load tag
+        // 8. TODO: Copy results into the database BigQuery (DR-694)
+        // 9. Clean load_file table
+        // 10. TODO: release the bulk load slot (DR-754) - may not need a step if we use the count of locked tags
+        // 11. Unlock the load tag
         addStep(new AuthorizeBillingProfileUseStep(profileService, profileId, userReq));
         addStep(new LockDatasetStep(datasetDao, datasetUuid, true), randomBackoffRetry);
         addStep(new LoadLockStep(loadService));
         addStep(new IngestFilePrimaryDataLocationStep(resourceService, dataset), randomBackoffRetry);
         addStep(new IngestFileMakeBucketLinkStep(datasetBucketDao, dataset), randomBackoffRetry);
 
+        boolean captureSizes = configurationService.getParameterValue(ConfigEnum.LOAD_SCHEDULE_BY_SIZE);
         if (isArray) {
-            addStep(new IngestPopulateFileStateFromArrayStep(loadService));
+            addStep(new IngestPopulateFileStateFromArrayStep(loadService, gcsPdao, captureSizes));
         } else {
             addStep(new IngestPopulateFileStateFromFileStep(
                 loadService,
                 appConfig.getMaxBadLoadFileLineErrorsReported(),
                 appConfig.getLoadFilePopulateBatchSize(),
-                gcsPdao));
+                gcsPdao,
+                captureSizes,
+                performanceLogger));
+        }
+        if (skipExisting) {
+            addStep(new IngestSkipExistingFilesStep(
+                loadService,
+                fileDao,
+                gcsPdao,
+                dataset,
+                verifyChecksums,
+                performanceLogger));
         }
         addStep(new IngestDriverStep(
             loadService,
@@ -144,7 +171,8 @@ public class FileIngestBulkFlight extends Flight {
             loadTag,
             maxFailedFileLoads,
             driverWaitSeconds,
-            profileId), driverRetry);
+            profileId,
+            meterRegistry), driverRetry);
 
         if (isArray) {
             addStep(new IngestBulkArrayResponseStep(loadService, loadTag));
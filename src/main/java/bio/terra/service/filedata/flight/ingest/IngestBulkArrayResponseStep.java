@@ -4,6 +4,7 @@ import bio.terra.model.BulkLoadArrayResultModel;
 import bio.terra.model.BulkLoadFileResultModel;
 import bio.terra.model.BulkLoadResultModel;
 import bio.terra.service.job.JobMapKeys;
+import bio.terra.service.job.StairwayFireStoreStatsHooks;
 import bio.terra.service.load.LoadService;
 import bio.terra.service.load.flight.LoadMapKeys;
 import bio.terra.stairway.FlightContext;
@@ -49,7 +50,8 @@ public class IngestBulkArrayResponseStep implements Step {
 
     private BulkLoadArrayResultModel makeLoadResult(UUID loadId, FlightContext context) {
         // Get the summary stats and fill in our specific information
-        BulkLoadResultModel summary = loadService.makeBulkLoadResult(loadId);
+        BulkLoadResultModel summary = loadService.makeBulkLoadResult(
+            loadId, StairwayFireStoreStatsHooks.getFlightStats(context.getWorkingMap()));
         summary.loadTag(loadTag).jobId(context.getFlightId());
 
         // Get the file load results
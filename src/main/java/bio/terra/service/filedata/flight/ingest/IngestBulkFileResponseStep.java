@@ -2,6 +2,7 @@ package bio.terra.service.filedata.flight.ingest;
 
 import bio.terra.model.BulkLoadResultModel;
 import bio.terra.service.job.JobMapKeys;
+import bio.terra.service.job.StairwayFireStoreStatsHooks;
 import bio.terra.service.load.LoadService;
 import bio.terra.service.load.flight.LoadMapKeys;
 import bio.terra.stairway.FlightContext;
@@ -34,7 +35,8 @@ public class IngestBulkFileResponseStep implements Step {
         UUID loadId = UUID.fromString(loadIdString);
 
         // Get the summary stats and fill in our specific information
-        BulkLoadResultModel summary = loadService.makeBulkLoadResult(loadId);
+        BulkLoadResultModel summary = loadService.makeBulkLoadResult(
+            loadId, StairwayFireStoreStatsHooks.getFlightStats(context.getWorkingMap()));
         summary.loadTag(loadTag).jobId(context.getFlightId());
         workingMap.put(JobMapKeys.RESPONSE.getKeyName(), summary);
 
@@ -1,13 +1,18 @@
 package bio.terra.service.filedata.flight.ingest;
 
+import bio.terra.app.logging.TraceUtils;
 import bio.terra.model.FileLoadModel;
 import bio.terra.service.configuration.ConfigEnum;
 import bio.terra.service.configuration.ConfigurationService;
 import bio.terra.service.filedata.FSFileInfo;
 import bio.terra.service.filedata.exception.FileSystemCorruptException;
 import bio.terra.service.filedata.flight.FileMapKeys;
+import bio.terra.service.filedata.google.firestore.FireStoreStats;
+import bio.terra.service.job.JobMapKeys;
+import bio.terra.service.job.StairwayFireStoreStatsHooks;
 import bio.terra.service.kubernetes.KubeService;
 import bio.terra.service.load.LoadCandidates;
+import bio.terra.service.load.LoadConcurrencyController;
 import bio.terra.service.load.LoadFile;
 import bio.terra.service.load.LoadService;
 import bio.terra.service.load.flight.LoadMapKeys;
@@ -23,13 +28,20 @@ import bio.terra.stairway.StepStatus;
 import bio.terra.stairway.exception.DatabaseOperationException;
 import bio.terra.stairway.exception.FlightNotFoundException;
 import bio.terra.stairway.exception.StairwayExecutionException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 // The driver step is the core part of the bulk load meta-flight. It runs a loop that keeps some
 // K flights busy performing file loads.
@@ -42,7 +54,20 @@ import java.util.concurrent.TimeUnit;
 // It expects the following working map data:
 // - LOAD_ID - load id we are working on
 //
+// The number of loads kept in flight is decided by a LoadConcurrencyController. It starts at
+// LOAD_CONCURRENT_FILES per pod and adapts between LOAD_CONCURRENT_FILES_MIN and LOAD_CONCURRENT_FILES_MAX
+// per pod, based on the completion rate, failures, load times and Stairway queue latency of the loads
+// we launch. While the step runs, the current limit is published as a gauge tagged with the load id, and each
+// decision the controller makes at the end of a window is counted, tagged with the decision.
+//
+// Candidate files are handed out largest first when their sizes were captured during populate. Files of at
+// least LOAD_LARGE_FILE_SIZE_MB are a separate size class, limited to LOAD_CONCURRENT_LARGE_FILES per pod,
+// so that big copies start early without crowding out everything else.
+//
 public class IngestDriverStep implements Step {
+    static final String CONCURRENCY_LIMIT_METRIC = "datarepo.load.concurrency.limit";
+    static final String CONCURRENCY_DECISIONS_METRIC = "datarepo.load.concurrency.decisions";
+
     private final Logger logger = LoggerFactory.getLogger(IngestDriverStep.class);
 
     private final LoadService loadService;
@@ -53,6 +78,12 @@ public class IngestDriverStep implements Step {
     private final int maxFailedFileLoads;
     private final int driverWaitSeconds;
     private final String profileId;
+    private final MeterRegistry meterRegistry;
+
+    private LoadConcurrencyController concurrencyController;
+    private final AtomicInteger concurrencyLimit = new AtomicInteger();
+    private long largeFileBytes;
+    private int maxLargeRunning;
 
     public IngestDriverStep(LoadService loadService,
                             ConfigurationService configurationService,
@@ -61,7 +92,8 @@ public class IngestDriverStep implements Step {
                             String loadTag,
                             int maxFailedFileLoads,
                             int driverWaitSeconds,
-                            String profileId) {
+                            String profileId,
+                            MeterRegistry meterRegistry) {
         this.loadService = loadService;
         this.configurationService = configurationService;
         this.kubeService = kubeService;
@@ -70,6 +102,7 @@ public class IngestDriverStep implements Step {
         this.maxFailedFileLoads = maxFailedFileLoads;
         this.driverWaitSeconds = driverWaitSeconds;
         this.profileId = profileId;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
@@ -81,16 +114,23 @@ public class IngestDriverStep implements Step {
 
         GoogleBucketResource bucketResource = workingMap.get(FileMapKeys.BUCKET_INFO, GoogleBucketResource.class);
 
+        Gauge limitGauge = Gauge.builder(CONCURRENCY_LIMIT_METRIC, concurrencyLimit, AtomicInteger::get)
+            .description("Number of file loads the bulk load driver keeps in flight")
+            .tag("load", loadIdString)
+            .register(meterRegistry);
         try {
             // Check for launch orphans - these are loads in the RUNNING state that never
             // got recorded by stairway.
             checkForOrphans(context, loadId);
 
+            concurrencyController = makeConcurrencyController();
+
             // Load Loop
             while (true) {
                 int podCount = kubeService.getActivePodCount();
-                int concurrentFiles = configurationService.getParameterValue(ConfigEnum.LOAD_CONCURRENT_FILES);
-                int scaledConcurrentFiles = podCount * concurrentFiles;
+                int scaledConcurrentFiles = concurrencyController.getLimit(podCount);
+                concurrencyLimit.set(scaledConcurrentFiles);
+                updateSizeClassLimits(podCount);
                 // Get the state of active and failed loads
                 LoadCandidates candidates = getLoadCandidates(context, loadId, scaledConcurrentFiles);
 
@@ -126,11 +166,15 @@ public class IngestDriverStep implements Step {
                     currentRunning += launchCount;
                 }
 
+                adjustConcurrency(currentRunning, podCount);
+
                 // Wait until some loads complete
                 waitForAny(context, loadId, scaledConcurrentFiles, currentRunning);
             }
         } catch (DatabaseOperationException | StairwayExecutionException ex) {
             return new StepResult(StepStatus.STEP_RESULT_FAILURE_RETRY, ex);
+        } finally {
+            meterRegistry.remove(limitGauge);
         }
         return StepResult.getStepResultSuccess();
     }
@@ -140,6 +184,49 @@ public class IngestDriverStep implements Step {
         return StepResult.getStepResultSuccess();
     }
 
+    private LoadConcurrencyController makeConcurrencyController() {
+        int concurrentFiles = configurationService.getParameterValue(ConfigEnum.LOAD_CONCURRENT_FILES);
+        int minFiles = configurationService.getParameterValue(ConfigEnum.LOAD_CONCURRENT_FILES_MIN);
+        int maxFiles = configurationService.getParameterValue(ConfigEnum.LOAD_CONCURRENT_FILES_MAX);
+        // Widen the bounds to include the starting point, so an explicitly configured concurrency is honored
+        return new LoadConcurrencyController(
+            concurrentFiles,
+            Math.min(minFiles, concurrentFiles),
+            Math.max(maxFiles, concurrentFiles),
+            System.nanoTime());
+    }
+
+    private void updateSizeClassLimits(int podCount) {
+        int largeFileSizeMb = configurationService.getParameterValue(ConfigEnum.LOAD_LARGE_FILE_SIZE_MB);
+        int concurrentLargeFiles = configurationService.getParameterValue(ConfigEnum.LOAD_CONCURRENT_LARGE_FILES);
+        largeFileBytes = largeFileSizeMb * 1024L * 1024L;
+        maxLargeRunning = podCount * concurrentLargeFiles;
+    }
+
+    private void adjustConcurrency(int currentRunning, int podCount) {
+        long nowNanos = System.nanoTime();
+        if (!concurrencyController.isWindowOver(nowNanos)) {
+            return;
+        }
+
+        int oldLimit = concurrencyController.getLimit(podCount);
+        LoadConcurrencyController.Decision decision =
+            concurrencyController.adjust(nowNanos, currentRunning, podCount);
+        Counter.builder(CONCURRENCY_DECISIONS_METRIC)
+            .description("Concurrency decisions made by the bulk load driver")
+            .tag("decision", decision.name().toLowerCase(Locale.ROOT))
+            .register(meterRegistry)
+            .increment();
+        if (decision == LoadConcurrencyController.Decision.HOLD) {
+            return;
+        }
+
+        int newLimit = concurrencyController.getLimit(podCount);
+        concurrencyLimit.set(newLimit);
+        logger.info("Load concurrency {}: {} -> {} (pods: {}, running: {})",
+            decision, oldLimit, newLimit, podCount, currentRunning);
+    }
+
     private void waitForAny(FlightContext context, UUID loadId, int concurrentLoads, int originallyRunning)
         throws DatabaseOperationException, InterruptedException {
         while (true) {
@@ -194,7 +281,8 @@ public class IngestDriverStep implements Step {
         // We then update the failure count and runnings loads list in the
         // LoadCandidates so it correctly reflects the running state
         // right now (more or less).
-        LoadCandidates candidates = loadService.findCandidates(loadId, concurrentLoads);
+        LoadCandidates candidates =
+            loadService.findCandidates(loadId, concurrentLoads, largeFileBytes, maxLargeRunning);
         logger.debug("Candidates from db: failedLoads={}  runningLoads={}  candidateFiles={}",
             candidates.getFailedLoads(),
             candidates.getRunningLoads().size(),
@@ -202,15 +290,22 @@ public class IngestDriverStep implements Step {
 
         int failureCount = candidates.getFailedLoads();
         List<LoadFile> realRunningLoads = new LinkedList<>();
+        // Firestore work of the loads that finished, saved once per round
+        FireStoreStats fireStoreStats = new FireStoreStats();
 
         for (LoadFile loadFile : candidates.getRunningLoads()) {
             FlightState flightState = context.getStairway().getFlightState(loadFile.getFlightId());
 
             switch (flightState.getFlightStatus()) {
-                case RUNNING:
-                case WAITING:
                 case READY:
                 case QUEUED:
+                    recordQueued(flightState);
+                    logger.debug("~~queued load - flight: " + flightState.getFlightId());
+                    realRunningLoads.add(loadFile);
+                    break;
+
+                case RUNNING:
+                case WAITING:
                     logger.debug("~~running load - flight: " + flightState.getFlightId());
                     realRunningLoads.add(loadFile);
                     break;
@@ -223,6 +318,9 @@ public class IngestDriverStep implements Step {
                         error = flightState.getException().get().toString();
                     }
                     loadService.setLoadFileFailed(loadId, loadFile.getTargetPath(), error);
+                    flightState.getResultMap()
+                        .ifPresent(map -> fireStoreStats.add(StairwayFireStoreStatsHooks.getFlightStats(map)));
+                    recordFinished(flightState, loadFile, true);
                     failureCount++;
                     break;
                 }
@@ -236,6 +334,8 @@ public class IngestDriverStep implements Step {
                     String fileId = resultMap.get(FileMapKeys.FILE_ID, String.class);
                     FSFileInfo fileInfo = resultMap.get(FileMapKeys.FILE_INFO, FSFileInfo.class);
                     loadService.setLoadFileSucceeded(loadId, loadFile.getTargetPath(), fileId, fileInfo);
+                    fireStoreStats.add(StairwayFireStoreStatsHooks.getFlightStats(resultMap));
+                    recordFinished(flightState, loadFile, false);
                     break;
                 }
 
@@ -244,6 +344,12 @@ public class IngestDriverStep implements Step {
             }
         }
 
+        // If the driver fails before this, the stats of this round are lost. They are totals for tuning,
+        // so an undercount is better than a database update for each load.
+        if (!fireStoreStats.isEmpty()) {
+            loadService.addFireStoreStats(loadId, fireStoreStats);
+        }
+
         candidates.failedLoads(failureCount).runningLoads(realRunningLoads);
         logger.debug("Candidates resolved: failedLoads={}  runningLoads={}  candidateFiles={}",
             candidates.getFailedLoads(),
@@ -253,6 +359,30 @@ public class IngestDriverStep implements Step {
         return candidates;
     }
 
+    private void recordQueued(FlightState flightState) {
+        if (concurrencyController != null && flightState.getSubmitted() != null) {
+            concurrencyController.recordQueued(Duration.between(flightState.getSubmitted(), Instant.now()));
+        }
+    }
+
+    // Times the load from when its flight started running, so the queue time, which the controller watches
+    // separately, is left out. Flights without a start time are timed from when they were submitted.
+    private void recordFinished(FlightState flightState, LoadFile loadFile, boolean failed) {
+        if (concurrencyController == null || flightState.getSubmitted() == null) {
+            return;
+        }
+        Instant started = flightState.getSubmitted();
+        Long startMillis = flightState.getResultMap()
+            .map(map -> map.get(JobMapKeys.START_TIME.getKeyName(), Long.class))
+            .orElse(null);
+        if (startMillis != null) {
+            started = Instant.ofEpochMilli(startMillis);
+        }
+        Instant completed = flightState.getCompleted().orElse(Instant.now());
+        boolean large = loadFile.getSizeBytes() != null && loadFile.getSizeBytes() >= largeFileBytes;
+        concurrencyController.recordFinished(Duration.between(started, completed), failed, large);
+    }
+
     private void launchLoads(FlightContext context,
                              int launchCount,
                              List<LoadFile> loadFiles,
@@ -279,6 +409,12 @@ public class IngestDriverStep implements Step {
             inputParameters.put(FileMapKeys.DATASET_ID, datasetId);
             inputParameters.put(FileMapKeys.REQUEST, fileLoadModel);
             inputParameters.put(FileMapKeys.BUCKET_INFO, bucketInfo);
+            inputParameters.put(JobMapKeys.SUBMIT_TIME.getKeyName(), System.currentTimeMillis());
+            // The worker may run on another pod; carry the trace of this step along with it
+            String traceContext = TraceUtils.currentContext();
+            if (traceContext != null) {
+                inputParameters.put(JobMapKeys.TRACE_CONTEXT.getKeyName(), traceContext);
+            }
 
             logger.debug("~~set running load - flight: " + flightId);
             loadService.setLoadFileRunning(loadId, loadFile.getTargetPath(), flightId);
@@ -1,23 +1,35 @@
 package bio.terra.service.filedata.flight.ingest;
 
 import bio.terra.model.BulkLoadArrayRequestModel;
+import bio.terra.model.BulkLoadFileModel;
+import bio.terra.service.filedata.google.gcs.GcsPdao;
 import bio.terra.service.job.JobMapKeys;
 import bio.terra.service.load.LoadService;
 import bio.terra.service.load.flight.LoadMapKeys;
+import bio.terra.service.resourcemanagement.google.GoogleBucketResource;
 import bio.terra.stairway.FlightContext;
 import bio.terra.stairway.FlightMap;
 import bio.terra.stairway.Step;
 import bio.terra.stairway.StepResult;
+import com.google.cloud.storage.Storage;
 
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
-// Populate the files to be loaded from the incoming array
+// Populate the files to be loaded from the incoming array.
+// If captureSizes is set, we look up the source object sizes so the driver can schedule the largest files first.
 public class IngestPopulateFileStateFromArrayStep implements Step {
 
     private final LoadService loadService;
+    private final GcsPdao gcsPdao;
+    private final boolean captureSizes;
 
-    public IngestPopulateFileStateFromArrayStep(LoadService loadService) {
+    public IngestPopulateFileStateFromArrayStep(LoadService loadService, GcsPdao gcsPdao, boolean captureSizes) {
         this.loadService = loadService;
+        this.gcsPdao = gcsPdao;
+        this.captureSizes = captureSizes;
     }
 
     @Override
@@ -29,7 +41,18 @@ public class IngestPopulateFileStateFromArrayStep implements Step {
         FlightMap workingMap = context.getWorkingMap();
         UUID loadId = UUID.fromString(workingMap.get(LoadMapKeys.LOAD_ID, String.class));
 
-        loadService.populateFiles(loadId, loadRequest.getLoadArray());
+        if (captureSizes) {
+            GoogleBucketResource bucketResource = IngestUtils.getBucketInfo(context);
+            Storage storage = gcsPdao.storageForBucket(bucketResource);
+            List<String> sourcePaths = loadRequest.getLoadArray().stream()
+                .map(BulkLoadFileModel::getSourcePath)
+                .collect(Collectors.toList());
+            Map<String, Long> sourceSizes =
+                GcsPdao.getSourceSizes(storage, sourcePaths, bucketResource.projectIdForBucket());
+            loadService.populateFiles(loadId, loadRequest.getLoadArray(), sourceSizes);
+        } else {
+            loadService.populateFiles(loadId, loadRequest.getLoadArray());
+        }
 
         return StepResult.getStepResultSuccess();
     }
@@ -1,5 +1,6 @@
 package bio.terra.service.filedata.flight.ingest;
 
+import bio.terra.app.logging.PerformanceLogger;
 import bio.terra.model.BulkLoadFileModel;
 import bio.terra.model.BulkLoadRequestModel;
 import bio.terra.service.filedata.exception.BulkLoadControlFileException;
@@ -15,41 +16,84 @@ import bio.terra.stairway.Step;
 import bio.terra.stairway.StepResult;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.google.cloud.storage.Storage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-
-// Populate the files to be loaded from the incoming array
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Populate the files to be loaded from the incoming control file.
+//
+// The populate is a two stage pipeline, so that parsing and database inserts overlap:
+// - this thread reads the control file with large ranged GCS reads, parses each line with a shared
+//   ObjectReader, and puts batches of files on a bounded queue
+// - an insert thread takes batches off the queue, looks up source sizes if captureSizes is set, and
+//   writes each batch into load_file with PostgreSQL COPY
+// The bounded queue keeps the parser from running far ahead of the inserts. Each stage reports its
+// throughput through the PerformanceLogger when it finishes. The insert thread belongs to the step: however
+// the step ends, the thread is stopped and waited for, so no insert is still running when the step is
+// retried or undone.
 public class IngestPopulateFileStateFromFileStep implements Step {
+    private static final Logger logger = LoggerFactory.getLogger(IngestPopulateFileStateFromFileStep.class);
+
+    // Ensure that file ingestion works with extra key-value pairs
+    private static final ObjectReader LOAD_FILE_READER = new ObjectMapper()
+        .registerModule(new Jdk8Module())
+        .registerModule(new JavaTimeModule())
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+        .readerFor(BulkLoadFileModel.class);
+
+    // Size of each ranged read of the control file
+    private static final int CONTROL_FILE_CHUNK_SIZE = 16 * 1024 * 1024;
+    // Number of batches that may be waiting for the insert thread
+    private static final int QUEUED_BATCHES = 4;
+    private static final long QUEUE_POLL_SECONDS = 1;
+    // How long to wait for the insert thread to stop when leaving the step
+    private static final long INSERT_STOP_SECONDS = 60;
+    // Put on the queue after the last batch
+    private static final List<BulkLoadFileModel> END_OF_FILES = Collections.emptyList();
+
     private final LoadService loadService;
     private final int maxBadLines;
     private final int batchSize;
     private final GcsPdao gcsPdao;
+    private final boolean captureSizes;
+    private final PerformanceLogger performanceLogger;
 
     public IngestPopulateFileStateFromFileStep(LoadService loadService,
                                                int maxBadLines,
                                                int batchSize,
-                                               GcsPdao gcsPdao) {
+                                               GcsPdao gcsPdao,
+                                               boolean captureSizes,
+                                               PerformanceLogger performanceLogger) {
         this.loadService = loadService;
         this.maxBadLines = maxBadLines;
         this.batchSize = batchSize;
         this.gcsPdao = gcsPdao;
+        this.captureSizes = captureSizes;
+        this.performanceLogger = performanceLogger;
     }
 
     @Override
-    public StepResult doStep(FlightContext context) {
-        // Ensure that file ingestion works with extra key-value pairs
-        ObjectMapper objectMapper = new ObjectMapper()
-            .registerModule(new Jdk8Module())
-            .registerModule(new JavaTimeModule())
-            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
-
+    public StepResult doStep(FlightContext context) throws InterruptedException {
         FlightMap inputParameters = context.getInputParameters();
         BulkLoadRequestModel loadRequest =
             inputParameters.get(JobMapKeys.REQUEST.getKeyName(), BulkLoadRequestModel.class);
@@ -61,7 +105,19 @@ public class IngestPopulateFileStateFromFileStep implements Step {
         String projectId = bucketResource.projectIdForBucket();
         List<String> errorDetails = new ArrayList<>();
 
-        try (BufferedReader reader = new GcsBufferedReader(storage, projectId, loadRequest.getLoadControlFile())) {
+        BlockingQueue<List<BulkLoadFileModel>> queue = new ArrayBlockingQueue<>(QUEUED_BATCHES);
+        ExecutorService insertExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-file-insert-" + loadId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (BufferedReader reader = new GcsBufferedReader(
+            storage, projectId, loadRequest.getLoadControlFile(), CONTROL_FILE_CHUNK_SIZE)) {
+
+            Future<Long> inserted = insertExecutor.submit(
+                () -> insertBatches(context.getFlightId(), queue, loadId, storage, projectId));
+
+            long parseStart = System.nanoTime();
             long lineCount = 0;
             List<BulkLoadFileModel> fileList = new ArrayList<>();
 
@@ -69,7 +125,7 @@ public class IngestPopulateFileStateFromFileStep implements Step {
                 lineCount++;
 
                 try {
-                    BulkLoadFileModel loadFile = objectMapper.readValue(line, BulkLoadFileModel.class);
+                    BulkLoadFileModel loadFile = LOAD_FILE_READER.readValue(line);
                     fileList.add(loadFile);
                 } catch (IOException ex) {
                     errorDetails.add("Format error at line " + lineCount + ": " + ex.getMessage());
@@ -80,10 +136,10 @@ public class IngestPopulateFileStateFromFileStep implements Step {
                     }
                 }
 
-                // Keep this check and load out of the inner try; it should only catch objectMapper failures
+                // Keep this check and load out of the inner try; it should only catch parse failures
                 if (fileList.size() > batchSize) {
-                    loadService.populateFiles(loadId, fileList);
-                    fileList.clear();
+                    enqueue(queue, fileList, inserted);
+                    fileList = new ArrayList<>();
                 }
             }
 
@@ -95,16 +151,98 @@ public class IngestPopulateFileStateFromFileStep implements Step {
             }
 
             if (fileList.size() > 0) {
-                loadService.populateFiles(loadId, fileList);
+                enqueue(queue, fileList, inserted);
             }
+            enqueue(queue, END_OF_FILES, inserted);
+            performanceLogger.log(context.getFlightId(), this.getClass().getName(), "parseControlFile",
+                Duration.ofNanos(System.nanoTime() - parseStart), lineCount);
 
+            waitForInserts(inserted);
         } catch (IOException ex) {
             throw new BulkLoadControlFileException("Failure accessing the load control file", ex);
+        } finally {
+            stopInserts(insertExecutor, loadId);
         }
 
         return StepResult.getStepResultSuccess();
     }
 
+    // Interrupts the insert thread if we are leaving early, and waits for it to finish. An interrupt while
+    // waiting is passed on to the caller's thread rather than masking the step's own exception.
+    private static void stopInserts(ExecutorService insertExecutor, UUID loadId) {
+        insertExecutor.shutdownNow();
+        try {
+            if (!insertExecutor.awaitTermination(INSERT_STOP_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Load file insert thread for load {} did not stop", loadId);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Hand a batch to the insert thread, waiting for space on the queue. Stop waiting if the insert thread died.
+    private void enqueue(BlockingQueue<List<BulkLoadFileModel>> queue,
+                         List<BulkLoadFileModel> batch,
+                         Future<Long> inserted) throws InterruptedException {
+        while (!queue.offer(batch, QUEUE_POLL_SECONDS, TimeUnit.SECONDS)) {
+            if (inserted.isDone()) {
+                waitForInserts(inserted);
+                throw new BulkLoadControlFileException("Load file insert stopped before the control file was read");
+            }
+        }
+    }
+
+    private void waitForInserts(Future<Long> inserted) throws InterruptedException {
+        try {
+            inserted.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new BulkLoadControlFileException("Failure inserting load files", cause);
+        }
+    }
+
+    // Insert thread: write each batch from the queue into load_file until the end marker arrives
+    private long insertBatches(String flightId,
+                               BlockingQueue<List<BulkLoadFileModel>> queue,
+                               UUID loadId,
+                               Storage storage,
+                               String projectId) throws InterruptedException {
+        long rows = 0;
+        long insertNanos = 0;
+        long sizeNanos = 0;
+        while (true) {
+            List<BulkLoadFileModel> batch = queue.take();
+            if (batch == END_OF_FILES) {
+                break;
+            }
+
+            Map<String, Long> sourceSizes = Collections.emptyMap();
+            if (captureSizes) {
+                long sizeStart = System.nanoTime();
+                List<String> sourcePaths = batch.stream()
+                    .map(BulkLoadFileModel::getSourcePath)
+                    .collect(Collectors.toList());
+                sourceSizes = GcsPdao.getSourceSizes(storage, sourcePaths, projectId);
+                sizeNanos += System.nanoTime() - sizeStart;
+            }
+
+            long insertStart = System.nanoTime();
+            rows += loadService.copyFiles(loadId, batch, sourceSizes);
+            insertNanos += System.nanoTime() - insertStart;
+        }
+
+        if (captureSizes) {
+            performanceLogger.log(flightId, this.getClass().getName(), "getSourceSizes",
+                Duration.ofNanos(sizeNanos), rows);
+        }
+        performanceLogger.log(flightId, this.getClass().getName(), "copyLoadFiles",
+            Duration.ofNanos(insertNanos), rows);
+        return rows;
+    }
+
     @Override
     public StepResult undoStep(FlightContext context) {
         FlightMap workingMap = context.getWorkingMap();
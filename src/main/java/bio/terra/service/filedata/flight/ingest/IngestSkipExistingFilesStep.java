@@ -0,0 +1,169 @@
+package bio.terra.service.filedata.flight.ingest;
+
+import bio.terra.app.logging.PerformanceLogger;
+import bio.terra.service.dataset.Dataset;
+import bio.terra.service.filedata.FSFile;
+import bio.terra.service.filedata.FSFileInfo;
+import bio.terra.service.filedata.google.firestore.FireStoreDao;
+import bio.terra.service.filedata.google.gcs.GcsPdao;
+import bio.terra.service.load.LoadFile;
+import bio.terra.service.load.LoadService;
+import bio.terra.service.load.flight.LoadMapKeys;
+import bio.terra.service.resourcemanagement.google.GoogleBucketResource;
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.FlightMap;
+import bio.terra.stairway.Step;
+import bio.terra.stairway.StepResult;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.Storage;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+// Before the driver starts, find the files of the load that are already in the dataset at their target path
+// and mark them as succeeded, so that a re-run of a partially completed bulk load only copies what is missing.
+// Files are looked up a page at a time with batched Firestore reads. When verifyChecksums is set, the source
+// object is compared with the existing file by size, crc32c and (when both have one) md5. A file whose content
+// differs is marked failed instead of being loaded over the existing one. The states of a page are updated in
+// one batch per state. Files that are not in the dataset are left NOT_TRIED for the driver.
+public class IngestSkipExistingFilesStep implements Step {
+    private static final Logger logger = LoggerFactory.getLogger(IngestSkipExistingFilesStep.class);
+
+    // Number of load files looked up at a time
+    private static final int LOOKUP_BATCH_SIZE = 500;
+
+    private final LoadService loadService;
+    private final FireStoreDao fileDao;
+    private final GcsPdao gcsPdao;
+    private final Dataset dataset;
+    private final boolean verifyChecksums;
+    private final PerformanceLogger performanceLogger;
+
+    public IngestSkipExistingFilesStep(LoadService loadService,
+                                       FireStoreDao fileDao,
+                                       GcsPdao gcsPdao,
+                                       Dataset dataset,
+                                       boolean verifyChecksums,
+                                       PerformanceLogger performanceLogger) {
+        this.loadService = loadService;
+        this.fileDao = fileDao;
+        this.gcsPdao = gcsPdao;
+        this.dataset = dataset;
+        this.verifyChecksums = verifyChecksums;
+        this.performanceLogger = performanceLogger;
+    }
+
+    @Override
+    public StepResult doStep(FlightContext context) throws InterruptedException {
+        FlightMap workingMap = context.getWorkingMap();
+        UUID loadId = UUID.fromString(workingMap.get(LoadMapKeys.LOAD_ID, String.class));
+        GoogleBucketResource bucketResource = IngestUtils.getBucketInfo(context);
+        Storage storage = gcsPdao.storageForBucket(bucketResource);
+        String projectId = bucketResource.projectIdForBucket();
+
+        long start = System.nanoTime();
+        long checked = 0;
+        long skipped = 0;
+        long mismatched = 0;
+
+        List<LoadFile> loadFiles = loadService.findNotTriedAfter(loadId, null, LOOKUP_BATCH_SIZE);
+        while (!loadFiles.isEmpty()) {
+            List<String> targetPaths = loadFiles.stream()
+                .map(LoadFile::getTargetPath)
+                .collect(Collectors.toList());
+            List<FSFile> existingFiles = fileDao.batchLookupFilesByPath(dataset, targetPaths);
+
+            Map<String, Blob> sourceBlobs = Collections.emptyMap();
+            if (verifyChecksums) {
+                List<String> sourcePaths = new ArrayList<>();
+                for (int i = 0; i < loadFiles.size(); i++) {
+                    if (existingFiles.get(i) != null) {
+                        sourcePaths.add(loadFiles.get(i).getSourcePath());
+                    }
+                }
+                if (!sourcePaths.isEmpty()) {
+                    sourceBlobs = GcsPdao.getSourceBlobs(storage, sourcePaths, projectId);
+                }
+            }
+
+            Map<String, FSFileInfo> existing = new LinkedHashMap<>();
+            Map<String, String> different = new LinkedHashMap<>();
+            for (int i = 0; i < loadFiles.size(); i++) {
+                LoadFile loadFile = loadFiles.get(i);
+                FSFile existingFile = existingFiles.get(i);
+                if (existingFile == null) {
+                    continue;
+                }
+
+                if (verifyChecksums && !sameContent(sourceBlobs.get(loadFile.getSourcePath()), existingFile)) {
+                    different.put(loadFile.getTargetPath(),
+                        "Target exists with different content: " + loadFile.getTargetPath());
+                } else {
+                    existing.put(loadFile.getTargetPath(), makeFileInfo(existingFile));
+                }
+            }
+            if (!existing.isEmpty()) {
+                loadService.setLoadFilesSucceeded(loadId, existing);
+            }
+            if (!different.isEmpty()) {
+                loadService.setLoadFilesFailed(loadId, different);
+            }
+            skipped += existing.size();
+            mismatched += different.size();
+
+            checked += loadFiles.size();
+            String lastTargetPath = targetPaths.get(targetPaths.size() - 1);
+            loadFiles = loadService.findNotTriedAfter(loadId, lastTargetPath, LOOKUP_BATCH_SIZE);
+        }
+
+        logger.info("Load {}: checked {} files, skipped {} existing, {} with different content",
+            loadId, checked, skipped, mismatched);
+        performanceLogger.log(context.getFlightId(), this.getClass().getName(), "skipExistingFiles",
+            Duration.ofNanos(System.nanoTime() - start), checked,
+            "skipped: " + skipped + ", mismatched: " + mismatched);
+        return StepResult.getStepResultSuccess();
+    }
+
+    // A missing source object does not match; the load of that file would fail anyway.
+    private static boolean sameContent(Blob sourceBlob, FSFile existingFile) {
+        if (sourceBlob == null) {
+            return false;
+        }
+        if (!Objects.equals(sourceBlob.getSize(), existingFile.getSize())) {
+            return false;
+        }
+        if (!StringUtils.equals(sourceBlob.getCrc32cToHexString(), existingFile.getChecksumCrc32c())) {
+            return false;
+        }
+        String sourceMd5 = sourceBlob.getMd5ToHexString();
+        return sourceMd5 == null || existingFile.getChecksumMd5() == null
+            || sourceMd5.equals(existingFile.getChecksumMd5());
+    }
+
+    private static FSFileInfo makeFileInfo(FSFile file) {
+        return new FSFileInfo()
+            .fileId(file.getFileId().toString())
+            .createdDate(file.getCreatedDate().toString())
+            .gspath(file.getGspath())
+            .checksumCrc32c(file.getChecksumCrc32c())
+            .checksumMd5(file.getChecksumMd5())
+            .size(file.getSize())
+            .bucketResourceId(file.getBucketResourceId());
+    }
+
+    @Override
+    public StepResult undoStep(FlightContext context) {
+        // The load file state is removed by the undo of the populate step
+        return StepResult.getStepResultSuccess();
+    }
+}
@@ -3,6 +3,7 @@ package bio.terra.service.filedata.google.firestore;
 import bio.terra.app.logging.PerformanceLogger;
 import bio.terra.service.configuration.ConfigurationService;
 import bio.terra.service.dataset.Dataset;
+import bio.terra.service.filedata.DirectoryContinuationToken;
 import bio.terra.service.filedata.FSContainerInterface;
 import bio.terra.service.filedata.FSDir;
 import bio.terra.service.filedata.FSFile;
@@ -14,22 +15,29 @@ import bio.terra.service.snapshot.Snapshot;
 import bio.terra.service.snapshot.SnapshotProject;
 import com.google.cloud.firestore.Firestore;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static bio.terra.service.configuration.ConfigEnum.FIRESTORE_EXPAND_NODE_BUDGET;
 import static bio.terra.service.configuration.ConfigEnum.FIRESTORE_SNAPSHOT_BATCH_SIZE;
 
 // Operations on a file often need to touch file and directory collections that is,
@@ -55,18 +63,24 @@ public class FireStoreDao {
     private final FireStoreUtils fireStoreUtils;
     private final ConfigurationService configurationService;
     private final PerformanceLogger performanceLogger;
+    private final ExecutorService executor;
+
+    // How many directories on one level of a tree expansion are enumerated at the same time
+    private static final int ENUMERATE_CONCURRENCY = 10;
 
     @Autowired
     public FireStoreDao(FireStoreDirectoryDao directoryDao,
                         FireStoreFileDao fileDao,
                         FireStoreUtils fireStoreUtils,
                         ConfigurationService configurationService,
-                        PerformanceLogger performanceLogger) {
+                        PerformanceLogger performanceLogger,
+                        @Qualifier("performanceThreadpool") ExecutorService executor) {
         this.directoryDao = directoryDao;
         this.fileDao = fileDao;
         this.fireStoreUtils = fireStoreUtils;
         this.configurationService = configurationService;
         this.performanceLogger = performanceLogger;
+        this.executor = executor;
     }
 
     public void createDirectoryEntry(Dataset dataset, FireStoreDirectoryEntry newEntry) throws InterruptedException {
@@ -116,6 +130,55 @@ public class FireStoreDao {
         return directoryDao.retrieveByPath(firestore, datasetId, path);
     }
 
+    /**
+     * Look up the files at a batch of target paths in a dataset. Used to skip files that are already loaded.
+     *
+     * @param dataset   dataset to look in
+     * @param fullPaths target paths of files
+     * @return files in the same order as the paths; null where there is no completely ingested file at the path
+     */
+    public List<FSFile> batchLookupFilesByPath(Dataset dataset, List<String> fullPaths) throws InterruptedException {
+        Firestore firestore = FireStoreProject.get(dataset.getProjectResource().getGoogleProjectId()).getFirestore();
+        String datasetId = dataset.getId().toString();
+
+        List<FireStoreDirectoryEntry> entries = directoryDao.batchLookupByPath(firestore, datasetId, fullPaths);
+        List<FireStoreDirectoryEntry> fileEntries = entries.stream()
+            .filter(entry -> entry != null && entry.getIsFileRef())
+            .collect(Collectors.toList());
+        List<FireStoreFile> files = fileDao.batchLookupFileMetadata(firestore, datasetId, fileEntries);
+
+        Map<String, FireStoreFile> filesById = new HashMap<>();
+        for (FireStoreFile file : files) {
+            if (file != null) {
+                filesById.put(file.getFileId(), file);
+            }
+        }
+
+        List<FSFile> result = new ArrayList<>(fullPaths.size());
+        for (FireStoreDirectoryEntry entry : entries) {
+            FireStoreFile file = (entry == null) ? null : filesById.get(entry.getFileId());
+            if (file == null) {
+                result.add(null);
+            } else {
+                result.add(new FSFile()
+                    .fileId(UUID.fromString(entry.getFileId()))
+                    .collectionId(UUID.fromString(entry.getDatasetId()))
+                    .datasetId(UUID.fromString(entry.getDatasetId()))
+                    .createdDate(Instant.parse(file.getFileCreatedDate()))
+                    .path(fireStoreUtils.getFullPath(entry.getPath(), entry.getName()))
+                    .checksumCrc32c(file.getChecksumCrc32c())
+                    .checksumMd5(file.getChecksumMd5())
+                    .size(file.getSize())
+                    .description(file.getDescription())
+                    .gspath(file.getGspath())
+                    .mimeType(file.getMimeType())
+                    .bucketResourceId(file.getBucketResourceId())
+                    .loadTag(file.getLoadTag()));
+            }
+        }
+        return result;
+    }
+
     public FireStoreFile lookupFile(Dataset dataset, String fileId) throws InterruptedException {
         Firestore firestore = FireStoreProject.get(dataset.getProjectResource().getGoogleProjectId()).getFirestore();
         String datasetId = dataset.getId().toString();
@@ -196,7 +259,7 @@ public class FireStoreDao {
 
         FireStoreDirectoryEntry fireStoreDirectoryEntry = directoryDao.retrieveByPath(firestore, containerId, fullPath);
         return retrieveWorker(
-            firestore, containerId, enumerateDepth, fireStoreDirectoryEntry, throwOnNotFound, fullPath);
+            firestore, containerId, enumerateDepth, fireStoreDirectoryEntry, throwOnNotFound, fullPath, null);
     }
 
     /**
@@ -215,12 +278,27 @@ public class FireStoreDao {
                                String fileId,
                                int enumerateDepth,
                                boolean throwOnNotFound) throws InterruptedException {
+        return retrieveById(container, fileId, enumerateDepth, throwOnNotFound, null);
+    }
+
+    /**
+     * Retrieve an FSItem by id, resuming the listing of a directory that was cut short by the node budget
+     *
+     * @param startAfterName - the listing of the directory starts after the entry with this name;
+     *                       null starts at the beginning
+     */
+    public FSItem retrieveById(FSContainerInterface container,
+                               String fileId,
+                               int enumerateDepth,
+                               boolean throwOnNotFound,
+                               String startAfterName) throws InterruptedException {
         Firestore firestore =
             FireStoreProject.get(container.getProjectResource().getGoogleProjectId()).getFirestore();
         String datasetId = container.getId().toString();
 
         FireStoreDirectoryEntry fireStoreDirectoryEntry = directoryDao.retrieveById(firestore, datasetId, fileId);
-        return retrieveWorker(firestore, datasetId, enumerateDepth, fireStoreDirectoryEntry, throwOnNotFound, fileId);
+        return retrieveWorker(
+            firestore, datasetId, enumerateDepth, fireStoreDirectoryEntry, throwOnNotFound, fileId, startAfterName);
     }
 
 
@@ -228,12 +306,21 @@ public class FireStoreDao {
                                           String fileId,
                                           int enumerateDepth,
                                           boolean throwOnNotFound) throws InterruptedException {
+        return retrieveBySnapshotAndId(snapshot, fileId, enumerateDepth, throwOnNotFound, null);
+    }
+
+    public FSItem retrieveBySnapshotAndId(SnapshotProject snapshot,
+                                          String fileId,
+                                          int enumerateDepth,
+                                          boolean throwOnNotFound,
+                                          String startAfterName) throws InterruptedException {
         String projectName = snapshot.getDataProject();
         String datasetId = snapshot.getId().toString();
         Firestore firestore = FireStoreProject.get(projectName).getFirestore();
 
         FireStoreDirectoryEntry fireStoreDirectoryEntry = directoryDao.retrieveById(firestore, datasetId, fileId);
-        return retrieveWorker(firestore, datasetId, enumerateDepth, fireStoreDirectoryEntry, throwOnNotFound, fileId);
+        return retrieveWorker(
+            firestore, datasetId, enumerateDepth, fireStoreDirectoryEntry, throwOnNotFound, fileId, startAfterName);
     }
 
     /**
@@ -291,6 +378,53 @@ public class FireStoreDao {
         return resultList;
     }
 
+    /**
+     * List one page of a directory without expanding its subdirectories
+     *
+     * @param container      - dataset or snapshot containing the directory
+     * @param dirPath        - full path of the directory
+     * @param startAfterName - name of the entry the page starts after; null starts at the beginning
+     * @param limit          - maximum number of entries in the page
+     * @param consumer       - receives the entries a batch at a time; files that are still being ingested are left out
+     * @return the name of the last entry listed when more entries may follow; null at the end of the directory
+     */
+    public String listDirectoryPage(FSContainerInterface container,
+                                    String dirPath,
+                                    String startAfterName,
+                                    int limit,
+                                    InterruptibleConsumer<List<FSItem>> consumer) throws InterruptedException {
+        Firestore firestore =
+            FireStoreProject.get(container.getProjectResource().getGoogleProjectId()).getFirestore();
+        String collectionId = container.getId().toString();
+
+        return directoryDao.enumerateDirectoryPage(firestore, collectionId, dirPath, startAfterName, limit,
+            entryList -> {
+                Map<String, FireStoreFile> fileMetadata =
+                    retrieveLevelFileMetadata(firestore, Collections.singletonList(entryList));
+                List<FSItem> items = new ArrayList<>(entryList.size());
+                for (FireStoreDirectoryEntry entry : entryList) {
+                    if (!entry.getIsFileRef()) {
+                        items.add(makeFSDirNode(collectionId, entry));
+                    } else if (fileMetadata.containsKey(entry.getFileId())) {
+                        items.add(makeFSFile(collectionId, entry, fileMetadata.get(entry.getFileId())));
+                    }
+                }
+                consumer.accept(items);
+            });
+    }
+
+    /**
+     * Fill in the file id index for the directory entries of a dataset or snapshot
+     *
+     * @param container - dataset or snapshot whose directory collection is indexed
+     * @return the number of entries indexed
+     */
+    public int backfillFileIdIndex(FSContainerInterface container) throws InterruptedException {
+        Firestore firestore =
+            FireStoreProject.get(container.getProjectResource().getGoogleProjectId()).getFirestore();
+        return directoryDao.backfillFileIdIndex(firestore, container.getId().toString());
+    }
+
     public List<String> validateRefIds(Dataset dataset, List<String> refIdArray) throws InterruptedException {
         Firestore firestore = FireStoreProject.get(dataset.getProjectResource().getGoogleProjectId()).getFirestore();
         String datasetId = dataset.getId().toString();
@@ -306,7 +440,8 @@ public class FireStoreDao {
                                   int enumerateDepth,
                                   FireStoreDirectoryEntry fireStoreDirectoryEntry,
                                   boolean throwOnNotFound,
-                                  String context) throws InterruptedException {
+                                  String context,
+                                  String startAfterName) throws InterruptedException {
         if (fireStoreDirectoryEntry == null) {
             return handleNotFound(throwOnNotFound, context);
         }
@@ -321,7 +456,7 @@ public class FireStoreDao {
             return fsFile;
         }
 
-        return makeFSDir(firestore, collectionId, enumerateDepth, fireStoreDirectoryEntry);
+        return makeFSDir(firestore, collectionId, enumerateDepth, fireStoreDirectoryEntry, startAfterName);
     }
 
     private FSItem handleNotFound(boolean throwOnNotFound, String context) {
@@ -335,7 +470,16 @@ public class FireStoreDao {
     private FSItem makeFSDir(Firestore firestore,
                              String collectionId,
                              int level,
-                             FireStoreDirectoryEntry fireStoreDirectoryEntry) throws InterruptedException {
+                             FireStoreDirectoryEntry fireStoreDirectoryEntry,
+                             String startAfterName) throws InterruptedException {
+        FSDir fsDir = makeFSDirNode(collectionId, fireStoreDirectoryEntry);
+        if (level != 0) {
+            expandTree(firestore, collectionId, fsDir, level, startAfterName);
+        }
+        return fsDir;
+    }
+
+    private FSDir makeFSDirNode(String collectionId, FireStoreDirectoryEntry fireStoreDirectoryEntry) {
         if (fireStoreDirectoryEntry.getIsFileRef()) {
             throw new IllegalStateException("Expected directory; got file!");
         }
@@ -353,28 +497,178 @@ public class FireStoreDao {
             .checksumMd5(fireStoreDirectoryEntry.getChecksumMd5())
             .size(fireStoreDirectoryEntry.getSize())
             .description(StringUtils.EMPTY);
+        return fsDir;
+    }
 
+    // A directory waiting to be expanded, along with how many more levels to expand below it
+    private static class PendingDir {
+        private final FSDir fsDir;
+        private final int level;
 
-        if (level != 0) {
-            List<FSItem> fsContents = new ArrayList<>();
-            List<FireStoreDirectoryEntry> dirContents =
-                directoryDao.enumerateDirectory(firestore, collectionId, fullPath);
-            for (FireStoreDirectoryEntry fso : dirContents) {
-                if (fso.getIsFileRef()) {
-                    // Files that are in the middle of being ingested can have a directory entry, but not yet have
-                    // a file entry. We do not return files that do not yet have a file entry.
-                    FSItem fsFile = makeFSFile(firestore, collectionId, fso);
-                    if (fsFile != null) {
-                        fsContents.add(fsFile);
+        PendingDir(FSDir fsDir, int level) {
+            this.fsDir = fsDir;
+            this.level = level;
+        }
+    }
+
+    /**
+     * Expand a directory tree breadth first. Each level is handled as a unit: the directories on the level are
+     * enumerated concurrently and the file metadata for every file on the level is fetched with one batch
+     * retrieve per owning dataset. Expansion stops once the node budget is used up.
+     *
+     * The budget bounds the directory reads as well as the file metadata lookups: each directory is read one
+     * page at a time, and the page is no larger than what is left of the budget. A directory whose listing
+     * does not fit, the root included, holds the first page of its contents and a continuation token that
+     * resumes after the last entry on the page. Directories reached after the budget is used up are left
+     * un-enumerated with a token that makes them the root of the next lookup. Either way, each lookup with a
+     * token returns entries that the previous lookup did not.
+     */
+    private void expandTree(Firestore firestore,
+                            String collectionId,
+                            FSDir root,
+                            int level,
+                            String startAfterName) throws InterruptedException {
+        int nodeBudget = configurationService.getParameterValue(FIRESTORE_EXPAND_NODE_BUDGET);
+
+        List<FireStoreDirectoryEntry> rootListing = new ArrayList<>();
+        String lastName = directoryDao.enumerateDirectoryPage(
+            firestore, collectionId, root.getPath(), startAfterName, Math.max(1, nodeBudget - 1), rootListing::addAll);
+        if (lastName != null) {
+            root.continuationToken(new DirectoryContinuationToken(root.getFileId(), level, lastName).encode());
+        }
+
+        int nodeCount = 1 + rootListing.size();
+        List<PendingDir> expanded = Collections.singletonList(new PendingDir(root, level));
+        List<List<FireStoreDirectoryEntry>> expandedListings = Collections.singletonList(rootListing);
+
+        while (!expanded.isEmpty()) {
+            Map<String, FireStoreFile> fileMetadata = retrieveLevelFileMetadata(firestore, expandedListings);
+
+            List<PendingDir> frontier = new ArrayList<>();
+            for (int i = 0; i < expanded.size(); i++) {
+                PendingDir pending = expanded.get(i);
+                List<FSItem> fsContents = new ArrayList<>();
+                for (FireStoreDirectoryEntry fso : expandedListings.get(i)) {
+                    if (fso.getIsFileRef()) {
+                        // Files that are in the middle of being ingested can have a directory entry, but not yet
+                        // have a file entry. We do not return files that do not yet have a file entry.
+                        FireStoreFile fireStoreFile = fileMetadata.get(fso.getFileId());
+                        if (fireStoreFile != null) {
+                            fsContents.add(makeFSFile(collectionId, fso, fireStoreFile));
+                        }
+                    } else {
+                        FSDir childDir = makeFSDirNode(collectionId, fso);
+                        fsContents.add(childDir);
+                        if (pending.level - 1 != 0) {
+                            frontier.add(new PendingDir(childDir, pending.level - 1));
+                        }
+                    }
+                }
+                pending.fsDir.contents(fsContents);
+            }
+            if (frontier.isEmpty()) {
+                return;
+            }
+
+            // Read the next level within what is left of the budget, before fetching any file metadata. Chunks
+            // keep a wide level from overrunning the shared thread pool queue, and let each chunk use the budget
+            // the chunks before it left over.
+            expanded = new ArrayList<>();
+            expandedListings = new ArrayList<>();
+            for (List<PendingDir> chunk : ListUtils.partition(frontier, ENUMERATE_CONCURRENCY)) {
+                int remaining = nodeBudget - nodeCount;
+                List<PendingDir> listed = chunk.subList(0, Math.max(0, Math.min(chunk.size(), remaining)));
+                for (PendingDir pending : chunk.subList(listed.size(), chunk.size())) {
+                    pending.fsDir.continuationToken(
+                        new DirectoryContinuationToken(pending.fsDir.getFileId(), pending.level, null).encode());
+                }
+                if (listed.isEmpty()) {
+                    continue;
+                }
+
+                List<DirectoryPage> pages =
+                    enumerateDirectoryPages(firestore, collectionId, listed, remaining / listed.size());
+                for (int i = 0; i < listed.size(); i++) {
+                    PendingDir pending = listed.get(i);
+                    DirectoryPage page = pages.get(i);
+                    if (page.lastName != null) {
+                        pending.fsDir.continuationToken(
+                            new DirectoryContinuationToken(pending.fsDir.getFileId(), pending.level, page.lastName)
+                                .encode());
                     }
-                } else {
-                    fsContents.add(makeFSDir(firestore, collectionId, level - 1, fso));
+                    nodeCount += page.entries.size();
+                    expanded.add(pending);
+                    expandedListings.add(page.entries);
                 }
             }
-            fsDir.contents(fsContents);
         }
+    }
 
-        return fsDir;
+    // The first page of a directory; lastName is set when more entries may follow
+    private static class DirectoryPage {
+        private final List<FireStoreDirectoryEntry> entries = new ArrayList<>();
+        private String lastName;
+    }
+
+    // Read the first page of each directory concurrently, at most limit entries each. The pages are in
+    // the order of the directories.
+    private List<DirectoryPage> enumerateDirectoryPages(Firestore firestore,
+                                                        String collectionId,
+                                                        List<PendingDir> dirs,
+                                                        int limit)
+        throws InterruptedException {
+        List<DirectoryPage> pages = new ArrayList<>(dirs.size());
+        if (dirs.size() == 1) {
+            pages.add(enumerateDirectoryPage(firestore, collectionId, dirs.get(0), limit));
+            return pages;
+        }
+
+        List<Future<DirectoryPage>> futures = new ArrayList<>(dirs.size());
+        for (PendingDir pending : dirs) {
+            futures.add(executor.submit(() -> enumerateDirectoryPage(firestore, collectionId, pending, limit)));
+        }
+        for (Future<DirectoryPage> future : futures) {
+            try {
+                pages.add(future.get());
+            } catch (ExecutionException ex) {
+                futures.forEach(f -> f.cancel(true));
+                throw new FileSystemExecutionException("Directory enumeration failed", ex.getCause());
+            }
+        }
+        return pages;
+    }
+
+    private DirectoryPage enumerateDirectoryPage(Firestore firestore,
+                                                 String collectionId,
+                                                 PendingDir pending,
+                                                 int limit) throws InterruptedException {
+        DirectoryPage page = new DirectoryPage();
+        page.lastName = directoryDao.enumerateDirectoryPage(
+            firestore, collectionId, pending.fsDir.getPath(), null, limit, page.entries::addAll);
+        return page;
+    }
+
+    // Fetch the file metadata for every file on a level, keyed by file id; files without metadata are absent.
+    private Map<String, FireStoreFile> retrieveLevelFileMetadata(Firestore firestore,
+                                                                 List<List<FireStoreDirectoryEntry>> listings)
+        throws InterruptedException {
+        // Lookup files in their owning dataset, not in the collection. The collection may be a snapshot
+        // directory pointing to the files in one or more datasets.
+        Map<String, List<FireStoreDirectoryEntry>> fileRefsByDatasetId = listings.stream()
+            .flatMap(List::stream)
+            .filter(FireStoreDirectoryEntry::getIsFileRef)
+            .collect(Collectors.groupingBy(FireStoreDirectoryEntry::getDatasetId));
+
+        Map<String, FireStoreFile> fileMetadata = new HashMap<>();
+        for (Map.Entry<String, List<FireStoreDirectoryEntry>> entry : fileRefsByDatasetId.entrySet()) {
+            List<FireStoreFile> files = fileDao.batchLookupFileMetadata(firestore, entry.getKey(), entry.getValue());
+            for (FireStoreFile file : files) {
+                if (file != null) {
+                    fileMetadata.put(file.getFileId(), file);
+                }
+            }
+        }
+        return fileMetadata;
     }
 
     // Handle files - the fireStoreDirectoryEntry is a reference to a file in a dataset.
@@ -385,17 +679,22 @@ public class FireStoreDao {
             throw new IllegalStateException("Expected file; got directory!");
         }
 
-        String fullPath =
-            fireStoreUtils.getFullPath(fireStoreDirectoryEntry.getPath(), fireStoreDirectoryEntry.getName());
-        String fileId = fireStoreDirectoryEntry.getFileId();
-
         // Lookup the file in its owning dataset, not in the collection. The collection may be a snapshot directory
         // pointing to the files in one or more datasets.
-        FireStoreFile fireStoreFile =
-            fileDao.retrieveFileMetadata(firestore, fireStoreDirectoryEntry.getDatasetId(), fileId);
+        FireStoreFile fireStoreFile = fileDao.retrieveFileMetadata(
+            firestore, fireStoreDirectoryEntry.getDatasetId(), fireStoreDirectoryEntry.getFileId());
         if (fireStoreFile == null) {
             return null;
         }
+        return makeFSFile(collectionId, fireStoreDirectoryEntry, fireStoreFile);
+    }
+
+    private FSFile makeFSFile(String collectionId,
+                              FireStoreDirectoryEntry fireStoreDirectoryEntry,
+                              FireStoreFile fireStoreFile) {
+        String fullPath =
+            fireStoreUtils.getFullPath(fireStoreDirectoryEntry.getPath(), fireStoreDirectoryEntry.getName());
+        String fileId = fireStoreDirectoryEntry.getFileId();
 
         FSFile fsFile = new FSFile();
         fsFile
@@ -9,6 +9,7 @@ import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.CollectionReference;
 import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.Query;
 import com.google.cloud.firestore.QueryDocumentSnapshot;
 import com.google.cloud.firestore.QuerySnapshot;
@@ -116,6 +117,7 @@ public class FireStoreDependencyDao {
 
         // Launch the lookups in parallel. Note Query.get() is returning an ApiFuture<QuerySnapshot>
         List<QuerySnapshot> querySnapshotList = fireStoreUtils.batchOperation(
+            "storeSnapshotFileDependencies",
             batch,
             fileId ->
                 depColl.whereEqualTo("fileId", fileId)
@@ -160,6 +162,7 @@ public class FireStoreDependencyDao {
 
         // Collect the set results
         fireStoreUtils.batchOperation(
+            "storeSnapshotFileDependencies",
             setFutures,
             future -> future
         );
@@ -179,6 +182,7 @@ public class FireStoreDependencyDao {
              batch = queryIterator.getBatch()) {
 
             fireStoreUtils.batchOperation(
+                "deleteSnapshotFileDependencies",
                 batch,
                 docSnap -> {
                     logger.info("deleting: " + docSnap.getReference().getPath());
@@ -195,7 +199,8 @@ public class FireStoreDependencyDao {
         String dependencyCollectionName = getDatasetDependencyId(dataset.getId().toString());
         CollectionReference depColl = fireStoreProject.getFirestore().collection(dependencyCollectionName);
 
-        ApiFuture<Void> transaction = fireStoreProject.getFirestore().runTransaction(xn -> {
+        Firestore firestore = fireStoreProject.getFirestore();
+        ApiFuture<Void> transaction = fireStoreUtils.runTransaction(firestore, "removeSnapshotFileDependency", xn -> {
             Query query = depColl.whereEqualTo("fileId", fileId)
                 .whereEqualTo("snapshotId", snapshotId);
             ApiFuture<QuerySnapshot> querySnapshot = query.get();
@@ -222,7 +227,7 @@ public class FireStoreDependencyDao {
             return null;
         });
 
-        fireStoreUtils.transactionGet("delete dependency", transaction);
+        fireStoreUtils.transactionGet("removeSnapshotFileDependency", transaction);
     }
 
     private String getDatasetDependencyId(String datasetId) {
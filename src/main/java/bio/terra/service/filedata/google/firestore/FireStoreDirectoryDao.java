@@ -10,6 +10,7 @@ import com.google.api.gax.rpc.AbortedException;
 import com.google.cloud.firestore.CollectionReference;
 import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.Query;
 import com.google.cloud.firestore.QueryDocumentSnapshot;
@@ -26,10 +27,13 @@ import org.springframework.stereotype.Component;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static bio.terra.service.configuration.ConfigEnum.FIRESTORE_QUERY_BATCH_SIZE;
 import static bio.terra.service.configuration.ConfigEnum.FIRESTORE_SNAPSHOT_BATCH_SIZE;
@@ -68,6 +72,13 @@ import static bio.terra.service.configuration.ConfigEnum.FIRESTORE_VALIDATE_BATC
  * <p>It is an invariant that there are no empty directories. When a directory becomes empty on a
  * delete, it is deleted. When a directory is needed, we create it. That is all done within
  * transactions so there is never a time where the externally visible state violates that invariant.
+ *
+ * <p>Since documents are named by path, finding an entry by file id would take a query. Instead, each
+ * directory collection has a companion file id index collection, named with the suffix "-fileids", that
+ * maps a file id to the document name of its entry. The index is written in the same transactions and
+ * batches that write the entries, so a lookup by id is a pair of point reads, and a batch of lookups is a
+ * pair of getAll calls. Collections created before the index existed are filled in by the file id index
+ * backfill upgrade; until then, ids missing from the index fall back to the query.
  */
 @Component
 public class FireStoreDirectoryDao {
@@ -75,6 +86,8 @@ public class FireStoreDirectoryDao {
 
     private static final int RETRIES = 3;
     private static final String ROOT_DIR_NAME = "/_dr_";
+    static final String FILE_ID_INDEX_SUFFIX = "-fileids";
+    static final String INDEX_DOCNAME_FIELD = "docName";
 
     private final FireStoreUtils fireStoreUtils;
     private final PerformanceLogger performanceLogger;
@@ -96,7 +109,9 @@ public class FireStoreDirectoryDao {
         throws InterruptedException {
 
         ApiFuture<Void> transaction =
-            firestore.runTransaction(
+            fireStoreUtils.runTransaction(
+                firestore,
+                "createDirectoryEntry",
                 xn -> {
                     List<FireStoreDirectoryEntry> createList = new ArrayList<>();
 
@@ -121,15 +136,17 @@ public class FireStoreDirectoryDao {
 
                     // transition point from reading to writing in the transaction
 
-                    for (FireStoreDirectoryEntry dirToCreate : createList) {
-                        xn.set(getDocRef(firestore, collectionId, dirToCreate), dirToCreate);
+                    createList.add(createEntry);
+                    for (FireStoreDirectoryEntry entryToCreate : createList) {
+                        DocumentReference entryRef = getDocRef(firestore, collectionId, entryToCreate);
+                        xn.set(entryRef, entryToCreate);
+                        xn.set(getIndexDocRef(firestore, collectionId, entryToCreate.getFileId()),
+                            makeIndexEntry(entryRef));
                     }
-
-                    xn.set(getDocRef(firestore, collectionId, createEntry), createEntry);
                     return null;
                 });
 
-        fireStoreUtils.transactionGet("createFileRef", transaction);
+        fireStoreUtils.transactionGet("createDirectoryEntry", transaction);
     }
 
     // true - directory entry existed and was deleted; false - directory entry did not exist
@@ -139,16 +156,19 @@ public class FireStoreDirectoryDao {
         CollectionReference datasetCollection = firestore.collection(collectionId);
 
         ApiFuture<Boolean> transaction =
-            firestore.runTransaction(
+            fireStoreUtils.runTransaction(
+                firestore,
+                "deleteDirectoryEntry",
                 xn -> {
                     List<DocumentReference> deleteList = new ArrayList<>();
 
                     // Look up the directory entry by id. If it doesn't exist, we're done
-                    QueryDocumentSnapshot leafSnap = lookupByFileId(firestore, collectionId, fileId, xn);
+                    DocumentSnapshot leafSnap = lookupByFileId(firestore, collectionId, fileId, xn);
                     if (leafSnap == null) {
                         return false;
                     }
                     deleteList.add(leafSnap.getReference());
+                    deleteList.add(getIndexDocRef(firestore, collectionId, fileId));
 
                     FireStoreDirectoryEntry leafEntry = leafSnap.toObject(FireStoreDirectoryEntry.class);
                     String lookupPath = makeLookupPath(leafEntry.getPath());
@@ -167,6 +187,11 @@ public class FireStoreDirectoryDao {
                         DocumentReference docRef =
                             datasetCollection.document(encodePathAsFirestoreDocumentName(lookupPath));
                         deleteList.add(docRef);
+                        // We need the directory's file id to remove it from the index
+                        DocumentSnapshot dirSnap = xn.get(docRef).get();
+                        if (dirSnap.exists()) {
+                            deleteList.add(getIndexDocRef(firestore, collectionId, dirSnap.getString("fileId")));
+                        }
                         lookupPath = fireStoreUtils.getDirectoryPath(lookupPath);
                     }
 
@@ -186,6 +211,37 @@ public class FireStoreDirectoryDao {
 
         fireStoreUtils.scanCollectionObjects(
             firestore, collectionId, DELETE_BATCH_SIZE, document -> document.getReference().delete());
+        fireStoreUtils.scanCollectionObjects(
+            firestore, collectionId + FILE_ID_INDEX_SUFFIX, DELETE_BATCH_SIZE,
+            document -> document.getReference().delete());
+    }
+
+    /**
+     * Add every entry of a directory collection to its file id index. Entries are read a query batch at
+     * a time and index writes simply overwrite, so this can be rerun safely. It is used to backfill the
+     * index for collections that were created before the index existed.
+     *
+     * @return the number of entries indexed
+     */
+    public int backfillFileIdIndex(Firestore firestore, String collectionId) throws InterruptedException {
+        int batchSize = configurationService.getParameterValue(FIRESTORE_QUERY_BATCH_SIZE);
+        FireStoreBatchQueryIterator queryIterator =
+            new FireStoreBatchQueryIterator(firestore.collection(collectionId), batchSize);
+
+        int count = 0;
+        for (List<QueryDocumentSnapshot> batch = queryIterator.getBatch();
+             batch != null;
+             batch = queryIterator.getBatch()) {
+
+            fireStoreUtils.batchOperation(
+                "backfillFileIdIndex",
+                batch,
+                docSnap -> getIndexDocRef(firestore, collectionId, docSnap.getString("fileId"))
+                    .set(makeIndexEntry(docSnap.getReference())));
+            count += batch.size();
+        }
+        logger.info("Backfilled file id index for {} with {} entries", collectionId, count);
+        return count;
     }
 
 
@@ -201,7 +257,9 @@ public class FireStoreDirectoryDao {
         for (int i = 0; i < RETRIES; i++) {
             try {
                 ApiFuture<FireStoreDirectoryEntry> transaction =
-                    firestore.runTransaction(
+                    fireStoreUtils.runTransaction(
+                        firestore,
+                        transactionOp,
                         xn -> {
                             DocumentSnapshot docSnap = lookupFunction.apply(xn);
                             if (docSnap == null) {
@@ -288,6 +346,54 @@ public class FireStoreDirectoryDao {
         return entryList;
     }
 
+    /**
+     * Enumerate one page of a directory in document name order. The page starts after the entry named
+     * startAfterName, or at the start of the directory when it is null. Entries are handed to the consumer
+     * one query batch at a time, so the page is never held in memory as a whole.
+     *
+     * @return the name of the last entry delivered when the page filled up and more entries may follow;
+     * null when the end of the directory was reached
+     */
+    public String enumerateDirectoryPage(Firestore firestore,
+                                         String collectionId,
+                                         String dirPath,
+                                         String startAfterName,
+                                         int limit,
+                                         InterruptibleConsumer<List<FireStoreDirectoryEntry>> consumer)
+        throws InterruptedException {
+
+        int batchSize = Math.min(limit, configurationService.getParameterValue(FIRESTORE_QUERY_BATCH_SIZE));
+        Query query = firestore.collection(collectionId)
+            .whereEqualTo("path", dirPath)
+            .orderBy(FieldPath.documentId());
+        if (startAfterName != null) {
+            query = query.startAfter(getDocRef(firestore, collectionId, dirPath, startAfterName));
+        }
+        FireStoreBatchQueryIterator queryIterator = new FireStoreBatchQueryIterator(query, batchSize);
+
+        int remaining = limit;
+        String lastName = null;
+        while (remaining > 0) {
+            List<QueryDocumentSnapshot> batch = queryIterator.getBatch();
+            if (batch == null) {
+                return null;
+            }
+
+            List<FireStoreDirectoryEntry> entryList = new ArrayList<>();
+            for (int i = 0; i < batch.size() && remaining > 0; i++, remaining--) {
+                entryList.add(batch.get(i).toObject(FireStoreDirectoryEntry.class));
+            }
+            consumer.accept(entryList);
+
+            if (batch.size() < batchSize && entryList.size() == batch.size()) {
+                // A short batch that we delivered completely is the end of the directory
+                return null;
+            }
+            lastName = entryList.get(entryList.size() - 1).getName();
+        }
+        return lastName;
+    }
+
     // As mentioned at the top of the module, we can't use forward slash in a FireStore document
     // name, so we do this encoding.
     private static final char DOCNAME_SEPARATOR = '\u001c';
@@ -325,12 +431,36 @@ public class FireStoreDirectoryDao {
         }
     }
 
+    private DocumentReference getIndexDocRef(Firestore firestore, String collectionId, String fileId) {
+        return firestore.collection(collectionId + FILE_ID_INDEX_SUFFIX).document(fileId);
+    }
+
+    private Map<String, Object> makeIndexEntry(DocumentReference entryRef) {
+        return Collections.singletonMap(INDEX_DOCNAME_FIELD, entryRef.getId());
+    }
+
+    // True if the snapshot is an existing entry for the file id. An index doc is stale when the backfill
+    // raced with a delete, so we check rather than trust it.
+    private boolean isEntryFor(DocumentSnapshot entrySnap, String fileId) {
+        return entrySnap != null && entrySnap.exists() && StringUtils.equals(entrySnap.getString("fileId"), fileId);
+    }
+
     // Returns null if not found
-    private QueryDocumentSnapshot lookupByFileId(
+    private DocumentSnapshot lookupByFileId(
         Firestore firestore, String collectionId, String fileId, Transaction xn)
         throws InterruptedException {
         try {
             CollectionReference datasetCollection = firestore.collection(collectionId);
+            DocumentSnapshot indexSnap = xn.get(getIndexDocRef(firestore, collectionId, fileId)).get();
+            if (indexSnap.exists()) {
+                DocumentSnapshot entrySnap =
+                    xn.get(datasetCollection.document(indexSnap.getString(INDEX_DOCNAME_FIELD))).get();
+                if (isEntryFor(entrySnap, fileId)) {
+                    return entrySnap;
+                }
+            }
+
+            // Not in the index; the collection may not have been backfilled yet
             Query query = datasetCollection.whereEqualTo("fileId", fileId);
             ApiFuture<QuerySnapshot> querySnapshot = xn.get(query);
 
@@ -458,7 +588,7 @@ public class FireStoreDirectoryDao {
             // Store the batch of entries. This will override existing entries,
             // but that is not the typical case and it is lower cost just overwrite
             // rather than retrieve to avoid the write.
-            batchStoreDirectoryEntry(snapshotFirestore, snapshotId, snapshotEntries);
+            batchCreateDirectoryEntry(snapshotFirestore, snapshotId, snapshotEntries);
         }
     }
 
@@ -489,22 +619,13 @@ public class FireStoreDirectoryDao {
         Firestore firestore, String containerId, List<String> batch)
         throws InterruptedException {
 
-        CollectionReference collection = firestore.collection(containerId);
-
-        List<QuerySnapshot> querySnapshotList =
-            fireStoreUtils.batchOperation(batch,
-                fileId -> {
-                    Query query = collection.whereEqualTo("fileId", fileId);
-                    return query.get();
-                });
+        List<DocumentSnapshot> entrySnaps = batchLookupByFileId(firestore, containerId, batch);
 
         List<FireStoreDirectoryEntry> entries = new ArrayList<>();
-        for (QuerySnapshot querySnapshot : querySnapshotList) {
-            List<QueryDocumentSnapshot> documents = querySnapshot.getDocuments();
-            if (documents.size() != 1) {
+        for (DocumentSnapshot docSnap : entrySnaps) {
+            if (docSnap == null) {
                 throw new FileSystemExecutionException("FileId not found:");
             }
-            QueryDocumentSnapshot docSnap = documents.get(0);
             FireStoreDirectoryEntry entry = docSnap.toObject(FireStoreDirectoryEntry.class);
             if (!entry.getIsFileRef()) {
                 throw new FileSystemExecutionException("Directories are not supported as references");
@@ -515,6 +636,57 @@ public class FireStoreDirectoryDao {
         return entries;
     }
 
+    // Look up a batch of entries by file id: one getAll on the index, then one getAll on the entries it names.
+    // Ids that are not in the index fall back to a query. The result is in the order of the ids; an id that
+    // is not found has a null.
+    private List<DocumentSnapshot> batchLookupByFileId(
+        Firestore firestore, String collectionId, List<String> fileIds) throws InterruptedException {
+
+        CollectionReference collection = firestore.collection(collectionId);
+        List<DocumentSnapshot> indexSnaps = fireStoreUtils.getAll("batchLookupByFileId", firestore, fileIds.stream()
+            .map(fileId -> getIndexDocRef(firestore, collectionId, fileId))
+            .collect(Collectors.toList()));
+
+        List<Integer> indexedPositions = new ArrayList<>();
+        List<DocumentReference> entryRefs = new ArrayList<>();
+        for (int i = 0; i < indexSnaps.size(); i++) {
+            DocumentSnapshot indexSnap = indexSnaps.get(i);
+            if (indexSnap.exists()) {
+                indexedPositions.add(i);
+                entryRefs.add(collection.document(indexSnap.getString(INDEX_DOCNAME_FIELD)));
+            }
+        }
+        List<DocumentSnapshot> entrySnaps = fireStoreUtils.getAll("batchLookupByFileId", firestore, entryRefs);
+
+        List<DocumentSnapshot> results = new ArrayList<>(Collections.nCopies(fileIds.size(), null));
+        for (int i = 0; i < indexedPositions.size(); i++) {
+            int position = indexedPositions.get(i);
+            if (isEntryFor(entrySnaps.get(i), fileIds.get(position))) {
+                results.set(position, entrySnaps.get(i));
+            }
+        }
+
+        List<Integer> missingPositions = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                missingPositions.add(i);
+            }
+        }
+        if (!missingPositions.isEmpty()) {
+            List<QuerySnapshot> querySnapshotList = fireStoreUtils.batchOperation(
+                "batchLookupByFileId",
+                missingPositions,
+                position -> collection.whereEqualTo("fileId", fileIds.get(position)).get());
+            for (int i = 0; i < missingPositions.size(); i++) {
+                List<QueryDocumentSnapshot> documents = querySnapshotList.get(i).getDocuments();
+                if (documents.size() == 1) {
+                    results.set(missingPositions.get(i), documents.get(0));
+                }
+            }
+        }
+        return results;
+    }
+
     private List<String> findNewDirectoryPaths(
         List<FireStoreDirectoryEntry> datasetEntries, LRUMap<String, Boolean> pathMap) {
 
@@ -537,20 +709,37 @@ public class FireStoreDirectoryDao {
         return pathsToCheck;
     }
 
+    /**
+     * Look up the directory entries for a batch of full paths with chunked getAll reads.
+     *
+     * @return entries in the same order as the paths; null where no entry exists
+     */
+    public List<FireStoreDirectoryEntry> batchLookupByPath(
+        Firestore firestore, String collectionId, List<String> fullPaths) throws InterruptedException {
+
+        CollectionReference collection = firestore.collection(collectionId);
+        List<DocumentReference> docRefs = fullPaths.stream()
+            .map(fullPath -> collection.document(encodePathAsFirestoreDocumentName(makeLookupPath(fullPath))))
+            .collect(Collectors.toList());
+        List<DocumentSnapshot> documents = fireStoreUtils.getAll("batchLookupByPath", firestore, docRefs);
+
+        List<FireStoreDirectoryEntry> entries = new ArrayList<>(fullPaths.size());
+        for (DocumentSnapshot document : documents) {
+            entries.add(document.exists() ? document.toObject(FireStoreDirectoryEntry.class) : null);
+        }
+        return entries;
+    }
+
     private List<FireStoreDirectoryEntry> batchRetrieveByPath(
         Firestore datasetFirestore, String datasetId, List<String> paths)
         throws InterruptedException {
 
         CollectionReference datasetCollection = datasetFirestore.collection(datasetId);
 
-        List<DocumentSnapshot> documents =
-            fireStoreUtils.batchOperation(
-                paths,
-                path -> {
-                    DocumentReference docRef =
-                        datasetCollection.document(encodePathAsFirestoreDocumentName((String) path));
-                    return docRef.get();
-                });
+        List<DocumentReference> docRefs = paths.stream()
+            .map(path -> datasetCollection.document(encodePathAsFirestoreDocumentName(path)))
+            .collect(Collectors.toList());
+        List<DocumentSnapshot> documents = fireStoreUtils.getAll("batchRetrieveByPath", datasetFirestore, docRefs);
 
         List<FireStoreDirectoryEntry> entries = new ArrayList<>(paths.size());
         for (DocumentSnapshot document : documents) {
@@ -570,6 +759,7 @@ public class FireStoreDirectoryDao {
 
         // We ignore the write results - we don't have any use for them
         fireStoreUtils.batchOperation(
+            "batchStoreDirectoryEntry",
             entries,
             entry -> {
                 String fullPath = fireStoreUtils.getFullPath(entry.getPath(), entry.getName());
@@ -579,30 +769,34 @@ public class FireStoreDirectoryDao {
             });
     }
 
-    // We make a special method just for validating id, because when
-    // validating we do not need to actually get the data.
-    private List<String> batchValidateIds(
-        Firestore firestore, String collectionId, List<String> batch)
+    // Non-transactional creation of a batch of directory entries along with their file id index docs. Updates
+    // of existing entries go through batchStoreDirectoryEntry: they keep their document names, so their
+    // index docs are already right.
+    private void batchCreateDirectoryEntry(
+        Firestore snapshotFirestore, String snapshotId, List<FireStoreDirectoryEntry> entries)
         throws InterruptedException {
 
-        CollectionReference datasetCollection = firestore.collection(collectionId);
+        batchStoreDirectoryEntry(snapshotFirestore, snapshotId, entries);
+        fireStoreUtils.batchOperation(
+            "batchCreateDirectoryEntry",
+            entries,
+            entry -> getIndexDocRef(snapshotFirestore, snapshotId, entry.getFileId())
+                .set(makeIndexEntry(getDocRef(snapshotFirestore, snapshotId, entry))));
+    }
 
-        List<QuerySnapshot> querySnapshotList = fireStoreUtils.batchOperation(
-            batch,
-            fileId -> {
-                Query query = datasetCollection.whereEqualTo("fileId", fileId);
-                return query.get();
-            });
+    // An index doc can outlive its entry: the backfill writes index docs outside of any transaction, so it
+    // can race with a delete. Each index hit is confirmed against the entry it names, the same as a lookup.
+    private List<String> batchValidateIds(
+        Firestore firestore, String collectionId, List<String> batch)
+        throws InterruptedException {
 
+        List<DocumentSnapshot> entrySnaps = batchLookupByFileId(firestore, collectionId, batch);
         List<String> missingIds = new ArrayList<>();
         for (int i = 0; i < batch.size(); i++) {
-            QuerySnapshot querySnapshot = querySnapshotList.get(i);
-            List<QueryDocumentSnapshot> documents = querySnapshot.getDocuments();
-            if (documents.size() != 1) {
+            if (entrySnaps.get(i) == null) {
                 missingIds.add(batch.get(i));
             }
         }
-
         return missingIds;
     }
 
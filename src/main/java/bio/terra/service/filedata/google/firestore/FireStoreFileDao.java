@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * FireStoreFileDao provides CRUD operations on the file collection in Firestore.
@@ -57,7 +58,7 @@ class FireStoreFileDao {
 
     void createFileMetadata(Firestore firestore, String datasetId, FireStoreFile newFile) throws InterruptedException {
         String collectionId = makeCollectionId(datasetId);
-        ApiFuture<Void> transaction = firestore.runTransaction(xn -> {
+        ApiFuture<Void> transaction = fireStoreUtils.runTransaction(firestore, "createFileMetadata", xn -> {
             xn.set(getFileDocRef(firestore, collectionId, newFile.getFileId()), newFile);
             return null;
         });
@@ -67,7 +68,7 @@ class FireStoreFileDao {
 
     boolean deleteFileMetadata(Firestore firestore, String datasetId, String fileId) throws InterruptedException {
         String collectionId = makeCollectionId(datasetId);
-        ApiFuture<Boolean> transaction = firestore.runTransaction(xn -> {
+        ApiFuture<Boolean> transaction = fireStoreUtils.runTransaction(firestore, "deleteFileMetadata", xn -> {
             DocumentSnapshot docSnap = lookupByFileId(firestore, collectionId, fileId, xn);
             if (docSnap == null || !docSnap.exists()) {
                 return false;
@@ -95,13 +96,14 @@ class FireStoreFileDao {
         while (true) {
             try {
                 String collectionId = makeCollectionId(datasetId);
-                ApiFuture<FireStoreFile> transaction = firestore.runTransaction(xn -> {
-                    DocumentSnapshot docSnap = lookupByFileId(firestore, collectionId, fileId, xn);
-                    if (docSnap == null || !docSnap.exists()) {
-                        return null;
-                    }
-                    return docSnap.toObject(FireStoreFile.class);
-                });
+                ApiFuture<FireStoreFile> transaction =
+                    fireStoreUtils.runTransaction(firestore, "retrieveFileMetadata", xn -> {
+                        DocumentSnapshot docSnap = lookupByFileId(firestore, collectionId, fileId, xn);
+                        if (docSnap == null || !docSnap.exists()) {
+                            return null;
+                        }
+                        return docSnap.toObject(FireStoreFile.class);
+                    });
 
                 // Fault insertion to test retry
                 if (configurationService.testInsertFault(ConfigEnum.FIRESTORE_RETRIEVE_FAULT)) {
@@ -139,21 +141,40 @@ class FireStoreFileDao {
         String datasetId,
         List<FireStoreDirectoryEntry> directoryEntries) throws InterruptedException {
 
+        List<FireStoreFile> files = batchLookupFileMetadata(firestore, datasetId, directoryEntries);
+        for (FireStoreFile file : files) {
+            if (file == null) {
+                throw new FileSystemCorruptException("Directory entry refers to non-existent file");
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Like batchRetrieveFileMetadata, but a directory entry whose file metadata does not exist (yet) yields
+     * a null in the corresponding position instead of an exception. Directory listings use this, since a file
+     * that is in the middle of being ingested has a directory entry before it has file metadata.
+     */
+    List<FireStoreFile> batchLookupFileMetadata(
+        Firestore firestore,
+        String datasetId,
+        List<FireStoreDirectoryEntry> directoryEntries) throws InterruptedException {
+
         CollectionReference collection = firestore.collection(makeCollectionId(datasetId));
 
-        List<DocumentSnapshot> documentSnapshotList = fireStoreUtils.batchOperation(
-            directoryEntries,
-            entry -> {
-                DocumentReference docRef = collection.document(entry.getFileId());
-                return docRef.get();
-            });
+        List<DocumentReference> docRefs = directoryEntries.stream()
+            .map(entry -> collection.document(entry.getFileId()))
+            .collect(Collectors.toList());
+        List<DocumentSnapshot> documentSnapshotList =
+            fireStoreUtils.getAll("batchLookupFileMetadata", firestore, docRefs);
 
         List<FireStoreFile> files = new ArrayList<>();
         for (DocumentSnapshot documentSnapshot : documentSnapshotList) {
-            if (documentSnapshot == null || !documentSnapshot.exists()) {
-                throw new FileSystemCorruptException("Directory entry refers to non-existent file");
+            if (!documentSnapshot.exists()) {
+                files.add(null);
+            } else {
+                files.add(documentSnapshot.toObject(FireStoreFile.class));
             }
-            files.add(documentSnapshot.toObject(FireStoreFile.class));
         }
 
         return files;
@@ -0,0 +1,139 @@
+package bio.terra.service.filedata.google.firestore;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Firestore instrumentation. FireStoreUtils reports each operation here, by the name of the DAO method that
+ * made it. Everything is recorded to metrics; it is also added to the FireStoreStats of the current thread,
+ * if one was started. The Stairway hooks start one for each step, so the work of a step can be totaled for
+ * its flight. The totals are kept per thread, so they are static; the metrics go to the application's registry.
+ * <ul>
+ *     <li>datarepo.firestore.rpcs - RPCs sent, counting each transaction attempt as one</li>
+ *     <li>datarepo.firestore.documents.read and .written - documents read and written by batch operations</li>
+ *     <li>datarepo.firestore.transaction.attempts - transaction attempts; more than one per transaction
+ *     means the Firestore client retried it because of contention</li>
+ *     <li>datarepo.firestore.transaction.aborts - transactions that failed, by reason</li>
+ *     <li>datarepo.firestore.retries - batch requests retried, by reason</li>
+ *     <li>datarepo.firestore.batch.size - inputs per batch operation</li>
+ * </ul>
+ */
+@Component
+public class FireStoreMetrics {
+    static final String RPCS = "datarepo.firestore.rpcs";
+    static final String DOCUMENTS_READ = "datarepo.firestore.documents.read";
+    static final String DOCUMENTS_WRITTEN = "datarepo.firestore.documents.written";
+    static final String TRANSACTION_ATTEMPTS = "datarepo.firestore.transaction.attempts";
+    static final String TRANSACTION_ABORTS = "datarepo.firestore.transaction.aborts";
+    static final String RETRIES = "datarepo.firestore.retries";
+    static final String BATCH_SIZE = "datarepo.firestore.batch.size";
+
+    static final String OPERATION_TAG = "operation";
+    static final String REASON_TAG = "reason";
+
+    private static final ThreadLocal<FireStoreStats> currentStats = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public FireStoreMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Start totaling the Firestore work of this thread, replacing any totals that were not finished.
+     */
+    public static void start() {
+        currentStats.set(new FireStoreStats());
+    }
+
+    /**
+     * @return the totals since start; null if they were not started
+     */
+    public static FireStoreStats finish() {
+        FireStoreStats stats = currentStats.get();
+        currentStats.remove();
+        return stats;
+    }
+
+    /**
+     * @return the totals of this thread, for work that completes on another thread; null if not started
+     */
+    static FireStoreStats current() {
+        return currentStats.get();
+    }
+
+    void rpcs(String op, long count) {
+        counter(RPCS, op).increment(count);
+        FireStoreStats stats = currentStats.get();
+        if (stats != null) {
+            stats.addRpcs(count);
+        }
+    }
+
+    void documents(String op, long read, long written) {
+        if (read > 0) {
+            counter(DOCUMENTS_READ, op).increment(read);
+        }
+        if (written > 0) {
+            counter(DOCUMENTS_WRITTEN, op).increment(written);
+        }
+        FireStoreStats stats = currentStats.get();
+        if (stats != null) {
+            stats.addDocuments(read, written);
+        }
+    }
+
+    // Called on the Firestore client thread running the attempt, so the stats are passed in
+    void transactionAttempt(String op, FireStoreStats stats) {
+        counter(TRANSACTION_ATTEMPTS, op).increment();
+        counter(RPCS, op).increment();
+        if (stats != null) {
+            stats.addTransactionAttempt();
+        }
+    }
+
+    void transactionAbort(String op, Throwable reason) {
+        Counter.builder(TRANSACTION_ABORTS)
+            .tag(OPERATION_TAG, op)
+            .tag(REASON_TAG, reasonTag(reason))
+            .register(meterRegistry)
+            .increment();
+        FireStoreStats stats = currentStats.get();
+        if (stats != null) {
+            stats.addTransactionAbort();
+        }
+    }
+
+    void retry(String op, Throwable reason) {
+        Counter.builder(RETRIES)
+            .tag(OPERATION_TAG, op)
+            .tag(REASON_TAG, reasonTag(reason))
+            .register(meterRegistry)
+            .increment();
+        FireStoreStats stats = currentStats.get();
+        if (stats != null) {
+            stats.addRetry();
+        }
+    }
+
+    void batchSize(String op, int size) {
+        DistributionSummary.builder(BATCH_SIZE)
+            .tag(OPERATION_TAG, op)
+            .register(meterRegistry)
+            .record(size);
+    }
+
+    private static String reasonTag(Throwable reason) {
+        return (reason == null) ? "unknown" : reason.getClass().getSimpleName();
+    }
+
+    private Counter counter(String name, String op) {
+        return Counter.builder(name)
+            .tag(OPERATION_TAG, op)
+            .register(meterRegistry);
+    }
+}
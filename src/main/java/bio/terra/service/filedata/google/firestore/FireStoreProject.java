@@ -1,5 +1,8 @@
 package bio.terra.service.filedata.google.firestore;
 
+import com.google.api.gax.core.NoCredentialsProvider;
+import com.google.api.gax.grpc.InstantiatingGrpcChannelProvider;
+import com.google.api.gax.rpc.FixedHeaderProvider;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.FirestoreOptions;
 import org.slf4j.Logger;
@@ -11,15 +14,27 @@ public final class FireStoreProject {
     private static final Logger logger = LoggerFactory.getLogger(FireStoreProject.class);
     private static final ConcurrentHashMap<String, FireStoreProject> fireStoreProjectCache = new ConcurrentHashMap<>();
 
+    // host:port of a Firestore emulator to use in place of Firestore; null to use Firestore
+    private static volatile String emulatorHost;
+
     private String projectId;
     private Firestore firestore;
 
     private FireStoreProject(String projectId) {
         this.projectId = projectId;
-        this.firestore = FirestoreOptions.newBuilder()
-            .setProjectId(projectId)
-            .build()
-            .getService();
+        FirestoreOptions.Builder builder = FirestoreOptions.newBuilder()
+            .setProjectId(projectId);
+        String host = emulatorHost;
+        if (host != null) {
+            // The emulator speaks plaintext gRPC; the "owner" token lets us bypass security rules
+            builder.setChannelProvider(InstantiatingGrpcChannelProvider.newBuilder()
+                    .setEndpoint(host)
+                    .setChannelConfigurator(channelBuilder -> channelBuilder.usePlaintext())
+                    .build())
+                .setCredentialsProvider(NoCredentialsProvider.create())
+                .setHeaderProvider(FixedHeaderProvider.create("Authorization", "Bearer owner"));
+        }
+        this.firestore = builder.build().getService();
     }
 
     String getProjectId() {
@@ -39,4 +54,16 @@ public final class FireStoreProject {
         return fireStoreProjectCache.get(projectId);
     }
 
+    /**
+     * Send all Firestore requests to an emulator, e.g. for local performance runs. Projects already
+     * in the cache are dropped, so they are rebuilt against the emulator.
+     *
+     * @param host host:port of the emulator; null to go back to Firestore
+     */
+    public static void useEmulator(String host) {
+        logger.info("Using Firestore emulator: {}", host);
+        emulatorHost = host;
+        fireStoreProjectCache.clear();
+    }
+
 }
@@ -0,0 +1,130 @@
+package bio.terra.service.filedata.google.firestore;
+
+import bio.terra.model.FireStoreStatsModel;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Totals of the Firestore work done by a step, a flight or a bulk load. The counts of a transaction attempt
+ * are added from a Firestore client thread, so the mutators are synchronized. The getters and setters let
+ * the totals be stored in a flight map.
+ */
+public class FireStoreStats {
+    private long rpcCount;
+    private long documentsRead;
+    private long documentsWritten;
+    private long transactionAttempts;
+    private long transactionAborts;
+    private long retries;
+
+    public synchronized long getRpcCount() {
+        return rpcCount;
+    }
+
+    public synchronized void setRpcCount(long rpcCount) {
+        this.rpcCount = rpcCount;
+    }
+
+    public synchronized long getDocumentsRead() {
+        return documentsRead;
+    }
+
+    public synchronized void setDocumentsRead(long documentsRead) {
+        this.documentsRead = documentsRead;
+    }
+
+    public synchronized long getDocumentsWritten() {
+        return documentsWritten;
+    }
+
+    public synchronized void setDocumentsWritten(long documentsWritten) {
+        this.documentsWritten = documentsWritten;
+    }
+
+    public synchronized long getTransactionAttempts() {
+        return transactionAttempts;
+    }
+
+    public synchronized void setTransactionAttempts(long transactionAttempts) {
+        this.transactionAttempts = transactionAttempts;
+    }
+
+    public synchronized long getTransactionAborts() {
+        return transactionAborts;
+    }
+
+    public synchronized void setTransactionAborts(long transactionAborts) {
+        this.transactionAborts = transactionAborts;
+    }
+
+    public synchronized long getRetries() {
+        return retries;
+    }
+
+    public synchronized void setRetries(long retries) {
+        this.retries = retries;
+    }
+
+    synchronized void addRpcs(long count) {
+        rpcCount += count;
+    }
+
+    synchronized void addDocuments(long read, long written) {
+        documentsRead += read;
+        documentsWritten += written;
+    }
+
+    synchronized void addTransactionAttempt() {
+        transactionAttempts++;
+        rpcCount++;
+    }
+
+    synchronized void addTransactionAbort() {
+        transactionAborts++;
+    }
+
+    synchronized void addRetry() {
+        retries++;
+    }
+
+    public FireStoreStats add(FireStoreStats other) {
+        if (other == null) {
+            return this;
+        }
+        FireStoreStats otherCopy = other.copy();
+        synchronized (this) {
+            rpcCount += otherCopy.rpcCount;
+            documentsRead += otherCopy.documentsRead;
+            documentsWritten += otherCopy.documentsWritten;
+            transactionAttempts += otherCopy.transactionAttempts;
+            transactionAborts += otherCopy.transactionAborts;
+            retries += otherCopy.retries;
+        }
+        return this;
+    }
+
+    @JsonIgnore
+    public synchronized boolean isEmpty() {
+        return rpcCount == 0 && retries == 0 && transactionAborts == 0;
+    }
+
+    public synchronized FireStoreStatsModel toModel() {
+        return new FireStoreStatsModel()
+            .rpcCount(rpcCount)
+            .documentsRead(documentsRead)
+            .documentsWritten(documentsWritten)
+            .transactionAttempts(transactionAttempts)
+            .transactionAborts(transactionAborts)
+            .retries(retries);
+    }
+
+    private synchronized FireStoreStats copy() {
+        FireStoreStats stats = new FireStoreStats();
+        stats.rpcCount = rpcCount;
+        stats.documentsRead = documentsRead;
+        stats.documentsWritten = documentsWritten;
+        stats.transactionAttempts = transactionAttempts;
+        stats.transactionAborts = transactionAborts;
+        stats.retries = retries;
+        return stats;
+    }
+}
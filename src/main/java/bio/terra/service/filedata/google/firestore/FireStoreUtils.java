@@ -1,5 +1,6 @@
 package bio.terra.service.filedata.google.firestore;
 
+import bio.terra.app.logging.TraceUtils;
 import bio.terra.service.filedata.exception.FileSystemAbortTransactionException;
 import bio.terra.service.filedata.exception.FileSystemExecutionException;
 import com.google.api.core.ApiFuture;
@@ -7,15 +8,21 @@ import com.google.api.gax.rpc.AbortedException;
 import com.google.api.gax.rpc.DeadlineExceededException;
 import com.google.api.gax.rpc.UnavailableException;
 import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.FirestoreException;
 import com.google.cloud.firestore.QueryDocumentSnapshot;
 import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.Transaction;
+import com.google.cloud.firestore.WriteResult;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.codec.digest.PureJavaCrc32C;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
@@ -29,6 +36,26 @@ public class FireStoreUtils {
 
     private final Logger logger = LoggerFactory.getLogger(FireStoreUtils.class);
 
+    private final FireStoreMetrics fireStoreMetrics;
+
+    @Autowired
+    public FireStoreUtils(FireStoreMetrics fireStoreMetrics) {
+        this.fireStoreMetrics = fireStoreMetrics;
+    }
+
+    /**
+     * Run a Firestore transaction, counting each attempt. The Firestore client runs the function again when
+     * the commit is aborted by contention, so attempts beyond one per transaction measure contention.
+     * @param op name of the DAO method, used to tag the metrics
+     */
+    <T> ApiFuture<T> runTransaction(Firestore firestore, String op, Transaction.Function<T> function) {
+        FireStoreStats stats = FireStoreMetrics.current();
+        return firestore.runTransaction(xn -> {
+            fireStoreMetrics.transactionAttempt(op, stats);
+            return function.updateCallback(xn);
+        });
+    }
+
     <T> T transactionGet(String op, ApiFuture<T> transaction) throws InterruptedException {
         try {
             return transaction.get();
@@ -57,12 +84,14 @@ public class FireStoreUtils {
             //  rely on the Stairway debug logging as needed.
             String msg = "Retrying aborted exception: " + aex;
             logger.info(msg);
+            fireStoreMetrics.transactionAbort(op, aex);
             return new FileSystemAbortTransactionException(msg, aex);
         }
         if (throwable instanceof FirestoreException) {
             FirestoreException fex = (FirestoreException) throwable;
             String msg = "Retrying firestore exception: " + fex;
             logger.info(msg);
+            fireStoreMetrics.transactionAbort(op, fex);
             return new FileSystemAbortTransactionException(msg, fex);
         }
         if (throwable instanceof RuntimeException) {
@@ -129,11 +158,13 @@ public class FireStoreUtils {
             do {
                 ApiFuture<QuerySnapshot> future = datasetCollection.limit(batchSize).get();
                 documents = future.get().getDocuments();
+                fireStoreMetrics.rpcs("scanCollectionObjects", 1);
+                fireStoreMetrics.documents("scanCollectionObjects", documents.size(), 0);
                 batchCount++;
                 if (!documents.isEmpty()) {
                     logger.info("Visiting batch " + batchCount + " of ~" + batchSize + " documents");
                 }
-                batchOperation(documents, generator);
+                batchOperation("scanCollectionObjects", documents, generator);
             } while (documents.size() > 0);
         } catch (ExecutionException ex) {
             throw new FileSystemExecutionException("scanning collection - execution exception", ex);
@@ -165,7 +196,21 @@ public class FireStoreUtils {
      * @throws InterruptedException If a call to Firestore is interrupted
      */
     <T, V> List<T> batchOperation(List<V> inputs, ApiFutureGenerator<T, V> generator) throws InterruptedException {
+        return batchOperation("batchOperation", inputs, generator);
+    }
+
+    /**
+     * Same as batchOperation, with the name of the DAO method, used to tag the metrics
+     */
+    <T, V> List<T> batchOperation(String op, List<V> inputs, ApiFutureGenerator<T, V> generator)
+        throws InterruptedException {
+        return TraceUtils.inSpan("firestore.batchOperation", () -> runBatchOperation(op, inputs, generator));
+    }
+
+    private <T, V> List<T> runBatchOperation(String op, List<V> inputs, ApiFutureGenerator<T, V> generator)
+        throws InterruptedException {
         int inputSize = inputs.size();
+        fireStoreMetrics.batchSize(op, inputSize);
         // We drive the retry processing by which outputs have not been filled in,
         // so we initialize the outputs to be all null -> not filled in.
         List<T> outputs = new ArrayList<>(inputSize);
@@ -190,6 +235,7 @@ public class FireStoreUtils {
             if (requestCount == 0) {
                 break;
             }
+            fireStoreMetrics.rpcs(op, requestCount);
 
             // try to collect a response for every request we generated
             int completeCount = 0;
@@ -197,13 +243,16 @@ public class FireStoreUtils {
                 ApiFuture<T> future = futures.get(i);
                 if (future != null) {
                     try {
-                        outputs.set(i, future.get());
+                        T output = future.get();
+                        outputs.set(i, output);
+                        countDocuments(op, output);
                         completeCount++;
                     } catch (DeadlineExceededException |
                         UnavailableException |
                         AbortedException |
                         ExecutionException ex) {
                         if (shouldRetry(ex)) {
+                            fireStoreMetrics.retry(op, (ex instanceof ExecutionException) ? ex.getCause() : ex);
                             logger.warn("Retry-able error in firestore future get - input: " +
                                 inputs.get(i) + " message: " + ex.getMessage());
                         } else
@@ -230,6 +279,52 @@ public class FireStoreUtils {
         return outputs;
     }
 
+    // Batch operations are reads and writes of a few kinds; count documents by the kind of result
+    private void countDocuments(String op, Object output) {
+        if (output instanceof QuerySnapshot) {
+            fireStoreMetrics.documents(op, ((QuerySnapshot) output).size(), 0);
+        } else if (output instanceof DocumentSnapshot) {
+            fireStoreMetrics.documents(op, 1, 0);
+        } else if (output instanceof List) {
+            // getAll chunk
+            fireStoreMetrics.documents(op, ((List<?>) output).size(), 0);
+        } else if (output instanceof WriteResult) {
+            fireStoreMetrics.documents(op, 0, 1);
+        }
+    }
+
+    // Firestore allows large getAll requests, but a response of a few hundred small documents keeps
+    // each RPC quick and lets a retry redo only a slice of the work.
+    private static final int GET_ALL_CHUNK_SIZE = 300;
+
+    /**
+     * Read a list of documents with getAll. The references are split into chunks; the chunks are read
+     * concurrently and retried the same way as batchOperation, so each chunk costs one RPC instead of one
+     * RPC per document.
+     * @param firestore the Firestore instance holding the documents
+     * @param refs references to the documents to read
+     * @return snapshots in the order of the references; a missing document has a snapshot that does not exist
+     * @throws InterruptedException If a call to Firestore is interrupted
+     */
+    List<DocumentSnapshot> getAll(Firestore firestore, List<DocumentReference> refs) throws InterruptedException {
+        return getAll("getAll", firestore, refs);
+    }
+
+    /**
+     * Same as getAll, with the name of the DAO method, used to tag the metrics
+     */
+    List<DocumentSnapshot> getAll(String op, Firestore firestore, List<DocumentReference> refs)
+        throws InterruptedException {
+        List<List<DocumentSnapshot>> chunkResults = batchOperation(
+            op,
+            ListUtils.partition(refs, GET_ALL_CHUNK_SIZE),
+            chunk -> firestore.getAll(chunk.toArray(new DocumentReference[0])));
+
+        List<DocumentSnapshot> snapshots = new ArrayList<>(refs.size());
+        chunkResults.forEach(snapshots::addAll);
+        return snapshots;
+    }
+
     static boolean shouldRetry(Throwable throwable) {
         if (throwable == null) {
             return false; // Did not find a retry-able exception
@@ -28,6 +28,10 @@ public class GcsChannelWriter implements Closeable {
         return writer.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
     }
 
+    public int write(byte[] bytes, int length) throws IOException {
+        return writer.write(ByteBuffer.wrap(bytes, 0, length));
+    }
+
     @Override
     public void close() throws IOException {
         writer.close();
@@ -16,6 +16,10 @@ public class GcsConfiguration {
     private String region;
     private int connectTimeoutSeconds;
     private int readTimeoutSeconds;
+    /**
+     * URL of a GCS emulator to use in place of GCS, e.g. http://localhost:4443. Not set in deployments.
+     */
+    private String emulatorHost;
 
     public String getBucket() {
         return bucket;
@@ -48,4 +52,12 @@ public class GcsConfiguration {
     public void setReadTimeoutSeconds(int readTimeoutSeconds) {
         this.readTimeoutSeconds = readTimeoutSeconds;
     }
+
+    public String getEmulatorHost() {
+        return emulatorHost;
+    }
+
+    public void setEmulatorHost(String emulatorHost) {
+        this.emulatorHost = emulatorHost;
+    }
 }
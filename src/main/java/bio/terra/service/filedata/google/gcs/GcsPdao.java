@@ -1,6 +1,7 @@
 package bio.terra.service.filedata.google.gcs;
 
 import bio.terra.app.logging.PerformanceLogger;
+import bio.terra.app.logging.TraceUtils;
 import bio.terra.common.FutureUtils;
 import bio.terra.common.exception.PdaoFileCopyException;
 import bio.terra.common.exception.PdaoInvalidUriException;
@@ -15,11 +16,13 @@ import bio.terra.service.filedata.google.firestore.FireStoreFile;
 import bio.terra.service.iam.IamRole;
 import bio.terra.service.resourcemanagement.ResourceService;
 import bio.terra.service.resourcemanagement.google.GoogleBucketResource;
+import com.google.cloud.BatchResult;
 import com.google.cloud.storage.Acl;
 import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.CopyWriter;
 import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageBatch;
 import com.google.cloud.storage.StorageException;
 import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -32,6 +35,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -51,6 +55,8 @@ public class GcsPdao {
 
     private static final String GS_PROTOCOL = "gs://";
     private static final String GS_BUCKET_PATTERN = "[a-z0-9_.\\-]{3,222}";
+    // Most operations GCS accepts in one batch request
+    private static final int GCS_BATCH_SIZE = 100;
 
     private final GcsProjectFactory gcsProjectFactory;
     private final ResourceService resourceService;
@@ -101,13 +107,15 @@ public class GcsPdao {
             // and I am changing this to copy chunks.
             //
             // Specify the target project of the target bucket as the payor if the source is requester pays.
-            CopyWriter writer = sourceBlob.copyTo(
-                BlobId.of(bucketResource.getName(), targetPath),
-                Blob.BlobSourceOption.userProject(targetProjectId));
-            while (!writer.isDone()) {
-                writer.copyChunk();
-            }
-            Blob targetBlob = writer.getResult();
+            Blob targetBlob = TraceUtils.inSpan("gcs.copy", () -> {
+                CopyWriter writer = sourceBlob.copyTo(
+                    BlobId.of(bucketResource.getName(), targetPath),
+                    Blob.BlobSourceOption.userProject(targetProjectId));
+                while (!writer.isDone()) {
+                    writer.copyChunk();
+                }
+                return writer.getResult();
+            });
 
             // MD5 is computed per-component. So if there are multiple components, the MD5 here is
             // not useful for validating the contents of the file on access. Therefore, we only
@@ -212,6 +220,73 @@ public class GcsPdao {
         return sourceBlob;
     }
 
+    /**
+     * Look up the sizes of source objects using batched metadata gets. Objects that are missing, unreadable,
+     * or have invalid paths are left out of the result; their loads report the problem when they run.
+     *
+     * @param storage         storage to use
+     * @param gspaths         gs paths of the source objects
+     * @param targetProjectId project to bill if a source bucket is requester pays
+     * @return map from gs path to object size in bytes
+     */
+    public static Map<String, Long> getSourceSizes(Storage storage, List<String> gspaths, String targetProjectId) {
+        Map<String, Long> sizes = new HashMap<>();
+        getSourceBlobs(storage, gspaths, targetProjectId).forEach((gspath, blob) -> {
+            if (blob.getSize() != null) {
+                sizes.put(gspath, blob.getSize());
+            }
+        });
+        return sizes;
+    }
+
+    /**
+     * Get the metadata of source objects using batched gets. Objects that are missing, unreadable,
+     * or have invalid paths are left out of the result.
+     *
+     * @param storage         storage to use
+     * @param gspaths         gs paths of the source objects
+     * @param targetProjectId project to bill if a source bucket is requester pays
+     * @return map from gs path to blob
+     */
+    public static Map<String, Blob> getSourceBlobs(Storage storage, List<String> gspaths, String targetProjectId) {
+        Map<String, Blob> blobs = new ConcurrentHashMap<>();
+        for (List<String> batchPaths : ListUtils.partition(gspaths, GCS_BATCH_SIZE)) {
+            StorageBatch batch = storage.batch();
+            int batchCount = 0;
+            for (String gspath : batchPaths) {
+                GcsLocator locator;
+                try {
+                    locator = getGcsLocatorFromGsPath(gspath);
+                } catch (PdaoInvalidUriException ex) {
+                    continue;
+                }
+                batch.get(BlobId.of(locator.getBucket(), locator.getPath()),
+                    Storage.BlobGetOption.userProject(targetProjectId))
+                    .notify(new BatchResult.Callback<Blob, StorageException>() {
+                        @Override
+                        public void success(Blob blob) {
+                            if (blob != null) {
+                                blobs.put(gspath, blob);
+                            }
+                        }
+
+                        @Override
+                        public void error(StorageException ex) {
+                            logger.debug("Unable to get source file: " + gspath, ex);
+                        }
+                    });
+                batchCount++;
+            }
+            if (batchCount > 0) {
+                TraceUtils.inSpan("gcs.batchGet", () -> {
+                    batch.submit();
+                    return null;
+                });
+            }
+        }
+        return blobs;
+    }
+
     public static GcsLocator getGcsLocatorFromGsPath(String gspath) {
         if (!StringUtils.startsWith(gspath, GS_PROTOCOL)) {
             throw new PdaoInvalidUriException("Path is not a gs path: '" + gspath + "'");
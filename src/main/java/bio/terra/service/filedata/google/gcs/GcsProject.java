@@ -1,5 +1,6 @@
 package bio.terra.service.filedata.google.gcs;
 
+import com.google.cloud.NoCredentials;
 import com.google.cloud.http.HttpTransportOptions;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageOptions;
@@ -8,18 +9,21 @@ public class GcsProject {
     private final String projectId;
     private final Storage storage;
 
-    GcsProject(String projectId, int connectTimeoutSeconds, int readTimeoutSeconds) {
+    GcsProject(String projectId, int connectTimeoutSeconds, int readTimeoutSeconds, String emulatorHost) {
         this.projectId = projectId;
         HttpTransportOptions transportOptions = StorageOptions.getDefaultHttpTransportOptions();
         transportOptions = transportOptions.toBuilder()
             .setConnectTimeout(connectTimeoutSeconds * 1000)
             .setReadTimeout(readTimeoutSeconds * 1000)
             .build();
-        StorageOptions storageOptions = StorageOptions.newBuilder()
+        StorageOptions.Builder storageOptions = StorageOptions.newBuilder()
             .setTransportOptions(transportOptions)
-            .setProjectId(projectId)
-            .build();
-        this.storage = storageOptions.getService();
+            .setProjectId(projectId);
+        if (emulatorHost != null) {
+            storageOptions.setHost(emulatorHost)
+                .setCredentials(NoCredentials.getInstance());
+        }
+        this.storage = storageOptions.build().getService();
     }
 
     public String getProjectId() {
@@ -1,6 +1,7 @@
 package bio.terra.service.filedata.google.gcs;
 
 import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageOptions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -9,6 +10,7 @@ import java.util.concurrent.ConcurrentHashMap;
 @Component
 public class GcsProjectFactory {
     private static final ConcurrentHashMap<String, GcsProject> gcsProjectCache = new ConcurrentHashMap<>();
+    private static final String EMULATOR_PROJECT_ID = "emulator";
 
     private final GcsConfiguration gcsConfiguration;
 
@@ -21,11 +23,23 @@ public class GcsProjectFactory {
         gcsProjectCache.computeIfAbsent(projectId, p -> new GcsProject(
                 p,
                 gcsConfiguration.getConnectTimeoutSeconds(),
-                gcsConfiguration.getReadTimeoutSeconds()));
+                gcsConfiguration.getReadTimeoutSeconds(),
+                gcsConfiguration.getEmulatorHost()));
         return gcsProjectCache.get(projectId);
     }
 
     public Storage getStorage(String projectId) {
         return get(projectId).getStorage();
     }
+
+    /**
+     * Storage for calls that do not belong to a project, such as looking up a bucket by name.
+     */
+    public Storage getDefaultStorage() {
+        if (gcsConfiguration.getEmulatorHost() == null) {
+            return StorageOptions.getDefaultInstance().getService();
+        }
+        // Buckets are not tied to projects in the emulator
+        return getStorage(EMULATOR_PROJECT_ID);
+    }
 }
@@ -3,7 +3,17 @@ package bio.terra.service.iam;
 import javax.servlet.http.HttpServletRequest;
 
 public interface AuthenticatedUserRequestFactory {
+    // Request attribute holding the user parsed from the request, so it is only parsed once per request
+    String REQUEST_ATTRIBUTE = AuthenticatedUserRequest.class.getName();
 
     AuthenticatedUserRequest from(HttpServletRequest servletRequest);
 
+    /**
+     * @return the user already parsed from this request, or null if it has not been parsed
+     */
+    static AuthenticatedUserRequest parsed(HttpServletRequest servletRequest) {
+        Object parsed = servletRequest.getAttribute(REQUEST_ATTRIBUTE);
+        return (parsed instanceof AuthenticatedUserRequest) ? (AuthenticatedUserRequest) parsed : null;
+    }
+
 }
@@ -17,6 +17,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import static bio.terra.service.configuration.ConfigEnum.AUTH_CACHE_ADMIN_TIMEOUT_SECONDS;
 import static bio.terra.service.configuration.ConfigEnum.AUTH_CACHE_SIZE;
 import static bio.terra.service.configuration.ConfigEnum.AUTH_CACHE_TIMEOUT_SECONDS;
 
@@ -54,6 +55,9 @@ public class IamService {
 
     /**
      * Is a user authorized to do an action on a resource.
+     * The instance-wide job admin checks (list or delete any job) are made on every job poll and change
+     * rarely, so they are cached with their own, longer timeout. Other checks on the DATAREPO resource, such
+     * as upgrade and configuration, use the normal timeout so that revoking them takes effect promptly.
      *
      * @return true if authorized, false otherwise
      */
@@ -62,7 +66,10 @@ public class IamService {
                                 String resourceId,
                                 IamAction action) {
         try {
-            int timeoutSeconds = configurationService.getParameterValue(AUTH_CACHE_TIMEOUT_SECONDS);
+            int timeoutSeconds = configurationService.getParameterValue(
+                isJobAdminCheck(iamResourceType, action)
+                    ? AUTH_CACHE_ADMIN_TIMEOUT_SECONDS
+                    : AUTH_CACHE_TIMEOUT_SECONDS);
             AuthenticatedUserRequest userReqNoId = userReq.reqId(null);
             AuthorizedCacheKey authorizedCacheKey =
                 new AuthorizedCacheKey(userReqNoId, iamResourceType, resourceId, action);
@@ -86,6 +93,11 @@ public class IamService {
         }
     }
 
+    private static boolean isJobAdminCheck(IamResourceType iamResourceType, IamAction action) {
+        return iamResourceType == IamResourceType.DATAREPO
+            && (action == IamAction.LIST_JOBS || action == IamAction.DELETE_JOBS);
+    }
+
     /**
      * This is a wrapper method around
      * {@link #isAuthorized(AuthenticatedUserRequest, IamResourceType, String, IamAction)} that throws
@@ -25,6 +25,10 @@ public class LocalAuthenticatedUserRequestFactory implements AuthenticatedUserRe
 
     // Static method to build an AuthenticatedUserRequest from data available to the controller
     public AuthenticatedUserRequest from(HttpServletRequest servletRequest) {
+        AuthenticatedUserRequest parsed = AuthenticatedUserRequestFactory.parsed(servletRequest);
+        if (parsed != null) {
+            return parsed;
+        }
         HttpServletRequest req = servletRequest;
 
         Optional<String> token = Optional.ofNullable(req.getHeader("Authorization"))
@@ -35,9 +39,11 @@ public class LocalAuthenticatedUserRequestFactory implements AuthenticatedUserRe
 
         String userId = applicationConfiguration.getUserId();
 
-        return new AuthenticatedUserRequest()
+        AuthenticatedUserRequest userReq = new AuthenticatedUserRequest()
             .email(email)
             .subjectId(userId)
             .token(token);
+        req.setAttribute(REQUEST_ATTRIBUTE, userReq);
+        return userReq;
     }
 }
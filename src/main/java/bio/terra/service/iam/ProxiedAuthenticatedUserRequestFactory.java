@@ -15,15 +15,22 @@ public class ProxiedAuthenticatedUserRequestFactory implements AuthenticatedUser
 
     // Method to build an AuthenticatedUserRequest from data available to the controller
     public AuthenticatedUserRequest from(HttpServletRequest servletRequest) {
+        AuthenticatedUserRequest parsed = AuthenticatedUserRequestFactory.parsed(servletRequest);
+        if (parsed != null) {
+            return parsed;
+        }
+
         String token = Optional.ofNullable(servletRequest.getHeader("oidc_access_token"))
             .orElseGet(() -> {
                 String authHeader = servletRequest.getHeader("Authorization");
                 return StringUtils.substring(authHeader, "Bearer:".length());
             });
-        return new AuthenticatedUserRequest()
+        AuthenticatedUserRequest userReq = new AuthenticatedUserRequest()
             .email(servletRequest.getHeader("oidc_claim_email"))
             .subjectId(servletRequest.getHeader("oidc_claim_user_id"))
             .token(Optional.ofNullable(token));
+        servletRequest.setAttribute(REQUEST_ATTRIBUTE, userReq);
+        return userReq;
     }
 
 }
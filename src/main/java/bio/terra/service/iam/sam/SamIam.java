@@ -34,6 +34,7 @@ import org.broadinstitute.dsde.workbench.client.sam.model.SystemStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
@@ -48,6 +49,7 @@ import java.util.stream.Stream;
 
 @Component("iamProvider")
 // Use @Profile to select when there is more than one IamService
+@Profile("!local-perf")
 public class SamIam implements IamProviderInterface {
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -41,7 +41,7 @@ class SamRetry {
                     throw new ApiException("fault insertion", HttpStatusCodes.STATUS_CODE_SERVER_ERROR, null, null);
                 });
 
-                return function.apply();
+                return TraceUtils.inSpan("sam.call", function::apply);
 
             } catch (ApiException ex) {
                 DataRepoException rex = SamIam.convertSAMExToDataRepoEx(ex);
@@ -0,0 +1,238 @@
+package bio.terra.service.iam.stub;
+
+import bio.terra.app.configuration.LocalPerfConfiguration;
+import bio.terra.model.PolicyModel;
+import bio.terra.model.RepositoryStatusModelSystems;
+import bio.terra.model.UserStatusInfo;
+import bio.terra.service.iam.AuthenticatedUserRequest;
+import bio.terra.service.iam.IamAction;
+import bio.terra.service.iam.IamProviderInterface;
+import bio.terra.service.iam.IamResourceType;
+import bio.terra.service.iam.IamRole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * IAM provider for the local-perf profile. Every user is allowed every action. Resources and their policies
+ * are kept in memory so that listing and policy calls give sensible answers. Each call sleeps for the
+ * configured latency, so the numbers still include a stand-in for the Sam round trip.
+ */
+@Component("iamProvider")
+@Profile("local-perf")
+public class StubIam implements IamProviderInterface {
+    private static final Logger logger = LoggerFactory.getLogger(StubIam.class);
+
+    // resource type -> resource id -> policy name -> member emails
+    private final Map<IamResourceType, Map<String, Map<String, List<String>>>> resources =
+        new ConcurrentHashMap<>();
+    private final long latencyMillis;
+
+    @Autowired
+    public StubIam(LocalPerfConfiguration localPerfConfiguration) {
+        this.latencyMillis = localPerfConfiguration.getIamLatencyMillis();
+        logger.info("Using the stub IAM provider with {}ms latency", latencyMillis);
+    }
+
+    @Override
+    public boolean isAuthorized(AuthenticatedUserRequest userReq,
+                                IamResourceType iamResourceType,
+                                String resourceId,
+                                IamAction action) throws InterruptedException {
+        delay();
+        return true;
+    }
+
+    @Override
+    public List<UUID> listAuthorizedResources(AuthenticatedUserRequest userReq,
+                                              IamResourceType iamResourceType) throws InterruptedException {
+        delay();
+        return resourcesOfType(iamResourceType).keySet().stream()
+            .map(UUID::fromString)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean hasActions(AuthenticatedUserRequest userReq,
+                              IamResourceType iamResourceType,
+                              String resourceId) throws InterruptedException {
+        delay();
+        return true;
+    }
+
+    @Override
+    public void deleteDatasetResource(AuthenticatedUserRequest userReq, UUID datasetId) throws InterruptedException {
+        delay();
+        resourcesOfType(IamResourceType.DATASET).remove(datasetId.toString());
+    }
+
+    @Override
+    public void deleteSnapshotResource(AuthenticatedUserRequest userReq, UUID snapshotId) throws InterruptedException {
+        delay();
+        resourcesOfType(IamResourceType.DATASNAPSHOT).remove(snapshotId.toString());
+    }
+
+    @Override
+    public Map<IamRole, String> createDatasetResource(AuthenticatedUserRequest userReq, UUID datasetId)
+        throws InterruptedException {
+        delay();
+        Map<String, List<String>> policies = newPolicies(IamRole.STEWARD, IamRole.CUSTODIAN, IamRole.INGESTER);
+        policies.get(IamRole.CUSTODIAN.toString()).add(userReq.getEmail());
+        resourcesOfType(IamResourceType.DATASET).put(datasetId.toString(), policies);
+        return policyEmails(IamResourceType.DATASET, datasetId.toString(),
+            IamRole.STEWARD, IamRole.CUSTODIAN, IamRole.INGESTER);
+    }
+
+    @Override
+    public Map<IamRole, String> createSnapshotResource(AuthenticatedUserRequest userReq,
+                                                       UUID snapshotId,
+                                                       List<String> readersList) throws InterruptedException {
+        delay();
+        Map<String, List<String>> policies =
+            newPolicies(IamRole.STEWARD, IamRole.CUSTODIAN, IamRole.READER, IamRole.DISCOVERER);
+        policies.get(IamRole.CUSTODIAN.toString()).add(userReq.getEmail());
+        if (readersList != null) {
+            policies.get(IamRole.READER.toString()).addAll(readersList);
+        }
+        resourcesOfType(IamResourceType.DATASNAPSHOT).put(snapshotId.toString(), policies);
+        return policyEmails(IamResourceType.DATASNAPSHOT, snapshotId.toString(),
+            IamRole.READER, IamRole.CUSTODIAN, IamRole.STEWARD);
+    }
+
+    @Override
+    public void createProfileResource(AuthenticatedUserRequest userReq, String profileId)
+        throws InterruptedException {
+        delay();
+        Map<String, List<String>> policies = newPolicies(IamRole.OWNER, IamRole.USER);
+        policies.get(IamRole.OWNER.toString()).add(userReq.getEmail());
+        resourcesOfType(IamResourceType.SPEND_PROFILE).put(profileId, policies);
+    }
+
+    @Override
+    public void deleteProfileResource(AuthenticatedUserRequest userReq, String profileId)
+        throws InterruptedException {
+        delay();
+        resourcesOfType(IamResourceType.SPEND_PROFILE).remove(profileId);
+    }
+
+    @Override
+    public List<PolicyModel> retrievePolicies(AuthenticatedUserRequest userReq,
+                                              IamResourceType iamResourceType,
+                                              UUID resourceId) throws InterruptedException {
+        delay();
+        Map<String, List<String>> policies =
+            resourcesOfType(iamResourceType).getOrDefault(resourceId.toString(), Collections.emptyMap());
+        synchronized (policies) {
+            return policies.entrySet().stream()
+                .map(entry -> new PolicyModel().name(entry.getKey()).members(new ArrayList<>(entry.getValue())))
+                .collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public Map<IamRole, String> retrievePolicyEmails(AuthenticatedUserRequest userReq,
+                                                     IamResourceType iamResourceType,
+                                                     UUID resourceId) throws InterruptedException {
+        delay();
+        Map<String, List<String>> policies =
+            resourcesOfType(iamResourceType).getOrDefault(resourceId.toString(), Collections.emptyMap());
+        Map<IamRole, String> emails = new HashMap<>();
+        synchronized (policies) {
+            for (String policyName : policies.keySet()) {
+                emails.put(IamRole.fromValue(policyName),
+                    policyEmail(iamResourceType, resourceId.toString(), policyName));
+            }
+        }
+        return emails;
+    }
+
+    @Override
+    public PolicyModel addPolicyMember(AuthenticatedUserRequest userReq,
+                                       IamResourceType iamResourceType,
+                                       UUID resourceId,
+                                       String policyName,
+                                       String userEmail) throws InterruptedException {
+        delay();
+        Map<String, List<String>> policies = resourcesOfType(iamResourceType)
+            .computeIfAbsent(resourceId.toString(), id -> new HashMap<>());
+        synchronized (policies) {
+            List<String> members = policies.computeIfAbsent(policyName, name -> new ArrayList<>());
+            if (!members.contains(userEmail)) {
+                members.add(userEmail);
+            }
+            return new PolicyModel().name(policyName).members(new ArrayList<>(members));
+        }
+    }
+
+    @Override
+    public PolicyModel deletePolicyMember(AuthenticatedUserRequest userReq,
+                                          IamResourceType iamResourceType,
+                                          UUID resourceId,
+                                          String policyName,
+                                          String userEmail) throws InterruptedException {
+        delay();
+        Map<String, List<String>> policies = resourcesOfType(iamResourceType)
+            .computeIfAbsent(resourceId.toString(), id -> new HashMap<>());
+        synchronized (policies) {
+            List<String> members = policies.computeIfAbsent(policyName, name -> new ArrayList<>());
+            members.remove(userEmail);
+            return new PolicyModel().name(policyName).members(new ArrayList<>(members));
+        }
+    }
+
+    @Override
+    public UserStatusInfo getUserInfo(AuthenticatedUserRequest userReq) {
+        return new UserStatusInfo()
+            .userSubjectId(userReq.getSubjectId())
+            .userEmail(userReq.getEmail())
+            .enabled(true);
+    }
+
+    @Override
+    public RepositoryStatusModelSystems samStatus() {
+        return new RepositoryStatusModelSystems()
+            .ok(true)
+            .message("Stub IAM provider (local-perf), " + latencyMillis + "ms latency");
+    }
+
+    private Map<String, Map<String, List<String>>> resourcesOfType(IamResourceType iamResourceType) {
+        return resources.computeIfAbsent(iamResourceType, type -> new ConcurrentHashMap<>());
+    }
+
+    // The policies of a resource are guarded by synchronizing on its policy map
+    private static Map<String, List<String>> newPolicies(IamRole... roles) {
+        Map<String, List<String>> policies = new HashMap<>();
+        Arrays.stream(roles).forEach(role -> policies.put(role.toString(), new ArrayList<>()));
+        return policies;
+    }
+
+    private Map<IamRole, String> policyEmails(IamResourceType iamResourceType, String resourceId, IamRole... roles) {
+        Map<IamRole, String> emails = new HashMap<>();
+        Arrays.stream(roles).forEach(role ->
+            emails.put(role, policyEmail(iamResourceType, resourceId, role.toString())));
+        return emails;
+    }
+
+    private static String policyEmail(IamResourceType iamResourceType, String resourceId, String policyName) {
+        return "policy-" + policyName + "-" + iamResourceType + "-" + resourceId + "@local-perf.test";
+    }
+
+    private void delay() throws InterruptedException {
+        if (latencyMillis > 0) {
+            TimeUnit.MILLISECONDS.sleep(latencyMillis);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package bio.terra.service.job;
+
+import bio.terra.app.configuration.DataRepoJdbcConfiguration;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers job end events to code waiting on a job, so that job status requests can wait for a job to
+ * finish instead of polling the Stairway database.
+ *
+ * <p>The Stairway hook calls {@link #publishJobEnd} when a flight ends on this pod. That completes the
+ * local waiters directly and sends a Postgres NOTIFY on {@link #CHANNEL} so that waiters on other pods hear
+ * about it too. Each pod runs one listener thread, on its own connection outside of the pool, that LISTENs
+ * on the channel and completes its local waiters.
+ *
+ * <p>Events are a latency optimization only. They can be missed, for instance while the listener is
+ * reconnecting, so waiters must recheck the job state from time to time rather than wait on an event alone.
+ */
+@Component
+public class JobEventNotifier {
+    private static final Logger logger = LoggerFactory.getLogger(JobEventNotifier.class);
+
+    static final String CHANNEL = "datarepo_job_events";
+    private static final int LISTEN_POLL_MILLISECONDS = 5000;
+    private static final int RECONNECT_SECONDS = 5;
+
+    private final DataRepoJdbcConfiguration jdbcConfiguration;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ConcurrentHashMap<String, Set<CompletableFuture<Void>>> waiters = new ConcurrentHashMap<>();
+
+    private volatile boolean listening;
+    private Thread listenerThread;
+
+    @Autowired
+    public JobEventNotifier(DataRepoJdbcConfiguration jdbcConfiguration, NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcConfiguration = jdbcConfiguration;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Register interest in the end of a job. Register before reading the job state, so an end that happens
+     * between the read and the wait is not lost. Always pair with {@link #cancel}.
+     *
+     * @param jobId job to wait for
+     * @return a future that completes when an end event for the job arrives
+     */
+    public CompletableFuture<Void> awaitJobEnd(String jobId) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        waiters.computeIfAbsent(jobId, id -> ConcurrentHashMap.newKeySet()).add(future);
+        return future;
+    }
+
+    public void cancel(String jobId, CompletableFuture<Void> future) {
+        waiters.computeIfPresent(jobId, (id, futures) -> {
+            futures.remove(future);
+            return futures.isEmpty() ? null : futures;
+        });
+    }
+
+    /**
+     * Announce that a job ended on this pod. Failures to notify other pods are logged and ignored; their
+     * waiters fall back on rechecking the job state.
+     */
+    public void publishJobEnd(String jobId) {
+        completeWaiters(jobId);
+        try {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("channel", CHANNEL)
+                .addValue("jobId", jobId);
+            jdbcTemplate.query("SELECT pg_notify(:channel, :jobId)", params, rs -> null);
+        } catch (DataAccessException ex) {
+            logger.warn("Failed to notify other pods of the end of job " + jobId, ex);
+        }
+    }
+
+    public synchronized void startListener() {
+        if (listenerThread != null) {
+            return;
+        }
+        listening = true;
+        listenerThread = new Thread(this::listen, "job-event-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    public synchronized void stopListener() {
+        listening = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+            listenerThread = null;
+        }
+    }
+
+    private void completeWaiters(String jobId) {
+        Set<CompletableFuture<Void>> futures = waiters.remove(jobId);
+        if (futures != null) {
+            futures.forEach(future -> future.complete(null));
+        }
+    }
+
+    private void listen() {
+        while (listening) {
+            try (Connection connection = DriverManager.getConnection(
+                jdbcConfiguration.getUri(), jdbcConfiguration.getUsername(), jdbcConfiguration.getPassword());
+                 Statement statement = connection.createStatement()) {
+
+                statement.execute("LISTEN " + CHANNEL);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                logger.info("Listening for job events");
+                while (listening) {
+                    PGNotification[] notifications = pgConnection.getNotifications(LISTEN_POLL_MILLISECONDS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            completeWaiters(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException ex) {
+                if (!listening) {
+                    break;
+                }
+                logger.warn("Job event listener lost its connection; reconnecting", ex);
+                try {
+                    TimeUnit.SECONDS.sleep(RECONNECT_SECONDS);
+                } catch (InterruptedException iex) {
+                    break;
+                }
+            }
+        }
+        logger.info("Stopped listening for job events");
+    }
+}
@@ -10,6 +10,10 @@ public enum JobMapKeys {
     STATUS_CODE("status_code"),
     AUTH_USER_INFO("auth_user_info"),
     SUBJECT_ID("subjectId"),
+    TRACE_CONTEXT("traceContext"),
+    SUBMIT_TIME("submitTime"),
+    START_TIME("startTime"),
+    FIRESTORE_STATS("fireStoreStats"),
 
     // parameters for specific flight types
     DATASET_ID("datasetId"),
@@ -0,0 +1,50 @@
+package bio.terra.service.job;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Records the submitting user of each job, so that ownership checks on job status and result requests
+ * are a single primary key read rather than a load of the flight's input parameters from Stairway.
+ */
+@Repository
+public class JobOwnerDao {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public JobOwnerDao(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void create(String jobId, String subjectId) {
+        String sql = "INSERT INTO job_owner (job_id, subject_id) VALUES (:job_id, :subject_id)";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("job_id", jobId)
+            .addValue("subject_id", subjectId);
+        jdbcTemplate.update(sql, params);
+    }
+
+    /**
+     * @param jobId job to look up
+     * @return subject id of the job's owner, or null if the job has no owner row; e.g., it was
+     * submitted before ownership was recorded
+     */
+    public String retrieveSubjectId(String jobId) {
+        String sql = "SELECT subject_id FROM job_owner WHERE job_id = :job_id";
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("job_id", jobId);
+        try {
+            return jdbcTemplate.queryForObject(sql, params, String.class);
+        } catch (EmptyResultDataAccessException ex) {
+            return null;
+        }
+    }
+
+    public boolean delete(String jobId) {
+        String sql = "DELETE FROM job_owner WHERE job_id = :job_id";
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("job_id", jobId);
+        return jdbcTemplate.update(sql, params) > 0;
+    }
+}
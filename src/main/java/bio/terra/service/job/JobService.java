@@ -3,6 +3,7 @@ package bio.terra.service.job;
 import bio.terra.app.configuration.ApplicationConfiguration;
 import bio.terra.app.configuration.StairwayJdbcConfiguration;
 import bio.terra.app.logging.PerformanceLogger;
+import bio.terra.app.logging.TraceUtils;
 import bio.terra.model.JobModel;
 import bio.terra.service.iam.AuthenticatedUserRequest;
 import bio.terra.service.iam.IamAction;
@@ -18,6 +19,8 @@ import bio.terra.service.job.exception.JobServiceStartupException;
 import bio.terra.service.job.exception.JobUnauthorizedException;
 import bio.terra.service.kubernetes.KubeService;
 import bio.terra.service.resourcemanagement.google.GoogleResourceConfiguration;
+import bio.terra.service.tabulardata.google.BigQueryUsage;
+import bio.terra.service.tabulardata.google.BigQueryUsageDao;
 import bio.terra.service.upgrade.Migrate;
 import bio.terra.service.upgrade.MigrateConfiguration;
 import bio.terra.stairway.ExceptionSerializer;
@@ -28,15 +31,18 @@ import bio.terra.stairway.FlightMap;
 import bio.terra.stairway.FlightState;
 import bio.terra.stairway.FlightStatus;
 import bio.terra.stairway.Stairway;
+import bio.terra.stairway.StairwayHook;
 import bio.terra.stairway.exception.DatabaseOperationException;
 import bio.terra.stairway.exception.FlightNotFoundException;
 import bio.terra.stairway.exception.StairwayException;
 import bio.terra.stairway.exception.StairwayExecutionException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationContext;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
@@ -45,7 +51,11 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Component
 public class JobService {
@@ -53,6 +63,10 @@ public class JobService {
     private static final Logger logger = LoggerFactory.getLogger(JobService.class);
     private static final int MIN_SHUTDOWN_TIMEOUT = 14;
     private static final int POD_LISTENER_SHUTDOWN_TIMEOUT = 2;
+    // Longest a job status request may wait for the job to finish
+    public static final int MAX_JOB_WAIT_SECONDS = 60;
+    // While waiting, recheck the job state this often in case a job end event was missed
+    private static final int JOB_WAIT_RECHECK_SECONDS = 5;
 
     private final Stairway stairway;
     private final IamService samService;
@@ -62,6 +76,16 @@ public class JobService {
     private final KubeService kubeService;
     private final JobShutdownState jobShutdownState;
     private final Migrate migrate;
+    private final JobEventNotifier jobEventNotifier;
+    private final JobOwnerDao jobOwnerDao;
+    private final BigQueryUsageDao bigQueryUsageDao;
+    private final StairwayMetricsHooks stairwayMetricsHooks;
+    private final ScheduledExecutorService recheckScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "job-watch-recheck");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final JobWatcher jobWatcher;
 
 
     @Autowired
@@ -75,7 +99,13 @@ public class JobService {
                       JobShutdownState jobShutdownState,
                       Migrate migrate,
                       ObjectMapper objectMapper,
-                      PerformanceLogger performanceLogger) throws StairwayExecutionException {
+                      PerformanceLogger performanceLogger,
+                      JobEventNotifier jobEventNotifier,
+                      @Qualifier("performanceThreadpool") ExecutorService executor,
+                      JobOwnerDao jobOwnerDao,
+                      MeterRegistry meterRegistry,
+                      BigQueryUsageDao bigQueryUsageDao)
+        throws StairwayExecutionException {
         this.samService = samService;
         this.appConfig = appConfig;
         this.kubeService = kubeService;
@@ -83,6 +113,11 @@ public class JobService {
         this.migrateConfiguration = migrateConfiguration;
         this.jobShutdownState = jobShutdownState;
         this.migrate = migrate;
+        this.jobEventNotifier = jobEventNotifier;
+        this.jobOwnerDao = jobOwnerDao;
+        this.bigQueryUsageDao = bigQueryUsageDao;
+        this.jobWatcher = new JobWatcher(jobEventNotifier, this::retrieveJobState, executor, recheckScheduler,
+            TimeUnit.SECONDS.toMillis(JOB_WAIT_RECHECK_SECONDS));
 
         String projectId = googleResourceConfiguration.getProjectId();
         String stairwayClusterName = kubeService.getNamespace() + "-stairwaycluster";
@@ -90,6 +125,15 @@ public class JobService {
         logger.info("Creating Stairway: maxStairwayThreads: " + appConfig.getMaxStairwayThreads() +
             " in project: " + projectId);
         ExceptionSerializer serializer = new StairwayExceptionSerializer(objectMapper);
+        stairwayMetricsHooks = new StairwayMetricsHooks(meterRegistry);
+        // The job end event goes last, so the work of the other hooks is done when a waiter reads the job
+        StairwayHook stairwayHook = new StairwayCompositeHook(
+            new StairwayLoggingHooks(performanceLogger),
+            stairwayMetricsHooks,
+            new StairwayTracingHooks(),
+            new StairwayBigQueryUsageHooks(bigQueryUsageDao),
+            new StairwayFireStoreStatsHooks(),
+            new StairwayJobEventHooks(jobEventNotifier));
         stairway = Stairway.newBuilder()
             // for debugging stairway flights, set this true and the flight logs will be retained
             .keepFlightLog(true)
@@ -97,7 +141,7 @@ public class JobService {
             .exceptionSerializer(serializer)
             .applicationContext(applicationContext)
             .stairwayName(appConfig.getPodName())
-            .stairwayHook(new StairwayLoggingHooks(performanceLogger))
+            .stairwayHook(stairwayHook)
             .stairwayClusterName(stairwayClusterName)
             .workQueueProjectId(projectId)
             .enableWorkQueue(appConfig.isInKubernetes())
@@ -135,6 +179,7 @@ public class JobService {
             //    Stairway initialization is done, so it is safe to start the listener before we have called
             //    Stairway recoveryAndStart
             kubeService.startPodListener(stairway);
+            jobEventNotifier.startListener();
 
             // Lookup all of the stairway instances we know about
             Set<String> existingStairways = kubeService.getApiPodList();
@@ -182,6 +227,7 @@ public class JobService {
         }
 
         kubeService.stopPodListener(TimeUnit.SECONDS, POD_LISTENER_SHUTDOWN_TIMEOUT);
+        jobEventNotifier.stopListener();
         shutdownTimeout = shutdownTimeout - POD_LISTENER_SHUTDOWN_TIMEOUT;
 
         int gracefulTimeout = (shutdownTimeout * 3) / 4;
@@ -234,9 +280,22 @@ public class JobService {
         }
 
         String jobId = createJobId();
+        // Record the owner before the job is visible, so the first status request finds it
+        String subjectId = parameterMap.get(JobMapKeys.SUBJECT_ID.getKeyName(), String.class);
+        if (subjectId != null) {
+            jobOwnerDao.create(jobId, subjectId);
+        }
+        // Lets the metrics hook time the wait for a thread without reading the flight back from the database
+        parameterMap.put(JobMapKeys.SUBMIT_TIME.getKeyName(), System.currentTimeMillis());
+        // Continue the trace of the request in the flight
+        String traceContext = TraceUtils.currentContext();
+        if (traceContext != null) {
+            parameterMap.put(JobMapKeys.TRACE_CONTEXT.getKeyName(), traceContext);
+        }
         try {
             stairway.submit(jobId, flightClass, parameterMap);
         } catch (StairwayException stairwayEx) {
+            jobOwnerDao.delete(jobId);
             throw new InternalStairwayException(stairwayEx);
         } catch (InterruptedException ex) {
             throw new JobServiceShutdownException("Job service interrupted", ex);
@@ -274,21 +333,10 @@ public class JobService {
 
     public void releaseJob(String jobId, AuthenticatedUserRequest userReq) {
         try {
-            if (userReq != null) {
-                // currently, this check will be true for stewards only
-                boolean canDeleteAnyJob = samService.isAuthorized(
-                    userReq,
-                    IamResourceType.DATAREPO,
-                    appConfig.getResourceId(),
-                    IamAction.DELETE_JOBS);
-
-                // if the user has access to all jobs, no need to check for this one individually
-                // otherwise, check that the user has access to this job before deleting
-                if (!canDeleteAnyJob) {
-                    verifyUserAccess(jobId, userReq); // jobId=flightId
-                }
-            }
+            // currently, the admin check will be true for stewards only
+            checkJobAccess(jobId, userReq, IamAction.DELETE_JOBS);
             stairway.deleteFlight(jobId, false);
+            jobOwnerDao.delete(jobId);
         } catch (StairwayException stairwayEx) {
             throw new InternalStairwayException(stairwayEx);
         } catch (InterruptedException ex) {
@@ -296,6 +344,13 @@ public class JobService {
         }
     }
 
+    /**
+     * @return ids of the flights running on this pod
+     */
+    public Set<String> getActiveFlightIds() {
+        return stairwayMetricsHooks.getActiveFlightIds();
+    }
+
     public JobModel mapFlightStateToJobModel(FlightState flightState) {
         FlightMap inputParameters = flightState.getInputParameters();
         String description = inputParameters.get(JobMapKeys.DESCRIPTION.getKeyName(), String.class);
@@ -375,16 +430,41 @@ public class JobService {
     }
 
     public JobModel retrieveJob(String jobId, AuthenticatedUserRequest userReq) {
-        boolean canListAnyJob = checkUserCanListAnyJob(userReq);
+        checkJobAccess(jobId, userReq);
+        return addBigQueryUsage(retrieveJobState(jobId));
+    }
 
+    // Only done for single completed jobs: a job list would mean a read per job, and leaving it off running
+    // jobs keeps a status poll to one database read
+    private JobModel addBigQueryUsage(JobModel jobModel) {
+        if (jobModel.getCompleted() == null) {
+            return jobModel;
+        }
+        BigQueryUsage usage = bigQueryUsageDao.retrieveFlightUsage(jobModel.getId());
+        return (usage == null) ? jobModel : jobModel.bigqueryUsage(usage.toModel());
+    }
+
+    /**
+     * Watch a job until it finishes. The listener is called with the job state right away, when a recheck
+     * finds a new status, and once more when the job finishes; see {@link JobWatcher}. Access is checked
+     * once, up front. Failures after the first call go to the error listener and end the watch. The completed
+     * job carries its BigQuery usage, like a job status request.
+     *
+     * @return a handle that stops watching; call it when the listener is no longer wanted
+     */
+    public Runnable watchJob(String jobId,
+                             AuthenticatedUserRequest userReq,
+                             Consumer<JobModel> listener,
+                             Consumer<Throwable> errorListener) {
+        checkJobAccess(jobId, userReq);
+        return jobWatcher.watch(jobId,
+            job -> listener.accept(addBigQueryUsage(job)),
+            errorListener);
+    }
+
+    private JobModel retrieveJobState(String jobId) {
         try {
-            // if the user has access to all jobs, then fetch the requested one
-            // otherwise, check that the user has access to it first
-            if (!canListAnyJob) {
-                verifyUserAccess(jobId, userReq); // jobId=flightId
-            }
-            FlightState flightState = stairway.getFlightState(jobId);
-            return mapFlightStateToJobModel(flightState);
+            return mapFlightStateToJobModel(stairway.getFlightState(jobId));
         } catch (StairwayException stairwayEx) {
             throw new InternalStairwayException(stairwayEx);
         } catch (InterruptedException ex) {
@@ -392,6 +472,35 @@ public class JobService {
         }
     }
 
+    private void checkJobAccess(String jobId, AuthenticatedUserRequest userReq) {
+        checkJobAccess(jobId, userReq, IamAction.LIST_JOBS);
+    }
+
+    /**
+     * A user may access a job they own, or any job if they hold the admin action on the data repo.
+     * Ownership is checked first: it is one indexed read of the job_owner table, so the common case of a
+     * user polling their own job makes no Sam call. The admin check is cached by the IamService.
+     * Jobs submitted before the job_owner table existed have no owner row; for those we fall back to
+     * the subject id in the flight input parameters.
+     */
+    private void checkJobAccess(String jobId, AuthenticatedUserRequest userReq, IamAction adminAction) {
+        // see checkUserCanListAnyJob: a null user request is only used by tests to bypass the check
+        if (userReq == null) {
+            return;
+        }
+        String ownerSubjectId = jobOwnerDao.retrieveSubjectId(jobId);
+        if (ownerSubjectId != null && StringUtils.equals(ownerSubjectId, userReq.getSubjectId())) {
+            return;
+        }
+        if (isAuthorizedForAnyJob(userReq, adminAction)) {
+            return;
+        }
+        if (ownerSubjectId != null) {
+            throw new JobUnauthorizedException("Unauthorized");
+        }
+        verifyUserAccess(jobId, userReq); // jobId=flightId
+    }
+
     /**
      * There are four cases to handle here:
      * <ol>
@@ -415,14 +524,9 @@ public class JobService {
         String jobId,
         Class<T> resultClass,
         AuthenticatedUserRequest userReq) {
-        boolean canListAnyJob = checkUserCanListAnyJob(userReq);
+        checkJobAccess(jobId, userReq);
 
         try {
-            // if the user has access to all jobs, then fetch the requested result
-            // otherwise, check that the user has access to it first
-            if (!canListAnyJob) {
-                verifyUserAccess(jobId, userReq); // jobId=flightId
-            }
             return retrieveJobResultWorker(jobId, resultClass);
         } catch (StairwayException stairwayEx) {
             throw new InternalStairwayException(stairwayEx);
@@ -498,13 +602,16 @@ public class JobService {
             return true;
         }
 
+        return isAuthorizedForAnyJob(userReq, IamAction.LIST_JOBS);
+    }
+
+    private boolean isAuthorizedForAnyJob(AuthenticatedUserRequest userReq, IamAction action) {
         // currently, this check will be true for stewards only
         return samService.isAuthorized(
             userReq,
             IamResourceType.DATAREPO,
             appConfig.getResourceId(),
-            IamAction.LIST_JOBS);
-
+            action);
     }
 
     private void verifyUserAccess(String jobId, AuthenticatedUserRequest userReq) {
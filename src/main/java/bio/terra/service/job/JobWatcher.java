@@ -0,0 +1,130 @@
+package bio.terra.service.job;
+
+import bio.terra.model.JobModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Watches jobs without holding a thread while they run. Each check registers for the job end event, reads
+ * the job state and, if the job is still running, waits for either the event or the recheck interval,
+ * whichever comes first. The recheck covers end events that are missed, for instance when the pod that
+ * ran the job could not notify this one.
+ */
+class JobWatcher {
+    private static final Logger logger = LoggerFactory.getLogger(JobWatcher.class);
+
+    private final JobEventNotifier jobEventNotifier;
+    private final Function<String, JobModel> jobStateReader;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService scheduler;
+    private final long recheckMillis;
+
+    JobWatcher(JobEventNotifier jobEventNotifier,
+               Function<String, JobModel> jobStateReader,
+               ExecutorService executor,
+               ScheduledExecutorService scheduler,
+               long recheckMillis) {
+        this.jobEventNotifier = jobEventNotifier;
+        this.jobStateReader = jobStateReader;
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.recheckMillis = recheckMillis;
+    }
+
+    /**
+     * Watch a job until it finishes. The listener is called with the job state right away, each time a
+     * recheck finds a new status, and once more when the job finishes. The first check runs on the caller's
+     * thread and its exceptions are thrown from here; later checks run on the executor, and their failures
+     * end the watch and go to the error listener.
+     *
+     * @return a handle that stops watching; call it when the listener is no longer wanted
+     */
+    Runnable watch(String jobId, Consumer<JobModel> listener, Consumer<Throwable> errorListener) {
+        Watch watch = new Watch(jobId, listener, errorListener);
+        try {
+            watch.check();
+        } catch (RuntimeException ex) {
+            watch.stop();
+            throw ex;
+        }
+        return watch::stop;
+    }
+
+    private final class Watch {
+        private final String jobId;
+        private final Consumer<JobModel> listener;
+        private final Consumer<Throwable> errorListener;
+        // Checks run one at a time, each one started by the end of the wait the one before it set up
+        private JobModel.JobStatusEnum lastStatus;
+        private volatile CompletableFuture<Void> jobEnd;
+        private volatile ScheduledFuture<?> recheck;
+        private volatile boolean stopped;
+
+        private Watch(String jobId, Consumer<JobModel> listener, Consumer<Throwable> errorListener) {
+            this.jobId = jobId;
+            this.listener = listener;
+            this.errorListener = errorListener;
+        }
+
+        private void check() {
+            if (stopped) {
+                return;
+            }
+            // Register before reading the state, so an end between the read and the wait is not missed
+            CompletableFuture<Void> previous = jobEnd;
+            CompletableFuture<Void> next = jobEventNotifier.awaitJobEnd(jobId);
+            jobEnd = next;
+            if (previous != null) {
+                jobEventNotifier.cancel(jobId, previous);
+            }
+
+            JobModel job = jobStateReader.apply(jobId);
+            if (job.getCompleted() != null) {
+                stop();
+                listener.accept(job);
+                return;
+            }
+            if (job.getJobStatus() != lastStatus) {
+                lastStatus = job.getJobStatus();
+                listener.accept(job);
+            }
+
+            recheck = scheduler.schedule(() -> next.complete(null), recheckMillis, TimeUnit.MILLISECONDS);
+            next.thenRunAsync(this::check, executor)
+                .exceptionally(this::fail);
+            if (stopped) {
+                // Stopped while arming; make sure nothing is left registered
+                stop();
+            }
+        }
+
+        private Void fail(Throwable ex) {
+            Throwable cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+            logger.warn("Stopped watching job " + jobId, cause);
+            stop();
+            errorListener.accept(cause);
+            return null;
+        }
+
+        private void stop() {
+            stopped = true;
+            CompletableFuture<Void> current = jobEnd;
+            if (current != null) {
+                jobEventNotifier.cancel(jobId, current);
+            }
+            ScheduledFuture<?> currentRecheck = recheck;
+            if (currentRecheck != null) {
+                currentRecheck.cancel(false);
+            }
+        }
+    }
+}
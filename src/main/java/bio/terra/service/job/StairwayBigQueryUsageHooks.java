@@ -0,0 +1,90 @@
+package bio.terra.service.job;
+
+import bio.terra.service.tabulardata.google.BigQueryJobContext;
+import bio.terra.service.tabulardata.google.BigQueryUsage;
+import bio.terra.service.tabulardata.google.BigQueryUsageDao;
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.FlightMap;
+import bio.terra.stairway.HookAction;
+import bio.terra.stairway.StairwayHook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.UUID;
+
+/**
+ * BigQuery job accounting for flights. Each step runs inside a BigQueryJobContext, so the BigQuery jobs it
+ * submits are labeled with the flight and the dataset or snapshot it works on. When the step ends, the
+ * statistics of its jobs are added to the flight's row in bigquery_usage. Saving per step, rather than per
+ * flight, keeps the usage of a flight that moves to another pod.
+ */
+public class StairwayBigQueryUsageHooks implements StairwayHook {
+    private static final Logger logger = LoggerFactory.getLogger(StairwayBigQueryUsageHooks.class);
+
+    private final BigQueryUsageDao bigQueryUsageDao;
+
+    public StairwayBigQueryUsageHooks(BigQueryUsageDao bigQueryUsageDao) {
+        this.bigQueryUsageDao = bigQueryUsageDao;
+    }
+
+    @Override
+    public HookAction startFlight(FlightContext context) {
+        return HookAction.CONTINUE;
+    }
+
+    @Override
+    public HookAction startStep(FlightContext context) {
+        BigQueryJobContext.enter(
+            context.getFlightId(),
+            StairwayMetricsHooks.simpleName(context.getFlightClassName()),
+            StairwayMetricsHooks.simpleName(context.getStepClassName()),
+            getId(context, JobMapKeys.DATASET_ID.getKeyName()),
+            getId(context, JobMapKeys.SNAPSHOT_ID.getKeyName()));
+        return HookAction.CONTINUE;
+    }
+
+    @Override
+    public HookAction endStep(FlightContext context) {
+        BigQueryUsage usage = BigQueryJobContext.exit();
+        if (usage != null && !usage.isEmpty()) {
+            try {
+                bigQueryUsageDao.addFlightUsage(
+                    context.getFlightId(),
+                    StairwayMetricsHooks.simpleName(context.getFlightClassName()),
+                    toUuid(getId(context, JobMapKeys.DATASET_ID.getKeyName())),
+                    toUuid(getId(context, JobMapKeys.SNAPSHOT_ID.getKeyName())),
+                    usage);
+            } catch (RuntimeException ex) {
+                // Accounting must never fail a flight
+                logger.warn("Unable to save BigQuery usage of flight " + context.getFlightId(), ex);
+            }
+        }
+        return HookAction.CONTINUE;
+    }
+
+    @Override
+    public HookAction endFlight(FlightContext context) {
+        // The flight may have ended inside a step, e.g. on a yield or a shutdown
+        BigQueryJobContext.exit();
+        return HookAction.CONTINUE;
+    }
+
+    // Ids are input parameters of most flights. A snapshot create learns its snapshot id in a step,
+    // so also look in the working map.
+    private static String getId(FlightContext context, String key) {
+        String id = context.getInputParameters().get(key, String.class);
+        if (id == null) {
+            FlightMap workingMap = context.getWorkingMap();
+            id = (workingMap == null) ? null : workingMap.get(key, String.class);
+        }
+        return id;
+    }
+
+    private static UUID toUuid(String id) {
+        try {
+            return (id == null) ? null : UUID.fromString(id);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+}
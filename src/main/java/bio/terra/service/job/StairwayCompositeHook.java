@@ -0,0 +1,71 @@
+package bio.terra.service.job;
+
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.HookAction;
+import bio.terra.stairway.StairwayHook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Stairway takes a single hook; this one hands each call to a list of independent hooks, in order. A hook
+ * that throws is logged and skipped, so it cannot keep the others from running or fail the flight. The
+ * first action other than CONTINUE is returned.
+ */
+public class StairwayCompositeHook implements StairwayHook {
+    private static final Logger logger = LoggerFactory.getLogger(StairwayCompositeHook.class);
+
+    private final List<StairwayHook> hooks;
+
+    public StairwayCompositeHook(StairwayHook... hooks) {
+        this.hooks = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(hooks)));
+    }
+
+    @Override
+    public HookAction startFlight(FlightContext context) {
+        return callHooks(context, "startFlight", hook -> hook.startFlight(context));
+    }
+
+    @Override
+    public HookAction startStep(FlightContext context) {
+        return callHooks(context, "startStep", hook -> hook.startStep(context));
+    }
+
+    @Override
+    public HookAction endStep(FlightContext context) {
+        return callHooks(context, "endStep", hook -> hook.endStep(context));
+    }
+
+    @Override
+    public HookAction endFlight(FlightContext context) {
+        return callHooks(context, "endFlight", hook -> hook.endFlight(context));
+    }
+
+    @FunctionalInterface
+    private interface HookCall {
+        HookAction call(StairwayHook hook) throws Exception;
+    }
+
+    private HookAction callHooks(FlightContext context, String operation, HookCall hookCall) {
+        HookAction result = HookAction.CONTINUE;
+        for (StairwayHook hook : hooks) {
+            try {
+                HookAction action = hookCall.call(hook);
+                if (result == HookAction.CONTINUE && action != null) {
+                    result = action;
+                }
+            } catch (Exception ex) {
+                if (ex instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                logger.warn(operation + " hook " + hook.getClass().getSimpleName() + " failed for flight " +
+                    context.getFlightId(), ex);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,54 @@
+package bio.terra.service.job;
+
+import bio.terra.service.filedata.google.firestore.FireStoreMetrics;
+import bio.terra.service.filedata.google.firestore.FireStoreStats;
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.FlightMap;
+import bio.terra.stairway.HookAction;
+import bio.terra.stairway.StairwayHook;
+
+/**
+ * Firestore accounting for flights. The Firestore work of each step is totaled and added to the FireStoreStats
+ * in the flight's working map, where the flight's response steps can report it. The map is saved with the step,
+ * so the totals survive a move to another pod.
+ */
+public class StairwayFireStoreStatsHooks implements StairwayHook {
+
+    @Override
+    public HookAction startFlight(FlightContext context) {
+        return HookAction.CONTINUE;
+    }
+
+    @Override
+    public HookAction startStep(FlightContext context) {
+        FireStoreMetrics.start();
+        return HookAction.CONTINUE;
+    }
+
+    @Override
+    public HookAction endStep(FlightContext context) {
+        FireStoreStats stats = FireStoreMetrics.finish();
+        FlightMap workingMap = context.getWorkingMap();
+        if (stats != null && !stats.isEmpty() && workingMap != null) {
+            String key = JobMapKeys.FIRESTORE_STATS.getKeyName();
+            FireStoreStats flightStats = workingMap.get(key, FireStoreStats.class);
+            workingMap.put(key, stats.add(flightStats));
+        }
+        return HookAction.CONTINUE;
+    }
+
+    @Override
+    public HookAction endFlight(FlightContext context) {
+        // The flight may have ended inside a step, e.g. on a yield or a shutdown
+        FireStoreMetrics.finish();
+        return HookAction.CONTINUE;
+    }
+
+    /**
+     * @return the Firestore totals of the flight so far; empty if it has done no Firestore work
+     */
+    public static FireStoreStats getFlightStats(FlightMap workingMap) {
+        FireStoreStats stats = workingMap.get(JobMapKeys.FIRESTORE_STATS.getKeyName(), FireStoreStats.class);
+        return (stats == null) ? new FireStoreStats() : stats;
+    }
+}
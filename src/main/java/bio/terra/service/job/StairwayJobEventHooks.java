@@ -0,0 +1,39 @@
+package bio.terra.service.job;
+
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.HookAction;
+import bio.terra.stairway.StairwayHook;
+
+/**
+ * Publishes a job end event when a flight finishes. Job status requests that are waiting for the job wake up
+ * on the event instead of polling. Run it after the other hooks, so their work for the flight is done by the
+ * time a waiter reads the job.
+ */
+public class StairwayJobEventHooks implements StairwayHook {
+    private final JobEventNotifier jobEventNotifier;
+
+    public StairwayJobEventHooks(JobEventNotifier jobEventNotifier) {
+        this.jobEventNotifier = jobEventNotifier;
+    }
+
+    @Override
+    public HookAction startFlight(FlightContext context) {
+        return HookAction.CONTINUE;
+    }
+
+    @Override
+    public HookAction startStep(FlightContext context) {
+        return HookAction.CONTINUE;
+    }
+
+    @Override
+    public HookAction endStep(FlightContext context) {
+        return HookAction.CONTINUE;
+    }
+
+    @Override
+    public HookAction endFlight(FlightContext context) {
+        jobEventNotifier.publishJobEnd(context.getFlightId());
+        return HookAction.CONTINUE;
+    }
+}
@@ -7,9 +7,12 @@ import bio.terra.stairway.StairwayHook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class StairwayLoggingHooks implements StairwayHook {
     private static final String FlightLogFormat = "Operation: {}, flightClass: {}, flightId: {}, timestamp: {}";
@@ -18,6 +21,8 @@ public class StairwayLoggingHooks implements StairwayHook {
     private static final Logger logger = LoggerFactory.getLogger(StairwayHook.class);
 
     private PerformanceLogger performanceLogger;
+    // Step start times keyed by flight id; a flight may run its steps on different threads
+    private final Map<String, Long> stepStartTimes = new ConcurrentHashMap<>();
 
     public StairwayLoggingHooks(PerformanceLogger performanceLogger) {
         this.performanceLogger = performanceLogger;
@@ -37,7 +42,7 @@ public class StairwayLoggingHooks implements StairwayHook {
         logger.info(StepLogFormat, "startStep", context.getFlightClassName(), context.getFlightId(),
             context.getStepClassName(), context.getStepIndex(), context.getDirection().name(),
             Instant.now().atZone(ZoneId.of("Z")).format(DateTimeFormatter.ISO_INSTANT));
-        performanceLogger.timerStart("stairwayStep" + context.getFlightId());
+        stepStartTimes.put(context.getFlightId(), System.nanoTime());
         return HookAction.CONTINUE;
     }
 
@@ -46,6 +51,7 @@ public class StairwayLoggingHooks implements StairwayHook {
         logger.info(FlightLogFormat, "endFlight", context.getFlightClassName(),
             context.getFlightId(), Instant.now().atZone(ZoneId.of("Z")).format(DateTimeFormatter.ISO_INSTANT));
         performanceLogger.log(context.getFlightId(), context.getFlightClassName(), "endFlight");
+        stepStartTimes.remove(context.getFlightId());
         return HookAction.CONTINUE;
     }
 
@@ -54,8 +60,11 @@ public class StairwayLoggingHooks implements StairwayHook {
         logger.info(StepLogFormat, "endStep", context.getFlightClassName(), context.getFlightId(),
             context.getStepClassName(), context.getStepIndex(), context.getDirection().name(),
             Instant.now().atZone(ZoneId.of("Z")).format(DateTimeFormatter.ISO_INSTANT));
-        performanceLogger.timerEndAndLog("stairwayStep" + context.getFlightId(), context.getFlightId(),
-            context.getFlightClassName(), "endStep", context.getStepIndex());
+        Long stepStart = stepStartTimes.remove(context.getFlightId());
+        Duration elapsed = (stepStart == null) ? Duration.ZERO : Duration.ofNanos(System.nanoTime() - stepStart);
+        // The step index is not a quantity, so it goes with the additional information rather than the count
+        performanceLogger.log(context.getFlightId(), context.getFlightClassName(), "endStep",
+            elapsed, 0, "stepClass: " + context.getStepClassName() + ", stepIndex: " + context.getStepIndex());
         return HookAction.CONTINUE;
     }
 }
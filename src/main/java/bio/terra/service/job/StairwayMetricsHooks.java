@@ -0,0 +1,176 @@
+package bio.terra.service.job;
+
+import bio.terra.stairway.Direction;
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.FlightMap;
+import bio.terra.stairway.HookAction;
+import bio.terra.stairway.StairwayHook;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer metrics for sizing the Stairway thread pool and finding slow steps:
+ * <ul>
+ *     <li>stairway.flight.queue - time from submit until the flight first starts running, per flight class</li>
+ *     <li>stairway.flight.duration - time the flight ran on this pod, per flight class and final status</li>
+ *     <li>stairway.step.duration - time of each step attempt, per flight class, step class and direction</li>
+ *     <li>stairway.step.retries - step attempts after the first, per flight class and step class</li>
+ *     <li>stairway.flight.undo - flights that started undoing, per flight class</li>
+ *     <li>stairway.flights.active and stairway.steps.active - flights and steps running on this pod</li>
+ * </ul>
+ * Timers are kept in maps keyed by flight id rather than per thread, so a flight that moves to another
+ * thread is still timed correctly. A flight that moves to another pod starts over on that pod.
+ * The time a flight first starts running is also put in its working map, so whoever reads the finished
+ * flight can time it without the queue time.
+ */
+public class StairwayMetricsHooks implements StairwayHook {
+    static final String FLIGHT_QUEUE = "stairway.flight.queue";
+    static final String FLIGHT_DURATION = "stairway.flight.duration";
+    static final String STEP_DURATION = "stairway.step.duration";
+    static final String STEP_RETRIES = "stairway.step.retries";
+    static final String FLIGHT_UNDO = "stairway.flight.undo";
+    static final String FLIGHTS_ACTIVE = "stairway.flights.active";
+    static final String STEPS_ACTIVE = "stairway.steps.active";
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger activeFlights;
+    private final AtomicInteger activeSteps;
+    private final Map<String, FlightTiming> flightTimings = new ConcurrentHashMap<>();
+
+    // What we know about a flight running on this pod. A flight runs one step at a time, so the fields are
+    // only updated by the thread running the flight.
+    private static final class FlightTiming {
+        private final long startNanos;
+        private long stepStartNanos;
+        private int stepIndex = -1;
+        private Direction direction;
+        private boolean undoing;
+
+        private FlightTiming(long startNanos) {
+            this.startNanos = startNanos;
+        }
+    }
+
+    public StairwayMetricsHooks(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.activeFlights = meterRegistry.gauge(FLIGHTS_ACTIVE, new AtomicInteger(0));
+        this.activeSteps = meterRegistry.gauge(STEPS_ACTIVE, new AtomicInteger(0));
+    }
+
+    @Override
+    public HookAction startFlight(FlightContext context) {
+        long now = System.nanoTime();
+        if (flightTimings.put(context.getFlightId(), new FlightTiming(now)) == null) {
+            activeFlights.incrementAndGet();
+        }
+        // Only a flight starting from the beginning has been waiting in the queue since it was submitted
+        if (context.getStepIndex() == 0 && context.getDirection() == Direction.DO) {
+            recordQueueLatency(context);
+            FlightMap workingMap = context.getWorkingMap();
+            if (workingMap != null) {
+                workingMap.put(JobMapKeys.START_TIME.getKeyName(), System.currentTimeMillis());
+            }
+        }
+        return HookAction.CONTINUE;
+    }
+
+    @Override
+    public HookAction startStep(FlightContext context) {
+        FlightTiming timing = flightTimings.computeIfAbsent(
+            context.getFlightId(), id -> new FlightTiming(System.nanoTime()));
+        Direction direction = context.getDirection();
+
+        // Starting the same step in the same direction again is a retry
+        if (timing.stepIndex == context.getStepIndex() && timing.direction == direction) {
+            Counter.builder(STEP_RETRIES)
+                .tag("flight", simpleName(context.getFlightClassName()))
+                .tag("step", simpleName(context.getStepClassName()))
+                .register(meterRegistry)
+                .increment();
+        }
+        if (direction == Direction.UNDO && !timing.undoing) {
+            timing.undoing = true;
+            Counter.builder(FLIGHT_UNDO)
+                .tag("flight", simpleName(context.getFlightClassName()))
+                .register(meterRegistry)
+                .increment();
+        }
+
+        timing.stepIndex = context.getStepIndex();
+        timing.direction = direction;
+        timing.stepStartNanos = System.nanoTime();
+        activeSteps.incrementAndGet();
+        return HookAction.CONTINUE;
+    }
+
+    @Override
+    public HookAction endStep(FlightContext context) {
+        FlightTiming timing = flightTimings.get(context.getFlightId());
+        if (timing != null && timing.stepStartNanos != 0) {
+            Timer.builder(STEP_DURATION)
+                .tag("flight", simpleName(context.getFlightClassName()))
+                .tag("step", simpleName(context.getStepClassName()))
+                .tag("direction", context.getDirection().name())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(Duration.ofNanos(System.nanoTime() - timing.stepStartNanos));
+            timing.stepStartNanos = 0;
+            activeSteps.decrementAndGet();
+        }
+        return HookAction.CONTINUE;
+    }
+
+    @Override
+    public HookAction endFlight(FlightContext context) {
+        FlightTiming timing = flightTimings.remove(context.getFlightId());
+        if (timing != null) {
+            activeFlights.decrementAndGet();
+            if (timing.stepStartNanos != 0) {
+                // The flight ended inside a step, e.g. on a yield or a shutdown
+                activeSteps.decrementAndGet();
+            }
+            Timer.builder(FLIGHT_DURATION)
+                .tag("flight", simpleName(context.getFlightClassName()))
+                .tag("status", String.valueOf(context.getFlightStatus()))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(Duration.ofNanos(System.nanoTime() - timing.startNanos));
+        }
+        return HookAction.CONTINUE;
+    }
+
+    /**
+     * @return ids of the flights running on this pod
+     */
+    public Set<String> getActiveFlightIds() {
+        return new TreeSet<>(flightTimings.keySet());
+    }
+
+    // The submit time is put in the input parameters when the flight is submitted; flights submitted without
+    // it, such as ones recovered from before it was added, are not counted
+    private void recordQueueLatency(FlightContext context) {
+        Long submitMillis = context.getInputParameters().get(JobMapKeys.SUBMIT_TIME.getKeyName(), Long.class);
+        if (submitMillis == null) {
+            return;
+        }
+        Duration queued = Duration.between(Instant.ofEpochMilli(submitMillis), Instant.now());
+        Timer.builder(FLIGHT_QUEUE)
+            .tag("flight", simpleName(context.getFlightClassName()))
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(queued.isNegative() ? Duration.ZERO : queued);
+    }
+
+    static String simpleName(String className) {
+        return (className == null) ? "none" : className.substring(className.lastIndexOf('.') + 1);
+    }
+}
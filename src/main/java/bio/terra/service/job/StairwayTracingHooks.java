@@ -0,0 +1,94 @@
+package bio.terra.service.job;
+
+import bio.terra.app.logging.TraceUtils;
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.HookAction;
+import bio.terra.stairway.StairwayHook;
+import brave.Span;
+import brave.Tracer;
+import brave.Tracing;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracing for flights. Each flight gets a span that continues the trace saved in the flight input map under
+ * TRACE_CONTEXT, so a flight submitted from a REST request, or a worker flight submitted to the work queue by a
+ * driver step, joins the trace of whatever submitted it. Each step gets a child span that
+ * is current on the flight thread while the step runs, so spans made by the step nest under it.
+ */
+public class StairwayTracingHooks implements StairwayHook {
+
+    // Spans of the flights running on this pod
+    private final Map<String, FlightSpans> flightSpans = new ConcurrentHashMap<>();
+
+    private static final class FlightSpans {
+        private final Span flightSpan;
+        private Span stepSpan;
+        private Tracer.SpanInScope stepScope;
+
+        private FlightSpans(Span flightSpan) {
+            this.flightSpan = flightSpan;
+        }
+    }
+
+    @Override
+    public HookAction startFlight(FlightContext context) {
+        Tracer tracer = Tracing.currentTracer();
+        if (tracer != null) {
+            String traceContext = context.getInputParameters().get(JobMapKeys.TRACE_CONTEXT.getKeyName(), String.class);
+            Span flightSpan = TraceUtils.nextSpan(tracer, traceContext)
+                .name("flight " + StairwayMetricsHooks.simpleName(context.getFlightClassName()))
+                .tag("flightId", context.getFlightId())
+                .start();
+            flightSpans.put(context.getFlightId(), new FlightSpans(flightSpan));
+        }
+        return HookAction.CONTINUE;
+    }
+
+    @Override
+    public HookAction startStep(FlightContext context) {
+        Tracer tracer = Tracing.currentTracer();
+        FlightSpans spans = flightSpans.get(context.getFlightId());
+        if (tracer != null && spans != null) {
+            spans.stepSpan = tracer.newChild(spans.flightSpan.context())
+                .name("step " + StairwayMetricsHooks.simpleName(context.getStepClassName()))
+                .tag("stepIndex", String.valueOf(context.getStepIndex()))
+                .tag("direction", context.getDirection().name())
+                .start();
+            spans.stepScope = tracer.withSpanInScope(spans.stepSpan);
+        }
+        return HookAction.CONTINUE;
+    }
+
+    @Override
+    public HookAction endStep(FlightContext context) {
+        FlightSpans spans = flightSpans.get(context.getFlightId());
+        if (spans != null) {
+            finishStep(spans);
+        }
+        return HookAction.CONTINUE;
+    }
+
+    @Override
+    public HookAction endFlight(FlightContext context) {
+        FlightSpans spans = flightSpans.remove(context.getFlightId());
+        if (spans != null) {
+            finishStep(spans);
+            spans.flightSpan.tag("status", String.valueOf(context.getFlightStatus())).finish();
+        }
+        return HookAction.CONTINUE;
+    }
+
+    // The step scope is closed on the thread that opened it: a step starts and ends on the same thread
+    private static void finishStep(FlightSpans spans) {
+        if (spans.stepScope != null) {
+            spans.stepScope.close();
+            spans.stepScope = null;
+        }
+        if (spans.stepSpan != null) {
+            spans.stepSpan.finish();
+            spans.stepSpan = null;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package bio.terra.service.load;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides how many file load flights the bulk load driver keeps in flight, using additive-increase,
+ * multiplicative-decrease (AIMD) on what it observes about the loads it has launched.
+ * <p>
+ * The limit is kept per pod, so that it scales with the number of pods the way LOAD_CONCURRENT_FILES
+ * always has. The driver records each finished load and the age of each load still waiting in the Stairway
+ * queue. Once per evaluation window, the controller:
+ * <ul>
+ *     <li>decreases the limit multiplicatively if too many loads failed, if loads sat in the queue too long,
+ *     or if loads took much longer than the best window seen so far. Long loads are how Firestore transaction
+ *     retries and GCS copy slowdowns show up from the driver's point of view. Load times are compared within a
+ *     size class, large or small, so a window in which large files finish does not look slow next to one of
+ *     small files.</li>
+ *     <li>increases the limit by one per pod if the driver was using the whole limit and throughput did not
+ *     drop compared to the previous window.</li>
+ *     <li>otherwise holds the limit.</li>
+ * </ul>
+ * The limit always stays within the floor and ceiling. This class is not thread safe; it is owned by a single
+ * driver step.
+ */
+public class LoadConcurrencyController {
+
+    public enum Decision {
+        INCREASE,
+        DECREASE,
+        HOLD
+    }
+
+    // How often to reconsider the limit
+    static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+    // Fraction of finished loads that may fail in a window before backing off
+    static final double MAX_FAILURE_RATIO = 0.1;
+    // Longest a load may wait in the Stairway queue before backing off
+    static final Duration MAX_QUEUE_LATENCY = Duration.ofSeconds(30);
+    // How much slower than the best window seen the mean load time may be before backing off
+    static final double MAX_LOAD_TIME_FACTOR = 3.0;
+    // Multiplier applied to the limit on a decrease
+    static final double DECREASE_FACTOR = 0.75;
+    // Throughput may drop this much and still count as "not worse" for an increase
+    static final double RATE_TOLERANCE = 0.9;
+
+    private final int floorPerPod;
+    private final int ceilingPerPod;
+    private double limitPerPod;
+
+    private long windowStartNanos;
+    private int windowSucceeded;
+    private int windowFailed;
+    private Duration windowMaxQueueLatency = Duration.ZERO;
+    private final LoadTimes smallLoadTimes = new LoadTimes();
+    private final LoadTimes largeLoadTimes = new LoadTimes();
+
+    private double lastRate = -1.0;
+
+    // Load times of one size class: the current window and the best window seen
+    private static final class LoadTimes {
+        private int windowFinished;
+        private long windowLoadNanos;
+        private double bestMeanLoadNanos = -1.0;
+
+        private double windowMean() {
+            return (windowFinished == 0) ? -1.0 : windowLoadNanos / (double) windowFinished;
+        }
+
+        private boolean isSlow() {
+            double mean = windowMean();
+            return bestMeanLoadNanos > 0 && mean > bestMeanLoadNanos * MAX_LOAD_TIME_FACTOR;
+        }
+
+        private void updateBest() {
+            double mean = windowMean();
+            if (mean > 0 && (bestMeanLoadNanos < 0 || mean < bestMeanLoadNanos)) {
+                bestMeanLoadNanos = mean;
+            }
+        }
+
+        private void resetWindow() {
+            windowFinished = 0;
+            windowLoadNanos = 0;
+        }
+    }
+
+    /**
+     * @param initialPerPod starting number of concurrent loads per pod
+     * @param floorPerPod   fewest concurrent loads per pod
+     * @param ceilingPerPod most concurrent loads per pod
+     * @param nowNanos      current {@link System#nanoTime()}; starts the first window
+     */
+    public LoadConcurrencyController(int initialPerPod, int floorPerPod, int ceilingPerPod, long nowNanos) {
+        this.floorPerPod = Math.max(1, floorPerPod);
+        this.ceilingPerPod = Math.max(this.floorPerPod, ceilingPerPod);
+        this.limitPerPod = clamp(initialPerPod);
+        this.windowStartNanos = nowNanos;
+    }
+
+    /**
+     * @param podCount number of active pods
+     * @return number of loads the driver should keep in flight
+     */
+    public int getLimit(int podCount) {
+        return Math.max(1, (int) Math.round(limitPerPod * Math.max(1, podCount)));
+    }
+
+    /**
+     * Record a small file load that finished in this window.
+     *
+     * @param loadTime time from the load flight starting to run until it completed
+     * @param failed   true if the load flight failed
+     */
+    public void recordFinished(Duration loadTime, boolean failed) {
+        recordFinished(loadTime, failed, false);
+    }
+
+    /**
+     * Record a load that finished in this window.
+     *
+     * @param loadTime time from the load flight starting to run until it completed
+     * @param failed   true if the load flight failed
+     * @param large    true if the file is in the large size class; files of unknown size count as small
+     */
+    public void recordFinished(Duration loadTime, boolean failed, boolean large) {
+        if (failed) {
+            windowFailed++;
+        } else {
+            windowSucceeded++;
+        }
+        LoadTimes loadTimes = large ? largeLoadTimes : smallLoadTimes;
+        loadTimes.windowFinished++;
+        loadTimes.windowLoadNanos += loadTime.toNanos();
+    }
+
+    /**
+     * Record a load flight that has been submitted but not yet picked up by a Stairway thread.
+     *
+     * @param age time since the load flight was submitted
+     */
+    public void recordQueued(Duration age) {
+        if (age.compareTo(windowMaxQueueLatency) > 0) {
+            windowMaxQueueLatency = age;
+        }
+    }
+
+    /**
+     * @param nowNanos current {@link System#nanoTime()}
+     * @return true if the current window is over, so the next {@link #adjust} reconsiders the limit
+     */
+    public boolean isWindowOver(long nowNanos) {
+        return nowNanos - windowStartNanos >= WINDOW_NANOS;
+    }
+
+    /**
+     * Reconsider the limit if the current window is over; otherwise hold.
+     *
+     * @param nowNanos     current {@link System#nanoTime()}
+     * @param runningLoads number of loads in flight right now
+     * @param podCount     number of active pods
+     * @return what was done to the limit
+     */
+    public Decision adjust(long nowNanos, int runningLoads, int podCount) {
+        if (!isWindowOver(nowNanos)) {
+            return Decision.HOLD;
+        }
+        long elapsedNanos = nowNanos - windowStartNanos;
+
+        int finished = windowSucceeded + windowFailed;
+        double rate = windowSucceeded / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+
+        Decision decision = Decision.HOLD;
+        if (shouldDecrease(finished)) {
+            decision = Decision.DECREASE;
+            limitPerPod = clamp(limitPerPod * DECREASE_FACTOR);
+        } else if (runningLoads >= getLimit(podCount) && windowSucceeded > 0 && rate >= lastRate * RATE_TOLERANCE) {
+            decision = Decision.INCREASE;
+            limitPerPod = clamp(limitPerPod + 1.0);
+        }
+
+        // Only a window with no failures and no queueing counts toward the best load time
+        if (windowFailed == 0 && windowMaxQueueLatency.compareTo(MAX_QUEUE_LATENCY) <= 0) {
+            smallLoadTimes.updateBest();
+            largeLoadTimes.updateBest();
+        }
+        if (finished > 0) {
+            lastRate = rate;
+        }
+        resetWindow(nowNanos);
+        return decision;
+    }
+
+    private boolean shouldDecrease(int finished) {
+        if (finished > 0 && windowFailed / (double) finished > MAX_FAILURE_RATIO) {
+            return true;
+        }
+        if (windowMaxQueueLatency.compareTo(MAX_QUEUE_LATENCY) > 0) {
+            return true;
+        }
+        return smallLoadTimes.isSlow() || largeLoadTimes.isSlow();
+    }
+
+    private void resetWindow(long nowNanos) {
+        windowStartNanos = nowNanos;
+        windowSucceeded = 0;
+        windowFailed = 0;
+        smallLoadTimes.resetWindow();
+        largeLoadTimes.resetWindow();
+        windowMaxQueueLatency = Duration.ZERO;
+    }
+
+    private double clamp(double perPod) {
+        return Math.min(ceilingPerPod, Math.max(floorPerPod, perPod));
+    }
+
+    public double getLimitPerPod() {
+        return limitPerPod;
+    }
+
+    public int getFloorPerPod() {
+        return floorPerPod;
+    }
+
+    public int getCeilingPerPod() {
+        return ceilingPerPod;
+    }
+}
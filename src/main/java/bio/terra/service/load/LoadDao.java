@@ -9,13 +9,17 @@ import bio.terra.model.BulkLoadResultModel;
 import bio.terra.model.BulkLoadHistoryModel;
 import bio.terra.service.configuration.ConfigurationService;
 import bio.terra.service.filedata.FSFileInfo;
+import bio.terra.service.filedata.google.firestore.FireStoreStats;
 import bio.terra.service.load.exception.LoadLockedException;
 import bio.terra.service.snapshot.exception.CorruptMetadataException;
 import org.apache.commons.codec.binary.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
@@ -25,15 +29,25 @@ import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Repository
 public class LoadDao {
     private final Logger logger = LoggerFactory.getLogger(LoadDao.class);
 
+    private static final String LOAD_FILE_COLUMNS =
+        "source_path, target_path, mime_type, description, state, flight_id, file_id, error, size_bytes";
+
     private NamedParameterJdbcTemplate jdbcTemplate;
     private ConfigurationService configService;
 
@@ -160,12 +174,20 @@ public class LoadDao {
     //  I created DR-738 to track performance measurement of file load to decide if this method should get
     //  more clever.
 
-    // Insert one batch of file load instructions into the load_file table
+    // Insert one batch of file load instructions into the load_file table. The overload is called from here,
+    // not through the Spring proxy, so this method needs its own transaction.
     @Transactional
     public void populateFiles(UUID loadId, List<BulkLoadFileModel> loadFileModelList) {
+        populateFiles(loadId, loadFileModelList, Collections.emptyMap());
+    }
+
+    // Insert one batch of file load instructions into the load_file table, recording the source object
+    // sizes we know. Sizes are keyed by source path; files without a size are stored with a null size.
+    @Transactional
+    public void populateFiles(UUID loadId, List<BulkLoadFileModel> loadFileModelList, Map<String, Long> sourceSizes) {
         final String sql = "INSERT INTO load_file " +
-            " (load_id, source_path, target_path, mime_type, description, state)" +
-            " VALUES(?,?,?,?,?,?)";
+            " (load_id, source_path, target_path, mime_type, description, state, size_bytes)" +
+            " VALUES(?,?,?,?,?,?,?)";
 
         JdbcTemplate baseJdbcTemplate = jdbcTemplate.getJdbcTemplate();
         baseJdbcTemplate.batchUpdate(sql,
@@ -177,6 +199,7 @@ public class LoadDao {
                     ps.setString(4, loadFileModelList.get(i).getMimeType());
                     ps.setString(5, loadFileModelList.get(i).getDescription());
                     ps.setString(6, BulkLoadFileState.NOT_TRIED.toString());
+                    ps.setObject(7, sourceSizes.get(loadFileModelList.get(i).getSourcePath()), Types.BIGINT);
                 }
 
                 public int getBatchSize() {
@@ -185,6 +208,51 @@ public class LoadDao {
             });
     }
 
+    /**
+     * Insert one batch of file load instructions into the load_file table using PostgreSQL COPY. This is
+     * much cheaper than a batch of INSERTs for the large batches written by the control file populate.
+     * The COPY is a single statement, so the batch is inserted all or nothing.
+     *
+     * @return number of rows inserted
+     */
+    public long copyFiles(UUID loadId, List<BulkLoadFileModel> loadFileModelList, Map<String, Long> sourceSizes) {
+        final String sql = "COPY load_file" +
+            " (load_id, source_path, target_path, mime_type, description, state, size_bytes)" +
+            " FROM STDIN WITH (FORMAT csv)";
+
+        StringBuilder csv = new StringBuilder();
+        String loadIdString = loadId.toString();
+        String state = BulkLoadFileState.NOT_TRIED.toString();
+        for (BulkLoadFileModel loadFile : loadFileModelList) {
+            Long size = sourceSizes.get(loadFile.getSourcePath());
+            appendCsvField(csv, loadIdString).append(',');
+            appendCsvField(csv, loadFile.getSourcePath()).append(',');
+            appendCsvField(csv, loadFile.getTargetPath()).append(',');
+            appendCsvField(csv, loadFile.getMimeType()).append(',');
+            appendCsvField(csv, loadFile.getDescription()).append(',');
+            appendCsvField(csv, state).append(',');
+            appendCsvField(csv, (size == null) ? null : size.toString()).append('\n');
+        }
+
+        Long rows = jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Long>) connection -> {
+            try {
+                CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+                return copyManager.copyIn(sql, new StringReader(csv.toString()));
+            } catch (IOException ex) {
+                throw new SQLException("Failed to copy load files", ex);
+            }
+        });
+        return (rows == null) ? 0 : rows;
+    }
+
+    // In CSV format, an unquoted empty field is NULL and a quoted field is a string with quotes doubled
+    private static StringBuilder appendCsvField(StringBuilder csv, String value) {
+        if (value == null) {
+            return csv;
+        }
+        return csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
     // Remove all file load instructions for a given loadId from the load_file table
     public void cleanFiles(UUID loadId) {
         jdbcTemplate.update("DELETE FROM load_file WHERE load_id = :load_id",
@@ -197,6 +265,24 @@ public class LoadDao {
 
     @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.SERIALIZABLE)
     public LoadCandidates findCandidates(UUID loadId, int candidatesToFind) {
+        return findCandidates(loadId, candidatesToFind, Long.MAX_VALUE, candidatesToFind);
+    }
+
+    /**
+     * Find the running loads and up to candidatesToFind NOT_TRIED files to load next. Candidates are handed
+     * out largest first, so that big copies start early instead of running alone at the end of the load.
+     * Files of at least largeFileBytes form a separate size class: at most maxLargeRunning of them may be
+     * running at once, and the rest of the candidates are filled from the smaller files. Files whose size
+     * was not captured count as small.
+     *
+     * @param largeFileBytes  size at which a file is in the large class
+     * @param maxLargeRunning most large files that may be running at once
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.SERIALIZABLE)
+    public LoadCandidates findCandidates(UUID loadId,
+                                         int candidatesToFind,
+                                         long largeFileBytes,
+                                         int maxLargeRunning) {
         final String countFailedSql = "SELECT count(*) AS failed FROM load_file" +
             " WHERE load_id = :load_id AND state = :state";
         MapSqlParameterSource params = new MapSqlParameterSource();
@@ -208,7 +294,21 @@ public class LoadDao {
         }
 
         List<LoadFile> runningLoads = queryByState(loadId, BulkLoadFileState.RUNNING, null);
-        List<LoadFile> candidateFiles = queryByState(loadId, BulkLoadFileState.NOT_TRIED, candidatesToFind);
+
+        long runningLarge = runningLoads.stream()
+            .filter(load -> load.getSizeBytes() != null && load.getSizeBytes() >= largeFileBytes)
+            .count();
+        int largeToFind = (int) Math.max(0, Math.min(candidatesToFind, maxLargeRunning - runningLarge));
+        List<LoadFile> candidateFiles = new ArrayList<>();
+        if (largeToFind > 0) {
+            candidateFiles.addAll(queryCandidates(loadId, " AND size_bytes >= :large_bytes",
+                largeFileBytes, largeToFind));
+        }
+        int smallToFind = candidatesToFind - candidateFiles.size();
+        if (smallToFind > 0) {
+            candidateFiles.addAll(queryCandidates(loadId, " AND (size_bytes IS NULL OR size_bytes < :large_bytes)",
+                largeFileBytes, smallToFind));
+        }
 
         return new LoadCandidates()
             .runningLoads(runningLoads)
@@ -216,6 +316,32 @@ public class LoadDao {
             .failedLoads(failedFiles);
     }
 
+    /**
+     * Page through the NOT_TRIED files of a load in target path order. Changing the state of the returned
+     * files does not disturb the paging.
+     *
+     * @param loadId          load to page through
+     * @param afterTargetPath return files after this target path; null to start at the beginning
+     * @param limit           most files to return
+     * @return next page of NOT_TRIED files; empty when there are no more
+     */
+    public List<LoadFile> findNotTriedAfter(UUID loadId, String afterTargetPath, int limit) {
+        String sql = "SELECT " + LOAD_FILE_COLUMNS +
+            " FROM load_file WHERE load_id = :load_id AND state = :state";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("load_id", loadId)
+            .addValue("state", BulkLoadFileState.NOT_TRIED.toString())
+            .addValue("limit", limit);
+
+        if (afterTargetPath != null) {
+            sql = sql + " AND target_path > :after_target_path";
+            params.addValue("after_target_path", afterTargetPath);
+        }
+        sql = sql + " ORDER BY target_path LIMIT :limit";
+
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> makeLoadFile(loadId, rs));
+    }
+
     public void setLoadFileNotTried(UUID loadId, String targetPath) {
         updateLoadFile(loadId, targetPath, BulkLoadFileState.NOT_TRIED, null, null, null, null);
     }
@@ -232,6 +358,30 @@ public class LoadDao {
         updateLoadFile(loadId, targetPath, BulkLoadFileState.FAILED, null, null, error, null);
     }
 
+    /**
+     * Mark files succeeded in one batch of updates.
+     *
+     * @param fileInfos info of the file now at each target path, keyed by target path
+     */
+    public void setLoadFilesSucceeded(UUID loadId, Map<String, FSFileInfo> fileInfos) {
+        updateLoadFiles(fileInfos.entrySet().stream()
+            .map(entry -> updateLoadFileParams(loadId, entry.getKey(), BulkLoadFileState.SUCCEEDED,
+                entry.getValue().getFileId(), entry.getValue(), null, null))
+            .toArray(MapSqlParameterSource[]::new));
+    }
+
+    /**
+     * Mark files failed in one batch of updates.
+     *
+     * @param errors why each file failed, keyed by target path
+     */
+    public void setLoadFilesFailed(UUID loadId, Map<String, String> errors) {
+        updateLoadFiles(errors.entrySet().stream()
+            .map(entry -> updateLoadFileParams(loadId, entry.getKey(), BulkLoadFileState.FAILED,
+                null, null, entry.getValue(), null))
+            .toArray(MapSqlParameterSource[]::new));
+    }
+
     public BulkLoadResultModel makeBulkLoadResult(UUID loadId) {
         final String bulkLoadResultSql = "SELECT state, count(*) AS statecount FROM load_file" +
             " WHERE load_id = :load_id GROUP BY state";
@@ -279,6 +429,51 @@ public class LoadDao {
             });
     }
 
+    /**
+     * Add to the Firestore totals of the file loads of a load
+     */
+    public void addFireStoreStats(UUID loadId, FireStoreStats stats) {
+        final String sql = "UPDATE load SET" +
+            " fs_rpc_count = fs_rpc_count + :rpc_count," +
+            " fs_documents_read = fs_documents_read + :documents_read," +
+            " fs_documents_written = fs_documents_written + :documents_written," +
+            " fs_transaction_attempts = fs_transaction_attempts + :transaction_attempts," +
+            " fs_transaction_aborts = fs_transaction_aborts + :transaction_aborts," +
+            " fs_retries = fs_retries + :retries" +
+            " WHERE id = :id";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("rpc_count", stats.getRpcCount())
+            .addValue("documents_read", stats.getDocumentsRead())
+            .addValue("documents_written", stats.getDocumentsWritten())
+            .addValue("transaction_attempts", stats.getTransactionAttempts())
+            .addValue("transaction_aborts", stats.getTransactionAborts())
+            .addValue("retries", stats.getRetries())
+            .addValue("id", loadId);
+        jdbcTemplate.update(sql, params);
+    }
+
+    /**
+     * @return the Firestore totals of the file loads of a load; empty if the load is not found
+     */
+    public FireStoreStats retrieveFireStoreStats(UUID loadId) {
+        final String sql = "SELECT fs_rpc_count, fs_documents_read, fs_documents_written," +
+            " fs_transaction_attempts, fs_transaction_aborts, fs_retries FROM load WHERE id = :id";
+        List<FireStoreStats> stats = jdbcTemplate.query(
+            sql,
+            new MapSqlParameterSource().addValue("id", loadId),
+            (rs, rowNum) -> {
+                FireStoreStats row = new FireStoreStats();
+                row.setRpcCount(rs.getLong("fs_rpc_count"));
+                row.setDocumentsRead(rs.getLong("fs_documents_read"));
+                row.setDocumentsWritten(rs.getLong("fs_documents_written"));
+                row.setTransactionAttempts(rs.getLong("fs_transaction_attempts"));
+                row.setTransactionAborts(rs.getLong("fs_transaction_aborts"));
+                row.setRetries(rs.getLong("fs_retries"));
+                return row;
+            });
+        return stats.isEmpty() ? new FireStoreStats() : stats.get(0);
+    }
+
     public List<BulkLoadFileResultModel> makeBulkLoadFileArray(UUID loadId) {
         final String sql = "SELECT source_path, target_path, state, file_id, error" +
             " FROM load_file WHERE load_id = :load_id";
@@ -321,7 +516,7 @@ public class LoadDao {
 
     // -- private methods --
     private List<LoadFile> queryByState(UUID loadId, BulkLoadFileState state, Integer limit) {
-        String sql = "SELECT source_path, target_path, mime_type, description, state, flight_id, file_id, error" +
+        String sql = "SELECT " + LOAD_FILE_COLUMNS +
             " FROM load_file WHERE load_id = :load_id AND state = :state";
         MapSqlParameterSource params = new MapSqlParameterSource()
             .addValue("load_id", loadId)
@@ -332,19 +527,43 @@ public class LoadDao {
             params.addValue("limit", limit);
         }
 
-        return jdbcTemplate.query(sql, params, (rs, rowNum) ->
-            new LoadFile()
-                .loadId(loadId)
-                .sourcePath(rs.getString("source_path"))
-                .targetPath(rs.getString("target_path"))
-                .mimeType(rs.getString("mime_type"))
-                .description(rs.getString("description"))
-                .state(BulkLoadFileState.fromValue(rs.getString("state")))
-                .flightId(rs.getString("flight_id"))
-                .fileId(rs.getString("file_id"))
-                .error(rs.getString("error")));
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> makeLoadFile(loadId, rs));
+    }
+
+    // NOT_TRIED files in one size class, largest first; files without a size come last
+    private List<LoadFile> queryCandidates(UUID loadId, String sizeClause, long largeFileBytes, int limit) {
+        String sql = "SELECT " + LOAD_FILE_COLUMNS +
+            " FROM load_file WHERE load_id = :load_id AND state = :state" + sizeClause +
+            " ORDER BY size_bytes DESC NULLS LAST LIMIT :limit";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("load_id", loadId)
+            .addValue("state", BulkLoadFileState.NOT_TRIED.toString())
+            .addValue("large_bytes", largeFileBytes)
+            .addValue("limit", limit);
+
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> makeLoadFile(loadId, rs));
+    }
+
+    private LoadFile makeLoadFile(UUID loadId, ResultSet rs) throws SQLException {
+        return new LoadFile()
+            .loadId(loadId)
+            .sourcePath(rs.getString("source_path"))
+            .targetPath(rs.getString("target_path"))
+            .mimeType(rs.getString("mime_type"))
+            .description(rs.getString("description"))
+            .state(BulkLoadFileState.fromValue(rs.getString("state")))
+            .flightId(rs.getString("flight_id"))
+            .fileId(rs.getString("file_id"))
+            .error(rs.getString("error"))
+            .sizeBytes(rs.getObject("size_bytes", Long.class));
     }
 
+    private static final String updateLoadFileSql = "UPDATE load_file" +
+        " SET state = :state, file_id = :file_id, flight_id = :flight_id," +
+        " checksum_crc32c = :checksum_crc, checksum_md5 = :checksum_md5," +
+        " error = :error" +
+        " WHERE load_id = :load_id AND target_path = :target_path";
+
     private void updateLoadFile(UUID loadId,
                                 String targetPath,
                                 BulkLoadFileState state,
@@ -352,18 +571,30 @@ public class LoadDao {
                                 FSFileInfo fileInfo,
                                 String error,
                                 String flightId) {
+        jdbcTemplate.update(updateLoadFileSql,
+            updateLoadFileParams(loadId, targetPath, state, fileId, fileInfo, error, flightId));
+    }
+
+    private void updateLoadFiles(MapSqlParameterSource[] batchParams) {
+        if (batchParams.length > 0) {
+            jdbcTemplate.batchUpdate(updateLoadFileSql, batchParams);
+        }
+    }
+
+    private static MapSqlParameterSource updateLoadFileParams(UUID loadId,
+                                                              String targetPath,
+                                                              BulkLoadFileState state,
+                                                              String fileId,
+                                                              FSFileInfo fileInfo,
+                                                              String error,
+                                                              String flightId) {
         String checksumCRC = null;
         String checksumMD5 = null;
         if (fileInfo != null) {
             checksumCRC = fileInfo.getChecksumCrc32c();
             checksumMD5 = fileInfo.getChecksumMd5();
         }
-        final String sql = "UPDATE load_file" +
-            " SET state = :state, file_id = :file_id, flight_id = :flight_id," +
-            " checksum_crc32c = :checksum_crc, checksum_md5 = :checksum_md5," +
-            " error = :error" +
-            " WHERE load_id = :load_id AND target_path = :target_path";
-        MapSqlParameterSource params = new MapSqlParameterSource()
+        return new MapSqlParameterSource()
             .addValue("state", state.toString())
             .addValue("flight_id", flightId)
             .addValue("file_id", fileId)
@@ -372,7 +603,6 @@ public class LoadDao {
             .addValue("error", error)
             .addValue("load_id", loadId)
             .addValue("target_path", targetPath);
-        jdbcTemplate.update(sql, params);
     }
 
 }
@@ -16,6 +16,7 @@ public class LoadFile {
     private String flightId;
     private String fileId;
     private String error;
+    private Long sizeBytes;
 
     public UUID getLoadId() {
         return loadId;
@@ -98,6 +99,15 @@ public class LoadFile {
         return this;
     }
 
+    public Long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public LoadFile sizeBytes(Long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+        return this;
+    }
+
     @Override
     public String toString() {
         return new ToStringBuilder(this, ToStringStyle.JSON_STYLE)
@@ -107,6 +117,7 @@ public class LoadFile {
             .append("state", state)
             .append("fileId", fileId)
             .append("error", error)
+            .append("sizeBytes", sizeBytes)
             .toString();
     }
 }
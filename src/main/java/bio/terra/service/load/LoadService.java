@@ -6,6 +6,7 @@ import bio.terra.model.BulkLoadFileState;
 import bio.terra.model.BulkLoadResultModel;
 import bio.terra.model.BulkLoadHistoryModel;
 import bio.terra.service.filedata.FSFileInfo;
+import bio.terra.service.filedata.google.firestore.FireStoreStats;
 import bio.terra.service.load.exception.LoadLockFailureException;
 import bio.terra.service.load.flight.LoadMapKeys;
 import bio.terra.stairway.FlightContext;
@@ -18,6 +19,7 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Component
@@ -42,6 +44,14 @@ public class LoadService {
         loadDao.populateFiles(loadId, loadFileModelList);
     }
 
+    public void populateFiles(UUID loadId, List<BulkLoadFileModel> loadFileModelList, Map<String, Long> sourceSizes) {
+        loadDao.populateFiles(loadId, loadFileModelList, sourceSizes);
+    }
+
+    public long copyFiles(UUID loadId, List<BulkLoadFileModel> loadFileModelList, Map<String, Long> sourceSizes) {
+        return loadDao.copyFiles(loadId, loadFileModelList, sourceSizes);
+    }
+
     public void cleanFiles(UUID loadId) {
         loadDao.cleanFiles(loadId);
     }
@@ -79,6 +89,17 @@ public class LoadService {
         return loadDao.findCandidates(loadId, candidatesToFind);
     }
 
+    public LoadCandidates findCandidates(UUID loadId,
+                                         int candidatesToFind,
+                                         long largeFileBytes,
+                                         int maxLargeRunning) {
+        return loadDao.findCandidates(loadId, candidatesToFind, largeFileBytes, maxLargeRunning);
+    }
+
+    public List<LoadFile> findNotTriedAfter(UUID loadId, String afterTargetPath, int limit) {
+        return loadDao.findNotTriedAfter(loadId, afterTargetPath, limit);
+    }
+
     public void setLoadFileSucceeded(UUID loadId, String targetPath, String fileId, FSFileInfo fileInfo) {
         loadDao.setLoadFileSucceeded(loadId, targetPath, fileId, fileInfo);
     }
@@ -87,6 +108,14 @@ public class LoadService {
         loadDao.setLoadFileFailed(loadId, targetPath, error);
     }
 
+    public void setLoadFilesSucceeded(UUID loadId, Map<String, FSFileInfo> fileInfos) {
+        loadDao.setLoadFilesSucceeded(loadId, fileInfos);
+    }
+
+    public void setLoadFilesFailed(UUID loadId, Map<String, String> errors) {
+        loadDao.setLoadFilesFailed(loadId, errors);
+    }
+
     public void setLoadFileRunning(UUID loadId, String targetPath, String flightId) {
         loadDao.setLoadFileRunning(loadId, targetPath, flightId);
     }
@@ -95,8 +124,16 @@ public class LoadService {
         loadDao.setLoadFileNotTried(loadId, targetPath);
     }
 
-    public BulkLoadResultModel makeBulkLoadResult(UUID loadId) {
-        return loadDao.makeBulkLoadResult(loadId);
+    public void addFireStoreStats(UUID loadId, FireStoreStats stats) {
+        loadDao.addFireStoreStats(loadId, stats);
+    }
+
+    /**
+     * Summarize a load, with the Firestore work of its file loads and of the load flight itself
+     */
+    public BulkLoadResultModel makeBulkLoadResult(UUID loadId, FireStoreStats flightStats) {
+        FireStoreStats stats = loadDao.retrieveFireStoreStats(loadId).add(flightStats);
+        return loadDao.makeBulkLoadResult(loadId).fireStoreStats(stats.toModel());
     }
 
     public List<BulkLoadFileResultModel> makeBulkLoadFileArray(UUID loadId) {
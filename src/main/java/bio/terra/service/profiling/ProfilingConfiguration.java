@@ -0,0 +1,49 @@
+package bio.terra.service.profiling;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Where Java Flight Recorder recordings go and how big they may get. Recordings are always written to the
+ * local directory first; when a bucket is set, they are then uploaded to it and the local file is removed.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "datarepo.profiling")
+public class ProfilingConfiguration {
+    private String directory;
+    private String bucket;
+    private int maxDurationSeconds;
+    private int maxSizeMb;
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(String bucket) {
+        this.bucket = bucket;
+    }
+
+    public int getMaxDurationSeconds() {
+        return maxDurationSeconds;
+    }
+
+    public void setMaxDurationSeconds(int maxDurationSeconds) {
+        this.maxDurationSeconds = maxDurationSeconds;
+    }
+
+    public int getMaxSizeMb() {
+        return maxSizeMb;
+    }
+
+    public void setMaxSizeMb(int maxSizeMb) {
+        this.maxSizeMb = maxSizeMb;
+    }
+}
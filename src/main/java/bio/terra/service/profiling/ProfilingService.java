@@ -0,0 +1,328 @@
+package bio.terra.service.profiling;
+
+import bio.terra.app.configuration.ApplicationConfiguration;
+import bio.terra.common.exception.NotImplementedException;
+import bio.terra.model.RecordingListModel;
+import bio.terra.model.RecordingModel;
+import bio.terra.model.RecordingRequestModel;
+import bio.terra.service.filedata.google.gcs.GcsChannelWriter;
+import bio.terra.service.iam.AuthenticatedUserRequest;
+import bio.terra.service.iam.IamAction;
+import bio.terra.service.iam.IamResourceType;
+import bio.terra.service.iam.IamService;
+import bio.terra.service.job.JobService;
+import bio.terra.service.profiling.exception.RecordingFailedException;
+import bio.terra.service.profiling.exception.RecordingNotFoundException;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageOptions;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * On-demand Java Flight Recorder recordings of this pod, for profiling a pod that is slow under load without
+ * redeploying it with JVM flags. A recording uses one of the preset profiles, stops by itself after its
+ * duration, and is written to the local profiling directory and then, if a profiling bucket is configured,
+ * uploaded to GCS. The upload runs in the background; the recording is listed as uploading until it is done.
+ *
+ * Recordings are made on the pod that serves the request; to profile a particular pod, send the requests to
+ * it directly, e.g. through a port forward. Only admins may make recordings.
+ */
+@Component
+@ConditionalOnClass(name = "jdk.jfr.FlightRecorder")
+public class ProfilingService {
+    private static final Logger logger = LoggerFactory.getLogger(ProfilingService.class);
+
+    private static final int DEFAULT_DURATION_SECONDS = 60;
+    // Stopped recordings that are still listed
+    private static final int MAX_STOPPED_RECORDINGS = 20;
+    private static final int UPLOAD_CHUNK_SIZE = 8 * 1024 * 1024;
+    // Lock profile: waits shorter than this are not interesting and there are a great many of them
+    private static final Duration LOCK_THRESHOLD = Duration.ofMillis(10);
+
+    private final ProfilingConfiguration profilingConfiguration;
+    private final ApplicationConfiguration appConfig;
+    private final IamService iamService;
+    private final JobService jobService;
+    private final Map<Long, RecordingInfo> recordings = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService stopExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "recording-stop");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Uploads can take a while for a large recording, so they do not run on the thread that stops it
+    private final ExecutorService uploadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "recording-upload");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Runnable runningFlightsHook = this::emitRunningFlights;
+
+    // What we know about a recording. The model is replaced, not changed, so it can be read without locking.
+    private static final class RecordingInfo {
+        private final Recording recording;
+        private final Path path;
+        private volatile RecordingModel model;
+
+        private RecordingInfo(Recording recording, Path path, RecordingModel model) {
+            this.recording = recording;
+            this.path = path;
+            this.model = model;
+        }
+    }
+
+    @Autowired
+    public ProfilingService(ProfilingConfiguration profilingConfiguration,
+                            ApplicationConfiguration appConfig,
+                            IamService iamService,
+                            JobService jobService) {
+        this.profilingConfiguration = profilingConfiguration;
+        this.appConfig = appConfig;
+        this.iamService = iamService;
+        this.jobService = jobService;
+    }
+
+    @PostConstruct
+    public void registerEvents() {
+        if (FlightRecorder.isAvailable()) {
+            FlightRecorder.addPeriodicEvent(RunningFlightsEvent.class, runningFlightsHook);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopExecutor.shutdownNow();
+        for (RecordingInfo info : recordings.values()) {
+            stop(info);
+        }
+        // Uploads already queued go on while the JVM lives; a recording that is not uploaded stays on local disk
+        uploadExecutor.shutdown();
+        if (FlightRecorder.isAvailable()) {
+            FlightRecorder.removePeriodicEvent(runningFlightsHook);
+        }
+    }
+
+    public RecordingModel startRecording(RecordingRequestModel request, AuthenticatedUserRequest userReq) {
+        verifyAdmin(userReq);
+        if (!FlightRecorder.isAvailable()) {
+            throw new NotImplementedException("Java Flight Recorder is not available in this JVM");
+        }
+
+        int durationSeconds = (request.getDurationSeconds() == null)
+            ? DEFAULT_DURATION_SECONDS : request.getDurationSeconds();
+        durationSeconds = Math.min(durationSeconds, profilingConfiguration.getMaxDurationSeconds());
+        String profile = request.getProfile().toString();
+
+        Recording recording = new Recording();
+        String name = String.format("%s-%s-%d", appConfig.getPodName(), profile, recording.getId());
+        Path path = Paths.get(profilingConfiguration.getDirectory(), name + ".jfr");
+        try {
+            Files.createDirectories(path.getParent());
+            recording.setName(name);
+            recording.setToDisk(true);
+            recording.setMaxSize(profilingConfiguration.getMaxSizeMb() * 1024L * 1024L);
+            recording.setDestination(path);
+            enableProfile(recording, request.getProfile());
+            recording.start();
+        } catch (IOException | RuntimeException ex) {
+            recording.close();
+            throw new RecordingFailedException("Unable to start recording " + name, ex);
+        }
+
+        RecordingModel model = new RecordingModel()
+            .id(recording.getId())
+            .name(name)
+            .pod(appConfig.getPodName())
+            .profile(profile)
+            .state(RecordingModel.StateEnum.RUNNING)
+            .started(Instant.now().toString())
+            .flightIds(new ArrayList<>(jobService.getActiveFlightIds()));
+        RecordingInfo info = new RecordingInfo(recording, path, model);
+        recordings.put(recording.getId(), info);
+        stopExecutor.schedule(() -> stop(info), durationSeconds, TimeUnit.SECONDS);
+        trimStoppedRecordings();
+
+        logger.info("Started {} recording {} for {} seconds", profile, name, durationSeconds);
+        return model;
+    }
+
+    public RecordingModel stopRecording(long id, AuthenticatedUserRequest userReq) {
+        verifyAdmin(userReq);
+        RecordingInfo info = recordings.get(id);
+        if (info == null) {
+            throw new RecordingNotFoundException("Recording not found: " + id);
+        }
+        return stop(info);
+    }
+
+    public RecordingListModel enumerateRecordings(AuthenticatedUserRequest userReq) {
+        verifyAdmin(userReq);
+        List<RecordingModel> items = recordings.values().stream()
+            .map(info -> info.model)
+            .sorted(Comparator.comparing(RecordingModel::getId))
+            .collect(Collectors.toList());
+        return new RecordingListModel().total(items.size()).items(items);
+    }
+
+    private void verifyAdmin(AuthenticatedUserRequest userReq) {
+        // Same check as the upgrade endpoint: currently true for stewards only
+        iamService.verifyAuthorization(
+            userReq,
+            IamResourceType.DATAREPO,
+            appConfig.getResourceId(),
+            IamAction.LIST_JOBS);
+    }
+
+    // Stopping writes the recording to its destination. The scheduled stop and a stop request may race;
+    // the first one does the work. If there is a bucket, the upload is queued and the recording is uploading
+    // until it finishes.
+    private RecordingModel stop(RecordingInfo info) {
+        synchronized (info) {
+            if (info.recording.getState() != RecordingState.RUNNING) {
+                return info.model;
+            }
+            RecordingModel model = copy(info.model)
+                .location(info.path.toString())
+                .stopped(Instant.now().toString());
+            try {
+                info.recording.stop();
+            } catch (RuntimeException ex) {
+                logger.error("Recording " + model.getName() + " failed", ex);
+                info.model = model.state(RecordingModel.StateEnum.FAILED).errorMessage(ex.getMessage());
+                return info.model;
+            } finally {
+                info.recording.close();
+            }
+
+            String bucket = profilingConfiguration.getBucket();
+            if (StringUtils.isEmpty(bucket)) {
+                info.model = model.state(RecordingModel.StateEnum.STOPPED);
+                logger.info("Recording {} written to {}", model.getName(), info.path);
+            } else {
+                info.model = model.state(RecordingModel.StateEnum.UPLOADING);
+                uploadExecutor.execute(() -> upload(info, bucket));
+            }
+            return info.model;
+        }
+    }
+
+    private void upload(RecordingInfo info, String bucket) {
+        RecordingModel model = info.model;
+        try {
+            String location = upload(info.path, bucket);
+            model = copy(model).state(RecordingModel.StateEnum.STOPPED).location(location);
+            logger.info("Recording {} uploaded to {}", model.getName(), location);
+        } catch (IOException | RuntimeException ex) {
+            logger.error("Upload of recording " + model.getName() + " failed", ex);
+            model = copy(model).state(RecordingModel.StateEnum.FAILED).errorMessage(ex.getMessage());
+        }
+        synchronized (info) {
+            info.model = model;
+        }
+    }
+
+    /**
+     * @return the gs:// path of the uploaded recording
+     */
+    private static String upload(Path path, String bucket) throws IOException {
+        String objectName = "recordings/" + path.getFileName();
+        Storage storage = StorageOptions.getDefaultInstance().getService();
+        try (GcsChannelWriter writer = new GcsChannelWriter(storage, bucket, objectName);
+             InputStream input = Files.newInputStream(path)) {
+            byte[] buffer = new byte[UPLOAD_CHUNK_SIZE];
+            for (int length = input.read(buffer); length > 0; length = input.read(buffer)) {
+                writer.write(buffer, length);
+            }
+        }
+        Files.delete(path);
+        return "gs://" + bucket + "/" + objectName;
+    }
+
+    private void trimStoppedRecordings() {
+        List<RecordingInfo> stopped = recordings.values().stream()
+            .filter(info -> info.model.getState() == RecordingModel.StateEnum.STOPPED
+                || info.model.getState() == RecordingModel.StateEnum.FAILED)
+            .sorted(Comparator.comparing(info -> info.model.getId()))
+            .collect(Collectors.toList());
+        for (int i = 0; i < stopped.size() - MAX_STOPPED_RECORDINGS; i++) {
+            recordings.remove(stopped.get(i).model.getId());
+        }
+    }
+
+    private void emitRunningFlights() {
+        Set<String> flightIds = jobService.getActiveFlightIds();
+        RunningFlightsEvent event = new RunningFlightsEvent();
+        event.flightCount = flightIds.size();
+        event.flightIds = String.join(",", flightIds);
+        event.commit();
+    }
+
+    // The profiles start from an empty recording, so they only pay for the events they need. Each also has
+    // the low rate context that makes it readable: CPU load, GC pauses and the running flights.
+    static void enableProfile(Recording recording, RecordingRequestModel.ProfileEnum profile) {
+        recording.enable("jdk.CPULoad").withPeriod(Duration.ofSeconds(1));
+        recording.enable("jdk.GarbageCollection");
+        recording.enable(RunningFlightsEvent.class).withPeriod(Duration.ofSeconds(1));
+
+        switch (profile) {
+            case CPU:
+                recording.enable("jdk.ExecutionSample").withPeriod(Duration.ofMillis(10));
+                recording.enable("jdk.NativeMethodSample").withPeriod(Duration.ofMillis(20));
+                recording.enable("jdk.ThreadCPULoad").withPeriod(Duration.ofSeconds(1));
+                break;
+            case ALLOCATION:
+                recording.enable("jdk.ObjectAllocationInNewTLAB").withStackTrace();
+                recording.enable("jdk.ObjectAllocationOutsideTLAB").withStackTrace();
+                recording.enable("jdk.GCHeapSummary");
+                break;
+            case LOCK:
+                recording.enable("jdk.JavaMonitorEnter").withThreshold(LOCK_THRESHOLD).withStackTrace();
+                recording.enable("jdk.JavaMonitorWait").withThreshold(LOCK_THRESHOLD).withStackTrace();
+                recording.enable("jdk.ThreadPark").withThreshold(LOCK_THRESHOLD).withStackTrace();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown profile: " + profile);
+        }
+    }
+
+    private static RecordingModel copy(RecordingModel model) {
+        return new RecordingModel()
+            .id(model.getId())
+            .name(model.getName())
+            .pod(model.getPod())
+            .profile(model.getProfile())
+            .state(model.getState())
+            .started(model.getStarted())
+            .stopped(model.getStopped())
+            .location(model.getLocation())
+            .flightIds(model.getFlightIds())
+            .errorMessage(model.getErrorMessage());
+    }
+}
@@ -0,0 +1,23 @@
+package bio.terra.service.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Periodic Flight Recorder event with the flights running on the pod, so samples in a recording can be
+ * matched up with the flights that were running at the time.
+ */
+@Name("bio.terra.RunningFlights")
+@Label("Running Flights")
+@Category("Data Repository")
+@Description("Stairway flights running on this pod")
+class RunningFlightsEvent extends Event {
+    @Label("Flight Count")
+    int flightCount;
+
+    @Label("Flight Ids")
+    String flightIds;
+}
@@ -0,0 +1,17 @@
+package bio.terra.service.profiling.exception;
+
+import bio.terra.common.exception.InternalServerErrorException;
+
+public class RecordingFailedException extends InternalServerErrorException {
+    public RecordingFailedException(String message) {
+        super(message);
+    }
+
+    public RecordingFailedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public RecordingFailedException(Throwable cause) {
+        super(cause);
+    }
+}
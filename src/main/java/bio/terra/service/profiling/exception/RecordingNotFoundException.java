@@ -0,0 +1,17 @@
+package bio.terra.service.profiling.exception;
+
+import bio.terra.common.exception.NotFoundException;
+
+public class RecordingNotFoundException extends NotFoundException {
+    public RecordingNotFoundException(String message) {
+        super(message);
+    }
+
+    public RecordingNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public RecordingNotFoundException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -16,7 +16,6 @@ import com.google.cloud.storage.BucketInfo;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageClass;
 import com.google.cloud.storage.StorageException;
-import com.google.cloud.storage.StorageOptions;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -299,7 +298,7 @@ public class GoogleBucketService {
      * @return a reference to the bucket as a GCS Bucket object, null if not found
      */
     private Bucket getCloudBucket(String bucketName) {
-        Storage storage = StorageOptions.getDefaultInstance().getService();
+        Storage storage = gcsProjectFactory.getDefaultStorage();
         try {
             return storage.get(bucketName);
         } catch (StorageException e) {
@@ -12,6 +12,14 @@ public class GoogleProjectResource {
     public GoogleProjectResource() {
     }
 
+    // Copy constructor for the metadata caches, which hand out copies rather than shared objects
+    public GoogleProjectResource(GoogleProjectResource other) {
+        this.id = other.id;
+        this.profileId = other.profileId;
+        this.googleProjectId = other.googleProjectId;
+        this.googleProjectNumber = other.googleProjectNumber;
+    }
+
     public UUID getId() {
         return id;
     }
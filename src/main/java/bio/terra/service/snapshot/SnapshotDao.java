@@ -2,11 +2,15 @@ package bio.terra.service.snapshot;
 
 import bio.terra.service.dataset.DatasetDao;
 import bio.terra.service.dataset.AssetSpecification;
+import bio.terra.common.MetadataCache;
 import bio.terra.common.MetadataEnumeration;
 import bio.terra.service.dataset.Dataset;
 import bio.terra.common.DaoKeyHolder;
 import bio.terra.common.DaoUtils;
+import bio.terra.common.EnumeratePageToken;
+import bio.terra.service.configuration.ConfigurationService;
 import bio.terra.service.resourcemanagement.ResourceService;
+import bio.terra.service.resourcemanagement.google.GoogleProjectResource;
 import bio.terra.service.snapshot.exception.CorruptMetadataException;
 import bio.terra.service.snapshot.exception.InvalidSnapshotException;
 import bio.terra.service.snapshot.exception.MissingRowCountsException;
@@ -35,6 +39,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
+import static bio.terra.service.configuration.ConfigEnum.METADATA_CACHE_SIZE;
+
 @Repository
 public class SnapshotDao {
     private final Logger logger = LoggerFactory.getLogger("bio.terra.service.snapshot.SnapshotDao");
@@ -45,6 +51,14 @@ public class SnapshotDao {
     private final SnapshotRelationshipDao snapshotRelationshipDao;
     private final DatasetDao datasetDao;
     private final ResourceService resourceService;
+    private final MetadataCache<Snapshot> snapshotCache;
+
+    // The snapshot row plus the summed metadata versions of its source datasets. A snapshot's sources never
+    // change and dataset versions only go up, so the sum changes whenever any source dataset changes.
+    private static final String snapshotColumns = "snapshot.*, " +
+        "(SELECT COALESCE(SUM(dataset.metadata_version), 0) FROM snapshot_source " +
+        "JOIN dataset ON dataset.id = snapshot_source.dataset_id " +
+        "WHERE snapshot_source.snapshot_id = snapshot.id) AS source_metadata_version";
 
     @Autowired
     public SnapshotDao(NamedParameterJdbcTemplate jdbcTemplate,
@@ -52,13 +66,16 @@ public class SnapshotDao {
                        SnapshotMapTableDao snapshotMapTableDao,
                        SnapshotRelationshipDao snapshotRelationshipDao,
                        DatasetDao datasetDao,
-                       ResourceService resourceService) {
+                       ResourceService resourceService,
+                       ConfigurationService configurationService) {
         this.jdbcTemplate = jdbcTemplate;
         this.snapshotTableDao = snapshotTableDao;
         this.snapshotMapTableDao = snapshotMapTableDao;
         this.snapshotRelationshipDao = snapshotRelationshipDao;
         this.datasetDao = datasetDao;
         this.resourceService = resourceService;
+        this.snapshotCache = new MetadataCache<>(
+            configurationService.getParameterValue(METADATA_CACHE_SIZE), SnapshotDao::copySnapshot);
     }
 
     /**
@@ -241,7 +258,7 @@ public class SnapshotDao {
     @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.SERIALIZABLE, readOnly = true)
     public Snapshot retrieveSnapshot(UUID snapshotId, boolean onlyRetrieveAvailable) {
         logger.debug("retrieve snapshot id: " + snapshotId);
-        String sql = "SELECT * FROM snapshot WHERE id = :id";
+        String sql = "SELECT " + snapshotColumns + " FROM snapshot WHERE id = :id";
         if (onlyRetrieveAvailable) { // exclude snapshots that are exclusively locked
             sql += " AND flightid IS NULL";
         }
@@ -272,7 +289,7 @@ public class SnapshotDao {
 
     @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.SERIALIZABLE, readOnly = true)
     public Snapshot retrieveSnapshotByName(String name) {
-        String sql = "SELECT * FROM snapshot WHERE name = :name";
+        String sql = "SELECT " + snapshotColumns + " FROM snapshot WHERE name = :name";
         MapSqlParameterSource params = new MapSqlParameterSource().addValue("name", name);
         Snapshot snapshot = retrieveWorker(sql, params);
         if (snapshot == null) {
@@ -281,18 +298,33 @@ public class SnapshotDao {
         return snapshot;
     }
 
+    /**
+     * Load a snapshot and everything hanging off of it. The snapshot query reads the snapshot's metadata
+     * version and the versions of its source datasets, which are part of the graph; when the cache holds the
+     * snapshot at those versions a copy is returned after this single query. Otherwise the graph is loaded
+     * with a fixed number of set-based queries (plus a dataset lookup per source) and cached.
+     */
     private Snapshot retrieveWorker(String sql, MapSqlParameterSource params) {
         try {
-            Snapshot snapshot = jdbcTemplate.queryForObject(sql, params, (rs, rowNum) ->
-                new Snapshot()
+            long[] metadataVersions = new long[2];
+            Snapshot snapshot = jdbcTemplate.queryForObject(sql, params, (rs, rowNum) -> {
+                metadataVersions[0] = rs.getLong("metadata_version");
+                metadataVersions[1] = rs.getLong("source_metadata_version");
+                return new Snapshot()
                     .id(rs.getObject("id", UUID.class))
                     .name(rs.getString("name"))
                     .description(rs.getString("description"))
                     .createdDate(rs.getTimestamp("created_date").toInstant())
                     .profileId(rs.getObject("profile_id", UUID.class))
-                    .projectResourceId(rs.getObject("project_resource_id", UUID.class)));
+                    .projectResourceId(rs.getObject("project_resource_id", UUID.class));
+            });
             // needed for findbugs. but really can't be null
             if (snapshot != null) {
+                Snapshot cachedSnapshot = snapshotCache.get(snapshot.getId(), metadataVersions);
+                if (cachedSnapshot != null) {
+                    return cachedSnapshot;
+                }
+
                 // retrieve the snapshot tables and relationships
                 snapshot.snapshotTables(snapshotTableDao.retrieveTables(snapshot.getId()));
                 snapshotRelationshipDao.retrieve(snapshot);
@@ -304,6 +336,7 @@ public class SnapshotDao {
                 // This is a bit sketchy filling in the object via a dao in another package.
                 // It seemed like the cleanest thing to me at the time.
                 snapshot.projectResource(resourceService.getProjectResource(snapshot.getProjectResourceId()));
+                snapshotCache.put(snapshot.getId(), snapshot, metadataVersions);
             }
             return snapshot;
         } catch (EmptyResultDataAccessException ex) {
@@ -311,6 +344,26 @@ public class SnapshotDao {
         }
     }
 
+    /**
+     * Copy a snapshot for the metadata cache. The snapshot and its project resource are copied; the table,
+     * source and relationship lists are made unmodifiable and their contents are shared, since nothing
+     * changes them after they have been loaded.
+     */
+    static Snapshot copySnapshot(Snapshot snapshot) {
+        GoogleProjectResource projectResource = snapshot.getProjectResource();
+        return new Snapshot()
+            .id(snapshot.getId())
+            .name(snapshot.getName())
+            .description(snapshot.getDescription())
+            .createdDate(snapshot.getCreatedDate())
+            .profileId(snapshot.getProfileId())
+            .projectResourceId(snapshot.getProjectResourceId())
+            .snapshotTables(Collections.unmodifiableList(snapshot.getTables()))
+            .snapshotSources(Collections.unmodifiableList(snapshot.getSnapshotSources()))
+            .relationships(Collections.unmodifiableList(snapshot.getRelationships()))
+            .projectResource((projectResource == null) ? null : new GoogleProjectResource(projectResource));
+    }
+
     private SnapshotProject retrieveSnapshotProject(String sql, MapSqlParameterSource params) {
         try {
             SnapshotProject snapshotProject = jdbcTemplate.queryForObject(sql, params, (rs, rowNum) ->
@@ -393,8 +446,29 @@ public class SnapshotDao {
         String direction,
         String filter,
         List<UUID> accessibleSnapshotIds) {
+        return retrieveSnapshots(offset, limit, sort, direction, filter, accessibleSnapshotIds, null, false);
+    }
+
+    /**
+     * Retrieve a page of the snapshots the caller can access. When a page token is supplied the page
+     * starts right after the row the token was issued for and the offset is ignored.
+     *
+     * @param estimateTotal if true, report the planner's estimate of the total instead of counting rows
+     * @return the page of summaries, the total, and a token for the following page if there is one
+     */
+    public MetadataEnumeration<SnapshotSummary> retrieveSnapshots(
+        int offset,
+        int limit,
+        String sort,
+        String direction,
+        String filter,
+        List<UUID> accessibleSnapshotIds,
+        EnumeratePageToken pageToken,
+        boolean estimateTotal) {
         logger.debug("retrieve snapshots offset: " + offset + " limit: " + limit + " sort: " + sort +
             " direction: " + direction + " filter:" + filter);
+        String keysetSort = StringUtils.defaultIfEmpty(sort, DaoUtils.DEFAULT_SORT);
+        String keysetDirection = StringUtils.defaultIfEmpty(direction, DaoUtils.DEFAULT_DIRECTION);
         MapSqlParameterSource params = new MapSqlParameterSource();
         List<String> whereClauses = new ArrayList<>();
         DaoUtils.addAuthzIdsClause(accessibleSnapshotIds, params, whereClauses);
@@ -408,20 +482,50 @@ public class SnapshotDao {
         }
 
         // get total count of objects
-        String countSql = "SELECT count(id) AS total FROM snapshot " + whereSql;
-        Integer total = jdbcTemplate.queryForObject(countSql, params, Integer.class);
+        Integer total;
+        if (estimateTotal) {
+            total = DaoUtils.estimateCount(jdbcTemplate, " FROM snapshot " + whereSql, params);
+        } else {
+            String countSql = "SELECT count(id) AS total FROM snapshot " + whereSql;
+            total = jdbcTemplate.queryForObject(countSql, params, Integer.class);
+        }
         if (total == null) {
             throw new CorruptMetadataException("Impossible null value from count");
         }
 
+        // the page token only narrows the items, not the total
+        DaoUtils.addKeysetClause(pageToken, params, whereClauses);
+        whereSql = " WHERE " + StringUtils.join(whereClauses, " AND ");
+
+        // fetch one extra row to find out whether there is a next page
         String sql = "SELECT id, name, description, created_date, profile_id FROM snapshot " + whereSql +
-            DaoUtils.orderByClause(sort, direction) + " OFFSET :offset LIMIT :limit";
-        params.addValue("offset", offset).addValue("limit", limit);
+            DaoUtils.keysetOrderByClause(keysetSort, keysetDirection) + " OFFSET :offset LIMIT :limit";
+        params.addValue("offset", (pageToken == null) ? offset : 0).addValue("limit", limit + 1);
         List<SnapshotSummary> summaries = jdbcTemplate.query(sql, params, new SnapshotSummaryMapper());
 
+        String nextPageToken = null;
+        if (summaries.size() > limit) {
+            summaries = summaries.subList(0, limit);
+            SnapshotSummary last = summaries.get(limit - 1);
+            nextPageToken = new EnumeratePageToken(keysetSort, keysetDirection, last.getId(),
+                sortValue(last, keysetSort)).encode();
+        }
+
         return new MetadataEnumeration<SnapshotSummary>()
             .items(summaries)
-            .total(total);
+            .total(total)
+            .nextPageToken(nextPageToken);
+    }
+
+    private static String sortValue(SnapshotSummary summary, String sort) {
+        switch (sort) {
+            case "name":
+                return summary.getName();
+            case "description":
+                return StringUtils.defaultString(summary.getDescription());
+            default:
+                return summary.getCreatedDate().toString();
+        }
     }
 
     @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.SERIALIZABLE, readOnly = true)
@@ -462,6 +566,12 @@ public class SnapshotDao {
         }
     }
 
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.SERIALIZABLE, readOnly = true)
+    public List<UUID> retrieveAllIds() {
+        String sql = "SELECT id FROM snapshot ORDER BY created_date";
+        return jdbcTemplate.query(sql, new MapSqlParameterSource(), (rs, rowNum) -> rs.getObject("id", UUID.class));
+    }
+
     @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.SERIALIZABLE)
     public void updateSnapshotTableRowCounts(Snapshot snapshot, Map<String, Long> tableRowCounts) {
         String sql = "UPDATE snapshot_table SET row_count = :rowCount " +
@@ -477,6 +587,9 @@ public class SnapshotDao {
                 .addValue("tableName", tableName);
             jdbcTemplate.update(sql, params);
         }
+        // row counts are part of the cached snapshot graph
+        jdbcTemplate.update("UPDATE snapshot SET metadata_version = metadata_version + 1 WHERE id = :id",
+            new MapSqlParameterSource().addValue("id", snapshot.getId()));
     }
 
     private static class SnapshotSummaryMapper implements RowMapper<SnapshotSummary> {
@@ -10,11 +10,17 @@ import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Repository
 public class SnapshotMapTableDao {
@@ -62,11 +68,11 @@ public class SnapshotMapTableDao {
     public List<SnapshotMapTable> retrieveMapTables(Snapshot snapshot, SnapshotSource source) {
         String sql = "SELECT id, source_id, from_table_id, to_table_id" +
                 " FROM snapshot_map_table WHERE source_id = :source_id";
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("source_id", source.getId());
         List<SnapshotMapTable> mapTableList = jdbcTemplate.query(
             sql,
-            new MapSqlParameterSource().addValue("source_id", source.getId()),
+            params,
             (rs, rowNum) -> {
-                List<SnapshotMapTable> mapTables = new ArrayList<>();
                 UUID fromTableId = rs.getObject("from_table_id", UUID.class);
                 Optional<DatasetTable> datasetTable = source.getDataset().getTableById(fromTableId);
                 if (!datasetTable.isPresent()) {
@@ -81,16 +87,30 @@ public class SnapshotMapTableDao {
                             "Snapshot table referenced by snapshot source map table was not found!");
                 }
 
-                UUID id = rs.getObject("id", UUID.class);
-                List<SnapshotMapColumn> mapColumns = retrieveMapColumns(id, datasetTable.get(), snapshotTable.get());
-
                 return new SnapshotMapTable()
-                        .id(id)
+                        .id(rs.getObject("id", UUID.class))
                         .fromTable(datasetTable.get())
-                        .toTable(snapshotTable.get())
-                        .snapshotMapColumns(mapColumns);
+                        .toTable(snapshotTable.get());
             });
 
+        // Fetch the map columns of all of the source's map tables in one query
+        Map<UUID, SnapshotMapTable> mapTablesById = mapTableList.stream()
+            .collect(Collectors.toMap(SnapshotMapTable::getId, Function.identity()));
+        Map<UUID, List<SnapshotMapColumn>> mapColumnsByTable = new HashMap<>();
+        String columnSql = "SELECT snapshot_map_column.id, snapshot_map_column.map_table_id," +
+                " snapshot_map_column.from_column_id, snapshot_map_column.to_column_id" +
+                " FROM snapshot_map_column" +
+                " JOIN snapshot_map_table ON snapshot_map_column.map_table_id = snapshot_map_table.id" +
+                " WHERE snapshot_map_table.source_id = :source_id";
+        jdbcTemplate.query(columnSql, params, rs -> {
+            UUID mapTableId = rs.getObject("map_table_id", UUID.class);
+            SnapshotMapTable mapTable = mapTablesById.get(mapTableId);
+            SnapshotMapColumn mapColumn = makeMapColumn(rs, mapTable.getFromTable(), mapTable.getToTable());
+            mapColumnsByTable.computeIfAbsent(mapTableId, k -> new ArrayList<>()).add(mapColumn);
+        });
+        mapTableList.forEach(mapTable ->
+            mapTable.snapshotMapColumns(mapColumnsByTable.getOrDefault(mapTable.getId(), new ArrayList<>())));
+
         return mapTableList;
     }
 
@@ -101,28 +121,30 @@ public class SnapshotMapTableDao {
         List<SnapshotMapColumn> mapColumns = jdbcTemplate.query(
             sql,
             new MapSqlParameterSource().addValue("map_table_id", mapTableId),
-            (rs, rowNum) -> {
-                UUID fromId = rs.getObject("from_column_id", UUID.class);
-                Optional<Column> datasetColumn = fromTable.getColumnById(fromId);
-                if (!datasetColumn.isPresent()) {
-                    throw new CorruptMetadataException(
-                            "Dataset column referenced by snapshot source map column was not found");
-                }
+            (rs, rowNum) -> makeMapColumn(rs, fromTable, toTable));
 
-                UUID toId = rs.getObject("to_column_id", UUID.class);
-                Optional<Column> snapshotColumn = toTable.getColumnById(toId);
-                if (!snapshotColumn.isPresent()) {
-                    throw new CorruptMetadataException(
-                            "Snapshot column referenced by snapshot source map column was not found");
-                }
+        return mapColumns;
+    }
 
-                return new SnapshotMapColumn()
-                        .id(rs.getObject("from_column_id", UUID.class))
-                        .fromColumn(datasetColumn.get())
-                        .toColumn(snapshotColumn.get());
-            });
+    private SnapshotMapColumn makeMapColumn(ResultSet rs, Table fromTable, Table toTable) throws SQLException {
+        UUID fromId = rs.getObject("from_column_id", UUID.class);
+        Optional<Column> datasetColumn = fromTable.getColumnById(fromId);
+        if (!datasetColumn.isPresent()) {
+            throw new CorruptMetadataException(
+                    "Dataset column referenced by snapshot source map column was not found");
+        }
 
-        return mapColumns;
+        UUID toId = rs.getObject("to_column_id", UUID.class);
+        Optional<Column> snapshotColumn = toTable.getColumnById(toId);
+        if (!snapshotColumn.isPresent()) {
+            throw new CorruptMetadataException(
+                    "Snapshot column referenced by snapshot source map column was not found");
+        }
+
+        return new SnapshotMapColumn()
+                .id(rs.getObject("from_column_id", UUID.class))
+                .fromColumn(datasetColumn.get())
+                .toColumn(snapshotColumn.get());
     }
 
 }
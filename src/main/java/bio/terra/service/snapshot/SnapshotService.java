@@ -2,6 +2,7 @@ package bio.terra.service.snapshot;
 
 import bio.terra.app.controller.exception.ValidationException;
 import bio.terra.common.Column;
+import bio.terra.common.EnumeratePageToken;
 import bio.terra.common.MetadataEnumeration;
 import bio.terra.common.Relationship;
 import bio.terra.common.Table;
@@ -127,16 +128,37 @@ public class SnapshotService {
         String direction,
         String filter,
         List<UUID> resources) {
+        return enumerateSnapshots(offset, limit, sort, direction, filter, resources, null, false);
+    }
+
+    /**
+     * Enumerate a page of snapshots, continuing after the position in the page token if one is given
+     * @param pageToken decoded token from a previous page or null to start at the offset
+     * @param estimateTotal report an estimated rather than exact total
+     * @return list of summary models of snapshot and a token for the next page
+     */
+    public EnumerateSnapshotModel enumerateSnapshots(
+        int offset,
+        int limit,
+        String sort,
+        String direction,
+        String filter,
+        List<UUID> resources,
+        EnumeratePageToken pageToken,
+        boolean estimateTotal) {
         if (resources.isEmpty()) {
             return new EnumerateSnapshotModel().total(0);
         }
         MetadataEnumeration<SnapshotSummary> enumeration = snapshotDao.retrieveSnapshots(offset, limit, sort, direction,
-            filter, resources);
+            filter, resources, pageToken, estimateTotal);
         List<SnapshotSummaryModel> models = enumeration.getItems()
                 .stream()
                 .map(this::makeSummaryModelFromSummary)
                 .collect(Collectors.toList());
-        return new EnumerateSnapshotModel().items(models).total(enumeration.getTotal());
+        return new EnumerateSnapshotModel()
+            .items(models)
+            .total(enumeration.getTotal())
+            .nextPageToken(enumeration.getNextPageToken());
     }
 
     /**
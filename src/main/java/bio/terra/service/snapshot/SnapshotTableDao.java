@@ -2,15 +2,19 @@ package bio.terra.service.snapshot;
 
 import bio.terra.common.DaoKeyHolder;
 import bio.terra.common.Column;
-import bio.terra.common.Table;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Repository
 public class SnapshotTableDao {
@@ -21,8 +25,11 @@ public class SnapshotTableDao {
         "(table_id, name, type, array_of) VALUES (:table_id, :name, :type, :array_of)";
     private static final String sqlSelectTable = "SELECT id, name, row_count FROM snapshot_table " +
         "WHERE parent_id = :parent_id";
-    private static final String sqlSelectColumn = "SELECT id, name, type, array_of FROM snapshot_column " +
-        "WHERE table_id = :table_id";
+    private static final String sqlSelectColumns =
+        "SELECT snapshot_column.id, snapshot_column.table_id, snapshot_column.name, snapshot_column.type, " +
+        "snapshot_column.array_of FROM snapshot_column " +
+        "JOIN snapshot_table ON snapshot_column.table_id = snapshot_table.id " +
+        "WHERE snapshot_table.parent_id = :parent_id";
 
     private final NamedParameterJdbcTemplate jdbcTemplate;
 
@@ -59,27 +66,33 @@ public class SnapshotTableDao {
         }
     }
 
+    /**
+     * Retrieve all of the tables of a snapshot along with their columns, fetching the columns of every
+     * table with one query.
+     */
     public List<SnapshotTable> retrieveTables(UUID parentId) {
         MapSqlParameterSource params = new MapSqlParameterSource().addValue("parent_id", parentId);
-        return jdbcTemplate.query(sqlSelectTable, params, (rs, rowNum) -> {
-            SnapshotTable table = new SnapshotTable()
+        List<SnapshotTable> tables = jdbcTemplate.query(sqlSelectTable, params, (rs, rowNum) ->
+            new SnapshotTable()
                 .id(rs.getObject("id", UUID.class))
                 .name(rs.getString("name"))
-                .rowCount(rs.getLong("row_count"));
-            List<Column> columns = retrieveColumns(table);
-            return table.columns(columns);
+                .rowCount(rs.getLong("row_count")));
+
+        Map<UUID, SnapshotTable> tablesById = tables.stream()
+            .collect(Collectors.toMap(SnapshotTable::getId, Function.identity()));
+        Map<UUID, List<Column>> columnsByTable = new HashMap<>();
+        jdbcTemplate.query(sqlSelectColumns, params, rs -> {
+            UUID tableId = rs.getObject("table_id", UUID.class);
+            Column column = new Column()
+                .id(rs.getObject("id", UUID.class))
+                .table(tablesById.get(tableId))
+                .name(rs.getString("name"))
+                .type(rs.getString("type"))
+                .arrayOf(rs.getBoolean("array_of"));
+            columnsByTable.computeIfAbsent(tableId, k -> new ArrayList<>()).add(column);
         });
-    }
 
-    private List<Column> retrieveColumns(Table table) {
-        return jdbcTemplate.query(
-            sqlSelectColumn,
-            new MapSqlParameterSource().addValue("table_id", table.getId()), (rs, rowNum) ->
-                new Column()
-                    .id(rs.getObject("id", UUID.class))
-                    .table(table)
-                    .name(rs.getString("name"))
-                    .type(rs.getString("type"))
-                    .arrayOf(rs.getBoolean("array_of")));
+        tables.forEach(table -> table.columns(columnsByTable.getOrDefault(table.getId(), new ArrayList<>())));
+        return tables;
     }
 }
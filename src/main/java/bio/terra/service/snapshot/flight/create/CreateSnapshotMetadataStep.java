@@ -3,6 +3,7 @@ package bio.terra.service.snapshot.flight.create;
 import bio.terra.common.FlightUtils;
 import bio.terra.model.SnapshotRequestModel;
 import bio.terra.model.SnapshotSummaryModel;
+import bio.terra.service.job.JobMapKeys;
 import bio.terra.service.snapshot.Snapshot;
 import bio.terra.service.snapshot.SnapshotDao;
 import bio.terra.service.snapshot.SnapshotService;
@@ -19,7 +20,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 public class CreateSnapshotMetadataStep implements Step {
     private final SnapshotDao snapshotDao;
@@ -49,6 +52,16 @@ public class CreateSnapshotMetadataStep implements Step {
                 .projectResourceId(projectResourceId);
             snapshotDao.createAndLock(snapshot, context.getFlightId());
 
+            // Lets the BigQuery usage of the later steps be counted against the source dataset. A snapshot
+            // of several datasets is only counted against the snapshot.
+            List<UUID> sourceDatasetIds = snapshot.getSnapshotSources().stream()
+                .map(source -> source.getDataset().getId())
+                .distinct()
+                .collect(Collectors.toList());
+            if (sourceDatasetIds.size() == 1) {
+                workingMap.put(JobMapKeys.DATASET_ID.getKeyName(), sourceDatasetIds.get(0).toString());
+            }
+
             SnapshotSummary snapshotSummary = snapshotDao.retrieveSummaryById(snapshotId);
             SnapshotSummaryModel response = snapshotService.makeSummaryModelFromSummary(snapshotSummary);
 
@@ -0,0 +1,215 @@
+package bio.terra.service.tabulardata.google;
+
+import com.google.cloud.bigquery.Job;
+import com.google.cloud.bigquery.JobStatistics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.codec.binary.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Accounting for the BigQuery jobs run by the flight step on this thread. The Stairway hooks enter a context
+ * when a step starts and exit it when the step ends. While a context is entered:
+ * <ul>
+ *     <li>every query and load job submitted through BigQueryProject and BigQueryPdao is labeled with the
+ *     flight id, the flight and step names and the dataset or snapshot id, so the jobs can be found in the
+ *     BigQuery job history and billing export</li>
+ *     <li>the statistics of each finished job are added to the context's usage, which the hooks save for
+ *     the flight</li>
+ * </ul>
+ * Jobs run outside of a flight, e.g. data queries made while serving a request, are labeled as such.
+ * The statistics of every job are recorded to metrics, tagged by flight and step name.
+ */
+public final class BigQueryJobContext {
+    private static final Logger logger = LoggerFactory.getLogger(BigQueryJobContext.class);
+
+    static final String JOBS_METRIC = "datarepo.bigquery.jobs";
+    static final String DURATION_METRIC = "datarepo.bigquery.job.duration";
+    static final String BYTES_PROCESSED_METRIC = "datarepo.bigquery.bytes.processed";
+    static final String BYTES_BILLED_METRIC = "datarepo.bigquery.bytes.billed";
+    static final String SLOT_MS_METRIC = "datarepo.bigquery.slot.ms";
+
+    static final String FLIGHT_ID_LABEL = "flight_id";
+    static final String FLIGHT_LABEL = "flight";
+    static final String OPERATION_LABEL = "operation";
+    static final String DATASET_ID_LABEL = "dataset_id";
+    static final String SNAPSHOT_ID_LABEL = "snapshot_id";
+    static final String NO_FLIGHT = "none";
+
+    // BigQuery label values are at most 63 lowercase letters, digits, underscores and dashes
+    private static final int MAX_LABEL_LENGTH = 63;
+    private static final Map<String, String> NO_FLIGHT_LABELS =
+        Collections.singletonMap(OPERATION_LABEL, "request");
+
+    private static final ThreadLocal<BigQueryJobContext> current = new ThreadLocal<>();
+
+    private final Map<String, String> labels;
+    private final String flight;
+    private final String operation;
+    private final BigQueryUsage usage = new BigQueryUsage();
+
+    private BigQueryJobContext(Map<String, String> labels, String flight, String operation) {
+        this.labels = labels;
+        this.flight = flight;
+        this.operation = operation;
+    }
+
+    /**
+     * Enter a context on this thread, replacing any context that was not exited.
+     *
+     * @param flightId id of the running flight
+     * @param flight simple name of the flight class
+     * @param operation simple name of the step class
+     * @param datasetId dataset the flight works on; may be null
+     * @param snapshotId snapshot the flight works on; may be null
+     */
+    public static void enter(String flightId, String flight, String operation, String datasetId, String snapshotId) {
+        Map<String, String> labels = new HashMap<>();
+        labels.put(FLIGHT_ID_LABEL, flightIdLabelValue(flightId));
+        labels.put(FLIGHT_LABEL, labelValue(flight));
+        labels.put(OPERATION_LABEL, labelValue(operation));
+        if (datasetId != null) {
+            labels.put(DATASET_ID_LABEL, labelValue(datasetId));
+        }
+        if (snapshotId != null) {
+            labels.put(SNAPSHOT_ID_LABEL, labelValue(snapshotId));
+        }
+        current.set(new BigQueryJobContext(Collections.unmodifiableMap(labels), flight, operation));
+    }
+
+    /**
+     * Exit the context on this thread.
+     *
+     * @return usage of the jobs run in the context; null if no context was entered
+     */
+    public static BigQueryUsage exit() {
+        BigQueryJobContext context = current.get();
+        current.remove();
+        return (context == null) ? null : context.usage;
+    }
+
+    /**
+     * @return labels to put on a job submitted from this thread
+     */
+    public static Map<String, String> labels() {
+        BigQueryJobContext context = current.get();
+        return (context == null) ? NO_FLIGHT_LABELS : context.labels;
+    }
+
+    /**
+     * Record the statistics of a finished job to metrics and to the context on this thread. Recording never
+     * fails the caller: the job has already run.
+     *
+     * @param meterRegistry registry to record the statistics to
+     * @param job job with its final statistics; i.e., reloaded after it was done
+     */
+    public static void record(MeterRegistry meterRegistry, Job job) {
+        try {
+            JobStatistics statistics = (job == null) ? null : job.getStatistics();
+            if (statistics != null) {
+                record(meterRegistry, usageOf(statistics), jobType(statistics));
+            }
+        } catch (RuntimeException ex) {
+            logger.warn("Unable to record BigQuery job statistics", ex);
+        }
+    }
+
+    static void record(MeterRegistry meterRegistry, BigQueryUsage jobUsage, String jobType) {
+        BigQueryJobContext context = current.get();
+        Tags tags = Tags.of(
+            FLIGHT_LABEL, (context == null) ? NO_FLIGHT : context.flight,
+            OPERATION_LABEL, (context == null) ? NO_FLIGHT : context.operation,
+            "type", jobType);
+
+        Counter.builder(JOBS_METRIC)
+            .tags(tags)
+            .tag("cache_hit", String.valueOf(jobUsage.getCacheHits() > 0))
+            .register(meterRegistry)
+            .increment();
+        Timer.builder(DURATION_METRIC)
+            .tags(tags)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(Duration.ofMillis(jobUsage.getElapsedMs()));
+        DistributionSummary.builder(BYTES_PROCESSED_METRIC)
+            .tags(tags)
+            .baseUnit("bytes")
+            .register(meterRegistry)
+            .record(jobUsage.getBytesProcessed());
+        DistributionSummary.builder(BYTES_BILLED_METRIC)
+            .tags(tags)
+            .baseUnit("bytes")
+            .register(meterRegistry)
+            .record(jobUsage.getBytesBilled());
+        Counter.builder(SLOT_MS_METRIC)
+            .tags(tags)
+            .register(meterRegistry)
+            .increment(jobUsage.getSlotMs());
+
+        if (context != null) {
+            context.usage.add(jobUsage);
+        }
+    }
+
+    private static BigQueryUsage usageOf(JobStatistics statistics) {
+        BigQueryUsage jobUsage = new BigQueryUsage().jobCount(1);
+        if (statistics.getStartTime() != null && statistics.getEndTime() != null) {
+            jobUsage.elapsedMs(Math.max(0L, statistics.getEndTime() - statistics.getStartTime()));
+        }
+        if (statistics instanceof JobStatistics.QueryStatistics) {
+            JobStatistics.QueryStatistics queryStatistics = (JobStatistics.QueryStatistics) statistics;
+            jobUsage
+                .bytesProcessed(valueOf(queryStatistics.getTotalBytesProcessed()))
+                .bytesBilled(valueOf(queryStatistics.getTotalBytesBilled()))
+                .slotMs(valueOf(queryStatistics.getTotalSlotMs()))
+                .cacheHits(Boolean.TRUE.equals(queryStatistics.getCacheHit()) ? 1L : 0L);
+        }
+        return jobUsage;
+    }
+
+    private static String jobType(JobStatistics statistics) {
+        if (statistics instanceof JobStatistics.QueryStatistics) {
+            return "query";
+        }
+        if (statistics instanceof JobStatistics.LoadStatistics) {
+            return "load";
+        }
+        return "other";
+    }
+
+    private static long valueOf(Long value) {
+        return (value == null) ? 0L : value;
+    }
+
+    /**
+     * Stairway flight ids are mixed case, so the flight id label holds the lowercase hex of the id's UTF-8
+     * bytes rather than a lowercased id that could match two flights. Decode the hex to get the flight id back.
+     * Ids of up to 31 bytes, which covers the ids Stairway makes, fit in a label.
+     */
+    static String flightIdLabelValue(String flightId) {
+        if (flightId == null) {
+            return NO_FLIGHT;
+        }
+        String labelValue = Hex.encodeHexString(flightId.getBytes(StandardCharsets.UTF_8));
+        return (labelValue.length() > MAX_LABEL_LENGTH) ? labelValue.substring(0, MAX_LABEL_LENGTH) : labelValue;
+    }
+
+    static String labelValue(String value) {
+        if (value == null) {
+            return NO_FLIGHT;
+        }
+        String labelValue = value.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_-]", "_");
+        return (labelValue.length() > MAX_LABEL_LENGTH) ? labelValue.substring(0, MAX_LABEL_LENGTH) : labelValue;
+    }
+}
@@ -8,7 +8,9 @@ import bio.terra.common.Table;
 import bio.terra.common.exception.PdaoException;
 import bio.terra.grammar.exception.InvalidQueryException;
 import bio.terra.model.BulkLoadHistoryModel;
+import bio.terra.model.DataDeletionGcsFileModel;
 import bio.terra.model.DataDeletionTableModel;
+import bio.terra.model.DataDeletionTableResultModel;
 import bio.terra.model.IngestRequestModel;
 import bio.terra.model.SnapshotRequestContentsModel;
 import bio.terra.model.SnapshotRequestRowIdModel;
@@ -26,7 +28,6 @@ import bio.terra.service.snapshot.Snapshot;
 import bio.terra.service.snapshot.SnapshotMapColumn;
 import bio.terra.service.snapshot.SnapshotMapTable;
 import bio.terra.service.snapshot.SnapshotSource;
-import bio.terra.service.snapshot.SnapshotTable;
 import bio.terra.service.snapshot.exception.CorruptMetadataException;
 import bio.terra.service.snapshot.exception.MismatchedValueException;
 import bio.terra.service.tabulardata.exception.BadExternalFileException;
@@ -35,8 +36,8 @@ import com.google.cloud.bigquery.Acl;
 import com.google.cloud.bigquery.BigQuery;
 import com.google.cloud.bigquery.BigQueryError;
 import com.google.cloud.bigquery.BigQueryException;
+import com.google.cloud.bigquery.Clustering;
 import com.google.cloud.bigquery.CsvOptions;
-import com.google.cloud.bigquery.ExternalTableDefinition;
 import com.google.cloud.bigquery.Field;
 import com.google.cloud.bigquery.FieldValue;
 import com.google.cloud.bigquery.FieldValueList;
@@ -47,11 +48,13 @@ import com.google.cloud.bigquery.JobStatistics;
 import com.google.cloud.bigquery.LegacySQLTypeName;
 import com.google.cloud.bigquery.LoadJobConfiguration;
 import com.google.cloud.bigquery.QueryJobConfiguration;
+import com.google.cloud.bigquery.QueryParameterValue;
 import com.google.cloud.bigquery.Schema;
 import com.google.cloud.bigquery.TableId;
 import com.google.cloud.bigquery.TableInfo;
 import com.google.cloud.bigquery.TableResult;
 import com.google.cloud.bigquery.ViewDefinition;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -73,12 +76,12 @@ import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
-import static bio.terra.common.PdaoConstant.PDAO_EXTERNAL_TABLE_PREFIX;
 import static bio.terra.common.PdaoConstant.PDAO_LOAD_HISTORY_STAGING_TABLE_PREFIX;
 import static bio.terra.common.PdaoConstant.PDAO_LOAD_HISTORY_TABLE;
 import static bio.terra.common.PdaoConstant.PDAO_PREFIX;
 import static bio.terra.common.PdaoConstant.PDAO_ROW_ID_COLUMN;
 import static bio.terra.common.PdaoConstant.PDAO_ROW_ID_TABLE;
+import static bio.terra.common.PdaoConstant.PDAO_SOFT_DELETE_STAGING_TABLE_PREFIX;
 import static bio.terra.common.PdaoConstant.PDAO_TABLE_ID_COLUMN;
 import static bio.terra.common.PdaoConstant.PDAO_TEMP_TABLE;
 
@@ -89,20 +92,23 @@ public class BigQueryPdao {
 
     private final String datarepoDnsName;
     private final BigQueryConfiguration bigQueryConfiguration;
+    private final MeterRegistry meterRegistry;
 
     @Autowired
     public BigQueryPdao(ApplicationConfiguration applicationConfiguration,
-                        BigQueryConfiguration bigQueryConfiguration) {
+                        BigQueryConfiguration bigQueryConfiguration,
+                        MeterRegistry meterRegistry) {
         this.datarepoDnsName = applicationConfiguration.getDnsName();
         this.bigQueryConfiguration = bigQueryConfiguration;
+        this.meterRegistry = meterRegistry;
     }
 
     public BigQueryProject bigQueryProjectForDataset(Dataset dataset) throws InterruptedException {
-        return BigQueryProject.get(dataset.getProjectResource().getGoogleProjectId());
+        return BigQueryProject.get(dataset.getProjectResource().getGoogleProjectId(), meterRegistry);
     }
 
     private BigQueryProject bigQueryProjectForSnapshot(Snapshot snapshot) throws InterruptedException {
-        return BigQueryProject.get(snapshot.getProjectResource().getGoogleProjectId());
+        return BigQueryProject.get(snapshot.getProjectResource().getGoogleProjectId(), meterRegistry);
     }
 
     public void createDataset(Dataset dataset) throws InterruptedException {
@@ -657,7 +663,56 @@ public class BigQueryPdao {
                                                  DatasetTable targetTable,
                                                  String stagingTableName,
                                                  IngestRequestModel ingestRequest) throws InterruptedException {
+        Job loadJob = startStagingTableLoad(dataset, targetTable, stagingTableName, ingestRequest);
+        return waitForStagingTableLoad(loadJob, ingestRequest);
+    }
+
+    /**
+     * Load several staging tables for a multi-table ingest. All of the load jobs are submitted before
+     * we wait on any of them, so BigQuery runs them concurrently. If any load fails, the loads that are
+     * still running are canceled and the failure is rethrown.
+     *
+     * @param dataset dataset being ingested into
+     * @param stagingTableNames map of target table name to the staging table name for that table
+     * @param ingestRequests one ingest request per target table
+     * @return map of target table name to the load statistics for that table
+     */
+    public Map<String, PdaoLoadStatistics> loadToStagingTables(Dataset dataset,
+                                                               Map<String, String> stagingTableNames,
+                                                               List<IngestRequestModel> ingestRequests)
+        throws InterruptedException {
+
+        Map<String, Job> loadJobs = new HashMap<>();
+        for (IngestRequestModel ingestRequest : ingestRequests) {
+            String tableName = ingestRequest.getTable();
+            DatasetTable targetTable = dataset.getTableByName(tableName)
+                .orElseThrow(() -> new CorruptMetadataException("cannot find target table: " + tableName));
+            loadJobs.put(tableName,
+                startStagingTableLoad(dataset, targetTable, stagingTableNames.get(tableName), ingestRequest));
+        }
 
+        Map<String, PdaoLoadStatistics> loadStatistics = new HashMap<>();
+        try {
+            for (IngestRequestModel ingestRequest : ingestRequests) {
+                String tableName = ingestRequest.getTable();
+                loadStatistics.put(tableName, waitForStagingTableLoad(loadJobs.get(tableName), ingestRequest));
+            }
+        } catch (RuntimeException | InterruptedException ex) {
+            for (Job loadJob : loadJobs.values()) {
+                if (!loadJob.isDone()) {
+                    logger.info("Canceling staging table load job " + loadJob.getJobId().getJob());
+                    loadJob.cancel();
+                }
+            }
+            throw ex;
+        }
+        return loadStatistics;
+    }
+
+    private Job startStagingTableLoad(Dataset dataset,
+                                      DatasetTable targetTable,
+                                      String stagingTableName,
+                                      IngestRequestModel ingestRequest) throws InterruptedException {
         BigQueryProject bigQueryProject = bigQueryProjectForDataset(dataset);
         BigQuery bigQuery = bigQueryProject.getBigQuery();
         TableId tableId = TableId.of(prefixName(dataset.getName()), stagingTableName);
@@ -672,7 +727,8 @@ public class BigQueryPdao {
                         : ingestRequest.isIgnoreUnknownValues())
                 .setSchema(schema) // docs say this is for target, but CLI provides one for the source
                 .setCreateDisposition(JobInfo.CreateDisposition.CREATE_IF_NEEDED)
-                .setWriteDisposition(JobInfo.WriteDisposition.WRITE_TRUNCATE);
+                .setWriteDisposition(JobInfo.WriteDisposition.WRITE_TRUNCATE)
+                .setLabels(BigQueryJobContext.labels());
 
         // This seems like a bug in the BigQuery Java interface.
         // The null marker is CSV-only, but it cannot be set in the format,
@@ -684,7 +740,11 @@ public class BigQueryPdao {
         }
         LoadJobConfiguration configuration = loadBuilder.build();
 
-        Job loadJob = bigQuery.create(JobInfo.of(configuration));
+        return bigQuery.create(JobInfo.of(configuration));
+    }
+
+    private PdaoLoadStatistics waitForStagingTableLoad(Job loadJob,
+                                                       IngestRequestModel ingestRequest) throws InterruptedException {
         Instant loadJobMaxTime = Instant.now().plusSeconds(TimeUnit.MINUTES.toSeconds(20L));
         while (!loadJob.isDone()) {
             logger.info("Waiting for staging table load job " + loadJob.getJobId().getJob() + " to complete");
@@ -696,6 +756,7 @@ public class BigQueryPdao {
             }
         }
         loadJob = loadJob.reload();
+        BigQueryJobContext.record(meterRegistry, loadJob);
 
         BigQueryError loadJobError = loadJob.getStatus().getError();
         if (loadJobError == null) {
@@ -744,6 +805,25 @@ public class BigQueryPdao {
         bigQueryProject.query(sqlTemplate.render());
     }
 
+    /**
+     * Assign row ids in all of the staging tables of a multi-table ingest. The updates are sent as one
+     * multi-statement query, so we pay for one job submission instead of one per table.
+     */
+    public void addRowIdsToStagingTables(Dataset dataset,
+                                         Collection<String> stagingTableNames) throws InterruptedException {
+        BigQueryProject bigQueryProject = bigQueryProjectForDataset(dataset);
+
+        List<String> sqlStatements = stagingTableNames.stream()
+            .map(stagingTableName -> new ST(addRowIdsToStagingTableTemplate)
+                .add("project", bigQueryProject.getProjectId())
+                .add("dataset", prefixName(dataset.getName()))
+                .add("stagingTable", stagingTableName)
+                .render())
+            .collect(Collectors.toList());
+
+        bigQueryProject.query(String.join(";", sqlStatements));
+    }
+
     private static final String insertIntoDatasetTableTemplate =
         "INSERT INTO `<project>.<dataset>.<targetTable>` (<columns; separator=\",\">) " +
             "SELECT <columns; separator=\",\"> FROM `<project>.<dataset>.<stagingTable>`";
@@ -764,6 +844,38 @@ public class BigQueryPdao {
         bigQueryProject.query(sqlTemplate.render());
     }
 
+    private static final String insertIntoDatasetTablesTemplate =
+        "BEGIN TRANSACTION; <inserts; separator=\"; \">; COMMIT TRANSACTION";
+
+    /**
+     * Insert the contents of several staging tables into their dataset tables in one BigQuery
+     * multi-statement transaction. Either all of the tables get their new rows or none of them do.
+     *
+     * @param dataset dataset being ingested into
+     * @param stagingTableNames map of target table name to the staging table name for that table
+     */
+    public void insertIntoDatasetTables(Dataset dataset,
+                                        Map<String, String> stagingTableNames) throws InterruptedException {
+        BigQueryProject bigQueryProject = bigQueryProjectForDataset(dataset);
+
+        ST transactionTemplate = new ST(insertIntoDatasetTablesTemplate);
+        for (Map.Entry<String, String> entry : stagingTableNames.entrySet()) {
+            DatasetTable targetTable = dataset.getTableByName(entry.getKey())
+                .orElseThrow(() -> new CorruptMetadataException("cannot find target table: " + entry.getKey()));
+
+            ST sqlTemplate = new ST(insertIntoDatasetTableTemplate);
+            sqlTemplate.add("project", bigQueryProject.getProjectId());
+            sqlTemplate.add("dataset", prefixName(dataset.getName()));
+            sqlTemplate.add("targetTable", targetTable.getRawTableName());
+            sqlTemplate.add("stagingTable", entry.getValue());
+            sqlTemplate.add("columns", PDAO_ROW_ID_COLUMN);
+            targetTable.getColumns().forEach(column -> sqlTemplate.add("columns", column.getName()));
+            transactionTemplate.add("inserts", sqlTemplate.render());
+        }
+
+        bigQueryProject.query(transactionTemplate.render());
+    }
+
     private FormatOptions buildFormatOptions(IngestRequestModel ingestRequest) {
         FormatOptions options;
         switch (ingestRequest.getFormat()) {
@@ -827,6 +939,46 @@ public class BigQueryPdao {
         return refIdArray;
     }
 
+    /**
+     * Collect the ref ids from several staging table columns in one query. Each (staging table, column)
+     * pair becomes one SELECT and they are combined with UNION ALL, so BigQuery scans them in parallel.
+     *
+     * @param dataset dataset being ingested into
+     * @param refColumns map of staging table name to the FILEREF columns to read from that table
+     * @return all non-null ref ids found across the given columns
+     */
+    public List<String> getRefIds(Dataset dataset,
+                                  Map<String, List<Column>> refColumns) throws InterruptedException {
+        BigQueryProject bigQueryProject = bigQueryProjectForDataset(dataset);
+
+        List<String> selects = new ArrayList<>();
+        for (Map.Entry<String, List<Column>> entry : refColumns.entrySet()) {
+            for (Column refColumn : entry.getValue()) {
+                ST sqlTemplate = new ST(getRefIdsTemplate);
+                sqlTemplate.add("project", bigQueryProject.getProjectId());
+                sqlTemplate.add("dataset", prefixName(dataset.getName()));
+                sqlTemplate.add("table", entry.getKey());
+                sqlTemplate.add("refCol", refColumn.getName());
+                sqlTemplate.add("array", refColumn.isArrayOf());
+                selects.add(sqlTemplate.render());
+            }
+        }
+
+        List<String> refIdArray = new ArrayList<>();
+        if (selects.isEmpty()) {
+            return refIdArray;
+        }
+
+        TableResult result = bigQueryProject.query(String.join(" UNION ALL ", selects));
+        for (FieldValueList row : result.iterateAll()) {
+            if (!row.get(0).isNull()) {
+                refIdArray.add(row.get(0).getStringValue());
+            }
+        }
+
+        return refIdArray;
+    }
+
     private static final String getSnapshotRefIdsTemplate =
         "SELECT <refCol> FROM `<project>.<dataset>.<table>` S, " +
             "`<project>.<snapshot>." + PDAO_ROW_ID_TABLE + "` R " +
@@ -1449,58 +1601,118 @@ public class BigQueryPdao {
         }
     }
 
-    private String externalTableName(String tableName, String suffix) {
-        return String.format("%s%s_%s", PDAO_EXTERNAL_TABLE_PREFIX, tableName, suffix);
+    private String softDeleteStagingTableName(String tableName, String suffix) {
+        return String.format("%s%s_%s", PDAO_SOFT_DELETE_STAGING_TABLE_PREFIX, tableName, suffix);
     }
 
-    private static final String validateExtTableTemplate =
-        "SELECT <rowId> FROM `<project>.<dataset>.<table>` LIMIT 1";
+    private Clustering rowIdClustering() {
+        return Clustering.newBuilder()
+            .setFields(Collections.singletonList(PDAO_ROW_ID_COLUMN))
+            .build();
+    }
 
-    public void createSoftDeleteExternalTable(Dataset dataset, String path, String tableName, String suffix)
-        throws InterruptedException {
+    // The row ids come from the request, so they are bound as a query parameter rather than rendered into the SQL
+    private static final String insertSoftDeleteStagingRowIdsTemplate =
+        "INSERT INTO `<project>.<dataset>.<stagingTable>` (<rowId>) " +
+            "SELECT row_id FROM UNNEST(@rowIds) AS row_id";
 
+    /**
+     * Load the row ids to soft delete into one native staging table per target table. The staging tables are
+     * clustered on row id, so the validation and delete joins only read the blocks they need. Row ids supplied
+     * in a GCS file are loaded with a BigQuery load job; all of the load jobs are submitted before we wait on
+     * any of them. Row ids supplied inline are inserted in chunks, the same way we load snapshot row ids.
+     *
+     * @param dataset repo dataset that we are deleting data from
+     * @param tables table specs from the DataDeletionRequest
+     * @param suffix a bq-safe version of the flight id to prevent different flights from stepping on each other
+     */
+    public void loadSoftDeleteStagingTables(Dataset dataset,
+                                            List<DataDeletionTableModel> tables,
+                                            String suffix) throws InterruptedException {
         BigQueryProject bigQueryProject = bigQueryProjectForDataset(dataset);
-        String extTableName = externalTableName(tableName, suffix);
-        TableId tableId = TableId.of(prefixName(dataset.getName()), extTableName);
-        Schema schema = Schema.of(Field.of(PDAO_ROW_ID_COLUMN, LegacySQLTypeName.STRING));
-        ExternalTableDefinition tableDef = ExternalTableDefinition.of(path, schema, FormatOptions.csv());
-        TableInfo tableInfo = TableInfo.of(tableId, tableDef);
-        bigQueryProject.getBigQuery().create(tableInfo);
-
-        // validate that the external table has data
-        String sql = new ST(validateExtTableTemplate)
-            .add("rowId", PDAO_ROW_ID_COLUMN)
-            .add("project", bigQueryProject.getProjectId())
-            .add("dataset", tableId.getDataset())
-            .add("table", tableId.getTable())
-            .render();
-        TableResult result = bigQueryProject.query(sql);
-        if (result.getTotalRows() == 0L) {
-            // either the file at the path is empty or it doesn't exist. error out and let the cleanup begin
-            String msg = String.format("No rows found at %s. Likely it is from a bad path or empty file(s).", path);
-            throw new BadExternalFileException(msg);
+        BigQuery bigQuery = bigQueryProject.getBigQuery();
+        String datasetName = prefixName(dataset.getName());
+        Schema schema = buildSoftDeletesSchema();
+
+        // Keyed by table name: two tables can load their row ids from the same file
+        Map<String, Job> loadJobs = new HashMap<>();
+        Map<String, String> loadPaths = new HashMap<>();
+        for (DataDeletionTableModel table : tables) {
+            String stagingTableName = softDeleteStagingTableName(table.getTableName(), suffix);
+            DataDeletionGcsFileModel gcsFileSpec = table.getGcsFileSpec();
+            if (gcsFileSpec != null) {
+                LoadJobConfiguration configuration = LoadJobConfiguration
+                    .builder(TableId.of(datasetName, stagingTableName), gcsFileSpec.getPath())
+                    .setFormatOptions(FormatOptions.csv())
+                    .setSchema(schema)
+                    .setClustering(rowIdClustering())
+                    .setCreateDisposition(JobInfo.CreateDisposition.CREATE_IF_NEEDED)
+                    .setWriteDisposition(JobInfo.WriteDisposition.WRITE_TRUNCATE)
+                    .setLabels(BigQueryJobContext.labels())
+                    .build();
+                loadJobs.put(table.getTableName(), bigQuery.create(JobInfo.of(configuration)));
+                loadPaths.put(table.getTableName(), gcsFileSpec.getPath());
+            } else {
+                // For idempotency, start over if a previous attempt left a partial staging table behind
+                if (bigQueryProject.tableExists(datasetName, stagingTableName)) {
+                    bigQueryProject.deleteTable(datasetName, stagingTableName);
+                }
+                bigQueryProject.createTable(datasetName, stagingTableName, schema, rowIdClustering());
+                List<String> rowIds = table.getJsonArraySpec().getRowIds();
+                for (List<String> rowIdChunk : ListUtils.partition(rowIds, 10000)) {
+                    String sql = new ST(insertSoftDeleteStagingRowIdsTemplate)
+                        .add("project", bigQueryProject.getProjectId())
+                        .add("dataset", datasetName)
+                        .add("stagingTable", stagingTableName)
+                        .add("rowId", PDAO_ROW_ID_COLUMN)
+                        .render();
+                    bigQueryProject.query(sql, Collections.singletonMap("rowIds",
+                        QueryParameterValue.array(rowIdChunk.toArray(new String[0]), String.class)));
+                }
+            }
+        }
+
+        for (Map.Entry<String, Job> entry : loadJobs.entrySet()) {
+            Job loadJob = entry.getValue().waitFor();
+            String path = loadPaths.get(entry.getKey());
+            if (loadJob == null) {
+                throw new PdaoException("Soft delete staging load job no longer exists for " + path);
+            }
+            BigQueryJobContext.record(meterRegistry, loadJob);
+            BigQueryError loadJobError = loadJob.getStatus().getError();
+            if (loadJobError != null) {
+                logger.info("Soft delete staging load job " + loadJob.getJobId().getJob() + " failed: " +
+                    loadJobError);
+                // either the file at the path is empty or it doesn't exist. error out and let the cleanup begin
+                String msg = String.format("Unable to load row ids from %s. Likely it is from a bad path: %s",
+                    path, loadJobError.getMessage());
+                throw new BadExternalFileException(msg);
+            }
         }
     }
 
-    public boolean deleteSoftDeleteExternalTable(Dataset dataset, String tableName, String suffix)
+    public boolean deleteSoftDeleteStagingTable(Dataset dataset, String tableName, String suffix)
         throws InterruptedException {
 
         BigQueryProject bigQueryProject = bigQueryProjectForDataset(dataset);
-        String extTableName = externalTableName(tableName, suffix);
-        return bigQueryProject.deleteTable(prefixName(dataset.getName()), extTableName);
+        String stagingTableName = softDeleteStagingTableName(tableName, suffix);
+        return bigQueryProject.deleteTable(prefixName(dataset.getName()), stagingTableName);
     }
 
     private static final String insertSoftDeleteTemplate =
         "INSERT INTO `<project>.<dataset>.<softDeleteTable>` " +
-        "SELECT DISTINCT E.<rowId> FROM `<project>.<dataset>.<softDeleteExtTable>` E " +
+        "SELECT DISTINCT E.<rowId> FROM `<project>.<dataset>.<softDeleteStagingTable>` E " +
         "LEFT JOIN `<project>.<dataset>.<softDeleteTable>` S USING (<rowId>) " +
         "WHERE S.<rowId> IS NULL";
 
+    private static final String applySoftDeletesTemplate =
+        "BEGIN TRANSACTION; <inserts; separator=\"; \">; COMMIT TRANSACTION";
+
     /**
      * Insert row ids into the corresponding soft delete table for each table provided.
      *
      * @param dataset repo dataset that we are deleting data from
-     * @param tableNames list of table names that should have corresponding external tables with row ids to soft delete
+     * @param tableNames list of table names that should have corresponding staging tables with row ids to soft delete
      * @param suffix a bq-safe version of the flight id to prevent different flights from stepping on each other
      */
     public TableResult applySoftDeletes(Dataset dataset,
@@ -1508,92 +1720,126 @@ public class BigQueryPdao {
                                         String suffix) throws InterruptedException {
         BigQueryProject bigQueryProject = bigQueryProjectForDataset(dataset);
 
-        // we want this soft delete operation to be one parent job with one child-job per query, we we will combine
+        // we want this soft delete operation to be one script run as a single transaction, so we combine
         // all of the inserts into one statement that we send to bigquery.
         // the soft delete tables have a random suffix on them, we need to fetch those from the db and pass them in
         Map<String, String> softDeleteTableNameLookup = dataset.getTables()
             .stream()
             .collect(Collectors.toMap(DatasetTable::getName, DatasetTable::getSoftDeleteTableName));
 
-        List<String> sqlStatements = tableNames.stream()
-            .map(tableName -> new ST(insertSoftDeleteTemplate)
-                .add("project", bigQueryProject.getProjectId())
-                .add("dataset", prefixName(dataset.getName()))
-                .add("softDeleteTable", softDeleteTableNameLookup.get(tableName))
-                .add("rowId", PDAO_ROW_ID_COLUMN)
-                .add("softDeleteExtTable", externalTableName(tableName, suffix))
-                .render())
-            .collect(Collectors.toList());
-
-        return bigQueryProject.query(String.join(";", sqlStatements));
-    }
+        ST sqlTemplate = new ST(applySoftDeletesTemplate);
+        tableNames.forEach(tableName -> sqlTemplate.add("inserts", new ST(insertSoftDeleteTemplate)
+            .add("project", bigQueryProject.getProjectId())
+            .add("dataset", prefixName(dataset.getName()))
+            .add("softDeleteTable", softDeleteTableNameLookup.get(tableName))
+            .add("rowId", PDAO_ROW_ID_COLUMN)
+            .add("softDeleteStagingTable", softDeleteStagingTableName(tableName, suffix))
+            .render()));
 
-    private long getSingleLongValue(TableResult result) {
-        FieldValueList fieldValues = result.getValues().iterator().next();
-        return fieldValues.get(0).getLongValue();
+        return bigQueryProject.query(sqlTemplate.render());
     }
 
     /**
-     * This join should pair up every rowId in the external table with a corresponding match in the raw table. If there
-     * isn't a match in the raw table, then R.rowId will be null and we count that as a mismatch.
+     * This join should pair up every distinct rowId in the staging table with a corresponding match in the raw table.
+     * If there isn't a match in the raw table, then R.rowId will be null and we count that as a mismatch. If there is
+     * a match and the row id is not already in the soft delete table, the row will be deleted by applySoftDeletes.
      *
      * Note that since this is joining against the raw table, not the the live view, an attempt to soft delete a rowId
      * that has already been soft deleted will not result in a mismatch.
      */
     private static final String validateSoftDeleteTemplate =
-        "SELECT COUNT(E.<rowId>) FROM `<project>.<dataset>.<softDeleteExtTable>` E " +
+        "SELECT '<tableName>' AS table_name, COUNT(*) AS staged_count, " +
+        "COUNTIF(R.<rowId> IS NULL) AS mismatched_count, " +
+        "COUNTIF(R.<rowId> IS NOT NULL AND S.<rowId> IS NULL) AS deleted_count " +
+        "FROM (SELECT DISTINCT <rowId> FROM `<project>.<dataset>.<softDeleteStagingTable>`) E " +
         "LEFT JOIN `<project>.<dataset>.<rawTable>` R USING (<rowId>) " +
-        "WHERE R.<rowId> IS NULL";
+        "LEFT JOIN `<project>.<dataset>.<softDeleteTable>` S USING (<rowId>)";
 
     /**
-     * Goes through each of the provided tables and checks to see if the proposed row ids to soft delete exist in the
-     * raw dataset table. This will error out on the first sign of mismatch.
+     * Checks all of the provided tables in one query to see if the proposed row ids to soft delete exist in the
+     * raw dataset table. If any table has mismatched row ids, the request fails with the mismatch count for every
+     * table in the error details. Otherwise, we return the number of rows each table will have deleted.
      *
      * @param dataset dataset repo concept object
      * @param tables list of table specs from the DataDeletionRequest
-     * @param suffix a string added onto the end of the external table to prevent collisions
+     * @param suffix a string added onto the end of the staging table to prevent collisions
+     * @return per-table counts of deleted and mismatched rows
      */
-    public void validateDeleteRequest(Dataset dataset, List<DataDeletionTableModel> tables, String suffix)
+    public List<DataDeletionTableResultModel> validateDeleteRequest(Dataset dataset,
+                                                                    List<DataDeletionTableModel> tables,
+                                                                    String suffix)
         throws InterruptedException {
 
         BigQueryProject bigQueryProject = bigQueryProjectForDataset(dataset);
+        List<String> countStatements = new ArrayList<>();
         for (DataDeletionTableModel table : tables) {
             String tableName = table.getTableName();
-            String rawTableName = dataset.getTableByName(tableName).get().getRawTableName();
-            String sql = new ST(validateSoftDeleteTemplate)
+            DatasetTable datasetTable = dataset.getTableByName(tableName)
+                .orElseThrow(() -> new CorruptMetadataException("cannot find table: " + tableName));
+            countStatements.add(new ST(validateSoftDeleteTemplate)
+                .add("tableName", tableName)
                 .add("rowId", PDAO_ROW_ID_COLUMN)
                 .add("project", bigQueryProject.getProjectId())
                 .add("dataset", prefixName(dataset.getName()))
-                .add("softDeleteExtTable", externalTableName(tableName, suffix))
-                .add("rawTable", rawTableName)
-                .render();
-            TableResult result = bigQueryProject.query(sql);
-            long numMismatched = getSingleLongValue(result);
+                .add("softDeleteStagingTable", softDeleteStagingTableName(tableName, suffix))
+                .add("rawTable", datasetTable.getRawTableName())
+                .add("softDeleteTable", datasetTable.getSoftDeleteTableName())
+                .render());
+        }
 
-            // shortcut out early, no use wasting more compute
+        TableResult result = bigQueryProject.query(String.join(" UNION ALL ", countStatements));
+        List<DataDeletionTableResultModel> tableResults = new ArrayList<>();
+        List<String> emptyTables = new ArrayList<>();
+        List<String> mismatchErrors = new ArrayList<>();
+        for (FieldValueList row : result.iterateAll()) {
+            String tableName = row.get("table_name").getStringValue();
+            long numMismatched = row.get("mismatched_count").getLongValue();
+            if (row.get("staged_count").getLongValue() == 0L) {
+                emptyTables.add(tableName);
+            }
             if (numMismatched > 0) {
-                throw new MismatchedRowIdException(
-                    String.format("Could not match %s row ids for table %s", numMismatched, tableName));
+                mismatchErrors.add(String.format("Could not match %s row ids for table %s", numMismatched, tableName));
             }
+            tableResults.add(new DataDeletionTableResultModel()
+                .tableName(tableName)
+                .deletedRowCount(row.get("deleted_count").getLongValue())
+                .mismatchedRowCount(numMismatched));
         }
+
+        if (!emptyTables.isEmpty()) {
+            throw new BadExternalFileException("No row ids found for tables: " + String.join(", ", emptyTables));
+        }
+        if (!mismatchErrors.isEmpty()) {
+            throw new MismatchedRowIdException("Could not match row ids - see error details", mismatchErrors);
+        }
+        return tableResults;
     }
 
-    // we select from the live view here so that the row counts take into account rows that have been hard deleted
-    private static final String rowCountTemplate = "SELECT COUNT(<rowId>) FROM `<project>.<dataset>.<table>`";
+    // we select from the live view here so that the row counts take into account rows that have been hard deleted.
+    // Each table contributes one labeled count and they are combined with UNION ALL, so the counts for every
+    // table come back from a single query job instead of one job per table.
+    private static final String rowCountTemplate =
+        "SELECT '<table>' AS table_name, COUNT(<rowId>) AS row_count FROM `<project>.<dataset>.<table>`";
 
     public Map<String, Long> getSnapshotTableRowCounts(Snapshot snapshot) throws InterruptedException {
         BigQueryProject bigQueryProject = bigQueryProjectForSnapshot(snapshot);
         Map<String, Long> rowCounts = new HashMap<>();
-        for (SnapshotTable snapshotTable : snapshot.getTables()) {
-            String tableName = snapshotTable.getName();
-            String sql = new ST(rowCountTemplate)
+        List<String> countStatements = snapshot.getTables()
+            .stream()
+            .map(snapshotTable -> new ST(rowCountTemplate)
                 .add("rowId", PDAO_ROW_ID_COLUMN)
                 .add("project", bigQueryProject.getProjectId())
                 .add("dataset", snapshot.getName())
-                .add("table", tableName)
-                .render();
-            TableResult result = bigQueryProject.query(sql);
-            rowCounts.put(tableName, getSingleLongValue(result));
+                .add("table", snapshotTable.getName())
+                .render())
+            .collect(Collectors.toList());
+        if (countStatements.isEmpty()) {
+            return rowCounts;
+        }
+
+        TableResult result = bigQueryProject.query(String.join(" UNION ALL ", countStatements));
+        for (FieldValueList row : result.iterateAll()) {
+            rowCounts.put(row.get("table_name").getStringValue(), row.get("row_count").getLongValue());
         }
         return rowCounts;
     }
@@ -1623,7 +1869,7 @@ public class BigQueryPdao {
             logger.info("Retry number {} of a maximum {}", retryNum, maxRetries);
         }
         try {
-            return bigQuery.query(queryConfig);
+            return BigQueryProject.runQuery(bigQuery, queryConfig, meterRegistry);
         } catch (final BigQueryException qe) {
             if (
                 qe.getError() != null &&
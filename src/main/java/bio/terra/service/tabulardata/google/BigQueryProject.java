@@ -1,15 +1,20 @@
 package bio.terra.service.tabulardata.google;
 
+import bio.terra.app.logging.TraceUtils;
 import bio.terra.common.exception.PdaoException;
 import bio.terra.service.dataset.BigQueryPartitionConfigV1;
 import com.google.cloud.bigquery.Acl;
 import com.google.cloud.bigquery.BigQuery;
 import com.google.cloud.bigquery.BigQueryException;
 import com.google.cloud.bigquery.BigQueryOptions;
+import com.google.cloud.bigquery.Clustering;
 import com.google.cloud.bigquery.Dataset;
 import com.google.cloud.bigquery.DatasetId;
 import com.google.cloud.bigquery.DatasetInfo;
+import com.google.cloud.bigquery.Job;
+import com.google.cloud.bigquery.JobInfo;
 import com.google.cloud.bigquery.QueryJobConfiguration;
+import com.google.cloud.bigquery.QueryParameterValue;
 import com.google.cloud.bigquery.Schema;
 import com.google.cloud.bigquery.StandardTableDefinition;
 import com.google.cloud.bigquery.Table;
@@ -17,6 +22,8 @@ import com.google.cloud.bigquery.TableDefinition;
 import com.google.cloud.bigquery.TableId;
 import com.google.cloud.bigquery.TableInfo;
 import com.google.cloud.bigquery.TableResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,27 +31,49 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 public final class BigQueryProject {
     private static final Logger logger = LoggerFactory.getLogger(BigQueryProject.class);
-    private static final ConcurrentHashMap<String, BigQueryProject> bigQueryProjectCache = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, BigQuery> bigQueryCache = new ConcurrentHashMap<>();
+    // A composite registry with no registries in it drops everything recorded to it
+    private static final MeterRegistry NO_METRICS = new CompositeMeterRegistry();
     private final String projectId;
     private final BigQuery bigQuery;
+    private final MeterRegistry meterRegistry;
 
-    private BigQueryProject(String projectId) {
-        logger.info("Retrieving Bigquery project for project id: {}", projectId);
+    private BigQueryProject(String projectId, BigQuery bigQuery, MeterRegistry meterRegistry) {
         this.projectId = projectId;
-        bigQuery = BigQueryOptions.newBuilder()
-            .setProjectId(projectId)
-            .build()
-            .getService();
+        this.bigQuery = bigQuery;
+        this.meterRegistry = meterRegistry;
     }
 
+    /**
+     * Get a project whose query job statistics are not recorded; for callers that do not report metrics.
+     *
+     * @param projectId google project holding the BigQuery datasets
+     */
     public static BigQueryProject get(String projectId) {
-        bigQueryProjectCache.computeIfAbsent(projectId, BigQueryProject::new);
-        return bigQueryProjectCache.get(projectId);
+        return get(projectId, NO_METRICS);
+    }
+
+    /**
+     * @param projectId google project holding the BigQuery datasets
+     * @param meterRegistry registry the statistics of the project's query jobs are recorded to
+     */
+    public static BigQueryProject get(String projectId, MeterRegistry meterRegistry) {
+        BigQuery bigQuery = bigQueryCache.computeIfAbsent(projectId, BigQueryProject::makeBigQuery);
+        return new BigQueryProject(projectId, bigQuery, meterRegistry);
+    }
+
+    private static BigQuery makeBigQuery(String projectId) {
+        logger.info("Retrieving Bigquery project for project id: {}", projectId);
+        return BigQueryOptions.newBuilder()
+            .setProjectId(projectId)
+            .build()
+            .getService();
     }
 
     public String getProjectId() {
@@ -115,6 +144,16 @@ public final class BigQueryProject {
         bigQuery.create(tableInfo);
     }
 
+    public void createTable(String datasetName, String tableName, Schema schema, Clustering clustering) {
+        TableId tableId = TableId.of(datasetName, tableName);
+        TableDefinition tableDefinition = StandardTableDefinition.newBuilder()
+            .setSchema(schema)
+            .setClustering(clustering)
+            .build();
+        TableInfo tableInfo = TableInfo.newBuilder(tableId, tableDefinition).build();
+        bigQuery.create(tableInfo);
+    }
+
     public boolean deleteTable(String datasetName, String tableName) {
         TableId tableId = TableId.of(projectId, datasetName, tableName);
         return bigQuery.delete(tableId);
@@ -146,10 +185,47 @@ public final class BigQueryProject {
 
     public TableResult query(String sql) throws InterruptedException {
         try {
-            QueryJobConfiguration queryConfig = QueryJobConfiguration.newBuilder(sql).build();
-            return bigQuery.query(queryConfig);
+            return runQuery(bigQuery, QueryJobConfiguration.newBuilder(sql).build(), meterRegistry);
+        } catch (BigQueryException e) {
+            throw new PdaoException("Failure executing query...\n" + sql, e);
+        }
+    }
+
+    /**
+     * Run a query with named parameters. Values that come from a request are bound this way rather than
+     * rendered into the SQL.
+     */
+    public TableResult query(String sql, Map<String, QueryParameterValue> namedParameters)
+        throws InterruptedException {
+        try {
+            QueryJobConfiguration queryConfig = QueryJobConfiguration.newBuilder(sql)
+                .setNamedParameters(namedParameters)
+                .build();
+            return runQuery(bigQuery, queryConfig, meterRegistry);
         } catch (BigQueryException e) {
             throw new PdaoException("Failure executing query...\n" + sql, e);
         }
     }
+
+    /**
+     * Run a query job labeled from the BigQueryJobContext of this thread, and record its statistics. This is
+     * what BigQuery.query does, plus a reload of the finished job to get its final statistics.
+     * BigQuery exceptions are passed on to the caller.
+     */
+    static TableResult runQuery(BigQuery bigQuery, QueryJobConfiguration queryConfig, MeterRegistry meterRegistry)
+        throws InterruptedException {
+        QueryJobConfiguration labeledConfig = queryConfig.toBuilder()
+            .setLabels(BigQueryJobContext.labels())
+            .build();
+        return TraceUtils.inSpan("bigquery.query", () -> {
+            Job job = bigQuery.create(JobInfo.of(labeledConfig));
+            TableResult result = job.getQueryResults();
+            try {
+                BigQueryJobContext.record(meterRegistry, job.reload());
+            } catch (BigQueryException ex) {
+                logger.warn("Unable to reload BigQuery job " + job.getJobId().getJob() + " for its statistics", ex);
+            }
+            return result;
+        });
+    }
 }
@@ -0,0 +1,94 @@
+package bio.terra.service.tabulardata.google;
+
+import bio.terra.model.BigQueryUsageModel;
+
+/**
+ * Totals of the statistics of a set of BigQuery jobs. Bytes and slot milliseconds are only reported
+ * by query jobs; load jobs are free, so they add to the job count and elapsed time only.
+ */
+public class BigQueryUsage {
+    private long jobCount;
+    private long bytesProcessed;
+    private long bytesBilled;
+    private long slotMs;
+    private long cacheHits;
+    private long elapsedMs;
+
+    public long getJobCount() {
+        return jobCount;
+    }
+
+    public BigQueryUsage jobCount(long jobCount) {
+        this.jobCount = jobCount;
+        return this;
+    }
+
+    public long getBytesProcessed() {
+        return bytesProcessed;
+    }
+
+    public BigQueryUsage bytesProcessed(long bytesProcessed) {
+        this.bytesProcessed = bytesProcessed;
+        return this;
+    }
+
+    public long getBytesBilled() {
+        return bytesBilled;
+    }
+
+    public BigQueryUsage bytesBilled(long bytesBilled) {
+        this.bytesBilled = bytesBilled;
+        return this;
+    }
+
+    public long getSlotMs() {
+        return slotMs;
+    }
+
+    public BigQueryUsage slotMs(long slotMs) {
+        this.slotMs = slotMs;
+        return this;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public BigQueryUsage cacheHits(long cacheHits) {
+        this.cacheHits = cacheHits;
+        return this;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public BigQueryUsage elapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+        return this;
+    }
+
+    public BigQueryUsage add(BigQueryUsage other) {
+        jobCount += other.jobCount;
+        bytesProcessed += other.bytesProcessed;
+        bytesBilled += other.bytesBilled;
+        slotMs += other.slotMs;
+        cacheHits += other.cacheHits;
+        elapsedMs += other.elapsedMs;
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return jobCount == 0;
+    }
+
+    public BigQueryUsageModel toModel() {
+        return new BigQueryUsageModel()
+            .jobCount(jobCount)
+            .bytesProcessed(bytesProcessed)
+            .bytesBilled(bytesBilled)
+            .slotMs(slotMs)
+            .cacheHits(cacheHits)
+            .elapsedMs(elapsedMs);
+    }
+}
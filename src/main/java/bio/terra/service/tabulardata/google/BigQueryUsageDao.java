@@ -0,0 +1,96 @@
+package bio.terra.service.tabulardata.google;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Totals of the BigQuery job statistics of each flight, kept per flight so that they can be reported with
+ * the job and summed up per dataset.
+ */
+@Repository
+public class BigQueryUsageDao {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private static final RowMapper<BigQueryUsage> USAGE_MAPPER = (rs, rowNum) -> new BigQueryUsage()
+        .jobCount(rs.getLong("job_count"))
+        .bytesProcessed(rs.getLong("bytes_processed"))
+        .bytesBilled(rs.getLong("bytes_billed"))
+        .slotMs(rs.getLong("slot_ms"))
+        .cacheHits(rs.getLong("cache_hits"))
+        .elapsedMs(rs.getLong("elapsed_ms"));
+
+    @Autowired
+    public BigQueryUsageDao(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Add usage to the flight's totals, creating its row the first time.
+     */
+    public void addFlightUsage(String flightId,
+                               String flightClass,
+                               UUID datasetId,
+                               UUID snapshotId,
+                               BigQueryUsage usage) {
+        String sql = "INSERT INTO bigquery_usage (flight_id, flight_class, dataset_id, snapshot_id," +
+            " job_count, bytes_processed, bytes_billed, slot_ms, cache_hits, elapsed_ms)" +
+            " VALUES (:flight_id, :flight_class, :dataset_id, :snapshot_id," +
+            " :job_count, :bytes_processed, :bytes_billed, :slot_ms, :cache_hits, :elapsed_ms)" +
+            " ON CONFLICT (flight_id) DO UPDATE SET" +
+            " job_count = bigquery_usage.job_count + EXCLUDED.job_count," +
+            " bytes_processed = bigquery_usage.bytes_processed + EXCLUDED.bytes_processed," +
+            " bytes_billed = bigquery_usage.bytes_billed + EXCLUDED.bytes_billed," +
+            " slot_ms = bigquery_usage.slot_ms + EXCLUDED.slot_ms," +
+            " cache_hits = bigquery_usage.cache_hits + EXCLUDED.cache_hits," +
+            " elapsed_ms = bigquery_usage.elapsed_ms + EXCLUDED.elapsed_ms," +
+            " dataset_id = COALESCE(EXCLUDED.dataset_id, bigquery_usage.dataset_id)," +
+            " snapshot_id = COALESCE(EXCLUDED.snapshot_id, bigquery_usage.snapshot_id)," +
+            " updated_date = now()";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("flight_id", flightId)
+            .addValue("flight_class", flightClass)
+            .addValue("dataset_id", datasetId)
+            .addValue("snapshot_id", snapshotId)
+            .addValue("job_count", usage.getJobCount())
+            .addValue("bytes_processed", usage.getBytesProcessed())
+            .addValue("bytes_billed", usage.getBytesBilled())
+            .addValue("slot_ms", usage.getSlotMs())
+            .addValue("cache_hits", usage.getCacheHits())
+            .addValue("elapsed_ms", usage.getElapsedMs());
+        jdbcTemplate.update(sql, params);
+    }
+
+    /**
+     * @param flightId flight to look up
+     * @return usage of the flight, or null if it has not run any BigQuery jobs
+     */
+    public BigQueryUsage retrieveFlightUsage(String flightId) {
+        String sql = "SELECT job_count, bytes_processed, bytes_billed, slot_ms, cache_hits, elapsed_ms" +
+            " FROM bigquery_usage WHERE flight_id = :flight_id";
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("flight_id", flightId);
+        List<BigQueryUsage> usages = jdbcTemplate.query(sql, params, USAGE_MAPPER);
+        return usages.isEmpty() ? null : usages.get(0);
+    }
+
+    /**
+     * @param datasetId dataset to total
+     * @return usage of all of the flights that worked on the dataset; zero if there were none
+     */
+    public BigQueryUsage retrieveDatasetUsage(UUID datasetId) {
+        String sql = "SELECT COALESCE(SUM(job_count), 0) AS job_count," +
+            " COALESCE(SUM(bytes_processed), 0) AS bytes_processed," +
+            " COALESCE(SUM(bytes_billed), 0) AS bytes_billed," +
+            " COALESCE(SUM(slot_ms), 0) AS slot_ms," +
+            " COALESCE(SUM(cache_hits), 0) AS cache_hits," +
+            " COALESCE(SUM(elapsed_ms), 0) AS elapsed_ms" +
+            " FROM bigquery_usage WHERE dataset_id = :dataset_id";
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("dataset_id", datasetId);
+        return jdbcTemplate.queryForObject(sql, params, USAGE_MAPPER);
+    }
+}
@@ -0,0 +1,308 @@
+package bio.terra.service.tabulardata.google;
+
+import bio.terra.app.configuration.ApplicationConfiguration;
+import bio.terra.app.configuration.LocalPerfConfiguration;
+import bio.terra.common.Column;
+import bio.terra.common.PdaoLoadStatistics;
+import bio.terra.model.BulkLoadHistoryModel;
+import bio.terra.model.DataDeletionTableModel;
+import bio.terra.model.DataDeletionTableResultModel;
+import bio.terra.model.IngestRequestModel;
+import bio.terra.model.SnapshotRequestContentsModel;
+import bio.terra.service.dataset.AssetSpecification;
+import bio.terra.service.dataset.Dataset;
+import bio.terra.service.dataset.DatasetTable;
+import bio.terra.service.filedata.google.bq.BigQueryConfiguration;
+import bio.terra.service.snapshot.RowIdMatch;
+import bio.terra.service.snapshot.Snapshot;
+import bio.terra.service.snapshot.SnapshotSource;
+import com.google.cloud.bigquery.TableResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Stand-in for BigQueryPdao in the local-perf profile. No BigQuery calls are made: each call the flights
+ * and services make is counted in the datarepo.bigquery.stub.calls meter, tagged by method, sleeps for the
+ * configured latency, and returns an answer that lets the flight go on. Lookups match every value they are
+ * given, loads report no rows, and no rows have file references. That keeps the Postgres, Firestore and GCS
+ * parts of ingest, snapshot build and DRS lookup on the measured path, with BigQuery reduced to a fixed cost.
+ */
+@Component
+@Primary
+@Profile("local-perf")
+public class RecordingBigQueryPdao extends BigQueryPdao {
+    private static final Logger logger = LoggerFactory.getLogger(RecordingBigQueryPdao.class);
+
+    static final String CALLS_METRIC = "datarepo.bigquery.stub.calls";
+
+    private final Map<String, Counter> callCounters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final long latencyMillis;
+
+    @Autowired
+    public RecordingBigQueryPdao(ApplicationConfiguration applicationConfiguration,
+                                 BigQueryConfiguration bigQueryConfiguration,
+                                 LocalPerfConfiguration localPerfConfiguration,
+                                 MeterRegistry meterRegistry) {
+        super(applicationConfiguration, bigQueryConfiguration, meterRegistry);
+        this.meterRegistry = meterRegistry;
+        this.latencyMillis = localPerfConfiguration.getBigQueryLatencyMillis();
+        logger.info("Using the recording BigQuery stub with {}ms latency", latencyMillis);
+    }
+
+    @Override
+    public void createDataset(Dataset dataset) throws InterruptedException {
+        record("createDataset");
+    }
+
+    @Override
+    public void createStagingLoadHistoryTable(Dataset dataset, String tableName_FlightId)
+        throws InterruptedException {
+        record("createStagingLoadHistoryTable");
+    }
+
+    @Override
+    public void deleteStagingLoadHistoryTable(Dataset dataset, String flightId) {
+        try {
+            record("deleteStagingLoadHistoryTable");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void loadHistoryToStagingTable(Dataset dataset,
+                                          String tableName_FlightId,
+                                          String loadTag,
+                                          Instant loadTime,
+                                          List<BulkLoadHistoryModel> loadHistoryArray) throws InterruptedException {
+        record("loadHistoryToStagingTable");
+    }
+
+    @Override
+    public void mergeStagingLoadHistoryTable(Dataset dataset, String flightId) throws InterruptedException {
+        record("mergeStagingLoadHistoryTable");
+    }
+
+    @Override
+    public boolean deleteDataset(Dataset dataset) throws InterruptedException {
+        record("deleteDataset");
+        return true;
+    }
+
+    @Override
+    public RowIdMatch mapValuesToRows(Snapshot snapshot,
+                                      SnapshotSource source,
+                                      List<String> inputValues) throws InterruptedException {
+        record("mapValuesToRows");
+        RowIdMatch rowIdMatch = new RowIdMatch();
+        inputValues.forEach(inputValue -> rowIdMatch.addMatch(inputValue, UUID.randomUUID().toString()));
+        return rowIdMatch;
+    }
+
+    @Override
+    public void createSnapshot(Snapshot snapshot, List<String> rowIds) throws InterruptedException {
+        record("createSnapshot");
+    }
+
+    @Override
+    public void createSnapshotWithLiveViews(Snapshot snapshot, Dataset dataset) throws InterruptedException {
+        record("createSnapshotWithLiveViews");
+    }
+
+    @Override
+    public void createSnapshotWithProvidedIds(Snapshot snapshot,
+                                              SnapshotRequestContentsModel contentsModel)
+        throws InterruptedException {
+        record("createSnapshotWithProvidedIds");
+    }
+
+    @Override
+    public void grantReadAccessToSnapshot(Snapshot snapshot, Collection<String> policies)
+        throws InterruptedException {
+        record("grantReadAccessToSnapshot");
+    }
+
+    @Override
+    public void grantReadAccessToDataset(Dataset dataset, Collection<String> policies)
+        throws InterruptedException {
+        record("grantReadAccessToDataset");
+    }
+
+    @Override
+    public boolean deleteSnapshot(Snapshot snapshot) throws InterruptedException {
+        record("deleteSnapshot");
+        return true;
+    }
+
+    @Override
+    public PdaoLoadStatistics loadToStagingTable(Dataset dataset,
+                                                 DatasetTable targetTable,
+                                                 String stagingTableName,
+                                                 IngestRequestModel ingestRequest) throws InterruptedException {
+        record("loadToStagingTable");
+        return emptyLoadStatistics();
+    }
+
+    @Override
+    public Map<String, PdaoLoadStatistics> loadToStagingTables(Dataset dataset,
+                                                               Map<String, String> stagingTableNames,
+                                                               List<IngestRequestModel> ingestRequests)
+        throws InterruptedException {
+        record("loadToStagingTables");
+        Map<String, PdaoLoadStatistics> loadStatistics = new HashMap<>();
+        ingestRequests.forEach(ingestRequest -> loadStatistics.put(ingestRequest.getTable(), emptyLoadStatistics()));
+        return loadStatistics;
+    }
+
+    @Override
+    public void addRowIdsToStagingTable(Dataset dataset, String stagingTableName) throws InterruptedException {
+        record("addRowIdsToStagingTable");
+    }
+
+    @Override
+    public void addRowIdsToStagingTables(Dataset dataset,
+                                         Collection<String> stagingTableNames) throws InterruptedException {
+        record("addRowIdsToStagingTables");
+    }
+
+    @Override
+    public void insertIntoDatasetTable(Dataset dataset,
+                                       DatasetTable targetTable,
+                                       String stagingTableName) throws InterruptedException {
+        record("insertIntoDatasetTable");
+    }
+
+    @Override
+    public void insertIntoDatasetTables(Dataset dataset,
+                                        Map<String, String> stagingTableNames) throws InterruptedException {
+        record("insertIntoDatasetTables");
+    }
+
+    @Override
+    public boolean deleteDatasetTable(Dataset dataset, String tableName) throws InterruptedException {
+        record("deleteDatasetTable");
+        return true;
+    }
+
+    @Override
+    public List<String> getRefIds(Dataset dataset, String tableName, Column refColumn) throws InterruptedException {
+        record("getRefIds");
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<String> getRefIds(Dataset dataset,
+                                  Map<String, List<Column>> refColumns) throws InterruptedException {
+        record("getRefIds");
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<String> getSnapshotRefIds(Dataset dataset,
+                                          String snapshotName,
+                                          String tableName,
+                                          String tableId,
+                                          Column refColumn) throws InterruptedException {
+        record("getSnapshotRefIds");
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void queryForRowIds(AssetSpecification assetSpecification,
+                               Snapshot snapshot,
+                               String sqlQuery) throws InterruptedException {
+        record("queryForRowIds");
+    }
+
+    @Override
+    public RowIdMatch matchRowIds(Snapshot snapshot, SnapshotSource source, String tableName, List<String> rowIds)
+        throws InterruptedException {
+        record("matchRowIds");
+        RowIdMatch rowIdMatch = new RowIdMatch();
+        rowIds.forEach(rowId -> rowIdMatch.addMatch(rowId, rowId));
+        return rowIdMatch;
+    }
+
+    @Override
+    public void loadSoftDeleteStagingTables(Dataset dataset,
+                                            List<DataDeletionTableModel> tables,
+                                            String suffix) throws InterruptedException {
+        record("loadSoftDeleteStagingTables");
+    }
+
+    @Override
+    public boolean deleteSoftDeleteStagingTable(Dataset dataset, String tableName, String suffix)
+        throws InterruptedException {
+        record("deleteSoftDeleteStagingTable");
+        return true;
+    }
+
+    @Override
+    public TableResult applySoftDeletes(Dataset dataset,
+                                        List<String> tableNames,
+                                        String suffix) throws InterruptedException {
+        record("applySoftDeletes");
+        return null;
+    }
+
+    @Override
+    public List<DataDeletionTableResultModel> validateDeleteRequest(Dataset dataset,
+                                                                    List<DataDeletionTableModel> tables,
+                                                                    String suffix)
+        throws InterruptedException {
+        record("validateDeleteRequest");
+        return tables.stream()
+            .map(table -> new DataDeletionTableResultModel()
+                .tableName(table.getTableName())
+                .deletedRowCount(0L)
+                .mismatchedRowCount(0L))
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<String, Long> getSnapshotTableRowCounts(Snapshot snapshot) throws InterruptedException {
+        record("getSnapshotTableRowCounts");
+        Map<String, Long> rowCounts = new HashMap<>();
+        snapshot.getTables().forEach(table -> rowCounts.put(table.getName(), 0L));
+        return rowCounts;
+    }
+
+    private static PdaoLoadStatistics emptyLoadStatistics() {
+        Instant now = Instant.now();
+        return new PdaoLoadStatistics()
+            .badRecords(0)
+            .rowCount(0)
+            .startTime(now)
+            .endTime(now);
+    }
+
+    private void record(String method) throws InterruptedException {
+        callCounters.computeIfAbsent(method, name -> Counter.builder(CALLS_METRIC)
+            .description("Calls to the recording BigQuery stub")
+            .tag("method", name)
+            .register(meterRegistry))
+            .increment();
+        logger.debug("BigQuery stub call: {}", method);
+        if (latencyMillis > 0) {
+            TimeUnit.MILLISECONDS.sleep(latencyMillis);
+        }
+    }
+}
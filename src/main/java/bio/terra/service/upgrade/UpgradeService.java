@@ -3,6 +3,7 @@ package bio.terra.service.upgrade;
 import bio.terra.app.configuration.ApplicationConfiguration;
 import bio.terra.common.exception.NotImplementedException;
 import bio.terra.model.UpgradeModel;
+import bio.terra.service.filedata.flight.index.FileIdIndexBackfillFlight;
 import bio.terra.service.iam.AuthenticatedUserRequest;
 import bio.terra.service.iam.IamAction;
 import bio.terra.service.iam.IamResourceType;
@@ -17,7 +18,8 @@ import org.springframework.stereotype.Component;
 public class UpgradeService {
 
     private enum CustomFlight {
-        PLACEHOLDER(null);
+        PLACEHOLDER(null),
+        FILE_ID_INDEX_BACKFILL(FileIdIndexBackfillFlight.class);
 
         private final Class<? extends Flight> flightClass;
 
@@ -25,6 +25,17 @@ appender("Console-Stackdriver", ConsoleAppender) {
     }
 }
 
+def LOG_APPENDER = System.getenv().getOrDefault("TDR_LOG_APPENDER", "Console-Stackdriver")
+
+// Access log lines are queued and written on a separate thread. When the queue is mostly full, access log
+// lines are dropped rather than holding up requests.
+appender("Async-AccessLog", AsyncAppender) {
+    appenderRef(LOG_APPENDER)
+    queueSize = 8192
+    neverBlock = true
+}
+logger("bio.terra.app.logging.LoggerInterceptor", INFO, ["Async-AccessLog"], false)
+
 // You can set different logging configuration. For example, uncommenting the next line
 // will set all loggers in the Stairway package to log at debug level:
 logger("org.springframework", WARN)
@@ -40,4 +51,4 @@ logger("bio.terra.service.tabulardata.google.BigQueryProject", DEBUG);
 */
 
 // root sets the default logging level and appenders
-root(INFO, [System.getenv().getOrDefault("TDR_LOG_APPENDER", "Console-Stackdriver")])
+root(INFO, [LOG_APPENDER])
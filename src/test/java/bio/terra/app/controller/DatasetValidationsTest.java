@@ -8,7 +8,9 @@ import bio.terra.model.ColumnModel;
 import bio.terra.model.DatasetRequestModel;
 import bio.terra.model.DatePartitionOptionsModel;
 import bio.terra.model.ErrorModel;
+import bio.terra.model.IngestRequestModel;
 import bio.terra.model.IntPartitionOptionsModel;
+import bio.terra.model.MultiTableIngestRequestModel;
 import bio.terra.model.RelationshipModel;
 import bio.terra.model.RelationshipTermModel;
 import bio.terra.model.TableModel;
@@ -31,6 +33,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 import static bio.terra.common.fixtures.DatasetFixtures.buildAsset;
@@ -535,6 +538,25 @@ public class DatasetValidationsTest {
             new String[]{"InvalidDatePartitionOptions", "InvalidIntPartitionOptions"});
     }
 
+    @Test
+    public void testDuplicateMultiTableIngestTables() throws Exception {
+        IngestRequestModel tableIngest = new IngestRequestModel()
+            .table("participant")
+            .path("gs://bucket/participant.json")
+            .format(IngestRequestModel.FormatEnum.JSON);
+        MultiTableIngestRequestModel req = new MultiTableIngestRequestModel()
+            .tables(Arrays.asList(tableIngest, tableIngest));
+
+        MvcResult result = mvc.perform(post("/api/repository/v1/datasets/" + UUID.randomUUID() + "/ingest/tables")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtils.mapToJson(req)))
+            .andExpect(status().is4xxClientError())
+            .andReturn();
+
+        ErrorModel errorModel = TestUtils.mapFromJson(result.getResponse().getContentAsString(), ErrorModel.class);
+        checkValidationErrorModel(errorModel, new String[]{"DuplicateTableNames"});
+    }
+
     private void checkValidationErrorModel(ErrorModel errorModel, String[] messageCodes) {
         List<String> details = errorModel.getErrorDetail();
         assertThat("Main message is right", errorModel.getMessage(),
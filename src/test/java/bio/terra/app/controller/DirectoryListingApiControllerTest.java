@@ -0,0 +1,86 @@
+package bio.terra.app.controller;
+
+import bio.terra.common.category.Unit;
+import bio.terra.common.exception.InvalidPageTokenException;
+import bio.terra.model.FileModel;
+import bio.terra.service.filedata.FileService;
+import bio.terra.service.iam.AuthenticatedUserRequestFactory;
+import bio.terra.service.iam.IamService;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@Category(Unit.class)
+public class DirectoryListingApiControllerTest {
+
+    @Autowired
+    private MockMvc mvc;
+    @MockBean
+    private FileService fileService;
+    @MockBean
+    private IamService iamService;
+    @MockBean
+    private AuthenticatedUserRequestFactory authenticatedUserRequestFactory;
+
+    private static String listUrl(String datasetId) {
+        return "/api/repository/v1/datasets/" + datasetId + "/filesystem/list";
+    }
+
+    @Test
+    public void badPageTokenIsRejectedBeforeStreamingTest() throws Exception {
+        String datasetId = UUID.randomUUID().toString();
+        given(fileService.listDirectory(eq(datasetId), eq("/dir"), eq("not-a-token"), anyInt()))
+            .willThrow(new InvalidPageTokenException("Invalid page token"));
+
+        mvc.perform(get(listUrl(datasetId)).param("path", "/dir").param("pageToken", "not-a-token"))
+            .andExpect(status().isBadRequest())
+            .andExpect(request().asyncNotStarted());
+    }
+
+    @Test
+    public void listingIsStreamedTest() throws Exception {
+        String datasetId = UUID.randomUUID().toString();
+        given(fileService.listDirectory(eq(datasetId), eq("/dir"), any(), anyInt()))
+            .willReturn(consumer -> {
+                try {
+                    consumer.accept(Collections.singletonList(new FileModel().path("/dir/file1")));
+                } catch (InterruptedException ex) {
+                    throw new IllegalStateException(ex);
+                }
+                return "next";
+            });
+
+        MvcResult result = mvc.perform(get(listUrl(datasetId)).param("path", "/dir"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String body = mvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        assertThat("entry is written", body, containsString("/dir/file1"));
+        assertThat("next page token is written", body, containsString("\"nextPageToken\":\"next\""));
+    }
+}
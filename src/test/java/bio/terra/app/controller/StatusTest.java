@@ -54,8 +54,10 @@ public class StatusTest {
             .andReturn();
         MockHttpServletResponse downResponse = result.getResponse();
         String responseBody = downResponse.getContentAsString();
-        assertThat("/Status response should indicate that postgres is down, and therefore the whole system is down.",
-            responseBody, startsWith("{\"ok\":false,\"systems\":{\"Postgres\":{\"ok\":false,\"critical\":true"));
+        assertThat("/Status response should indicate that the whole system is down.",
+            responseBody, startsWith("{\"ok\":false,\"systems\":{"));
+        assertThat("/Status response should indicate that postgres is down",
+            responseBody, containsString("\"Postgres\":{\"ok\":false,\"critical\":true"));
         assertThat("/Status response should indicate that sam is up",
             responseBody, containsString("\"Sam\":{\"ok\":true,\"critical\":true"));
 
@@ -67,6 +69,8 @@ public class StatusTest {
         String upResponseBody = upResponse.getContentAsString();
         assertThat("/Status response should indicate that the whole system is up",
             upResponseBody, startsWith("{\"ok\":true"));
+        assertThat("/Status response should include the connection pools",
+            upResponseBody, containsString("\"DataRepoConnectionPool\":{\"ok\":"));
     }
 
 }
@@ -0,0 +1,139 @@
+package bio.terra.app.jdbc;
+
+import bio.terra.common.category.Unit;
+import bio.terra.model.RepositoryStatusModelSystems;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.pool2.BasePooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+@Category(Unit.class)
+public class InstrumentedDataSourceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private GenericObjectPool<Object> pool;
+    private InstrumentedDataSource dataSource;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        pool = new GenericObjectPool<>(new BasePooledObjectFactory<Object>() {
+            @Override
+            public Object create() {
+                return new Object();
+            }
+
+            @Override
+            public PooledObject<Object> wrap(Object obj) {
+                return new DefaultPooledObject<>(obj);
+            }
+        });
+        dataSource = new InstrumentedDataSource(
+            "test", null, pool, Duration.ofSeconds(1), Duration.ofMillis(100));
+        dataSource.bindTo(meterRegistry);
+    }
+
+    @After
+    public void teardown() {
+        pool.close();
+    }
+
+    @Test
+    public void daoMethodTest() {
+        StackTraceElement[] stack = {
+            frame("org.springframework.jdbc.core.JdbcTemplate", "execute"),
+            frame("bio.terra.app.jdbc.TimedConnectionHandler", "invoke"),
+            frame("bio.terra.service.load.LoadDao", "lambda$copyFiles$2"),
+            frame("bio.terra.service.load.LoadService", "copyFiles")
+        };
+        assertThat("lambda in a dao", TimedConnectionHandler.daoMethod(stack), equalTo("LoadDao.copyFiles"));
+
+        StackTraceElement[] noDao = {
+            frame("liquibase.Liquibase", "update"),
+            frame("bio.terra.service.upgrade.Migrate", "migrateDatabase")
+        };
+        assertThat("no dao", TimedConnectionHandler.daoMethod(noDao),
+            equalTo(TimedConnectionHandler.OTHER_DAO_METHOD));
+    }
+
+    @Test
+    public void daoMethodCacheTest() {
+        AtomicInteger searches = new AtomicInteger();
+        Supplier<String> finder = () -> "LoadDao.findCandidates" + searches.incrementAndGet();
+        String first = dataSource.daoMethod("SELECT 1", finder);
+        assertThat("found by searching", first, equalTo("LoadDao.findCandidates1"));
+        assertThat("cached by sql", dataSource.daoMethod("SELECT 1", finder), equalTo(first));
+        assertThat("searched once", searches.get(), equalTo(1));
+
+        for (int i = 0; i < InstrumentedDataSource.MAX_CACHED_DAO_METHODS; i++) {
+            dataSource.daoMethod("SELECT " + (i + 2), finder);
+        }
+        int searchesWhenFull = searches.get();
+        dataSource.daoMethod("SELECT 0", finder);
+        dataSource.daoMethod("SELECT 0", finder);
+        assertThat("searched each time once the cache is full", searches.get(), equalTo(searchesWhenFull + 2));
+    }
+
+    @Test
+    public void sharedSqlTest() {
+        AtomicInteger searches = new AtomicInteger();
+        String[] caller = {"LoadDao.setLoadFileSucceeded"};
+        Supplier<String> finder = () -> {
+            searches.incrementAndGet();
+            return caller[0];
+        };
+        dataSource.daoMethod("UPDATE load_file", finder);
+
+        // Another DAO method runs the same SQL; the next check finds it
+        caller[0] = "LoadDao.setLoadFilesSucceeded";
+        for (int i = 0; i < InstrumentedDataSource.DAO_METHOD_CHECK_INTERVAL; i++) {
+            dataSource.daoMethod("UPDATE load_file", finder);
+        }
+        assertThat("cached answer checked once", searches.get(), equalTo(2));
+
+        caller[0] = "LoadDao.setLoadFileSucceeded";
+        assertThat("shared sql timed by its caller", dataSource.daoMethod("UPDATE load_file", finder),
+            equalTo("LoadDao.setLoadFileSucceeded"));
+        caller[0] = "LoadDao.setLoadFilesSucceeded";
+        assertThat("shared sql timed by each caller", dataSource.daoMethod("UPDATE load_file", finder),
+            equalTo("LoadDao.setLoadFilesSucceeded"));
+        assertThat("shared sql searched each time", searches.get(), equalTo(4));
+    }
+
+    @Test
+    public void poolStatusTest() throws Exception {
+        Object borrowed = pool.borrowObject();
+        dataSource.recordBorrow(TimeUnit.MILLISECONDS.toNanos(5));
+        RepositoryStatusModelSystems status = dataSource.getPoolStatus();
+        assertThat("fast borrows are ok", status.isOk(), equalTo(true));
+        assertThat("not critical", status.isCritical(), equalTo(false));
+        assertThat("pool counts", status.getMessage(), containsString("active=1"));
+        assertThat("active gauge", meterRegistry.get(InstrumentedDataSource.ACTIVE_METRIC)
+            .tag(InstrumentedDataSource.POOL_TAG, "test")
+            .gauge().value(), equalTo(1.0));
+
+        dataSource.recordBorrow(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat("slow borrow is reported", dataSource.getPoolStatus().isOk(), equalTo(false));
+        assertThat("borrows timed", meterRegistry.get(InstrumentedDataSource.BORROW_METRIC)
+            .timer().count(), equalTo(2L));
+        pool.returnObject(borrowed);
+    }
+
+    private static StackTraceElement frame(String className, String methodName) {
+        return new StackTraceElement(className, methodName, null, -1);
+    }
+}
@@ -0,0 +1,71 @@
+package bio.terra.app.logging;
+
+import bio.terra.common.category.Unit;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@Category(Unit.class)
+public class PerformanceLoggerMetricsTest {
+
+    private static final String CLASS_NAME = "bio.terra.service.SomeStep";
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private Timer findTimer(String operation) {
+        return meterRegistry.get(PerformanceLoggerMetrics.TIMER_NAME)
+            .tag(PerformanceLoggerMetrics.CLASS_TAG, "SomeStep")
+            .tag(PerformanceLoggerMetrics.OPERATION_TAG, operation)
+            .timer();
+    }
+
+    @Test
+    public void recordsTimersAndCountsTest() {
+        PerformanceLogger performanceLogger = new PerformanceLoggerMetrics(meterRegistry, (PerformanceLogger) null);
+        performanceLogger.log("job1", CLASS_NAME, "copy", Duration.ofMillis(200), 3);
+        performanceLogger.log("job2", CLASS_NAME, "copy", Duration.ofMillis(400), 2);
+        // Point events are counted but not timed
+        performanceLogger.log("job3", CLASS_NAME, "copy");
+
+        Timer timer = findTimer("copy");
+        assertThat("two timed events", timer.count(), equalTo(2L));
+        assertThat("total time", timer.totalTime(TimeUnit.MILLISECONDS), equalTo(600.0));
+        assertThat("counts are summed", meterRegistry.get(PerformanceLoggerMetrics.COUNT_NAME)
+            .tag(PerformanceLoggerMetrics.OPERATION_TAG, "copy")
+            .counter()
+            .count(), equalTo(5.0));
+    }
+
+    @Test
+    public void timerEndRecordsElapsedTest() {
+        PerformanceLogger performanceLogger = new PerformanceLoggerMetrics(meterRegistry, (PerformanceLogger) null);
+        String timerId = performanceLogger.timerStart();
+        performanceLogger.timerEndAndLog(timerId, "job1", CLASS_NAME, "step");
+        assertThat("timer recorded", findTimer("step").count(), equalTo(1L));
+    }
+
+    @Test
+    public void passesEventsToLogDelegateTest() {
+        PerformanceLogger logDelegate = mock(PerformanceLogger.class);
+        PerformanceLogger performanceLogger = new PerformanceLoggerMetrics(meterRegistry, logDelegate);
+        performanceLogger.log("job1", CLASS_NAME, "copy", Duration.ofMillis(200), 3, "info");
+        verify(logDelegate).log(eq("job1"), eq(CLASS_NAME), eq("copy"), any(Duration.class), eq(3L), eq("info"));
+    }
+}
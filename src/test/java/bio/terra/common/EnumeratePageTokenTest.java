@@ -0,0 +1,46 @@
+package bio.terra.common;
+
+import bio.terra.common.category.Unit;
+import bio.terra.common.exception.InvalidPageTokenException;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+@Category(Unit.class)
+public class EnumeratePageTokenTest {
+
+    @Test
+    public void testRoundTrip() {
+        UUID id = UUID.randomUUID();
+        String value = "a description\nwith a newline";
+        String encoded = new EnumeratePageToken("description", "desc", id, value).encode();
+
+        EnumeratePageToken decoded = EnumeratePageToken.decode(encoded, "description", "desc");
+        assertThat("sort survives", decoded.getSort(), equalTo("description"));
+        assertThat("direction survives", decoded.getDirection(), equalTo("desc"));
+        assertThat("id survives", decoded.getLastId(), equalTo(id));
+        assertThat("value survives", decoded.getLastValue(), equalTo(value));
+    }
+
+    @Test
+    public void testEmptyToken() {
+        assertThat("no token means first page", EnumeratePageToken.decode(null, "name", "asc"), nullValue());
+        assertThat("empty token means first page", EnumeratePageToken.decode("", "name", "asc"), nullValue());
+    }
+
+    @Test(expected = InvalidPageTokenException.class)
+    public void testMismatchedOrdering() {
+        String encoded = new EnumeratePageToken("name", "asc", UUID.randomUUID(), "foo").encode();
+        EnumeratePageToken.decode(encoded, "name", "desc");
+    }
+
+    @Test(expected = InvalidPageTokenException.class)
+    public void testGarbageToken() {
+        EnumeratePageToken.decode("not a token!", "name", "asc");
+    }
+}
@@ -0,0 +1,82 @@
+package bio.terra.common;
+
+import bio.terra.common.category.Unit;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+@Category(Unit.class)
+public class MetadataCacheTest {
+
+    private static MetadataCache<String> stringCache(int size) {
+        return new MetadataCache<>(size, value -> value);
+    }
+
+    @Test
+    public void testVersionedLookup() {
+        MetadataCache<String> cache = stringCache(10);
+        UUID id = UUID.randomUUID();
+        assertThat("empty cache misses", cache.get(id, 0), nullValue());
+
+        cache.put(id, "v0", 0);
+        assertThat("same version hits", cache.get(id, 0), equalTo("v0"));
+        assertThat("newer version misses", cache.get(id, 1), nullValue());
+
+        cache.put(id, "v1", 1);
+        assertThat("replaced by newer version", cache.get(id, 1), equalTo("v1"));
+        assertThat("older version is gone", cache.get(id, 0), nullValue());
+
+        cache.invalidate(id);
+        assertThat("invalidated", cache.get(id, 1), nullValue());
+    }
+
+    @Test
+    public void testEmbeddedVersions() {
+        MetadataCache<String> cache = stringCache(10);
+        UUID id = UUID.randomUUID();
+        cache.put(id, "snapshot", 3, 7);
+        assertThat("same versions hit", cache.get(id, 3, 7), equalTo("snapshot"));
+        assertThat("changed embedded version misses", cache.get(id, 3, 8), nullValue());
+        assertThat("changed own version misses", cache.get(id, 4, 7), nullValue());
+        assertThat("missing embedded version misses", cache.get(id, 3), nullValue());
+    }
+
+    @Test
+    public void testCopies() {
+        MetadataCache<List<String>> cache = new MetadataCache<>(10, ArrayList::new);
+        UUID id = UUID.randomUUID();
+        List<String> loaded = new ArrayList<>(Collections.singletonList("table1"));
+        cache.put(id, loaded, 0);
+        loaded.add("changed after put");
+
+        List<String> first = cache.get(id, 0);
+        assertThat("cache keeps its own copy", first, equalTo(Collections.singletonList("table1")));
+        first.add("changed after get");
+        List<String> second = cache.get(id, 0);
+        assertThat("each get returns a new copy", second, not(sameInstance(first)));
+        assertThat("changing a copy does not change the cache", second, equalTo(Collections.singletonList("table1")));
+    }
+
+    @Test
+    public void testEviction() {
+        MetadataCache<String> cache = stringCache(2);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        cache.put(first, "first", 0);
+        cache.put(second, "second", 0);
+        cache.put(third, "third", 0);
+        assertThat("least recently used entry is evicted", cache.get(first, 0), nullValue());
+        assertThat("recent entry is kept", cache.get(third, 0), equalTo("third"));
+    }
+}
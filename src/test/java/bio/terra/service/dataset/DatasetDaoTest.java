@@ -36,6 +36,8 @@ import java.util.UUID;
 import java.util.stream.Collectors;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
@@ -54,6 +56,9 @@ public class DatasetDaoTest {
     @Autowired
     private DatasetDao datasetDao;
 
+    @Autowired
+    private AssetDao assetDao;
+
     @Autowired
     private ProfileDao profileDao;
 
@@ -222,6 +227,39 @@ public class DatasetDaoTest {
         }
     }
 
+    @Test
+    public void metadataCacheTest() throws Exception {
+        UUID datasetId = createDataset("dataset-create-test.json");
+        try {
+            Dataset first = datasetDao.retrieve(datasetId);
+            String expectedName = first.getName();
+            String expectedProjectId = first.getProjectResource().getGoogleProjectId();
+
+            Dataset second = datasetDao.retrieve(datasetId);
+            assertThat("each retrieve returns its own copy", second, not(sameInstance(first)));
+            assertThat("copies carry the loaded tables", second.getTables(), equalTo(first.getTables()));
+
+            first.name("changed");
+            first.getProjectResource().googleProjectId("changed");
+            Dataset third = datasetDao.retrieve(datasetId);
+            assertThat("changing a copy does not change the cached dataset", third.getName(), equalTo(expectedName));
+            assertThat("changing a copy does not change the cached project",
+                third.getProjectResource().getGoogleProjectId(),
+                equalTo(expectedProjectId));
+
+            // Deleting an asset bumps the dataset's metadata version, so the next retrieve reloads the graph
+            AssetSpecification removed = third.getAssetSpecifications().get(0);
+            assetDao.delete(removed.getId());
+            Dataset reloaded = datasetDao.retrieve(datasetId);
+            assertThat("asset delete is seen", reloaded.getAssetSpecifications().size(), equalTo(1));
+            assertFalse("deleted asset is gone", reloaded.getAssetSpecificationById(removed.getId()).isPresent());
+            reloaded.getTables().forEach(this::assertDatasetTable);
+            reloaded.getAssetSpecifications().forEach(this::assertAssetSpecs);
+        } finally {
+            datasetDao.delete(datasetId);
+        }
+    }
+
     protected void assertTablesInRelationship(Dataset dataset) {
         String sqlFrom = "SELECT from_table "
                 + "FROM dataset_relationship WHERE id = :id";
@@ -0,0 +1,51 @@
+package bio.terra.service.filedata;
+
+import bio.terra.common.category.Unit;
+import bio.terra.common.exception.InvalidPageTokenException;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+@Category(Unit.class)
+public class DirectoryContinuationTokenTest {
+
+    @Test
+    public void testRoundTrip() {
+        UUID id = UUID.randomUUID();
+        String encoded = new DirectoryContinuationToken(id, 3, null).encode();
+
+        DirectoryContinuationToken decoded = DirectoryContinuationToken.decode(encoded);
+        assertThat("file id survives", decoded.getFileId(), equalTo(id));
+        assertThat("depth survives", decoded.getDepth(), equalTo(3));
+        assertThat("no last name", decoded.getLastName(), equalTo(null));
+    }
+
+    @Test
+    public void testLastNameRoundTrip() {
+        UUID id = UUID.randomUUID();
+        // Names can contain the separator
+        String encoded = new DirectoryContinuationToken(id, 2, "file:with:colons.txt").encode();
+
+        DirectoryContinuationToken decoded = DirectoryContinuationToken.decode(encoded);
+        assertThat("file id survives", decoded.getFileId(), equalTo(id));
+        assertThat("depth survives", decoded.getDepth(), equalTo(2));
+        assertThat("last name survives", decoded.getLastName(), equalTo("file:with:colons.txt"));
+    }
+
+    @Test
+    public void testFullExpansionDepth() {
+        UUID id = UUID.randomUUID();
+        DirectoryContinuationToken decoded =
+            DirectoryContinuationToken.decode(new DirectoryContinuationToken(id, -1, null).encode());
+        assertThat("full expansion survives", decoded.getDepth(), equalTo(-1));
+    }
+
+    @Test(expected = InvalidPageTokenException.class)
+    public void testGarbageToken() {
+        DirectoryContinuationToken.decode("not a token!");
+    }
+}
@@ -0,0 +1,47 @@
+package bio.terra.service.filedata;
+
+import bio.terra.common.category.Unit;
+import bio.terra.common.exception.InvalidPageTokenException;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+@Category(Unit.class)
+public class DirectoryPageTokenTest {
+
+    @Test
+    public void testRoundTrip() {
+        String encoded = new DirectoryPageToken("/a/b", "file 1.txt").encode();
+
+        DirectoryPageToken decoded = DirectoryPageToken.decode(encoded, "/a/b");
+        assertThat("directory survives", decoded.getDirPath(), equalTo("/a/b"));
+        assertThat("last name survives", decoded.getLastName(), equalTo("file 1.txt"));
+    }
+
+    @Test
+    public void testRootDirectory() {
+        String encoded = new DirectoryPageToken("/", "top").encode();
+
+        DirectoryPageToken decoded = DirectoryPageToken.decode(encoded, "/");
+        assertThat("root survives", decoded.getDirPath(), equalTo("/"));
+        assertThat("last name survives", decoded.getLastName(), equalTo("top"));
+    }
+
+    @Test
+    public void testEmptyToken() {
+        assertThat("no token decodes to null", DirectoryPageToken.decode("", "/a"), nullValue());
+    }
+
+    @Test(expected = InvalidPageTokenException.class)
+    public void testWrongDirectory() {
+        DirectoryPageToken.decode(new DirectoryPageToken("/a", "x").encode(), "/b");
+    }
+
+    @Test(expected = InvalidPageTokenException.class)
+    public void testGarbageToken() {
+        DirectoryPageToken.decode("not a token!", "/a");
+    }
+}
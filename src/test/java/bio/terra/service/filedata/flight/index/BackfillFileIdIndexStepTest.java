@@ -0,0 +1,58 @@
+package bio.terra.service.filedata.flight.index;
+
+import bio.terra.common.category.Unit;
+import bio.terra.service.dataset.Dataset;
+import bio.terra.service.dataset.exception.DatasetNotFoundException;
+import bio.terra.service.filedata.exception.FileSystemAbortTransactionException;
+import bio.terra.service.filedata.google.firestore.FireStoreDao;
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.FlightMap;
+import bio.terra.stairway.StepResult;
+import bio.terra.stairway.StepStatus;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@Category(Unit.class)
+public class BackfillFileIdIndexStepTest {
+    private final FireStoreDao fileDao = mock(FireStoreDao.class);
+    private final FlightContext flightContext = new FlightContext(new FlightMap(), "", Collections.emptyList());
+
+    @Test
+    public void testSkipsDeletedContainers() throws Exception {
+        UUID deletedId = UUID.randomUUID();
+        List<UUID> ids = Arrays.asList(UUID.randomUUID(), deletedId, UUID.randomUUID());
+        BackfillFileIdIndexStep step = new BackfillFileIdIndexStep(fileDao, () -> ids, id -> {
+            if (id.equals(deletedId)) {
+                throw new DatasetNotFoundException("deleted");
+            }
+            return new Dataset().id(id);
+        }, "dataset");
+
+        StepResult result = step.doStep(flightContext);
+        assertThat("step succeeds", result.getStepStatus(), equalTo(StepStatus.STEP_RESULT_SUCCESS));
+        verify(fileDao, times(2)).backfillFileIdIndex(any());
+    }
+
+    @Test
+    public void testRetriesAbortedTransactions() throws Exception {
+        given(fileDao.backfillFileIdIndex(any())).willThrow(new FileSystemAbortTransactionException("aborted"));
+        BackfillFileIdIndexStep step = new BackfillFileIdIndexStep(
+            fileDao, () -> Collections.singletonList(UUID.randomUUID()), id -> new Dataset().id(id), "dataset");
+
+        StepResult result = step.doStep(flightContext);
+        assertThat("step asks for a retry", result.getStepStatus(), equalTo(StepStatus.STEP_RESULT_FAILURE_RETRY));
+    }
+}
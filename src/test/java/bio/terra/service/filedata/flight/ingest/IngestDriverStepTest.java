@@ -12,6 +12,7 @@ import bio.terra.stairway.FlightContext;
 import bio.terra.stairway.FlightMap;
 import bio.terra.stairway.Stairway;
 import bio.terra.stairway.StepResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import junit.framework.TestCase;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
@@ -22,6 +23,9 @@ import org.springframework.test.context.junit4.SpringRunner;
 import java.util.Collections;
 import java.util.UUID;
 
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
@@ -42,20 +46,25 @@ public class IngestDriverStepTest extends TestCase {
     private KubeService kubeService;
 
     private final UUID loadUuid = UUID.randomUUID();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     private void runTest(int maxFailedFileLoads) throws Exception {
         given(kubeService.getActivePodCount()).willReturn(1);
         given(configurationService.getParameterValue(ConfigEnum.LOAD_CONCURRENT_FILES)).willReturn(1);
+        given(configurationService.getParameterValue(ConfigEnum.LOAD_CONCURRENT_FILES_MIN)).willReturn(1);
+        given(configurationService.getParameterValue(ConfigEnum.LOAD_CONCURRENT_FILES_MAX)).willReturn(1);
+        given(configurationService.getParameterValue(ConfigEnum.LOAD_LARGE_FILE_SIZE_MB)).willReturn(1024);
+        given(configurationService.getParameterValue(ConfigEnum.LOAD_CONCURRENT_LARGE_FILES)).willReturn(1);
 
         // Start the task with three failed loads and one pending (candidate) file.
         LoadCandidates candidates = new LoadCandidates()
             .candidateFiles(Collections.singletonList(new LoadFile()))
             .runningLoads(Collections.emptyList())
             .failedLoads(3);
-        given(loadService.findCandidates(loadUuid, 1)).willReturn(candidates);
+        given(loadService.findCandidates(eq(loadUuid), eq(1), anyLong(), anyInt())).willReturn(candidates);
 
         IngestDriverStep step = new IngestDriverStep(loadService, configurationService, kubeService,
-            null, null, maxFailedFileLoads, 0, null);
+            null, null, maxFailedFileLoads, 0, null, meterRegistry);
 
         FlightContext flightContext = new FlightContext(new FlightMap(), "", Collections.emptyList());
         flightContext.getWorkingMap().put(LoadMapKeys.LOAD_ID, loadUuid.toString());
@@ -76,6 +85,8 @@ public class IngestDriverStepTest extends TestCase {
 
         // Verify that the step started the candidate file.
         verify(loadService).setLoadFileRunning(loadUuid, null, null);
+        // The limit gauge only lives while the step runs
+        assertNull(meterRegistry.find(IngestDriverStep.CONCURRENCY_LIMIT_METRIC).gauge());
     }
 
     @Test
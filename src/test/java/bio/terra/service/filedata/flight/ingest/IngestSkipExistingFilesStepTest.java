@@ -0,0 +1,169 @@
+package bio.terra.service.filedata.flight.ingest;
+
+import bio.terra.app.logging.PerformanceLogger;
+import bio.terra.common.category.Unit;
+import bio.terra.service.dataset.Dataset;
+import bio.terra.service.filedata.FSFile;
+import bio.terra.service.filedata.FSFileInfo;
+import bio.terra.service.filedata.flight.FileMapKeys;
+import bio.terra.service.filedata.google.firestore.FireStoreDao;
+import bio.terra.service.filedata.google.gcs.GcsPdao;
+import bio.terra.service.load.LoadFile;
+import bio.terra.service.load.LoadService;
+import bio.terra.service.load.flight.LoadMapKeys;
+import bio.terra.service.resourcemanagement.google.GoogleBucketResource;
+import bio.terra.service.resourcemanagement.google.GoogleProjectResource;
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.FlightMap;
+import bio.terra.stairway.StepResult;
+import com.google.cloud.BatchResult;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageBatch;
+import com.google.cloud.storage.StorageBatchResult;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Category(Unit.class)
+public class IngestSkipExistingFilesStepTest {
+    private static final String BUCKET = "source-bucket";
+
+    private final UUID loadId = UUID.randomUUID();
+    private LoadService loadService;
+    private FireStoreDao fileDao;
+    private GcsPdao gcsPdao;
+    private Storage storage;
+    private FlightContext flightContext;
+
+    @Before
+    public void setup() {
+        loadService = mock(LoadService.class);
+        fileDao = mock(FireStoreDao.class);
+        gcsPdao = mock(GcsPdao.class);
+        storage = mock(Storage.class);
+        when(gcsPdao.storageForBucket(any())).thenReturn(storage);
+
+        FlightMap inputParameters = new FlightMap();
+        inputParameters.put(FileMapKeys.BUCKET_INFO, new GoogleBucketResource()
+            .name("target-bucket")
+            .projectResource(new GoogleProjectResource().googleProjectId("target-project")));
+        flightContext = new FlightContext(inputParameters, "", Collections.emptyList());
+        flightContext.getWorkingMap().put(LoadMapKeys.LOAD_ID, loadId.toString());
+
+        // Three files; the first two are already in the dataset
+        List<LoadFile> loadFiles = Arrays.asList(loadFile(0), loadFile(1), loadFile(2));
+        when(loadService.findNotTriedAfter(eq(loadId), eq(null), anyInt())).thenReturn(loadFiles);
+        when(loadService.findNotTriedAfter(eq(loadId), eq("/target/path2"), anyInt()))
+            .thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    public void skipExistingTest() throws Exception {
+        FSFile existing0 = existingFile("crc0");
+        when(fileDao.batchLookupFilesByPath(any(), anyList()))
+            .thenReturn(Arrays.asList(existing0, existingFile("crc1"), null));
+
+        assertThat("step succeeds", makeStep(false).doStep(flightContext), equalTo(StepResult.getStepResultSuccess()));
+
+        Map<String, FSFileInfo> succeeded = captureSucceeded();
+        assertThat("existing files skipped", succeeded.size(), equalTo(2));
+        assertThat("file id of the existing file", succeeded.get("/target/path0").getFileId(),
+            equalTo(existing0.getFileId().toString()));
+        assertThat("missing file left to the driver", succeeded, not(hasKey("/target/path2")));
+        verify(loadService, never()).setLoadFilesFailed(any(), any());
+        verify(loadService, never()).setLoadFileSucceeded(any(), any(), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void checksumMismatchTest() throws Exception {
+        when(fileDao.batchLookupFilesByPath(any(), anyList()))
+            .thenReturn(Arrays.asList(existingFile("crc0"), existingFile("crc1"), null));
+        // The source of the first file matches; the source of the second one has changed
+        stubSourceBlobs(sourceBlob("crc0"), sourceBlob("changed"));
+
+        assertThat("step succeeds", makeStep(true).doStep(flightContext), equalTo(StepResult.getStepResultSuccess()));
+
+        Map<String, FSFileInfo> succeeded = captureSucceeded();
+        assertThat("matching file skipped", succeeded.keySet(), equalTo(Collections.singleton("/target/path0")));
+
+        ArgumentCaptor<Map<String, String>> failed = ArgumentCaptor.forClass(Map.class);
+        verify(loadService).setLoadFilesFailed(eq(loadId), failed.capture());
+        assertThat("changed file failed", failed.getValue().keySet(),
+            equalTo(Collections.singleton("/target/path1")));
+    }
+
+    private IngestSkipExistingFilesStep makeStep(boolean verifyChecksums) {
+        return new IngestSkipExistingFilesStep(loadService, fileDao, gcsPdao, mock(Dataset.class), verifyChecksums,
+            mock(PerformanceLogger.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, FSFileInfo> captureSucceeded() {
+        ArgumentCaptor<Map<String, FSFileInfo>> succeeded = ArgumentCaptor.forClass(Map.class);
+        verify(loadService).setLoadFilesSucceeded(eq(loadId), succeeded.capture());
+        return succeeded.getValue();
+    }
+
+    // Answers the batched source lookups with the given blobs, in order of the source paths
+    @SuppressWarnings("unchecked")
+    private void stubSourceBlobs(Blob... blobs) {
+        StorageBatch batch = mock(StorageBatch.class);
+        when(storage.batch()).thenReturn(batch);
+        for (int i = 0; i < blobs.length; i++) {
+            Blob blob = blobs[i];
+            StorageBatchResult<Blob> result = mock(StorageBatchResult.class);
+            doAnswer(invocation -> {
+                ((BatchResult.Callback<Blob, ?>) invocation.getArgument(0)).success(blob);
+                return null;
+            }).when(result).notify(any());
+            when(batch.get(eq(BlobId.of(BUCKET, "path" + i)), any(Storage.BlobGetOption.class))).thenReturn(result);
+        }
+    }
+
+    private static LoadFile loadFile(int i) {
+        return new LoadFile()
+            .sourcePath("gs://" + BUCKET + "/path" + i)
+            .targetPath("/target/path" + i);
+    }
+
+    private static FSFile existingFile(String crc) {
+        return new FSFile()
+            .fileId(UUID.randomUUID())
+            .createdDate(Instant.now())
+            .gspath("gs://target-bucket/file")
+            .checksumCrc32c(crc)
+            .size(100L);
+    }
+
+    private static Blob sourceBlob(String crc) {
+        Blob blob = mock(Blob.class);
+        when(blob.getSize()).thenReturn(100L);
+        when(blob.getCrc32cToHexString()).thenReturn(crc);
+        return blob;
+    }
+}
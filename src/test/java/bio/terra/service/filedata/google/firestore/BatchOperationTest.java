@@ -2,6 +2,8 @@ package bio.terra.service.filedata.google.firestore;
 
 import bio.terra.common.category.Unit;
 import bio.terra.service.filedata.exception.FileSystemExecutionException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
@@ -16,9 +18,17 @@ import static org.junit.Assert.assertThat;
 public class BatchOperationTest {
     private FireStoreUtils fireStoreUtils;
 
+    private SimpleMeterRegistry meterRegistry;
+
     @Before
     public void setup() {
-        fireStoreUtils = new FireStoreUtils();
+        meterRegistry = new SimpleMeterRegistry();
+        fireStoreUtils = new FireStoreUtils(new FireStoreMetrics(meterRegistry));
+    }
+
+    @After
+    public void teardown() {
+        FireStoreMetrics.finish();
     }
 
     @Test
@@ -43,6 +53,28 @@ public class BatchOperationTest {
         assertThat("correct output size", outputs.size(), equalTo(inputs.size()));
     }
 
+    @Test
+    public void batchRetryStatsTest() throws Exception {
+        // Same as above: 10 requests fail, then 5 of 10, then 5 succeed
+        FakeApiFuture.initialize(15);
+        FireStoreMetrics.start();
+
+        List<String> inputs = makeInputs(10);
+        fireStoreUtils.batchOperation("testOp", inputs, input -> new FakeApiFuture());
+        FireStoreStats stats = FireStoreMetrics.finish();
+
+        assertThat("rpcs", stats.getRpcCount(), equalTo(25L));
+        assertThat("retries", stats.getRetries(), equalTo(15L));
+        assertThat("rpc counter", meterRegistry.get(FireStoreMetrics.RPCS)
+            .tag(FireStoreMetrics.OPERATION_TAG, "testOp")
+            .counter().count(), equalTo(25.0));
+        assertThat("retry counter", meterRegistry.get(FireStoreMetrics.RETRIES)
+            .tag(FireStoreMetrics.REASON_TAG, "DeadlineExceededException")
+            .counter().count(), equalTo(15.0));
+        assertThat("batch size", meterRegistry.get(FireStoreMetrics.BATCH_SIZE)
+            .summary().totalAmount(), equalTo(10.0));
+    }
+
     @Test(expected = FileSystemExecutionException.class)
     public void batchFailureTest() throws Exception {
         // make sure batch operation works with some retries
@@ -1,6 +1,16 @@
 package bio.terra.service.filedata.google.firestore;
 
 import bio.terra.common.category.Connected;
+import bio.terra.model.ConfigGroupModel;
+import bio.terra.model.ConfigModel;
+import bio.terra.model.ConfigParameterModel;
+import bio.terra.service.configuration.ConfigEnum;
+import bio.terra.service.configuration.ConfigurationService;
+import bio.terra.service.dataset.Dataset;
+import bio.terra.service.filedata.DirectoryContinuationToken;
+import bio.terra.service.filedata.FSDir;
+import bio.terra.service.filedata.FSItem;
+import bio.terra.service.resourcemanagement.google.GoogleProjectResource;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.FirestoreOptions;
 import org.junit.After;
@@ -18,14 +28,19 @@ import org.springframework.test.context.junit4.SpringRunner;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 
 
@@ -50,6 +65,9 @@ public class FireStoreDaoTest {
     @Autowired
     private FireStoreUtils fireStoreUtils;
 
+    @Autowired
+    private ConfigurationService configService;
+
     private Firestore firestore;
     private String pretendDatasetId;
     private String collectionId;
@@ -68,6 +86,9 @@ public class FireStoreDaoTest {
         directoryDao.deleteDirectoryEntriesFromCollection(firestore, snapshotId);
         directoryDao.deleteDirectoryEntriesFromCollection(firestore, collectionId);
         fileDao.deleteFilesFromDataset(firestore, collectionId, i -> { });
+        directoryDao.deleteDirectoryEntriesFromCollection(firestore, pretendDatasetId);
+        fileDao.deleteFilesFromDataset(firestore, pretendDatasetId, i -> { });
+        configService.reset();
     }
 
     // Test for snapshot file system
@@ -142,6 +163,108 @@ public class FireStoreDaoTest {
         assertThat("Total size is correct", snapObject.getSize(), equalTo(15L));
     }
 
+    // A directory bigger than the node budget is returned a page at a time; each continuation token
+    // resumes after the last entry returned, so every entry is seen exactly once.
+    @Test
+    public void expandOverBudgetDirectoryTest() throws Exception {
+        setExpandNodeBudget(5);
+        for (int i = 0; i < 10; i++) {
+            directoryDao.createDirectoryEntry(firestore, pretendDatasetId,
+                makeFileObject(pretendDatasetId, "/big/file" + i, 1));
+        }
+        Dataset dataset = makeDataset();
+        String dirId = directoryDao.retrieveByPath(firestore, pretendDatasetId, "/big").getFileId();
+
+        Set<String> seen = new HashSet<>();
+        FSDir fsDir = (FSDir) dao.retrieveById(dataset, dirId, 1, true);
+        for (int lookups = 1; ; lookups++) {
+            assertTrue("over budget directory is enumerated", fsDir.isEnumerated());
+            assertThat("each lookup returns entries", fsDir.getContents().size(), greaterThan(0));
+            assertThat("lookups stay within the budget", fsDir.getContents().size(), lessThan(5));
+            for (FSItem item : fsDir.getContents()) {
+                assertTrue("no entry is returned twice", seen.add(item.getPath()));
+            }
+            if (fsDir.getContinuationToken() == null) {
+                break;
+            }
+            assertThat("expansion finishes", lookups, lessThan(10));
+
+            DirectoryContinuationToken token = DirectoryContinuationToken.decode(fsDir.getContinuationToken());
+            assertThat("token is for the directory", token.getFileId().toString(), equalTo(dirId));
+            fsDir = (FSDir) dao.retrieveById(dataset, dirId, token.getDepth(), true, token.getLastName());
+        }
+        assertThat("every entry is returned", seen.size(), equalTo(10));
+    }
+
+    // A subdirectory that does not fit in the budget holds the page that does fit; its token resumes after it.
+    // A subdirectory reached after the budget is used up is left un-enumerated; its token expands it.
+    @Test
+    public void resumeFromSubdirectoryTokenTest() throws Exception {
+        setExpandNodeBudget(5);
+        for (int i = 0; i < 3; i++) {
+            directoryDao.createDirectoryEntry(firestore, pretendDatasetId,
+                makeFileObject(pretendDatasetId, "/top/sub/file" + i, 1));
+        }
+        directoryDao.createDirectoryEntry(firestore, pretendDatasetId,
+            makeFileObject(pretendDatasetId, "/top/sub/deeper/file", 1));
+        directoryDao.createDirectoryEntry(firestore, pretendDatasetId,
+            makeFileObject(pretendDatasetId, "/top/other", 1));
+        Dataset dataset = makeDataset();
+        String topId = directoryDao.retrieveByPath(firestore, pretendDatasetId, "/top").getFileId();
+
+        // top and its two entries use three nodes; the two left go to the first page of sub
+        FSDir top = (FSDir) dao.retrieveById(dataset, topId, -1, true);
+        assertNull("top fits in the budget", top.getContinuationToken());
+        FSDir sub = (FSDir) top.getContents().stream()
+            .filter(item -> item instanceof FSDir)
+            .findFirst()
+            .orElseThrow(() -> new AssertionError("sub directory is listed"));
+        assertTrue("sub is enumerated", sub.isEnumerated());
+        assertThat("sub holds a page within the budget", sub.getContents().size(), equalTo(2));
+        assertNotNull("sub has a continuation token", sub.getContinuationToken());
+        Set<String> seen = new HashSet<>();
+        sub.getContents().forEach(item -> seen.add(item.getPath()));
+
+        DirectoryContinuationToken token = DirectoryContinuationToken.decode(sub.getContinuationToken());
+        assertThat("token is for sub", token.getFileId(), equalTo(sub.getFileId()));
+        assertNotNull("sub listing resumes after the page", token.getLastName());
+        FSDir resumed = (FSDir) dao.retrieveById(
+            dataset, sub.getFileId().toString(), token.getDepth(), true, token.getLastName());
+        assertTrue("resumed sub is enumerated", resumed.isEnumerated());
+        for (FSItem item : resumed.getContents()) {
+            assertTrue("no entry is returned twice", seen.add(item.getPath()));
+        }
+        assertThat("all of sub is listed", seen.size(), equalTo(4));
+
+        // With the budget used up by top, sub is not read at all
+        setExpandNodeBudget(3);
+        top = (FSDir) dao.retrieveById(dataset, topId, -1, true);
+        sub = (FSDir) top.getContents().stream()
+            .filter(item -> item instanceof FSDir)
+            .findFirst()
+            .orElseThrow(() -> new AssertionError("sub directory is listed"));
+        assertTrue("sub is not enumerated", !sub.isEnumerated());
+        token = DirectoryContinuationToken.decode(sub.getContinuationToken());
+        assertNull("sub listing starts at the beginning", token.getLastName());
+    }
+
+    private void setExpandNodeBudget(int budget) {
+        ConfigGroupModel configGroupModel = new ConfigGroupModel()
+            .label("FireStoreDaoTest - expand node budget");
+        configGroupModel.addGroupItem(
+            new ConfigModel()
+                .configType(ConfigModel.ConfigTypeEnum.PARAMETER)
+                .name(ConfigEnum.FIRESTORE_EXPAND_NODE_BUDGET.name())
+                .parameter(new ConfigParameterModel().value(String.valueOf(budget))));
+        configService.setConfig(configGroupModel);
+    }
+
+    private Dataset makeDataset() {
+        return new Dataset()
+            .id(UUID.fromString(pretendDatasetId))
+            .projectResource(new GoogleProjectResource().googleProjectId(firestore.getOptions().getProjectId()));
+    }
+
     private FireStoreDirectoryEntry makeFileObject(String datasetId, String fullPath, long size)
         throws InterruptedException {
 
@@ -165,7 +288,7 @@ public class FireStoreDaoTest {
             .isFileRef(true)
             .path(fireStoreUtils.getDirectoryPath(fullPath))
             .name(fireStoreUtils.getName(fullPath))
-            .datasetId(collectionId)
+            .datasetId(datasetId)
             .size(size)
             .checksumCrc32c(fireStoreUtils.computeCrc32c(fullPath))
             .checksumMd5(fireStoreUtils.computeMd5(fullPath));
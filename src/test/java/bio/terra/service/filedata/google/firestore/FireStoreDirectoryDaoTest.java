@@ -2,8 +2,10 @@ package bio.terra.service.filedata.google.firestore;
 
 import bio.terra.common.category.Connected;
 import bio.terra.common.fixtures.StringListCompare;
+import com.google.cloud.firestore.DocumentSnapshot;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.FirestoreOptions;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
@@ -18,7 +20,9 @@ import org.springframework.test.context.junit4.SpringRunner;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -56,6 +60,11 @@ public class FireStoreDirectoryDaoTest {
         firestore = FirestoreOptions.getDefaultInstance().getService();
     }
 
+    @After
+    public void cleanup() throws Exception {
+        directoryDao.deleteDirectoryEntriesFromCollection(firestore, collectionId);
+    }
+
     @Test
     // Tests createFileRef, deleteDirectoryEntry, retrieveById, retrieveByPath
     public void createDeleteTest() throws Exception {
@@ -163,6 +172,85 @@ public class FireStoreDirectoryDaoTest {
         }
     }
 
+    @Test
+    // Tests that create and delete keep the file id index in step with the entries
+    public void fileIdIndexTest() throws Exception {
+        FireStoreDirectoryEntry fileA = makeFileObject("/idir/A");
+        directoryDao.createDirectoryEntry(firestore, collectionId, fileA);
+        String dirId = retrieveDirectoryObjectId("/idir");
+
+        assertTrue("File is indexed", indexDoc(fileA.getFileId()).exists());
+        assertTrue("Created directory is indexed", indexDoc(dirId).exists());
+
+        directoryDao.deleteDirectoryEntry(firestore, collectionId, fileA.getFileId());
+        assertFalse("File index doc is deleted", indexDoc(fileA.getFileId()).exists());
+        assertFalse("Directory index doc is deleted", indexDoc(dirId).exists());
+    }
+
+    @Test
+    // Tests that an index doc left behind for a deleted entry, as a backfill racing a delete can do, is not trusted
+    public void staleIndexTest() throws Exception {
+        FireStoreDirectoryEntry fileA = makeFileObject("/sdir/A");
+        FireStoreDirectoryEntry fileB = makeFileObject("/sdir/B");
+        directoryDao.createDirectoryEntry(firestore, collectionId, fileA);
+        directoryDao.createDirectoryEntry(firestore, collectionId, fileB);
+        Map<String, Object> staleIndexEntry = indexDoc(fileA.getFileId()).getData();
+        directoryDao.deleteDirectoryEntry(firestore, collectionId, fileA.getFileId());
+
+        // Put back the index doc of the deleted file
+        firestore.collection(collectionId + FireStoreDirectoryDao.FILE_ID_INDEX_SUFFIX)
+            .document(fileA.getFileId())
+            .set(staleIndexEntry)
+            .get();
+
+        List<String> missing = directoryDao.validateRefIds(firestore, collectionId,
+            Arrays.asList(fileA.getFileId(), fileB.getFileId()));
+        assertThat("Deleted file is invalid", missing, equalTo(Collections.singletonList(fileA.getFileId())));
+        assertNull("Deleted file is not found", directoryDao.retrieveById(firestore, collectionId, fileA.getFileId()));
+    }
+
+    @Test
+    // Tests that the backfill indexes a collection written before the index existed
+    public void backfillFileIdIndexTest() throws Exception {
+        List<FireStoreDirectoryEntry> fileObjects = Arrays.asList(
+            makeFileObject("/bdir/B1"),
+            makeFileObject("/bdir/cdir/C1"));
+        for (FireStoreDirectoryEntry fileObject : fileObjects) {
+            directoryDao.createDirectoryEntry(firestore, collectionId, fileObject);
+        }
+        // Drop the index so the collection looks like it predates it
+        fireStoreUtils.scanCollectionObjects(firestore, collectionId + FireStoreDirectoryDao.FILE_ID_INDEX_SUFFIX,
+            100, document -> document.getReference().delete());
+        for (FireStoreDirectoryEntry fileObject : fileObjects) {
+            assertFalse("Index is empty", indexDoc(fileObject.getFileId()).exists());
+        }
+
+        // root, bdir, cdir and the two files
+        int count = directoryDao.backfillFileIdIndex(firestore, collectionId);
+        assertThat("Every entry is indexed", count, equalTo(5));
+        for (FireStoreDirectoryEntry fileObject : fileObjects) {
+            DocumentSnapshot indexSnap = indexDoc(fileObject.getFileId());
+            assertTrue("File is indexed", indexSnap.exists());
+            FireStoreDirectoryEntry entry = firestore.collection(collectionId)
+                .document(indexSnap.getString(FireStoreDirectoryDao.INDEX_DOCNAME_FIELD))
+                .get()
+                .get()
+                .toObject(FireStoreDirectoryEntry.class);
+            assertThat("Index doc names the entry", entry.getFileId(), equalTo(fileObject.getFileId()));
+        }
+
+        // Rerunning the backfill is harmless
+        assertThat("Rerun indexes the same entries",
+            directoryDao.backfillFileIdIndex(firestore, collectionId), equalTo(5));
+    }
+
+    private DocumentSnapshot indexDoc(String fileId) throws Exception {
+        return firestore.collection(collectionId + FireStoreDirectoryDao.FILE_ID_INDEX_SUFFIX)
+            .document(fileId)
+            .get()
+            .get();
+    }
+
     private String retrieveDirectoryObjectId(String fullPath) throws InterruptedException {
         FireStoreDirectoryEntry entry = directoryDao.retrieveByPath(firestore, collectionId, fullPath);
         return entry.getFileId();
@@ -0,0 +1,69 @@
+package bio.terra.service.iam.stub;
+
+import bio.terra.app.configuration.LocalPerfConfiguration;
+import bio.terra.common.category.Unit;
+import bio.terra.model.PolicyModel;
+import bio.terra.service.iam.AuthenticatedUserRequest;
+import bio.terra.service.iam.IamAction;
+import bio.terra.service.iam.IamResourceType;
+import bio.terra.service.iam.IamRole;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+@Category(Unit.class)
+public class StubIamTest {
+    private final AuthenticatedUserRequest userReq =
+        new AuthenticatedUserRequest("steward@local-perf.test", "12345", Optional.of("token"));
+    private StubIam stubIam;
+
+    @Before
+    public void setup() {
+        // no delay, so the test runs quickly
+        stubIam = new StubIam(new LocalPerfConfiguration());
+    }
+
+    @Test
+    public void testSnapshotLifecycle() throws Exception {
+        UUID snapshotId = UUID.randomUUID();
+        Map<IamRole, String> policyEmails =
+            stubIam.createSnapshotResource(userReq, snapshotId, Collections.singletonList("reader@local-perf.test"));
+        assertThat("reader policy email is returned",
+            policyEmails.get(IamRole.READER),
+            equalTo("policy-reader-datasnapshot-" + snapshotId + "@local-perf.test"));
+
+        assertTrue("every action is allowed",
+            stubIam.isAuthorized(userReq, IamResourceType.DATASNAPSHOT, snapshotId.toString(),
+                IamAction.READ_DATA));
+        assertThat("snapshot is listed",
+            stubIam.listAuthorizedResources(userReq, IamResourceType.DATASNAPSHOT), contains(snapshotId));
+
+        PolicyModel readers = stubIam.addPolicyMember(userReq, IamResourceType.DATASNAPSHOT, snapshotId,
+            IamRole.READER.toString(), "another@local-perf.test");
+        assertThat("member is added", readers.getMembers(), hasItem("another@local-perf.test"));
+        readers = stubIam.deletePolicyMember(userReq, IamResourceType.DATASNAPSHOT, snapshotId,
+            IamRole.READER.toString(), "reader@local-perf.test");
+        assertThat("member is removed", readers.getMembers(), not(hasItem("reader@local-perf.test")));
+
+        List<PolicyModel> policies =
+            stubIam.retrievePolicies(userReq, IamResourceType.DATASNAPSHOT, snapshotId);
+        assertThat("all snapshot policies are retrieved", policies.size(), equalTo(4));
+
+        stubIam.deleteSnapshotResource(userReq, snapshotId);
+        assertTrue("snapshot is no longer listed",
+            stubIam.listAuthorizedResources(userReq, IamResourceType.DATASNAPSHOT).isEmpty());
+    }
+}
@@ -0,0 +1,53 @@
+package bio.terra.service.job;
+
+import bio.terra.common.category.Unit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@Category(Unit.class)
+public class JobOwnerDaoUnitTest {
+    @Autowired
+    private JobOwnerDao jobOwnerDao;
+
+    private String jobId;
+
+    @Before
+    public void setup() {
+        jobId = UUID.randomUUID().toString();
+    }
+
+    @After
+    public void teardown() {
+        jobOwnerDao.delete(jobId);
+    }
+
+    @Test
+    public void createRetrieveDeleteTest() {
+        assertThat("no owner before create", jobOwnerDao.retrieveSubjectId(jobId), nullValue());
+
+        jobOwnerDao.create(jobId, "subject-1");
+        assertThat("owner is recorded", jobOwnerDao.retrieveSubjectId(jobId), equalTo("subject-1"));
+
+        assertTrue("delete finds the row", jobOwnerDao.delete(jobId));
+        assertThat("no owner after delete", jobOwnerDao.retrieveSubjectId(jobId), nullValue());
+        assertFalse("second delete finds nothing", jobOwnerDao.delete(jobId));
+    }
+}
@@ -0,0 +1,169 @@
+package bio.terra.service.job;
+
+import bio.terra.app.configuration.DataRepoJdbcConfiguration;
+import bio.terra.common.category.Unit;
+import bio.terra.model.JobModel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.Instant;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+@Category(Unit.class)
+public class JobWatcherTest {
+    private static final String JOB_ID = "job1";
+    private static final long NO_RECHECK_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long FAST_RECHECK_MILLIS = 50;
+    private static final long EVENT_WAIT_SECONDS = 5;
+
+    private JobEventNotifier jobEventNotifier;
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduler;
+    private AtomicReference<JobModel> jobState;
+    private AtomicInteger stateReads;
+    private BlockingQueue<JobModel> events;
+    private BlockingQueue<Throwable> errors;
+
+    @Before
+    public void setup() {
+        jobEventNotifier = new JobEventNotifier(
+            mock(DataRepoJdbcConfiguration.class), mock(NamedParameterJdbcTemplate.class));
+        executor = Executors.newSingleThreadExecutor();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        jobState = new AtomicReference<>(runningJob());
+        stateReads = new AtomicInteger();
+        events = new LinkedBlockingQueue<>();
+        errors = new LinkedBlockingQueue<>();
+    }
+
+    @After
+    public void teardown() {
+        executor.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    private JobWatcher makeWatcher(long recheckMillis) {
+        return new JobWatcher(jobEventNotifier, jobId -> {
+            stateReads.incrementAndGet();
+            JobModel job = jobState.get();
+            if (job == null) {
+                throw new IllegalStateException("job state unavailable");
+            }
+            return job;
+        }, executor, scheduler, recheckMillis);
+    }
+
+    private static JobModel runningJob() {
+        return new JobModel().id(JOB_ID).jobStatus(JobModel.JobStatusEnum.RUNNING);
+    }
+
+    private static JobModel completedJob() {
+        return new JobModel()
+            .id(JOB_ID)
+            .jobStatus(JobModel.JobStatusEnum.SUCCEEDED)
+            .completed(Instant.now().toString());
+    }
+
+    private JobModel nextEvent() throws InterruptedException {
+        return events.poll(EVENT_WAIT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void jobEndEventTest() throws Exception {
+        makeWatcher(NO_RECHECK_MILLIS).watch(JOB_ID, events::add, errors::add);
+        JobModel first = nextEvent();
+        assertThat("first event is the running job", first.getCompleted(), nullValue());
+
+        jobState.set(completedJob());
+        jobEventNotifier.publishJobEnd(JOB_ID);
+        JobModel last = nextEvent();
+        assertThat("job end event brings the completed job", last, notNullValue());
+        assertThat("completed job is sent", last.getCompleted(), notNullValue());
+        assertThat("state read once per check", stateReads.get(), equalTo(2));
+        assertThat("no errors", errors.isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void missedJobEndEventTest() throws Exception {
+        makeWatcher(FAST_RECHECK_MILLIS).watch(JOB_ID, events::add, errors::add);
+        assertThat("first event is the running job", nextEvent().getCompleted(), nullValue());
+
+        // The job ends without an event reaching this pod; the recheck has to find it
+        jobState.set(completedJob());
+        JobModel last = nextEvent();
+        assertThat("recheck finds the completed job", last, notNullValue());
+        assertThat("completed job is sent", last.getCompleted(), notNullValue());
+
+        TimeUnit.MILLISECONDS.sleep(FAST_RECHECK_MILLIS * 4);
+        assertThat("no events once the job is complete", events.isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void unchangedStatusTest() throws Exception {
+        makeWatcher(FAST_RECHECK_MILLIS).watch(JOB_ID, events::add, errors::add);
+        assertThat("first event is the running job", nextEvent(), notNullValue());
+
+        TimeUnit.MILLISECONDS.sleep(FAST_RECHECK_MILLIS * 4);
+        assertThat("rechecks happened", stateReads.get() > 1, equalTo(true));
+        assertThat("no events while the status is unchanged", events.isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void completedJobTest() throws Exception {
+        jobState.set(completedJob());
+        makeWatcher(FAST_RECHECK_MILLIS).watch(JOB_ID, events::add, errors::add);
+        assertThat("completed job is sent", nextEvent().getCompleted(), notNullValue());
+
+        TimeUnit.MILLISECONDS.sleep(FAST_RECHECK_MILLIS * 4);
+        assertThat("no rechecks of a completed job", stateReads.get(), equalTo(1));
+    }
+
+    @Test
+    public void stopTest() throws Exception {
+        Runnable stop = makeWatcher(FAST_RECHECK_MILLIS).watch(JOB_ID, events::add, errors::add);
+        assertThat("first event is the running job", nextEvent(), notNullValue());
+        stop.run();
+        int readsAtStop = stateReads.get();
+
+        jobState.set(completedJob());
+        jobEventNotifier.publishJobEnd(JOB_ID);
+        TimeUnit.MILLISECONDS.sleep(FAST_RECHECK_MILLIS * 4);
+        assertThat("no events after stopping", events.isEmpty(), equalTo(true));
+        assertThat("no rechecks after stopping", stateReads.get(), equalTo(readsAtStop));
+    }
+
+    @Test
+    public void recheckFailureTest() throws Exception {
+        makeWatcher(NO_RECHECK_MILLIS).watch(JOB_ID, events::add, errors::add);
+        assertThat("first event is the running job", nextEvent(), notNullValue());
+
+        jobState.set(null);
+        jobEventNotifier.publishJobEnd(JOB_ID);
+        Throwable error = errors.poll(EVENT_WAIT_SECONDS, TimeUnit.SECONDS);
+        assertThat("failed recheck goes to the error listener", error, notNullValue());
+        assertThat("error is the reader's exception", error.getMessage(), equalTo("job state unavailable"));
+        assertThat("no event for the failed recheck", events.isEmpty(), equalTo(true));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void firstCheckFailureTest() {
+        jobState.set(null);
+        makeWatcher(NO_RECHECK_MILLIS).watch(JOB_ID, events::add, errors::add);
+    }
+}
@@ -0,0 +1,68 @@
+package bio.terra.service.job;
+
+import bio.terra.common.category.Unit;
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.HookAction;
+import bio.terra.stairway.StairwayHook;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.InOrder;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Category(Unit.class)
+public class StairwayCompositeHookTest {
+
+    private StairwayHook first;
+    private StairwayHook second;
+    private FlightContext context;
+    private StairwayCompositeHook compositeHook;
+
+    @Before
+    public void setup() throws Exception {
+        context = mock(FlightContext.class);
+        when(context.getFlightId()).thenReturn("flight1");
+        first = mock(StairwayHook.class);
+        second = mock(StairwayHook.class);
+        for (StairwayHook hook : new StairwayHook[] {first, second}) {
+            when(hook.startFlight(context)).thenReturn(HookAction.CONTINUE);
+            when(hook.startStep(context)).thenReturn(HookAction.CONTINUE);
+            when(hook.endStep(context)).thenReturn(HookAction.CONTINUE);
+            when(hook.endFlight(context)).thenReturn(HookAction.CONTINUE);
+        }
+        compositeHook = new StairwayCompositeHook(first, second);
+    }
+
+    @Test
+    public void hooksCalledInOrderTest() throws Exception {
+        compositeHook.startFlight(context);
+        compositeHook.startStep(context);
+        compositeHook.endStep(context);
+        assertThat("all hooks continue", compositeHook.endFlight(context), equalTo(HookAction.CONTINUE));
+
+        InOrder inOrder = inOrder(first, second);
+        inOrder.verify(first).startFlight(context);
+        inOrder.verify(second).startFlight(context);
+        inOrder.verify(first).startStep(context);
+        inOrder.verify(second).startStep(context);
+        inOrder.verify(first).endStep(context);
+        inOrder.verify(second).endStep(context);
+        inOrder.verify(first).endFlight(context);
+        inOrder.verify(second).endFlight(context);
+    }
+
+    @Test
+    public void failingHookDoesNotStopOthersTest() throws Exception {
+        when(first.endStep(context)).thenThrow(new IllegalStateException("hook failure"));
+        when(second.endStep(context)).thenReturn(HookAction.CONTINUE);
+
+        assertThat("failure is not passed on", compositeHook.endStep(context), equalTo(HookAction.CONTINUE));
+        verify(second).endStep(context);
+    }
+}
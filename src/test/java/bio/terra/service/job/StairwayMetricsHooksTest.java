@@ -0,0 +1,108 @@
+package bio.terra.service.job;
+
+import bio.terra.common.category.Unit;
+import bio.terra.stairway.Direction;
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.FlightMap;
+import bio.terra.stairway.FlightStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Category(Unit.class)
+public class StairwayMetricsHooksTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private StairwayMetricsHooks hooks;
+    private FlightContext context;
+    private FlightMap workingMap;
+
+    @Before
+    public void setup() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        hooks = new StairwayMetricsHooks(meterRegistry);
+
+        FlightMap inputParameters = new FlightMap();
+        inputParameters.put(JobMapKeys.SUBMIT_TIME.getKeyName(), Instant.now().minusSeconds(5).toEpochMilli());
+
+        workingMap = new FlightMap();
+        context = mock(FlightContext.class);
+        when(context.getInputParameters()).thenReturn(inputParameters);
+        when(context.getWorkingMap()).thenReturn(workingMap);
+        when(context.getFlightId()).thenReturn("flight1");
+        when(context.getFlightClassName()).thenReturn("bio.terra.SomeFlight");
+        when(context.getStepClassName()).thenReturn("bio.terra.SomeStep");
+        when(context.getStepIndex()).thenReturn(0);
+        when(context.getDirection()).thenReturn(Direction.DO);
+        when(context.getFlightStatus()).thenReturn(FlightStatus.SUCCESS);
+    }
+
+    private void runStep() {
+        hooks.startStep(context);
+        hooks.endStep(context);
+    }
+
+    @Test
+    public void flightAndStepMetricsTest() {
+        hooks.startFlight(context);
+        assertThat("flight is active", meterRegistry.get(StairwayMetricsHooks.FLIGHTS_ACTIVE).gauge().value(),
+            equalTo(1.0));
+        assertThat("queue latency recorded", meterRegistry.get(StairwayMetricsHooks.FLIGHT_QUEUE)
+            .tag("flight", "SomeFlight").timer().totalTime(TimeUnit.SECONDS), greaterThan(4.0));
+        assertThat("start time put in the working map",
+            workingMap.get(JobMapKeys.START_TIME.getKeyName(), Long.class), notNullValue());
+
+        runStep();
+        // Same step again is a retry
+        runStep();
+        when(context.getStepIndex()).thenReturn(1);
+        runStep();
+        hooks.endFlight(context);
+
+        assertThat("each attempt is timed", meterRegistry.get(StairwayMetricsHooks.STEP_DURATION)
+            .tag("step", "SomeStep").tag("direction", "DO").timer().count(), equalTo(3L));
+        assertThat("one retry", meterRegistry.get(StairwayMetricsHooks.STEP_RETRIES).counter().count(),
+            equalTo(1.0));
+        assertThat("flight timed", meterRegistry.get(StairwayMetricsHooks.FLIGHT_DURATION)
+            .tag("status", "SUCCESS").timer().count(), equalTo(1L));
+        assertThat("no flights active", meterRegistry.get(StairwayMetricsHooks.FLIGHTS_ACTIVE).gauge().value(),
+            equalTo(0.0));
+        assertThat("no steps active", meterRegistry.get(StairwayMetricsHooks.STEPS_ACTIVE).gauge().value(),
+            equalTo(0.0));
+    }
+
+    @Test
+    public void noSubmitTimeTest() {
+        when(context.getInputParameters()).thenReturn(new FlightMap());
+        hooks.startFlight(context);
+        hooks.endFlight(context);
+        assertThat("no queue latency without a submit time",
+            meterRegistry.find(StairwayMetricsHooks.FLIGHT_QUEUE).timer(), nullValue());
+    }
+
+    @Test
+    public void undoCountedOncePerFlightTest() {
+        hooks.startFlight(context);
+        runStep();
+        when(context.getDirection()).thenReturn(Direction.UNDO);
+        runStep();
+        when(context.getStepIndex()).thenReturn(-1);
+        runStep();
+        hooks.endFlight(context);
+
+        assertThat("one undo", meterRegistry.get(StairwayMetricsHooks.FLIGHT_UNDO).counter().count(),
+            equalTo(1.0));
+    }
+}
@@ -0,0 +1,114 @@
+package bio.terra.service.load;
+
+import bio.terra.common.category.Unit;
+import bio.terra.service.load.LoadConcurrencyController.Decision;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.time.Duration;
+
+import static bio.terra.service.load.LoadConcurrencyController.WINDOW_NANOS;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+@Category(Unit.class)
+public class LoadConcurrencyControllerTest {
+
+    private long now = 0;
+
+    private Decision nextWindow(LoadConcurrencyController controller, int running, int podCount) {
+        now += WINDOW_NANOS;
+        return controller.adjust(now, running, podCount);
+    }
+
+    private void finish(LoadConcurrencyController controller, int count, long seconds, boolean failed) {
+        for (int i = 0; i < count; i++) {
+            controller.recordFinished(Duration.ofSeconds(seconds), failed);
+        }
+    }
+
+    @Test
+    public void holdsWithinWindowTest() {
+        LoadConcurrencyController controller = new LoadConcurrencyController(10, 2, 20, now);
+        finish(controller, 5, 1, false);
+        assertThat("window not over", controller.isWindowOver(now + WINDOW_NANOS - 1), equalTo(false));
+        assertThat("window over", controller.isWindowOver(now + WINDOW_NANOS), equalTo(true));
+        assertThat("no decision before the window ends",
+            controller.adjust(now + WINDOW_NANOS - 1, 10, 1), equalTo(Decision.HOLD));
+        assertThat("limit unchanged", controller.getLimit(1), equalTo(10));
+    }
+
+    @Test
+    public void increasesWhenSaturatedAndHealthyTest() {
+        LoadConcurrencyController controller = new LoadConcurrencyController(10, 2, 20, now);
+        finish(controller, 20, 1, false);
+        assertThat("increase when using the whole limit", nextWindow(controller, 20, 2), equalTo(Decision.INCREASE));
+        assertThat("one more per pod", controller.getLimit(2), equalTo(22));
+
+        finish(controller, 20, 1, false);
+        assertThat("hold when not using the whole limit", nextWindow(controller, 5, 2), equalTo(Decision.HOLD));
+    }
+
+    @Test
+    public void decreasesOnFailuresTest() {
+        LoadConcurrencyController controller = new LoadConcurrencyController(20, 2, 40, now);
+        finish(controller, 8, 1, false);
+        finish(controller, 2, 1, true);
+        assertThat("back off on failures", nextWindow(controller, 20, 1), equalTo(Decision.DECREASE));
+        assertThat("multiplicative decrease", controller.getLimit(1), equalTo(15));
+    }
+
+    @Test
+    public void decreasesOnQueueLatencyTest() {
+        LoadConcurrencyController controller = new LoadConcurrencyController(20, 2, 40, now);
+        finish(controller, 10, 1, false);
+        controller.recordQueued(Duration.ofMinutes(2));
+        assertThat("back off on queueing", nextWindow(controller, 20, 1), equalTo(Decision.DECREASE));
+    }
+
+    @Test
+    public void decreasesOnSlowLoadsTest() {
+        LoadConcurrencyController controller = new LoadConcurrencyController(20, 2, 40, now);
+        finish(controller, 10, 1, false);
+        nextWindow(controller, 0, 1);
+        finish(controller, 10, 10, false);
+        assertThat("back off when loads slow down", nextWindow(controller, 20, 1), equalTo(Decision.DECREASE));
+    }
+
+    @Test
+    public void comparesLoadTimesWithinSizeClassTest() {
+        LoadConcurrencyController controller = new LoadConcurrencyController(20, 2, 40, now);
+        finish(controller, 10, 1, false);
+        nextWindow(controller, 0, 1);
+
+        // Large files take longer than the small files seen so far; that is not a slowdown
+        finish(controller, 10, 1, false);
+        for (int i = 0; i < 2; i++) {
+            controller.recordFinished(Duration.ofSeconds(60), false, true);
+        }
+        assertThat("large loads are not compared with small ones", nextWindow(controller, 0, 1),
+            equalTo(Decision.HOLD));
+
+        for (int i = 0; i < 2; i++) {
+            controller.recordFinished(Duration.ofSeconds(600), false, true);
+        }
+        assertThat("back off when large loads slow down", nextWindow(controller, 20, 1),
+            equalTo(Decision.DECREASE));
+    }
+
+    @Test
+    public void staysWithinBoundsTest() {
+        LoadConcurrencyController controller = new LoadConcurrencyController(3, 2, 4, now);
+        for (int i = 0; i < 5; i++) {
+            finish(controller, 10, 1, true);
+            nextWindow(controller, 10, 1);
+        }
+        assertThat("never below the floor", controller.getLimit(1), equalTo(2));
+
+        for (int i = 0; i < 5; i++) {
+            finish(controller, 10, 1, false);
+            nextWindow(controller, 10, 1);
+        }
+        assertThat("never above the ceiling", controller.getLimit(1), equalTo(4));
+    }
+}
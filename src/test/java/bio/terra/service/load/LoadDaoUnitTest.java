@@ -2,6 +2,8 @@ package bio.terra.service.load;
 
 import bio.terra.common.category.Unit;
 import bio.terra.model.BulkLoadFileModel;
+import bio.terra.model.BulkLoadFileResultModel;
+import bio.terra.model.BulkLoadFileState;
 import bio.terra.service.configuration.ConfigurationService;
 import bio.terra.service.filedata.FSFileInfo;
 import bio.terra.service.load.exception.LoadLockedException;
@@ -18,10 +20,14 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
@@ -162,6 +168,113 @@ public class LoadDaoUnitTest {
         testLoadCandidates(candidates, 0, 0, 0);
     }
 
+    @Test
+    public void sizeOrderedCandidatesTest() throws Exception {
+        Map<String, Long> sizes = new HashMap<>();
+        sizes.put("gs://path0", 10L);
+        sizes.put("gs://path1", 5000L);
+        sizes.put("gs://path3", 3000L);
+        sizes.put("gs://path4", 20L);
+        sizes.put("gs://path5", 2000L);
+        UUID loadId = populateFiles(6, sizes);
+
+        // Large files (>= 1000 bytes) come first, largest first, up to the two large slots
+        LoadCandidates candidates = loadDao.findCandidates(loadId, 4, 1000L, 2);
+        testLoadCandidates(candidates, 0, 0, 4);
+        List<LoadFile> loadSet1 = candidates.getCandidateFiles();
+        assertThat("largest file first", loadSet1.get(0).getSourcePath(), equalTo("gs://path1"));
+        assertThat("next largest file", loadSet1.get(1).getSourcePath(), equalTo("gs://path3"));
+        assertThat("size is returned", loadSet1.get(1).getSizeBytes(), equalTo(3000L));
+        // The file without a size (path2) counts as small and comes after the sized small files
+        assertThat("small files fill the rest", loadSet1.get(2).getSourcePath(), equalTo("gs://path4"));
+        assertThat("smallest sized file last", loadSet1.get(3).getSourcePath(), equalTo("gs://path0"));
+
+        // With one large file running, only one more large file is handed out
+        loadDao.setLoadFileRunning(loadId, loadSet1.get(0).getTargetPath(), FlightIdsUsedByTest.FLIGHT_A.getId());
+        candidates = loadDao.findCandidates(loadId, 4, 1000L, 2);
+        testLoadCandidates(candidates, 0, 1, 4);
+        List<LoadFile> loadSet2 = candidates.getCandidateFiles();
+        assertThat("one large file", loadSet2.get(0).getSourcePath(), equalTo("gs://path3"));
+        for (LoadFile loadFile : loadSet2.subList(1, loadSet2.size())) {
+            assertThat("then only small files", loadFile.getSizeBytes() == null
+                || loadFile.getSizeBytes() < 1000L, equalTo(true));
+        }
+    }
+
+    @Test
+    public void copyFilesTest() throws Exception {
+        Load load = loadDao.lockLoad(LoadTagsUsedByTest.LOADTAG_MY.getTag(), FlightIdsUsedByTest.FLIGHT_MY.getId());
+        loadIdsWithFilesUsedByTest.add(load.getId());
+
+        List<BulkLoadFileModel> loadList = new ArrayList<>();
+        loadList.add(new BulkLoadFileModel()
+            .sourcePath("gs://path0")
+            .targetPath("/target/path0")
+            .description("commas, \"quotes\" and\nnewlines"));
+        loadList.add(new BulkLoadFileModel()
+            .sourcePath("gs://path1")
+            .targetPath("/target/path1")
+            .mimeType("text/plain"));
+        Map<String, Long> sizes = Collections.singletonMap("gs://path1", 42L);
+
+        long rows = loadDao.copyFiles(load.getId(), loadList, sizes);
+        assertThat("both rows copied", rows, equalTo(2L));
+
+        LoadCandidates candidates = loadDao.findCandidates(load.getId(), 3);
+        testLoadCandidates(candidates, 0, 0, 2);
+        for (LoadFile loadFile : candidates.getCandidateFiles()) {
+            if (loadFile.getSourcePath().equals("gs://path0")) {
+                assertThat("text round trips", loadFile.getDescription(),
+                    equalTo("commas, \"quotes\" and\nnewlines"));
+                assertThat("missing values are null", loadFile.getMimeType(), nullValue());
+                assertThat("missing size is null", loadFile.getSizeBytes(), nullValue());
+            } else {
+                assertThat("mime type copied", loadFile.getMimeType(), equalTo("text/plain"));
+                assertThat("size copied", loadFile.getSizeBytes(), equalTo(42L));
+            }
+        }
+    }
+
+    @Test
+    public void notTriedPagingTest() throws Exception {
+        UUID loadId = populateFiles(5);
+
+        List<LoadFile> page1 = loadDao.findNotTriedAfter(loadId, null, 3);
+        assertThat("first page is full", page1.size(), equalTo(3));
+        assertThat("ordered by target path", page1.get(0).getTargetPath(), equalTo("/target/path0"));
+
+        // Changing the state of a returned file does not disturb the paging
+        loadDao.setLoadFileFailed(loadId, page1.get(2).getTargetPath(), "test failure");
+        List<LoadFile> page2 = loadDao.findNotTriedAfter(loadId, page1.get(2).getTargetPath(), 3);
+        assertThat("rest of the files", page2.size(), equalTo(2));
+        assertThat("continues after the last path", page2.get(0).getTargetPath(), equalTo("/target/path3"));
+
+        List<LoadFile> page3 = loadDao.findNotTriedAfter(loadId, page2.get(1).getTargetPath(), 3);
+        assertThat("no more files", page3.size(), equalTo(0));
+    }
+
+    @Test
+    public void batchStateUpdateTest() throws Exception {
+        UUID loadId = populateFiles(4);
+
+        Map<String, FSFileInfo> succeeded = new HashMap<>();
+        succeeded.put("/target/path0", new FSFileInfo().fileId("fileid0").checksumCrc32c("crc0"));
+        succeeded.put("/target/path1", new FSFileInfo().fileId("fileid1").checksumCrc32c("crc1"));
+        loadDao.setLoadFilesSucceeded(loadId, succeeded);
+        loadDao.setLoadFilesFailed(loadId, Collections.singletonMap("/target/path2", "different content"));
+        loadDao.setLoadFilesFailed(loadId, Collections.emptyMap());
+
+        Map<String, BulkLoadFileResultModel> results = new HashMap<>();
+        loadDao.makeBulkLoadFileArray(loadId).forEach(result -> results.put(result.getTargetPath(), result));
+        assertThat("first succeeded", results.get("/target/path0").getState(),
+            equalTo(BulkLoadFileState.SUCCEEDED));
+        assertThat("file id saved", results.get("/target/path1").getFileId(), equalTo("fileid1"));
+        assertThat("mismatch failed", results.get("/target/path2").getState(), equalTo(BulkLoadFileState.FAILED));
+        assertThat("error saved", results.get("/target/path2").getError(), equalTo("different content"));
+        assertThat("others untouched", results.get("/target/path3").getState(),
+            equalTo(BulkLoadFileState.NOT_TRIED));
+    }
+
     @Test
     public void serialLockTest() throws Exception {
         final String loadTag = LoadTagsUsedByTest.LOADTAG_SERIAL.getTag();
@@ -234,6 +347,10 @@ public class LoadDaoUnitTest {
     }
 
     private UUID populateFiles(int n) throws InterruptedException {
+        return populateFiles(n, Collections.emptyMap());
+    }
+
+    private UUID populateFiles(int n, Map<String, Long> sizes) throws InterruptedException {
         Load load = loadDao.lockLoad(LoadTagsUsedByTest.LOADTAG_MY.getTag(), FlightIdsUsedByTest.FLIGHT_MY.getId());
         loadIdsWithFilesUsedByTest.add(load.getId()); // add load id to test class list, for cleanup afterwards
 
@@ -247,7 +364,7 @@ public class LoadDaoUnitTest {
                     .description("number " + i));
         }
 
-        loadDao.populateFiles(load.getId(), loadList);
+        loadDao.populateFiles(load.getId(), loadList, sizes);
         return load.getId();
     }
 
@@ -0,0 +1,48 @@
+package bio.terra.service.profiling;
+
+import bio.terra.common.category.Unit;
+import bio.terra.model.RecordingRequestModel;
+import jdk.jfr.Recording;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+@Category(Unit.class)
+public class ProfilingServiceTest {
+
+    @Test
+    public void cpuProfileTest() {
+        Map<String, String> settings = profileSettings(RecordingRequestModel.ProfileEnum.CPU);
+        assertThat("execution samples", settings.get("jdk.ExecutionSample#enabled"), equalTo("true"));
+        assertThat("running flights", settings.get("bio.terra.RunningFlights#enabled"), equalTo("true"));
+        assertThat("no allocations", settings, not(hasKey("jdk.ObjectAllocationInNewTLAB#enabled")));
+    }
+
+    @Test
+    public void allocationProfileTest() {
+        Map<String, String> settings = profileSettings(RecordingRequestModel.ProfileEnum.ALLOCATION);
+        assertThat("allocations", settings.get("jdk.ObjectAllocationInNewTLAB#enabled"), equalTo("true"));
+        assertThat("stack traces", settings.get("jdk.ObjectAllocationInNewTLAB#stackTrace"), equalTo("true"));
+        assertThat("no samples", settings, not(hasKey("jdk.ExecutionSample#enabled")));
+    }
+
+    @Test
+    public void lockProfileTest() {
+        Map<String, String> settings = profileSettings(RecordingRequestModel.ProfileEnum.LOCK);
+        assertThat("monitor enter", settings.get("jdk.JavaMonitorEnter#enabled"), equalTo("true"));
+        assertThat("threshold", settings.get("jdk.ThreadPark#threshold"), equalTo("10 ms"));
+    }
+
+    private static Map<String, String> profileSettings(RecordingRequestModel.ProfileEnum profile) {
+        try (Recording recording = new Recording()) {
+            ProfilingService.enableProfile(recording, profile);
+            return recording.getSettings();
+        }
+    }
+}
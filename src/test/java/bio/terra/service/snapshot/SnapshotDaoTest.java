@@ -11,6 +11,8 @@ import bio.terra.common.fixtures.ResourceFixtures;
 import bio.terra.model.BillingProfileModel;
 import bio.terra.model.DatasetRequestModel;
 import bio.terra.model.SnapshotRequestModel;
+import bio.terra.service.dataset.AssetDao;
+import bio.terra.service.dataset.AssetSpecification;
 import bio.terra.service.dataset.Dataset;
 import bio.terra.service.dataset.DatasetDao;
 import bio.terra.service.dataset.DatasetUtils;
@@ -36,6 +38,8 @@ import java.util.UUID;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 @RunWith(SpringRunner.class)
@@ -50,6 +54,9 @@ public class SnapshotDaoTest {
     @Autowired
     private DatasetDao datasetDao;
 
+    @Autowired
+    private AssetDao assetDao;
+
     @Autowired
     private ProfileDao profileDao;
 
@@ -226,6 +233,40 @@ public class SnapshotDaoTest {
             equalTo(snapshotTable.getId()));
     }
 
+    @Test
+    public void metadataCacheTest() throws Exception {
+        snapshotRequest.name(snapshotRequest.getName() + UUID.randomUUID().toString());
+        String flightId = "metadataCacheTest_flightId";
+        Snapshot snapshot = snapshotService.makeSnapshotFromSnapshotRequest(snapshotRequest)
+            .projectResourceId(projectId)
+            .id(snapshotId);
+        snapshotDao.createAndLock(snapshot, flightId);
+        snapshotDao.unlock(snapshotId, flightId);
+
+        Snapshot first = snapshotDao.retrieveSnapshot(snapshotId);
+        Snapshot second = snapshotDao.retrieveSnapshot(snapshotId);
+        assertThat("each retrieve returns its own copy", second, not(sameInstance(first)));
+        assertThat("copies carry the loaded tables", second.getTables(), equalTo(first.getTables()));
+
+        first.name("changed");
+        assertThat("changing a copy does not change the cached snapshot",
+            snapshotDao.retrieveSnapshot(snapshotId).getName(),
+            equalTo(snapshot.getName()));
+
+        // Adding an asset to the source dataset bumps the dataset's metadata version; the snapshot embeds the
+        // dataset, so its cached copy must not be used either
+        AssetSpecification asset = dataset.getAssetSpecifications().get(0);
+        assetDao.create(new AssetSpecification()
+            .name("secondasset")
+            .rootTable(asset.getRootTable())
+            .rootColumn(asset.getRootColumn())
+            .assetTables(asset.getAssetTables()), datasetId);
+        Snapshot reloaded = snapshotDao.retrieveSnapshot(snapshotId);
+        assertThat("source dataset change is seen",
+            reloaded.getSnapshotSources().get(0).getDataset().getAssetSpecifications().size(),
+            equalTo(2));
+    }
+
     @Test
     public void snapshotEnumerateTest() throws Exception {
         snapshotIdList = new ArrayList<>();
@@ -0,0 +1,112 @@
+package bio.terra.service.tabulardata.google;
+
+import bio.terra.common.category.Unit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.codec.binary.Hex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+@Category(Unit.class)
+public class BigQueryJobContextTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @After
+    public void teardown() {
+        BigQueryJobContext.exit();
+    }
+
+    @Test
+    public void labelsTest() {
+        assertThat("no flight", BigQueryJobContext.labels().get(BigQueryJobContext.OPERATION_LABEL),
+            equalTo("request"));
+
+        BigQueryJobContext.enter("Flight-1", "SnapshotCreateFlight", "CreateSnapshotPrimaryDataQueryStep",
+            null, "8a3c0ad4-4f5e-4f57-8a11-0d4ef6c6c5b2");
+        Map<String, String> labels = BigQueryJobContext.labels();
+        assertThat("flight id", labels.get(BigQueryJobContext.FLIGHT_ID_LABEL), equalTo("466c696768742d31"));
+        assertThat("flight", labels.get(BigQueryJobContext.FLIGHT_LABEL), equalTo("snapshotcreateflight"));
+        assertThat("operation", labels.get(BigQueryJobContext.OPERATION_LABEL),
+            equalTo("createsnapshotprimarydataquerystep"));
+        assertThat("snapshot id", labels.get(BigQueryJobContext.SNAPSHOT_ID_LABEL),
+            equalTo("8a3c0ad4-4f5e-4f57-8a11-0d4ef6c6c5b2"));
+        assertThat("no dataset id", labels, not(hasKey(BigQueryJobContext.DATASET_ID_LABEL)));
+    }
+
+    @Test
+    public void labelValueTest() {
+        assertThat("invalid characters", BigQueryJobContext.labelValue("a.B c$d"), equalTo("a_b_c_d"));
+        String longValue = new String(new char[100]).replace('\0', 'x');
+        assertThat("truncated", BigQueryJobContext.labelValue(longValue).length(), equalTo(63));
+    }
+
+    @Test
+    public void flightIdLabelValueTest() throws Exception {
+        String upper = BigQueryJobContext.flightIdLabelValue("AbC12");
+        String lower = BigQueryJobContext.flightIdLabelValue("abc12");
+        assertThat("case is kept", upper, not(equalTo(lower)));
+        assertThat("valid label", upper.matches("[a-z0-9_-]{1,63}"), equalTo(true));
+        assertThat("reversible", new String(Hex.decodeHex(upper.toCharArray()), StandardCharsets.UTF_8),
+            equalTo("AbC12"));
+    }
+
+    @Test
+    public void recordTest() {
+        BigQueryJobContext.enter("flight1", "SomeFlight", "SomeStep", "dataset1", null);
+        BigQueryJobContext.record(meterRegistry, jobUsage(false), "query");
+        BigQueryJobContext.record(meterRegistry, jobUsage(true), "query");
+        BigQueryUsage usage = BigQueryJobContext.exit();
+
+        assertThat("jobs", usage.getJobCount(), equalTo(2L));
+        assertThat("bytes billed", usage.getBytesBilled(), equalTo(2000L));
+        assertThat("slot ms", usage.getSlotMs(), equalTo(600L));
+        assertThat("cache hits", usage.getCacheHits(), equalTo(1L));
+        assertThat("exited", BigQueryJobContext.exit(), nullValue());
+
+        double jobs = meterRegistry.get(BigQueryJobContext.JOBS_METRIC)
+            .tag("flight", "SomeFlight")
+            .tag("operation", "SomeStep")
+            .counters()
+            .stream()
+            .mapToDouble(c -> c.count())
+            .sum();
+        assertThat("job counters", jobs, equalTo(2.0));
+        assertThat("bytes processed", meterRegistry.get(BigQueryJobContext.BYTES_PROCESSED_METRIC)
+            .summary().totalAmount(), equalTo(4000.0));
+    }
+
+    @Test
+    public void recordOutsideFlightTest() {
+        BigQueryJobContext.record(meterRegistry, jobUsage(false), "query");
+        assertThat("no context", BigQueryJobContext.exit(), nullValue());
+        assertThat("recorded to metrics", meterRegistry.get(BigQueryJobContext.SLOT_MS_METRIC)
+            .tag("flight", BigQueryJobContext.NO_FLIGHT)
+            .counter().count(), equalTo(300.0));
+    }
+
+    private static BigQueryUsage jobUsage(boolean cacheHit) {
+        return new BigQueryUsage()
+            .jobCount(1)
+            .bytesProcessed(2000)
+            .bytesBilled(1000)
+            .slotMs(300)
+            .cacheHits(cacheHit ? 1 : 0)
+            .elapsedMs(50);
+    }
+}
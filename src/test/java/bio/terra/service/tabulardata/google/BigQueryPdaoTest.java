@@ -570,7 +570,12 @@ public class BigQueryPdaoTest {
         try {
             bigQueryPdao.createDataset(dataset);
             exceptionGrabber.expect(BadExternalFileException.class);
-            bigQueryPdao.createSoftDeleteExternalTable(dataset, badGsUri, "participant", suffix);
+            DataDeletionTableModel badTable = new DataDeletionTableModel()
+                .tableName("participant")
+                .gcsFileSpec(new DataDeletionGcsFileModel()
+                    .fileType(DataDeletionGcsFileModel.FileTypeEnum.CSV)
+                    .path(badGsUri));
+            bigQueryPdao.loadSoftDeleteStagingTables(dataset, Collections.singletonList(badTable), suffix);
         } finally {
             bigQueryPdao.deleteDataset(dataset);
             // Need to manually clean up the DAO because `readDataset` bypasses the
@@ -578,4 +583,42 @@ public class BigQueryPdaoTest {
             datasetDao.delete(dataset.getId());
         }
     }
+
+    // Two tables can read their row ids from the same file, and inline row ids are bound, not rendered into SQL
+    @Test
+    public void testSoftDeleteStagingTables() throws Exception {
+        Dataset dataset = readDataset("ingest-test-dataset.json");
+        String suffix = UUID.randomUUID().toString().replaceAll("-", "");
+        BlobInfo rowIdBlob = BlobInfo
+            .newBuilder(testConfig.getIngestbucket(), "scratch/softdelete" + UUID.randomUUID().toString() + ".csv")
+            .build();
+        String quotedRowId = "x' OR '1'='1";
+
+        try {
+            bigQueryPdao.createDataset(dataset);
+            storage.create(rowIdBlob, (UUID.randomUUID() + "\n" + UUID.randomUUID() + "\n").getBytes());
+            DataDeletionGcsFileModel sharedFile = new DataDeletionGcsFileModel()
+                .fileType(DataDeletionGcsFileModel.FileTypeEnum.CSV)
+                .path(gsPath(rowIdBlob));
+            List<DataDeletionTableModel> tables = Arrays.asList(
+                new DataDeletionTableModel().tableName("participant").gcsFileSpec(sharedFile),
+                new DataDeletionTableModel().tableName("sample").gcsFileSpec(sharedFile),
+                new DataDeletionTableModel().tableName("file").jsonArraySpec(
+                    new DataDeletionJsonArrayModel().rowIds(Arrays.asList(UUID.randomUUID().toString(), quotedRowId))));
+            bigQueryPdao.loadSoftDeleteStagingTables(dataset, tables, suffix);
+
+            BigQueryProject bigQueryProject = TestUtils.bigQueryProjectForDatasetName(datasetDao, dataset.getName());
+            for (String tableName : Arrays.asList("participant", "sample", "file")) {
+                String sql = String.format("SELECT COUNT(*) AS cnt FROM `%s.%s.%s%s_%s`",
+                    bigQueryProject.getProjectId(), bigQueryPdao.prefixName(dataset.getName()),
+                    PdaoConstant.PDAO_SOFT_DELETE_STAGING_TABLE_PREFIX, tableName, suffix);
+                long count = bigQueryProject.query(sql).iterateAll().iterator().next().get("cnt").getLongValue();
+                assertThat("staging table " + tableName + " has both row ids", count, equalTo(2L));
+            }
+        } finally {
+            storage.delete(rowIdBlob.getBlobId());
+            bigQueryPdao.deleteDataset(dataset);
+            datasetDao.delete(dataset.getId());
+        }
+    }
 }